@@ -65,6 +65,7 @@ kotlin {
             dependencies {
                 implementation(kotlin("stdlib"))
                 compileOnly("org.quickfixj:quickfixj-all:2.3.1")
+                compileOnly("org.apache.kafka:kafka-clients:3.9.1")
             }
         }
         
@@ -0,0 +1,416 @@
+package com.fbg.api.kalshi
+
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.buildJsonArray
+import kotlinx.serialization.json.buildJsonObject
+import kotlinx.serialization.json.intOrNull
+import kotlinx.serialization.json.longOrNull
+import kotlinx.serialization.json.put
+
+/**
+ * Wire formats for market data records, negotiated through a Kafka record header
+ */
+object MarketDataFormat {
+    /**
+     * Record header naming the encoding of the record value
+     */
+    const val HEADER = "content-format"
+
+    /**
+     * JSON MarketDataEnvelope; also assumed when the header is missing and the value is not binary
+     */
+    const val JSON = "json"
+
+    /**
+     * MarketDataBinaryCodec, schema version 1
+     */
+    const val BINARY_V1 = "kmd-v1"
+
+    /**
+     * Serializer config key selecting JSON or BINARY_V1
+     */
+    const val CONFIG = "market-data.format"
+}
+
+/**
+ * A market data record decoded into primitives.
+ *
+ * Levels are flattened price, quantity pairs: [price0, qty0, price1, qty1, ...]. Exactly one body
+ * is set, according to kind: levels for a snapshot, side/price/delta for a delta, payloadJson otherwise.
+ */
+class MarketDataRecord(
+    val kind: Int,
+    val receivedTimestamp: Long,
+    val publishedTimestamp: Long,
+    val channel: String?,
+    val marketTicker: String?,
+    val sequence: Long?,
+    val sid: Long?,
+    val source: String,
+    val version: Int,
+    val yesLevels: IntArray? = null,
+    val noLevels: IntArray? = null,
+    val side: String? = null,
+    val price: Int = 0,
+    val delta: Int = 0,
+    val payloadJson: String? = null
+) {
+    fun isOrderBookSnapshot(): Boolean = kind == MarketDataBinaryCodec.KIND_SNAPSHOT
+
+    fun isOrderBookDelta(): Boolean = kind == MarketDataBinaryCodec.KIND_DELTA
+
+    /**
+     * Envelope view; order book bodies are rebuilt in the Kalshi frame shape
+     * {"type", "sid", "seq", "msg": {"market_ticker", ...}}
+     */
+    fun toEnvelope(): MarketDataEnvelope = MarketDataEnvelope(
+        payload = payload(),
+        receivedTimestamp = receivedTimestamp,
+        publishedTimestamp = publishedTimestamp,
+        channel = channel,
+        marketTicker = marketTicker,
+        sequence = sequence,
+        source = source,
+        version = version
+    )
+
+    private fun payload(): JsonElement {
+        if (kind == MarketDataBinaryCodec.KIND_JSON) {
+            return Json.parseToJsonElement(payloadJson ?: "null")
+        }
+        return buildJsonObject {
+            put("type", channel)
+            sid?.let { put("sid", it) }
+            sequence?.let { put("seq", it) }
+            put("msg", buildJsonObject {
+                put("market_ticker", marketTicker)
+                if (kind == MarketDataBinaryCodec.KIND_SNAPSHOT) {
+                    put("yes", levelsJson(yesLevels))
+                    put("no", levelsJson(noLevels))
+                } else {
+                    put("price", price)
+                    put("delta", delta)
+                    put("side", side)
+                }
+            })
+        }
+    }
+
+    private fun levelsJson(levels: IntArray?): JsonArray = buildJsonArray {
+        if (levels != null) {
+            for (i in 0 until levels.size / 2) {
+                add(buildJsonArray {
+                    add(JsonPrimitive(levels[2 * i]))
+                    add(JsonPrimitive(levels[2 * i + 1]))
+                })
+            }
+        }
+    }
+}
+
+/**
+ * Compact, versioned binary encoding for market data envelopes, order book snapshots and deltas.
+ *
+ * Schema version 1, field by field (varint = unsigned LEB128, zigzag = zig-zag varint,
+ * string = varint length + UTF-8 bytes):
+ *
+ *   byte     magic 0xB7
+ *   byte     schema version (1)
+ *   byte     kind: 0 = JSON payload, 1 = orderbook_snapshot, 2 = orderbook_delta
+ *   byte     presence flags: 1 channel, 2 marketTicker, 4 sequence, 8 sid, 16 source
+ *   zigzag   receivedTimestamp
+ *   zigzag   publishedTimestamp - receivedTimestamp
+ *   [varint  channel: index into KNOWN_CHANNELS + 1, or 0 followed by a string]
+ *   [string  marketTicker]
+ *   [zigzag  sequence]
+ *   [zigzag  sid]
+ *   [string  source, when not "kalshi-websocket"]
+ *   varint   envelope version
+ *   body:
+ *     JSON      string  payload JSON text
+ *     snapshot  YES then NO side: varint level count, then per level zigzag price
+ *               (first level absolute, later levels relative to the previous one) and zigzag quantity
+ *     delta     byte side (0 = yes, 1 = no), zigzag price, zigzag delta
+ *
+ * Order book payloads are encoded from their fields only; decoding rebuilds them in the Kalshi
+ * frame shape, so fields other than the ticker, levels, side, price and delta are not carried.
+ * Records are self-contained: tickers are written inline and the TickerDictionary only saves
+ * re-encoding and re-allocating them, so a consumer can start at any offset.
+ *
+ * A codec is safe to share between threads.
+ */
+class MarketDataBinaryCodec(private val tickers: TickerDictionary = TickerDictionary()) {
+
+    companion object {
+        const val MAGIC = 0xB7
+        const val SCHEMA_VERSION = 1
+
+        const val KIND_JSON = 0
+        const val KIND_SNAPSHOT = 1
+        const val KIND_DELTA = 2
+
+        private const val HAS_CHANNEL = 1
+        private const val HAS_TICKER = 2
+        private const val HAS_SEQUENCE = 4
+        private const val HAS_SID = 8
+        private const val HAS_SOURCE = 16
+
+        private const val DEFAULT_SOURCE = "kalshi-websocket"
+
+        private val KNOWN_CHANNELS = listOf(
+            "orderbook_snapshot", "orderbook_delta", "ticker", "ticker_v2", "trade", "fill", "market_lifecycle"
+        )
+
+        private val json = Json { encodeDefaults = true }
+
+        /**
+         * True if the bytes start with the binary magic and a supported schema version
+         */
+        fun isBinary(bytes: ByteArray?): Boolean =
+            bytes != null && bytes.size >= 4 &&
+                (bytes[0].toInt() and 0xFF) == MAGIC && bytes[1].toInt() == SCHEMA_VERSION
+    }
+
+    /**
+     * Encode an envelope; order book payloads with a ticker are encoded structurally, anything else as JSON text
+     */
+    fun encode(envelope: MarketDataEnvelope): ByteArray {
+        val payload = envelope.payload as? JsonObject
+        val channel = envelope.channel ?: payload?.string("channel") ?: payload?.string("type")
+        val body = (payload?.get("msg") ?: payload?.get("data")) as? JsonObject
+        val ticker = envelope.marketTicker ?: payload?.string("market_ticker") ?: body?.string("market_ticker")
+        val sid = payload?.long("sid")
+        val sequence = envelope.sequence ?: payload?.long("seq")
+
+        if (body != null && ticker != null) {
+            if (channel == "orderbook_snapshot") {
+                return encodeSnapshot(envelope.receivedTimestamp, envelope.publishedTimestamp, channel, ticker,
+                    sequence, sid, levels(body["yes"]), levels(body["no"]),
+                    envelope.source, envelope.version)
+            }
+            val side = body.string("side")
+            val price = body.int("price")
+            val delta = body.int("delta")
+            if (channel == "orderbook_delta" && (side == "yes" || side == "no") && price != null && delta != null) {
+                return encodeDelta(envelope.receivedTimestamp, envelope.publishedTimestamp, channel, ticker,
+                    sequence, sid, side, price, delta, envelope.source, envelope.version)
+            }
+        }
+        return encodeJson(envelope.receivedTimestamp, envelope.publishedTimestamp, channel, ticker,
+            envelope.sequence, envelope.payload.toString(), envelope.source, envelope.version)
+    }
+
+    fun encodeSnapshot(
+        receivedTimestamp: Long, publishedTimestamp: Long, channel: String?, marketTicker: String?,
+        sequence: Long?, sid: Long?, yesLevels: IntArray?, noLevels: IntArray?,
+        source: String = DEFAULT_SOURCE, version: Int = 1
+    ): ByteArray {
+        val size = 48 + 6 * ((yesLevels?.size ?: 0) + (noLevels?.size ?: 0))
+        val out = WireWriter(size)
+        writeHeader(out, KIND_SNAPSHOT, receivedTimestamp, publishedTimestamp, channel, marketTicker,
+            sequence, sid, source, version)
+        writeLevels(out, yesLevels)
+        writeLevels(out, noLevels)
+        return out.toByteArray()
+    }
+
+    fun encodeDelta(
+        receivedTimestamp: Long, publishedTimestamp: Long, channel: String?, marketTicker: String?,
+        sequence: Long?, sid: Long?, side: String, price: Int, delta: Int,
+        source: String = DEFAULT_SOURCE, version: Int = 1
+    ): ByteArray {
+        require(side == "yes" || side == "no") { "Unknown order book side: $side" }
+        val out = WireWriter(48)
+        writeHeader(out, KIND_DELTA, receivedTimestamp, publishedTimestamp, channel, marketTicker,
+            sequence, sid, source, version)
+        out.byte(if (side == "yes") 0 else 1)
+        out.zigZag(price.toLong())
+        out.zigZag(delta.toLong())
+        return out.toByteArray()
+    }
+
+    fun encodeJson(
+        receivedTimestamp: Long, publishedTimestamp: Long, channel: String?, marketTicker: String?,
+        sequence: Long?, payloadJson: String,
+        source: String = DEFAULT_SOURCE, version: Int = 1
+    ): ByteArray {
+        val out = WireWriter(48 + payloadJson.length)
+        writeHeader(out, KIND_JSON, receivedTimestamp, publishedTimestamp, channel, marketTicker,
+            sequence, null, source, version)
+        out.string(payloadJson)
+        return out.toByteArray()
+    }
+
+    /**
+     * Decode into primitives without building a JSON tree
+     *
+     * @throws IllegalArgumentException if the bytes are not a supported binary record
+     */
+    fun decodeRecord(bytes: ByteArray): MarketDataRecord {
+        val input = WireReader(bytes)
+        require(input.byte() == MAGIC) { "Not a binary market data record" }
+        val schemaVersion = input.byte()
+        require(schemaVersion == SCHEMA_VERSION) { "Unsupported market data schema version: $schemaVersion" }
+
+        val kind = input.byte()
+        val flags = input.byte()
+        val receivedTimestamp = input.zigZag()
+        val publishedTimestamp = receivedTimestamp + input.zigZag()
+        val channel = if (flags and HAS_CHANNEL != 0) readChannel(input) else null
+        val ticker = if (flags and HAS_TICKER != 0) input.ticker(tickers) else null
+        val sequence = if (flags and HAS_SEQUENCE != 0) input.zigZag() else null
+        val sid = if (flags and HAS_SID != 0) input.zigZag() else null
+        val source = if (flags and HAS_SOURCE != 0) input.string() else DEFAULT_SOURCE
+        val version = input.varLong().toInt()
+
+        return when (kind) {
+            KIND_SNAPSHOT -> MarketDataRecord(kind, receivedTimestamp, publishedTimestamp, channel, ticker,
+                sequence, sid, source, version, yesLevels = readLevels(input), noLevels = readLevels(input))
+            KIND_DELTA -> MarketDataRecord(kind, receivedTimestamp, publishedTimestamp, channel, ticker,
+                sequence, sid, source, version,
+                side = if (input.byte() == 0) "yes" else "no", price = input.zigZagInt(), delta = input.zigZagInt())
+            KIND_JSON -> MarketDataRecord(kind, receivedTimestamp, publishedTimestamp, channel, ticker,
+                sequence, sid, source, version, payloadJson = input.string())
+            else -> throw IllegalArgumentException("Unknown market data record kind: $kind")
+        }
+    }
+
+    fun decode(bytes: ByteArray): MarketDataEnvelope = decodeRecord(bytes).toEnvelope()
+
+    /**
+     * JSON envelope for a binary record, for consumers that only speak JSON
+     */
+    fun transcodeToJson(bytes: ByteArray): String =
+        json.encodeToString(MarketDataEnvelope.serializer(), decode(bytes))
+
+    /**
+     * Encode a full order book snapshot on its own, without envelope timestamps
+     */
+    fun encodeSnapshot(snapshot: OrderBookSnapshot): ByteArray =
+        encodeSnapshot(0, 0, "orderbook_snapshot", snapshot.marketTicker, null, null,
+            pairs(snapshot.yes), pairs(snapshot.no))
+
+    fun decodeSnapshot(bytes: ByteArray): OrderBookSnapshot {
+        val record = decodeRecord(bytes)
+        require(record.isOrderBookSnapshot()) { "Not an order book snapshot record" }
+        return OrderBookSnapshot(record.marketTicker ?: "", lists(record.yesLevels), lists(record.noLevels))
+    }
+
+    /**
+     * Encode an order book delta on its own, without envelope timestamps
+     */
+    fun encodeDelta(delta: OrderBookDelta): ByteArray =
+        encodeDelta(0, 0, "orderbook_delta", delta.marketTicker, null, null, delta.side, delta.price, delta.delta)
+
+    fun decodeDelta(bytes: ByteArray): OrderBookDelta {
+        val record = decodeRecord(bytes)
+        require(record.isOrderBookDelta()) { "Not an order book delta record" }
+        return OrderBookDelta(record.marketTicker ?: "", record.price, record.delta, record.side ?: "yes")
+    }
+
+    private fun writeHeader(
+        out: WireWriter, kind: Int, receivedTimestamp: Long, publishedTimestamp: Long, channel: String?,
+        marketTicker: String?, sequence: Long?, sid: Long?, source: String, version: Int
+    ) {
+        var flags = 0
+        if (channel != null) flags = flags or HAS_CHANNEL
+        if (marketTicker != null) flags = flags or HAS_TICKER
+        if (sequence != null) flags = flags or HAS_SEQUENCE
+        if (sid != null) flags = flags or HAS_SID
+        if (source != DEFAULT_SOURCE) flags = flags or HAS_SOURCE
+
+        out.byte(MAGIC)
+        out.byte(SCHEMA_VERSION)
+        out.byte(kind)
+        out.byte(flags)
+        out.zigZag(receivedTimestamp)
+        out.zigZag(publishedTimestamp - receivedTimestamp)
+        if (channel != null) {
+            val known = KNOWN_CHANNELS.indexOf(channel)
+            out.varLong((known + 1).toLong())
+            if (known < 0) {
+                out.string(channel)
+            }
+        }
+        if (marketTicker != null) out.bytes(tickers.bytesOf(marketTicker))
+        if (sequence != null) out.zigZag(sequence)
+        if (sid != null) out.zigZag(sid)
+        if (source != DEFAULT_SOURCE) out.string(source)
+        out.varLong(version.toLong())
+    }
+
+    private fun readChannel(input: WireReader): String {
+        val code = input.varLong().toInt()
+        if (code == 0) {
+            return input.string()
+        }
+        require(code <= KNOWN_CHANNELS.size) { "Unknown channel code: $code" }
+        return KNOWN_CHANNELS[code - 1]
+    }
+
+    private fun writeLevels(out: WireWriter, levels: IntArray?) {
+        val count = (levels?.size ?: 0) / 2
+        out.varLong(count.toLong())
+        var previous = 0
+        for (i in 0 until count) {
+            val price = levels!![2 * i]
+            out.zigZag((price - previous).toLong())
+            out.zigZag(levels[2 * i + 1].toLong())
+            previous = price
+        }
+    }
+
+    private fun readLevels(input: WireReader): IntArray {
+        val count = input.varLong()
+        require(count >= 0 && count <= Int.MAX_VALUE / 2) { "Malformed level count: $count" }
+        val levels = IntArray(count.toInt() * 2)
+        var price = 0
+        for (i in 0 until count.toInt()) {
+            price += input.zigZagInt()
+            levels[2 * i] = price
+            levels[2 * i + 1] = input.zigZagInt()
+        }
+        return levels
+    }
+
+    private fun levels(side: JsonElement?): IntArray? {
+        val levels = side as? JsonArray ?: return null
+        val pairs = IntArray(levels.size * 2)
+        var size = 0
+        for (level in levels) {
+            val values = level as? JsonArray ?: continue
+            val price = (values.getOrNull(0) as? JsonPrimitive)?.intOrNull
+            val quantity = (values.getOrNull(1) as? JsonPrimitive)?.intOrNull
+            if (price != null && quantity != null) {
+                pairs[size++] = price
+                pairs[size++] = quantity
+            }
+        }
+        return if (size == pairs.size) pairs else pairs.copyOf(size)
+    }
+
+    private fun pairs(levels: List<List<Int>>): IntArray {
+        val pairs = IntArray(levels.size * 2)
+        var size = 0
+        for (level in levels) {
+            if (level.size >= 2) {
+                pairs[size++] = level[0]
+                pairs[size++] = level[1]
+            }
+        }
+        return if (size == pairs.size) pairs else pairs.copyOf(size)
+    }
+
+    private fun lists(levels: IntArray?): List<List<Int>> =
+        if (levels == null) emptyList() else List(levels.size / 2) { listOf(levels[2 * it], levels[2 * it + 1]) }
+
+    private fun JsonObject.string(key: String): String? = (this[key] as? JsonPrimitive)?.takeIf { it.isString }?.content
+
+    private fun JsonObject.int(key: String): Int? = (this[key] as? JsonPrimitive)?.intOrNull
+
+    private fun JsonObject.long(key: String): Long? = (this[key] as? JsonPrimitive)?.longOrNull
+}
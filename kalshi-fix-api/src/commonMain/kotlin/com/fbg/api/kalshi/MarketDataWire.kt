@@ -0,0 +1,173 @@
+package com.fbg.api.kalshi
+
+/**
+ * Growable byte buffer writing the primitives of the market data binary format:
+ * unsigned LEB128 varints, zig-zag varints for signed values and length-prefixed bytes
+ */
+internal class WireWriter(initialCapacity: Int = 128) {
+    private var buf = ByteArray(initialCapacity)
+    private var pos = 0
+
+    fun byte(value: Int) {
+        ensure(1)
+        buf[pos++] = value.toByte()
+    }
+
+    fun varLong(value: Long) {
+        ensure(10)
+        var v = value
+        while (v and 0x7FL.inv() != 0L) {
+            buf[pos++] = ((v and 0x7F) or 0x80).toByte()
+            v = v ushr 7
+        }
+        buf[pos++] = v.toByte()
+    }
+
+    fun zigZag(value: Long) = varLong((value shl 1) xor (value shr 63))
+
+    fun bytes(value: ByteArray) {
+        varLong(value.size.toLong())
+        ensure(value.size)
+        value.copyInto(buf, pos)
+        pos += value.size
+    }
+
+    fun string(value: String) = bytes(value.encodeToByteArray())
+
+    fun toByteArray(): ByteArray = buf.copyOf(pos)
+
+    private fun ensure(extra: Int) {
+        if (pos + extra > buf.size) {
+            buf = buf.copyOf(maxOf(buf.size * 2, pos + extra))
+        }
+    }
+}
+
+/**
+ * Reader for WireWriter output; malformed input raises IllegalArgumentException
+ */
+internal class WireReader(private val buf: ByteArray) {
+    var pos = 0
+        private set
+
+    fun byte(): Int {
+        require(pos < buf.size) { "Truncated market data record" }
+        return buf[pos++].toInt() and 0xFF
+    }
+
+    fun varLong(): Long {
+        var result = 0L
+        var shift = 0
+        while (shift < 64) {
+            val b = byte()
+            result = result or ((b and 0x7F).toLong() shl shift)
+            if (b and 0x80 == 0) {
+                return result
+            }
+            shift += 7
+        }
+        throw IllegalArgumentException("Malformed varint in market data record")
+    }
+
+    fun zigZag(): Long {
+        val v = varLong()
+        return (v ushr 1) xor -(v and 1)
+    }
+
+    fun zigZagInt(): Int = zigZag().toInt()
+
+    fun length(): Int {
+        val length = varLong()
+        require(length >= 0 && length <= buf.size - pos) { "Truncated market data record" }
+        return length.toInt()
+    }
+
+    fun string(): String {
+        val length = length()
+        val value = buf.decodeToString(pos, pos + length)
+        pos += length
+        return value
+    }
+
+    fun ticker(dictionary: TickerDictionary): String {
+        val length = length()
+        val value = dictionary.intern(buf, pos, length)
+        pos += length
+        return value
+    }
+}
+
+/**
+ * Interned market tickers shared by an encoder and decoder.
+ *
+ * Tickers repeat on every record, so the encoder reuses their UTF-8 bytes and the decoder returns
+ * the same String instance for the same bytes instead of allocating one per record. Both tables
+ * are direct-mapped and bounded: a colliding ticker replaces the cached one. Entries are immutable,
+ * so concurrent callers at worst miss the cache.
+ */
+class TickerDictionary(slots: Int = 16384) {
+
+    private class Entry(val ticker: String, val bytes: ByteArray, val hash: Int)
+
+    private val mask = tableSize(slots) - 1
+    private val byTicker = arrayOfNulls<Entry>(mask + 1)
+    private val byBytes = arrayOfNulls<Entry>(mask + 1)
+
+    /**
+     * UTF-8 bytes of a ticker
+     */
+    fun bytesOf(ticker: String): ByteArray {
+        val slot = ticker.hashCode() and mask
+        val cached = byTicker[slot]
+        if (cached != null && cached.ticker == ticker) {
+            return cached.bytes
+        }
+        val bytes = ticker.encodeToByteArray()
+        byTicker[slot] = Entry(ticker, bytes, contentHash(bytes, 0, bytes.size))
+        return bytes
+    }
+
+    /**
+     * Ticker for the UTF-8 bytes at buf[offset, offset + length)
+     */
+    fun intern(buf: ByteArray, offset: Int, length: Int): String {
+        val hash = contentHash(buf, offset, length)
+        val slot = hash and mask
+        val cached = byBytes[slot]
+        if (cached != null && cached.hash == hash && sameBytes(cached.bytes, buf, offset, length)) {
+            return cached.ticker
+        }
+        val bytes = buf.copyOfRange(offset, offset + length)
+        val entry = Entry(bytes.decodeToString(), bytes, hash)
+        byBytes[slot] = entry
+        return entry.ticker
+    }
+
+    private fun tableSize(slots: Int): Int {
+        var size = 16
+        while (size < slots) {
+            size = size shl 1
+        }
+        return size
+    }
+
+    private fun contentHash(buf: ByteArray, offset: Int, length: Int): Int {
+        var hash = 1
+        for (i in offset until offset + length) {
+            hash = 31 * hash + buf[i]
+        }
+        return hash xor (hash ushr 16)
+    }
+
+    private fun sameBytes(bytes: ByteArray, buf: ByteArray, offset: Int, length: Int): Boolean {
+        if (bytes.size != length) {
+            return false
+        }
+        for (i in 0 until length) {
+            if (bytes[i] != buf[offset + i]) {
+                return false
+            }
+        }
+        return true
+    }
+}
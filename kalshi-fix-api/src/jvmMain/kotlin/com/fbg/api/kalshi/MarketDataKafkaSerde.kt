@@ -0,0 +1,84 @@
+package com.fbg.api.kalshi
+
+import kotlinx.serialization.json.Json
+import org.apache.kafka.common.header.Headers
+import org.apache.kafka.common.serialization.Deserializer
+import org.apache.kafka.common.serialization.Serializer
+
+private val envelopeJson = Json {
+    ignoreUnknownKeys = true
+    encodeDefaults = true
+}
+
+/**
+ * Kafka serializer for MarketDataEnvelope.
+ *
+ * Writes MarketDataBinaryCodec records by default, or JSON when configured with
+ * market-data.format=json, and stamps the format in the content-format header.
+ */
+class MarketDataEnvelopeSerializer(
+    private var format: String = MarketDataFormat.BINARY_V1,
+    private val codec: MarketDataBinaryCodec = MarketDataBinaryCodec()
+) : Serializer<MarketDataEnvelope> {
+
+    override fun configure(configs: MutableMap<String, *>, isKey: Boolean) {
+        (configs[MarketDataFormat.CONFIG] as? String)?.let { format = it }
+        require(format == MarketDataFormat.BINARY_V1 || format == MarketDataFormat.JSON) {
+            "Unsupported ${MarketDataFormat.CONFIG}: $format"
+        }
+    }
+
+    override fun serialize(topic: String?, data: MarketDataEnvelope?): ByteArray? = serialize(topic, null, data)
+
+    override fun serialize(topic: String?, headers: Headers?, data: MarketDataEnvelope?): ByteArray? {
+        if (data == null) {
+            return null
+        }
+        headers?.remove(MarketDataFormat.HEADER)
+        headers?.add(MarketDataFormat.HEADER, format.encodeToByteArray())
+        return if (format == MarketDataFormat.BINARY_V1) {
+            codec.encode(data)
+        } else {
+            envelopeJson.encodeToString(MarketDataEnvelope.serializer(), data).encodeToByteArray()
+        }
+    }
+}
+
+/**
+ * Kafka deserializer for MarketDataEnvelope.
+ *
+ * Picks the decoder from the content-format header. Records without the header, e.g. from older
+ * producers, are decoded as binary if they start with the binary magic and as JSON otherwise.
+ */
+class MarketDataEnvelopeDeserializer(
+    private val codec: MarketDataBinaryCodec = MarketDataBinaryCodec()
+) : Deserializer<MarketDataEnvelope> {
+
+    override fun deserialize(topic: String?, data: ByteArray?): MarketDataEnvelope? = deserialize(topic, null, data)
+
+    override fun deserialize(topic: String?, headers: Headers?, data: ByteArray?): MarketDataEnvelope? {
+        if (data == null) {
+            return null
+        }
+        return if (isBinary(headers, data)) {
+            codec.decode(data)
+        } else {
+            envelopeJson.decodeFromString(MarketDataEnvelope.serializer(), data.decodeToString())
+        }
+    }
+
+    companion object {
+        /**
+         * True if a record value is a MarketDataBinaryCodec record, by header or, failing that, by its leading bytes
+         */
+        @JvmStatic
+        fun isBinary(headers: Headers?, data: ByteArray?): Boolean {
+            val header = headers?.lastHeader(MarketDataFormat.HEADER)?.value()?.decodeToString()
+            return when (header) {
+                MarketDataFormat.BINARY_V1 -> true
+                null -> MarketDataBinaryCodec.isBinary(data)
+                else -> false
+            }
+        }
+    }
+}
@@ -1,16 +1,26 @@
 package com.kalshi.marketdata.config;
 
+import com.fbg.api.kalshi.MarketDataFormat;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -18,12 +28,32 @@ import java.util.Map;
 @Configuration
 public class KafkaConfig {
     
+    // Record headers stamped on market data by the producer, so consumers can route without parsing the value
+    public static final String HEADER_CHANNEL = "channel";
+    public static final String HEADER_MARKET_TICKER = "market_ticker";
+    public static final String HEADER_SEQUENCE = "seq";
+    // Encoding of the record value, MarketDataFormat.JSON or MarketDataFormat.BINARY_V1
+    public static final String HEADER_FORMAT = MarketDataFormat.HEADER;
+    
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
     
     @Value("${kafka.topic.market-data}")
     private String marketDataTopic;
     
+    @Value("${kafka.topic.market-data-snapshots:market-data-snapshots}")
+    private String snapshotTopic;
+    
+    @Value("${kafka.relay.max-poll-records:500}")
+    private int relayMaxPollRecords;
+
+    // A batch the relay throws back (Redis unavailable) is retried this often, this many times
+    @Value("${kafka.relay.retry-interval-ms:1000}")
+    private long relayRetryIntervalMs;
+
+    @Value("${kafka.relay.retry-max-attempts:60}")
+    private long relayRetryMaxAttempts;
+    
     @Bean
     public KafkaAdmin kafkaAdmin() {
         Map<String, Object> configs = new HashMap<>();
@@ -36,21 +66,64 @@ public class KafkaConfig {
         return new NewTopic(marketDataTopic, 3, (short) 1);
     }
     
+    /**
+     * Latest full book per market, keyed by ticker; compaction keeps only the newest snapshot of each
+     */
+    @Bean
+    public NewTopic marketDataSnapshotTopic() {
+        return new NewTopic(snapshotTopic, 3, (short) 1)
+                .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
+    }
+    
     @Bean
     public ProducerFactory<String, String> producerFactory() {
+        Map<String, Object> configProps = producerProps();
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+    
+    @Bean
+    public KafkaTemplate<String, String> kafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+    
+    /**
+     * Template for binary-encoded market data (kafka.market-data.format=binary)
+     */
+    @Bean
+    public KafkaTemplate<String, byte[]> binaryKafkaTemplate() {
+        Map<String, Object> configProps = producerProps();
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configProps));
+    }
+    
+    private Map<String, Object> producerProps() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy");
         configProps.put(ProducerConfig.LINGER_MS_CONFIG, 10);
         configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 32768);
         configProps.put(ProducerConfig.ACKS_CONFIG, "1");
-        return new DefaultKafkaProducerFactory<>(configProps);
+        return configProps;
     }
     
+    /**
+     * Batch listener factory for the Redis relay; values stay raw bytes so they are forwarded as-is.
+     * A batch the listener throws back is retried on a fixed back-off before its offsets move on.
+     */
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> relayListenerContainerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, relayMaxPollRecords);
+        
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(configProps));
+        factory.setBatchListener(true);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(relayRetryIntervalMs, relayRetryMaxAttempts)));
+        return factory;
     }
-}
\ No newline at end of file
+}
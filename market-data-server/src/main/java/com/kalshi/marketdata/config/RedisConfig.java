@@ -9,6 +9,14 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @Configuration
 public class RedisConfig {
     
+    // redis.transport value that relays market data through Redis streams instead of pub/sub
+    public static final String TRANSPORT_STREAMS = "streams";
+    
+    // Stream keys mirror the pub/sub channel names: market-data-stream:<ticker>:<channel> and
+    // market-data-stream:all; each entry holds the message in one field
+    public static final String STREAM_KEY_PREFIX = "market-data-stream:";
+    public static final String STREAM_FIELD = "d";
+    
     @Bean
     public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, String> template = new RedisTemplate<>();
@@ -0,0 +1,19 @@
+package com.kalshi.marketdata.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * A market's order book missed deltas and needs a fresh snapshot from upstream
+ */
+public class MarketResyncRequestEvent extends ApplicationEvent {
+    private final String marketTicker;
+    
+    public MarketResyncRequestEvent(Object source, String marketTicker) {
+        super(source);
+        this.marketTicker = marketTicker;
+    }
+    
+    public String getMarketTicker() {
+        return marketTicker;
+    }
+}
@@ -0,0 +1,22 @@
+package com.kalshi.marketdata.event;
+
+import com.kalshi.marketdata.model.MarketInfo;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Markets listed by the upstream exchange, published on every discovery run
+ */
+public class MarketsDiscoveredEvent extends ApplicationEvent {
+    private final List<MarketInfo> markets;
+    
+    public MarketsDiscoveredEvent(Object source, List<MarketInfo> markets) {
+        super(source);
+        this.markets = markets;
+    }
+    
+    public List<MarketInfo> getMarkets() {
+        return markets;
+    }
+}
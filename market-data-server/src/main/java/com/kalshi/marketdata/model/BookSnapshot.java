@@ -0,0 +1,39 @@
+package com.kalshi.marketdata.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Full order book of one market as published to the compacted snapshot topic, keyed by market ticker.
+ *
+ * The book is exact as of offset on the given partition of the market data topic: every record for
+ * the market up to and including that offset is reflected, none after it. Consumers load the latest
+ * snapshot per market and replay only the records that follow it.
+ *
+ * Levels are flattened price, quantity pairs: [price0, qty0, price1, qty1, ...].
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSnapshot {
+
+    private String marketTicker;
+    private int partition;
+    private long offset;
+    private Long sequence;
+    private long timestamp;
+    private int[] yesLevels;
+    private int[] noLevels;
+
+    /**
+     * Legacy price -> quantity view, as loaded into OrderBookManager during bootstrap
+     */
+    public OrderBookState toOrderBookState() {
+        OrderBookState state = new OrderBookState();
+        state.setMarketTicker(marketTicker);
+        state.applySnapshot(yesLevels, noLevels, sequence);
+        state.setSourcePartition(partition);
+        return state;
+    }
+}
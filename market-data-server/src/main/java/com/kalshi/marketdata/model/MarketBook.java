@@ -0,0 +1,427 @@
+package com.kalshi.marketdata.model;
+
+import com.fbg.api.kalshi.InternalOrderBook;
+import com.fbg.api.kalshi.InternalOrderBookBuilder;
+import com.fbg.api.kalshi.UpdateType;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Order book of one market held in primitive arrays indexed by price.
+ *
+ * Key features:
+ * - YES and NO bid quantities live in int slots indexed by price in cents (1-99), so a delta
+ *   is a single array write and no level objects are allocated
+ * - A running 64-bit content hash covers every non-empty level and is updated in O(1) per delta,
+ *   so an incoming snapshot is deduplicated by comparing hashes
+ * - Per-level update time and update type are kept for the admin view, which builds an
+ *   InternalOrderBook on demand; OrderBookState views are built the same way
+ * - Seqs are Kalshi's per-subscription counters, so the book remembers which sid its last seq
+ *   came from and only compares seqs within that sid
+ * - A gap on the book's subscription marks the book stale; later deltas are buffered until a
+ *   snapshot arrives to splice them onto
+ *
+ * Not thread-safe: callers synchronize on the book. Levels priced outside 1-99 are ignored.
+ */
+public class MarketBook {
+
+    public static final int MIN_PRICE = 1;
+    public static final int MAX_PRICE = 99;
+
+    private static final int YES = 0;
+    private static final int NO = 1;
+    private static final UpdateType[] UPDATE_TYPES = UpdateType.values();
+
+    private final String marketTicker;
+
+    // [side][price] -> quantity, last update time and UpdateType ordinal
+    private final int[][] quantities = new int[2][MAX_PRICE + 1];
+    private final long[][] updatedAt = new long[2][MAX_PRICE + 1];
+    private final byte[][] updateTypes = new byte[2][MAX_PRICE + 1];
+
+    private long contentHash;
+    private Long lastSequence;
+    // Subscription lastSequence was counted on, if known
+    private Long sid;
+    private long lastUpdateTimestamp;
+    private long receivedTimestamp;
+
+    // Snapshot topic bookkeeping: published records not yet acknowledged by Kafka, the
+    // market data partition the market's records land on, and whether it changed since
+    // the last snapshot
+    private int pendingPublishes;
+    private int partition = -1;
+    private boolean snapshotDirty;
+    private long lastSnapshotTimestamp;
+
+    // Gap recovery: when the book went stale and the deltas received since, in seq order
+    private boolean stale;
+    private long staleSince;
+    private ArrayDeque<UpstreamFrame> bufferedDeltas;
+
+    public MarketBook(String marketTicker) {
+        this.marketTicker = marketTicker;
+    }
+
+    /**
+     * Replace the book with a snapshot given as flattened price, quantity pairs (either side may be null)
+     */
+    public void applySnapshot(int[] yesLevels, int[] noLevels, Long sequence, long receivedTimestamp) {
+        long now = System.currentTimeMillis();
+        for (int[] side : quantities) {
+            Arrays.fill(side, 0);
+        }
+        contentHash = 0;
+        putLevels(YES, yesLevels, now);
+        putLevels(NO, noLevels, now);
+        this.lastSequence = sequence;
+        this.lastUpdateTimestamp = now;
+        this.receivedTimestamp = receivedTimestamp;
+    }
+
+    /**
+     * @return true if the snapshot has exactly the levels currently in the book
+     */
+    public boolean matchesSnapshot(int[] yesLevels, int[] noLevels) {
+        return snapshotHash(yesLevels, noLevels) == contentHash;
+    }
+
+    /**
+     * Apply a delta; out-of-order deltas and deltas that change nothing are ignored.
+     *
+     * @return true if the book changed
+     */
+    public boolean applyDelta(String side, int price, int delta, Long sequence, long receivedTimestamp) {
+        if (lastSequence != null && sequence != null && sequence <= lastSequence) {
+            return false;
+        }
+        if (price < MIN_PRICE || price > MAX_PRICE) {
+            return false;
+        }
+
+        int s = "yes".equals(side) ? YES : NO;
+        int current = quantities[s][price];
+        int updated = Math.max(0, current + delta);
+        if (updated == current) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        contentHash ^= levelHash(s, price, current) ^ levelHash(s, price, updated);
+        quantities[s][price] = updated;
+        updatedAt[s][price] = now;
+        updateTypes[s][price] = (byte) (updated == 0 ? UpdateType.DELTA_REMOVE
+            : current == 0 ? UpdateType.DELTA_ADD : UpdateType.DELTA_MODIFY).ordinal();
+
+        this.lastSequence = sequence;
+        this.lastUpdateTimestamp = now;
+        this.receivedTimestamp = receivedTimestamp;
+        return true;
+    }
+
+    public String getMarketTicker() {
+        return marketTicker;
+    }
+
+    public Long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(Long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+
+    public Long getSid() {
+        return sid;
+    }
+
+    /**
+     * Take frames from a subscription; seqs of another sid do not compare with lastSequence,
+     * so switching sid forgets it
+     */
+    public void adoptSid(Long sid) {
+        if (sid != null && !sid.equals(this.sid)) {
+            this.sid = sid;
+            this.lastSequence = null;
+        }
+    }
+
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * @return true if a delta with this seq would skip deltas after the last applied one
+     */
+    public boolean isGap(Long sequence) {
+        return lastSequence != null && sequence != null && sequence > lastSequence + 1;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public long getStaleSince() {
+        return staleSince;
+    }
+
+    /**
+     * Stop applying deltas until a snapshot is spliced in; no-op if already stale
+     */
+    public void markStale(long now) {
+        if (!stale) {
+            stale = true;
+            staleSince = now;
+            bufferedDeltas = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Hold a delta for splicing, dropping the oldest one beyond maxBuffered
+     *
+     * @return false if a delta was dropped to make room
+     */
+    public boolean bufferDelta(UpstreamFrame delta, int maxBuffered) {
+        bufferedDeltas.addLast(delta);
+        if (bufferedDeltas.size() > maxBuffered) {
+            bufferedDeltas.removeFirst();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Take the buffered deltas, oldest first; the book stays stale until clearStale
+     */
+    public List<UpstreamFrame> drainBufferedDeltas() {
+        List<UpstreamFrame> deltas = bufferedDeltas != null ? List.copyOf(bufferedDeltas) : List.of();
+        if (bufferedDeltas != null) {
+            bufferedDeltas.clear();
+        }
+        return deltas;
+    }
+
+    public void clearStale() {
+        stale = false;
+        bufferedDeltas = null;
+    }
+
+    /**
+     * Flattened price, quantity pairs of the YES side, best price first
+     */
+    public int[] getYesLevels() {
+        return levels(YES);
+    }
+
+    /**
+     * Flattened price, quantity pairs of the NO side, best price first
+     */
+    public int[] getNoLevels() {
+        return levels(NO);
+    }
+
+    /**
+     * A change to this book is about to be published to the market data topic
+     */
+    public void publishStarted() {
+        pendingPublishes++;
+        snapshotDirty = true;
+    }
+
+    /**
+     * A publish finished; partition is -1 if it failed or is unknown
+     */
+    public void publishFinished(int partition) {
+        if (pendingPublishes > 0) {
+            pendingPublishes--;
+        }
+        if (partition >= 0) {
+            this.partition = partition;
+        }
+    }
+
+    /**
+     * @return true if every published change has been acknowledged and the partition is known,
+     *         so the book is exact as of the partition's latest acknowledged offset
+     */
+    public boolean isSettled() {
+        return pendingPublishes == 0 && partition >= 0;
+    }
+
+    public boolean isSnapshotDirty() {
+        return snapshotDirty;
+    }
+
+    public void setSnapshotDirty(boolean snapshotDirty) {
+        this.snapshotDirty = snapshotDirty;
+    }
+
+    public long getLastSnapshotTimestamp() {
+        return lastSnapshotTimestamp;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public void setPartition(int partition) {
+        this.partition = partition;
+    }
+
+    /**
+     * Snapshot of the book as of the given offset on its partition; clears the dirty flag
+     */
+    public BookSnapshot toSnapshot(long offset, long now) {
+        snapshotDirty = false;
+        lastSnapshotTimestamp = now;
+        return new BookSnapshot(marketTicker, partition, offset, lastSequence, now, levels(YES), levels(NO));
+    }
+
+    public int getYesQuantity(int price) {
+        return inRange(price) ? quantities[YES][price] : 0;
+    }
+
+    public int getNoQuantity(int price) {
+        return inRange(price) ? quantities[NO][price] : 0;
+    }
+
+    /**
+     * Load a book from bootstrap state
+     */
+    public static MarketBook fromOrderBookState(String marketTicker, OrderBookState state) {
+        MarketBook book = new MarketBook(marketTicker);
+        book.applySnapshot(toPairs(state.getYesBids()), toPairs(state.getNoBids()),
+            state.getLastSequence(), System.currentTimeMillis());
+        if (state.getLastUpdateTimestamp() != null) {
+            book.lastUpdateTimestamp = state.getLastUpdateTimestamp();
+        }
+        return book;
+    }
+
+    /**
+     * Legacy price -> quantity view of the book
+     */
+    public OrderBookState toOrderBookState() {
+        OrderBookState state = new OrderBookState();
+        state.setMarketTicker(marketTicker);
+        state.setLastSequence(lastSequence);
+        state.setLastUpdateTimestamp(lastUpdateTimestamp);
+        for (int price = MIN_PRICE; price <= MAX_PRICE; price++) {
+            if (quantities[YES][price] > 0) {
+                state.getYesBids().put(price, quantities[YES][price]);
+            }
+            if (quantities[NO][price] > 0) {
+                state.getNoBids().put(price, quantities[NO][price]);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Admin view with per-level timestamps
+     */
+    public InternalOrderBook toInternalOrderBook() {
+        InternalOrderBookBuilder builder = new InternalOrderBookBuilder(marketTicker, receivedTimestamp);
+        if (lastSequence != null) {
+            builder.setSequenceNumber(lastSequence);
+        }
+        for (int price = MIN_PRICE; price <= MAX_PRICE; price++) {
+            if (quantities[YES][price] > 0) {
+                builder.addYesLevel(price, quantities[YES][price], updatedAt[YES][price],
+                    UPDATE_TYPES[updateTypes[YES][price]]);
+            }
+            if (quantities[NO][price] > 0) {
+                builder.addNoLevel(price, quantities[NO][price], updatedAt[NO][price],
+                    UPDATE_TYPES[updateTypes[NO][price]]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Content hash of a snapshot. A snapshot that repeats a price hashes differently from the book, so it is
+     * treated as a change and applied.
+     */
+    static long snapshotHash(int[] yesLevels, int[] noLevels) {
+        return sideHash(YES, yesLevels) ^ sideHash(NO, noLevels);
+    }
+
+    private void putLevels(int side, int[] levels, long now) {
+        if (levels == null) {
+            return;
+        }
+        for (int i = 0; i + 1 < levels.length; i += 2) {
+            int price = levels[i];
+            int quantity = levels[i + 1];
+            if (inRange(price) && quantity > 0) {
+                // A repeated price replaces the earlier level
+                contentHash ^= levelHash(side, price, quantities[side][price]) ^ levelHash(side, price, quantity);
+                quantities[side][price] = quantity;
+                updatedAt[side][price] = now;
+                updateTypes[side][price] = (byte) UpdateType.SNAPSHOT.ordinal();
+            }
+        }
+    }
+
+    private int[] levels(int side) {
+        int count = 0;
+        for (int price = MIN_PRICE; price <= MAX_PRICE; price++) {
+            if (quantities[side][price] > 0) {
+                count++;
+            }
+        }
+        int[] pairs = new int[count * 2];
+        int i = 0;
+        for (int price = MAX_PRICE; price >= MIN_PRICE; price--) {
+            if (quantities[side][price] > 0) {
+                pairs[i++] = price;
+                pairs[i++] = quantities[side][price];
+            }
+        }
+        return pairs;
+    }
+
+    private static long sideHash(int side, int[] levels) {
+        if (levels == null) {
+            return 0;
+        }
+        long hash = 0;
+        for (int i = 0; i + 1 < levels.length; i += 2) {
+            if (inRange(levels[i]) && levels[i + 1] > 0) {
+                hash ^= levelHash(side, levels[i], levels[i + 1]);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Hash of one level; empty levels hash to 0 so they drop out of the XOR
+     */
+    private static long levelHash(int side, int price, int quantity) {
+        if (quantity == 0) {
+            return 0;
+        }
+        long z = ((long) side << 40 | (long) price << 32 | (quantity & 0xFFFFFFFFL)) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static boolean inRange(int price) {
+        return price >= MIN_PRICE && price <= MAX_PRICE;
+    }
+
+    private static int[] toPairs(TreeMap<Integer, Integer> levels) {
+        int[] pairs = new int[levels.size() * 2];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> level : levels.entrySet()) {
+            pairs[i++] = level.getKey();
+            pairs[i++] = level.getValue();
+        }
+        return pairs;
+    }
+}
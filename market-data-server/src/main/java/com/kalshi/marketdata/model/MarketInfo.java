@@ -17,6 +17,7 @@ import java.time.Instant;
 public class MarketInfo {
     private String ticker;
     private String title;
+    private String eventTicker;
     private boolean isActive;
     private Instant lastUpdate;
     private long messageCount;
@@ -26,6 +27,7 @@ public class MarketInfo {
     public MarketInfo(String ticker) {
         this.ticker = ticker;
         this.title = null;
+        this.eventTicker = null;
         this.isActive = false;
         this.lastUpdate = Instant.now();
         this.messageCount = 0;
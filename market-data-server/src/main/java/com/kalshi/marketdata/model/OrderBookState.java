@@ -19,6 +19,9 @@ public class OrderBookState {
     private Long lastSequence;
     private Long lastUpdateTimestamp;
     
+    // Market data topic partition the state was read from during bootstrap, if known
+    private Integer sourcePartition;
+    
     // Price -> Quantity mapping for YES side (using TreeMap for sorted prices)
     private TreeMap<Integer, Integer> yesBids = new TreeMap<>();
     
@@ -29,6 +32,15 @@ public class OrderBookState {
      * Apply a snapshot to completely replace the order book state
      */
     public void applySnapshot(Map<String, Object> snapshotData, Long sequence) {
+        Map<String, Object> data = (Map<String, Object>) snapshotData.get("data");
+        applySnapshot(data != null ? UpstreamFrame.levels(data.get("yes")) : null,
+                      data != null ? UpstreamFrame.levels(data.get("no")) : null, sequence);
+    }
+    
+    /**
+     * Apply a snapshot given as flattened price, quantity pairs (either side may be null)
+     */
+    public void applySnapshot(int[] yesLevels, int[] noLevels, Long sequence) {
         this.lastSequence = sequence;
         this.lastUpdateTimestamp = System.currentTimeMillis();
         
@@ -36,12 +48,8 @@ public class OrderBookState {
         yesBids.clear();
         noBids.clear();
         
-        // Parse snapshot data
-        Map<String, Object> data = (Map<String, Object>) snapshotData.get("data");
-        if (data != null) {
-            parseSide(data.get("yes"), yesBids);
-            parseSide(data.get("no"), noBids);
-        }
+        putLevels(yesLevels, yesBids);
+        putLevels(noLevels, noBids);
     }
     
     /**
@@ -49,9 +57,8 @@ public class OrderBookState {
      * @return true if the state changed, false if it was identical
      */
     public boolean applyDelta(Map<String, Object> deltaData, Long sequence) {
-        // Check sequence to ensure we're not processing out of order
-        if (lastSequence != null && sequence != null && sequence <= lastSequence) {
-            return false; // Skip old updates
+        if (isOutOfOrder(sequence)) {
+            return false;
         }
         
         Map<String, Object> data = (Map<String, Object>) deltaData.get("data");
@@ -59,25 +66,34 @@ public class OrderBookState {
             return false;
         }
         
-        String side = (String) data.get("side");
-        Integer price = ((Number) data.get("price")).intValue();
-        Integer delta = ((Number) data.get("delta")).intValue();
+        return applyDelta((String) data.get("side"), ((Number) data.get("price")).intValue(),
+                          ((Number) data.get("delta")).intValue(), sequence);
+    }
+    
+    /**
+     * Apply a delta update given as primitives
+     * @return true if the state changed, false if it was identical
+     */
+    public boolean applyDelta(String side, int price, int delta, Long sequence) {
+        // Check sequence to ensure we're not processing out of order
+        if (isOutOfOrder(sequence)) {
+            return false; // Skip old updates
+        }
         
         TreeMap<Integer, Integer> bookSide = "yes".equals(side) ? yesBids : noBids;
         
         // Get current quantity at this price level
-        Integer currentQty = bookSide.getOrDefault(price, 0);
-        Integer newQty = currentQty + delta;
+        int currentQty = bookSide.getOrDefault(price, 0);
+        int newQty = currentQty + delta;
         
         boolean changed = false;
         
         if (newQty <= 0) {
             // Remove price level if quantity is 0 or negative
-            if (bookSide.containsKey(price)) {
-                bookSide.remove(price);
+            if (bookSide.remove(price) != null) {
                 changed = true;
             }
-        } else if (!newQty.equals(currentQty)) {
+        } else if (newQty != currentQty) {
             // Update price level
             bookSide.put(price, newQty);
             changed = true;
@@ -99,14 +115,15 @@ public class OrderBookState {
         if (data == null) {
             return yesBids.isEmpty() && noBids.isEmpty();
         }
-        
-        TreeMap<Integer, Integer> incomingYes = new TreeMap<>();
-        TreeMap<Integer, Integer> incomingNo = new TreeMap<>();
-        
-        parseSide(data.get("yes"), incomingYes);
-        parseSide(data.get("no"), incomingNo);
-        
-        return yesBids.equals(incomingYes) && noBids.equals(incomingNo);
+        return isSnapshotIdentical(UpstreamFrame.levels(data.get("yes")), UpstreamFrame.levels(data.get("no")));
+    }
+    
+    /**
+     * Check if a snapshot given as flattened price, quantity pairs matches current state,
+     * without building maps for it
+     */
+    public boolean isSnapshotIdentical(int[] yesLevels, int[] noLevels) {
+        return sideMatches(yesBids, yesLevels) && sideMatches(noBids, noLevels);
     }
     
     /**
@@ -117,27 +134,40 @@ public class OrderBookState {
         copy.marketTicker = this.marketTicker;
         copy.lastSequence = this.lastSequence;
         copy.lastUpdateTimestamp = this.lastUpdateTimestamp;
+        copy.sourcePartition = this.sourcePartition;
         copy.yesBids = new TreeMap<>(this.yesBids);
         copy.noBids = new TreeMap<>(this.noBids);
         return copy;
     }
     
-    private void parseSide(Object sideData, TreeMap<Integer, Integer> targetMap) {
-        if (sideData instanceof Iterable) {
-            for (Object priceLevel : (Iterable<?>) sideData) {
-                if (priceLevel instanceof Iterable) {
-                    List<Object> levelList = new ArrayList<>();
-                    ((Iterable<?>) priceLevel).forEach(levelList::add);
-                    
-                    if (levelList.size() >= 2) {
-                        Integer price = ((Number) levelList.get(0)).intValue();
-                        Integer quantity = ((Number) levelList.get(1)).intValue();
-                        if (quantity > 0) {
-                            targetMap.put(price, quantity);
-                        }
+    private boolean isOutOfOrder(Long sequence) {
+        return lastSequence != null && sequence != null && sequence <= lastSequence;
+    }
+    
+    private static void putLevels(int[] levels, TreeMap<Integer, Integer> targetMap) {
+        if (levels == null) {
+            return;
+        }
+        for (int i = 0; i + 1 < levels.length; i += 2) {
+            if (levels[i + 1] > 0) {
+                targetMap.put(levels[i], levels[i + 1]);
+            }
+        }
+    }
+    
+    private static boolean sideMatches(TreeMap<Integer, Integer> side, int[] levels) {
+        int count = 0;
+        if (levels != null) {
+            for (int i = 0; i + 1 < levels.length; i += 2) {
+                if (levels[i + 1] > 0) {
+                    Integer quantity = side.get(levels[i]);
+                    if (quantity == null || quantity != levels[i + 1]) {
+                        return false;
                     }
+                    count++;
                 }
             }
         }
+        return count == side.size();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package com.kalshi.marketdata.model;
+
+import com.fbg.api.kalshi.MarketDataRecord;
+import lombok.Data;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Routing and order book fields of one upstream WebSocket frame, decoded into primitives
+ * instead of a generic JSON tree.
+ *
+ * Snapshot levels are flattened price, quantity pairs: [price0, qty0, price1, qty1, ...].
+ * A frame is a delta when side is set.
+ *
+ * A snapshot frame marked resync carries a book recovered after a sequence gap: its levels and
+ * sequence are the ones after splicing, not the upstream message's.
+ */
+@Data
+public class UpstreamFrame {
+
+    private String channel;
+    private Long sid;
+    private Long sequence;
+    private String marketTicker;
+
+    // orderbook_snapshot
+    private int[] yesLevels;
+    private int[] noLevels;
+
+    // orderbook_delta
+    private String side;
+    private int price;
+    private int delta;
+
+    private boolean resync;
+
+    private static final int[] NO_LEVELS = new int[0];
+
+    public boolean isOrderBookSnapshot() {
+        return "orderbook_snapshot".equals(channel);
+    }
+
+    public boolean isOrderBookDelta() {
+        return "orderbook_delta".equals(channel);
+    }
+
+    /**
+     * Decode a message that has already been parsed into a map, e.g. one replayed during bootstrap
+     */
+    public static UpstreamFrame fromMessage(Map<String, Object> message) {
+        UpstreamFrame frame = new UpstreamFrame();
+        Object channel = message.containsKey("channel") ? message.get("channel") : message.get("type");
+        frame.channel = channel != null ? channel.toString() : null;
+        frame.sid = longValue(message.get("sid"));
+        frame.sequence = longValue(message.get("seq"));
+        frame.marketTicker = (String) message.get("market_ticker");
+
+        Object body = message.containsKey("data") ? message.get("data") : message.get("msg");
+        if (body instanceof Map<?, ?> data) {
+            if (frame.marketTicker == null && data.get("market_ticker") instanceof String ticker) {
+                frame.marketTicker = ticker;
+            }
+            frame.yesLevels = levels(data.get("yes"));
+            frame.noLevels = levels(data.get("no"));
+            if (data.get("side") != null && data.get("price") instanceof Number price
+                    && data.get("delta") instanceof Number delta) {
+                frame.side = data.get("side").toString();
+                frame.price = price.intValue();
+                frame.delta = delta.intValue();
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * Frame for a binary market data record, e.g. one replayed during bootstrap
+     */
+    public static UpstreamFrame fromRecord(MarketDataRecord record) {
+        UpstreamFrame frame = new UpstreamFrame();
+        frame.channel = record.getChannel();
+        frame.sid = record.getSid();
+        frame.sequence = record.getSequence();
+        frame.marketTicker = record.getMarketTicker();
+        if (record.isOrderBookSnapshot()) {
+            frame.yesLevels = record.getYesLevels();
+            frame.noLevels = record.getNoLevels();
+        } else if (record.isOrderBookDelta()) {
+            frame.side = record.getSide();
+            frame.price = record.getPrice();
+            frame.delta = record.getDelta();
+        }
+        return frame;
+    }
+
+    /**
+     * Flatten [[price, quantity], ...] into price, quantity pairs, skipping malformed levels
+     */
+    public static int[] levels(Object sideData) {
+        if (!(sideData instanceof Iterable<?> levels)) {
+            return null;
+        }
+        int[] pairs = NO_LEVELS;
+        int size = 0;
+        for (Object level : levels) {
+            if (level instanceof Iterable<?> values) {
+                Iterator<?> it = values.iterator();
+                Object price = it.hasNext() ? it.next() : null;
+                Object quantity = it.hasNext() ? it.next() : null;
+                if (price instanceof Number p && quantity instanceof Number q) {
+                    if (size + 2 > pairs.length) {
+                        pairs = Arrays.copyOf(pairs, Math.max(16, pairs.length * 2));
+                    }
+                    pairs[size++] = p.intValue();
+                    pairs[size++] = q.intValue();
+                }
+            }
+        }
+        return size == pairs.length ? pairs : Arrays.copyOf(pairs, size);
+    }
+
+    private static Long longValue(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+}
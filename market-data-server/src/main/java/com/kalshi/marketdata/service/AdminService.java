@@ -79,6 +79,9 @@ public class AdminService {
         stats.put("averageLatency", averageLatency);
         stats.put("maxLatency", maxLatency);
         
+        // Sequence gap recovery
+        stats.put("resync", orderBookManager.getResyncStatistics());
+        
         // System info
         stats.put("webSocketStatus", webSocketStatus);
         stats.put("websocketUrl", websocketUrl);
@@ -1,18 +1,29 @@
 package com.kalshi.marketdata.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fbg.api.kalshi.MarketDataBinaryCodec;
+import com.fbg.api.kalshi.MarketDataEnvelopeDeserializer;
+import com.kalshi.marketdata.model.BookSnapshot;
 import com.kalshi.marketdata.model.OrderBookState;
+import com.kalshi.marketdata.model.UpstreamFrame;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.io.IOException;
 import org.springframework.scheduling.annotation.Async;
 import java.time.Duration;
 import java.time.Instant;
@@ -20,12 +31,20 @@ import java.util.*;
 import java.util.concurrent.CompletableFuture;
 
 /**
- * Service to bootstrap order book state from previously published Kafka messages
+ * Service to bootstrap order book state from previously published Kafka messages.
+ * Starts from the compacted snapshot topic when it has data, so only the market data
+ * published since each market's last snapshot is replayed. Market data records may be
+ * JSON envelopes or binary records (see MarketDataBinaryCodec).
  */
 @Slf4j
 @Service
 public class BootstrapService {
     
+    // Stop reading a topic after this many consecutive empty polls, even if not caught up
+    private static final int MAX_EMPTY_POLLS = 5;
+    
+    private final MarketDataBinaryCodec binaryCodec = new MarketDataBinaryCodec();
+    
     @Autowired
     private OrderBookManager orderBookManager;
     
@@ -44,6 +63,12 @@ public class BootstrapService {
     @Value("${bootstrap.enabled:true}")
     private boolean bootstrapEnabled;
     
+    @Value("${bootstrap.snapshots.enabled:true}")
+    private boolean snapshotsEnabled;
+    
+    @Value("${kafka.topic.market-data-snapshots:market-data-snapshots}")
+    private String snapshotTopic;
+    
     /**
      * Bootstrap order book states from Kafka on application startup
      */
@@ -90,83 +115,100 @@ public class BootstrapService {
     }
     
     /**
-     * Load historical market data from Kafka
+     * Load historical market data from Kafka.
+     *
+     * The latest snapshot per market is loaded from the compacted snapshot topic first; each
+     * market data partition is then replayed up to its end offset at startup, from the earlier of
+     * just after the oldest snapshot offset on it and the start of the lookback window. Markets
+     * without a snapshot are therefore rebuilt from the whole window, and records already covered
+     * by a market's snapshot are skipped.
      */
     public Map<String, OrderBookState> loadHistoricalData() {
-        Properties props = new Properties();
-        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, "market-data-bootstrap-" + UUID.randomUUID());
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, 
-                "org.apache.kafka.common.serialization.StringDeserializer");
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, 
-                "org.apache.kafka.common.serialization.StringDeserializer");
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "5000");
-        
         Map<String, OrderBookState> marketStates = new HashMap<>();
+        Map<String, Long> snapshotOffsets = new HashMap<>();
+        
+        long targetTimestamp = Instant.now()
+                .minus(Duration.ofMinutes(lookbackMinutes))
+                .toEpochMilli();
+        
+        if (snapshotsEnabled) {
+            loadSnapshots(marketStates, snapshotOffsets, targetTimestamp);
+        }
         
-        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(props)) {
+        try (Consumer<String, byte[]> consumer = createConsumer(ByteArrayDeserializer.class)) {
             // Get all partitions for the topic
             List<TopicPartition> partitions = new ArrayList<>();
             consumer.partitionsFor(kafkaTopic).forEach(partitionInfo -> 
                 partitions.add(new TopicPartition(kafkaTopic, partitionInfo.partition())));
             
             consumer.assign(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
             
-            // Calculate target timestamp (current time - lookback period)
-            long targetTimestamp = Instant.now()
-                    .minus(Duration.ofMinutes(lookbackMinutes))
-                    .toEpochMilli();
+            // Snapshotted markets need the records just after the oldest snapshot on a partition
+            Map<Integer, Long> snapshotStart = new HashMap<>();
+            for (Map.Entry<String, Long> entry : snapshotOffsets.entrySet()) {
+                Integer partition = marketStates.get(entry.getKey()).getSourcePartition();
+                snapshotStart.merge(partition, entry.getValue() + 1, Math::min);
+            }
             
-            // Seek to the target timestamp for each partition
+            // Markets without a snapshot share the partitions and need the whole lookback window
             Map<TopicPartition, Long> timestampsToSearch = new HashMap<>();
             partitions.forEach(tp -> timestampsToSearch.put(tp, targetTimestamp));
+            Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes = timestampsToSearch.isEmpty()
+                    ? Collections.emptyMap()
+                    : consumer.offsetsForTimes(timestampsToSearch);
             
-            Map<TopicPartition, Long> offsetsForTimes = consumer.offsetsForTimes(timestampsToSearch)
-                    .entrySet().stream()
-                    .filter(e -> e.getValue() != null)
-                    .collect(HashMap::new, 
-                            (m, e) -> m.put(e.getKey(), e.getValue().offset()), 
-                            HashMap::putAll);
-            
-            // Seek to the calculated offsets
-            offsetsForTimes.forEach(consumer::seek);
+            for (TopicPartition tp : partitions) {
+                long end = endOffsets.getOrDefault(tp, 0L);
+                // Nothing inside the window on this partition: start at its end
+                OffsetAndTimestamp found = offsetsForTimes.get(tp);
+                long start = found != null ? found.offset() : end;
+                Long afterSnapshots = snapshotStart.get(tp.partition());
+                if (afterSnapshots != null) {
+                    start = Math.min(start, afterSnapshots);
+                }
+                consumer.seek(tp, Math.min(start, end));
+            }
             
-            // Read messages and build state
+            // Read messages and build state until every partition reaches its end offset at startup
             int totalMessages = 0;
             int processedMessages = 0;
-            boolean done = false;
+            int emptyPolls = 0;
             
-            while (!done) {
-                ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(5));
+            while (!caughtUp(consumer, partitions, endOffsets) && emptyPolls < MAX_EMPTY_POLLS) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofSeconds(1));
                 
                 if (records.isEmpty()) {
-                    done = true;
+                    emptyPolls++;
                     continue;
                 }
+                emptyPolls = 0;
                 
-                for (ConsumerRecord<String, String> record : records) {
+                for (ConsumerRecord<String, byte[]> record : records) {
                     totalMessages++;
                     
+                    // Already reflected in the market's snapshot
+                    Long snapshotOffset = record.key() != null ? snapshotOffsets.get(record.key()) : null;
+                    if (snapshotOffset != null && record.offset() <= snapshotOffset) {
+                        continue;
+                    }
+                    
                     try {
-                        Map<String, Object> envelope = objectMapper.readValue(record.value(), Map.class);
-                        Map<String, Object> payload = (Map<String, Object>) envelope.get("payload");
+                        UpstreamFrame frame = decodeFrame(record);
                         
-                        if (payload == null) {
+                        if (frame == null) {
                             continue;
                         }
                         
-                        String channel = (String) payload.get("channel");
-                        String marketTicker = (String) payload.get("market_ticker");
+                        String marketTicker = frame.getMarketTicker();
                         
-                        if (marketTicker == null || channel == null) {
+                        if (marketTicker == null || frame.getChannel() == null) {
                             continue;
                         }
                         
                         // Only process orderbook messages
-                        if ("orderbook_snapshot".equals(channel) || "orderbook_delta".equals(channel)) {
-                            processOrderBookMessage(marketStates, marketTicker, payload);
+                        if (frame.isOrderBookSnapshot() || frame.isOrderBookDelta()) {
+                            processOrderBookMessage(marketStates, marketTicker, frame, record.partition());
                             processedMessages++;
                         }
                         
@@ -174,19 +216,17 @@ public class BootstrapService {
                         log.warn("Failed to process bootstrap message", e);
                     }
                 }
-                
-                // Check if we've reached current time
-                if (!records.isEmpty()) {
-                    ConsumerRecord<String, String> lastRecord = 
-                            records.records(partitions.get(0)).get(records.count() - 1);
-                    if (lastRecord.timestamp() >= System.currentTimeMillis() - 1000) {
-                        done = true;
-                    }
-                }
             }
             
-            log.info("Bootstrap read {} total messages, processed {} orderbook messages", 
-                    totalMessages, processedMessages);
+            // Loaded books are exact as of each partition's end offset, for the next snapshots
+            endOffsets.forEach((tp, end) -> {
+                if (end > 0) {
+                    orderBookManager.advancePartitionOffset(tp.partition(), end - 1);
+                }
+            });
+            
+            log.info("Bootstrap loaded {} snapshots, read {} total messages, processed {} orderbook messages", 
+                    snapshotOffsets.size(), totalMessages, processedMessages);
             
         } catch (Exception e) {
             log.error("Error during bootstrap", e);
@@ -195,23 +235,125 @@ public class BootstrapService {
         return marketStates;
     }
     
-    private void processOrderBookMessage(Map<String, OrderBookState> marketStates, 
-                                       String marketTicker, Map<String, Object> payload) {
-        String channel = (String) payload.get("channel");
-        Object seqObj = payload.get("seq");
-        Long sequence = seqObj != null ? ((Number) seqObj).longValue() : null;
+    /**
+     * Read the whole compacted snapshot topic, keeping the latest snapshot per market that is
+     * inside the lookback window
+     */
+    private void loadSnapshots(Map<String, OrderBookState> marketStates, Map<String, Long> snapshotOffsets,
+                               long targetTimestamp) {
+        Map<String, BookSnapshot> latest = new HashMap<>();
         
+        try (Consumer<String, String> consumer = createConsumer(StringDeserializer.class)) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(snapshotTopic);
+            if (partitionInfos != null) {
+                partitionInfos.forEach(partitionInfo -> 
+                    partitions.add(new TopicPartition(snapshotTopic, partitionInfo.partition())));
+            }
+            if (partitions.isEmpty()) {
+                return;
+            }
+            
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+            int emptyPolls = 0;
+            
+            while (!caughtUp(consumer, partitions, endOffsets) && emptyPolls < MAX_EMPTY_POLLS) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(1));
+                
+                if (records.isEmpty()) {
+                    emptyPolls++;
+                    continue;
+                }
+                emptyPolls = 0;
+                
+                for (ConsumerRecord<String, String> record : records) {
+                    if (record.value() == null) {
+                        // Tombstone: the market's snapshot was deleted
+                        latest.remove(record.key());
+                        continue;
+                    }
+                    try {
+                        BookSnapshot snapshot = objectMapper.readValue(record.value(), BookSnapshot.class);
+                        latest.put(snapshot.getMarketTicker(), snapshot);
+                    } catch (Exception e) {
+                        log.warn("Failed to process bootstrap snapshot for {}", record.key(), e);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error reading snapshot topic, replaying market data only", e);
+            return;
+        }
+        
+        for (BookSnapshot snapshot : latest.values()) {
+            // Like market data records, snapshots older than the lookback window are ignored
+            if (snapshot.getTimestamp() >= targetTimestamp) {
+                marketStates.put(snapshot.getMarketTicker(), snapshot.toOrderBookState());
+                snapshotOffsets.put(snapshot.getMarketTicker(), snapshot.getOffset());
+            }
+        }
+    }
+    
+    /**
+     * Decode a market data record in either format, per its content-format header
+     *
+     * @return null if the record has no payload
+     */
+    private UpstreamFrame decodeFrame(ConsumerRecord<String, byte[]> record) throws IOException {
+        if (MarketDataEnvelopeDeserializer.isBinary(record.headers(), record.value())) {
+            return UpstreamFrame.fromRecord(binaryCodec.decodeRecord(record.value()));
+        }
+        Map<String, Object> envelope = objectMapper.readValue(record.value(), Map.class);
+        Map<String, Object> payload = (Map<String, Object>) envelope.get("payload");
+        return payload != null ? UpstreamFrame.fromMessage(payload) : null;
+    }
+    
+    /**
+     * A throwaway consumer with no committed offsets, for one bootstrap read
+     */
+    <V> Consumer<String, V> createConsumer(Class<? extends Deserializer<V>> valueDeserializer) {
+        return new KafkaConsumer<>(consumerProperties(valueDeserializer));
+    }
+    
+    private Properties consumerProperties(Class<? extends Deserializer<?>> valueDeserializer) {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "market-data-bootstrap-" + UUID.randomUUID());
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, 
+                "org.apache.kafka.common.serialization.StringDeserializer");
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, valueDeserializer);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "5000");
+        return props;
+    }
+    
+    private static boolean caughtUp(Consumer<String, ?> consumer, List<TopicPartition> partitions,
+                                    Map<TopicPartition, Long> endOffsets) {
+        for (TopicPartition tp : partitions) {
+            if (consumer.position(tp) < endOffsets.getOrDefault(tp, 0L)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void processOrderBookMessage(Map<String, OrderBookState> marketStates, 
+                                       String marketTicker, UpstreamFrame frame, int partition) {
         OrderBookState state = marketStates.computeIfAbsent(marketTicker, 
             k -> {
                 OrderBookState newState = new OrderBookState();
                 newState.setMarketTicker(marketTicker);
                 return newState;
             });
+        state.setSourcePartition(partition);
         
-        if ("orderbook_snapshot".equals(channel)) {
-            state.applySnapshot(payload, sequence);
-        } else if ("orderbook_delta".equals(channel)) {
-            state.applyDelta(payload, sequence);
+        if (frame.isOrderBookSnapshot()) {
+            state.applySnapshot(frame.getYesLevels(), frame.getNoLevels(), frame.getSequence());
+        } else if (frame.getSide() != null) {
+            state.applyDelta(frame.getSide(), frame.getPrice(), frame.getDelta(), frame.getSequence());
         }
     }
-}
\ No newline at end of file
+}
@@ -2,7 +2,7 @@ package com.kalshi.marketdata.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kalshi.marketdata.config.KafkaErrorAlertService;
-import com.kalshi.marketdata.websocket.KalshiSpringWebSocketClient;
+import com.kalshi.marketdata.websocket.UpstreamConnectionPool;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
@@ -53,7 +53,7 @@ public class MarketDataProxyService {
     private String errorAlertTopic;
     
     @Autowired
-    private KalshiSpringWebSocketClient webSocketClient;
+    private UpstreamConnectionPool upstreamConnections;
     private volatile boolean shouldReconnect = true;
     private final AtomicInteger connectionAttempts = new AtomicInteger(0);
     private volatile boolean isConnecting = false;
@@ -69,8 +69,8 @@ public class MarketDataProxyService {
     public void shutdown() {
         log.info("Shutting down Market Data Proxy Service");
         shouldReconnect = false;
-        if (webSocketClient != null && webSocketClient.isConnected()) {
-            webSocketClient.close();
+        if (upstreamConnections != null) {
+            upstreamConnections.close();
         }
     }
     
@@ -90,24 +90,23 @@ public class MarketDataProxyService {
         try {
             log.info("Attempting WebSocket connection #{} to: {}", attempt, websocketUrl);
             
-            // Connect to WebSocket
-            CompletableFuture<Void> connectFuture = webSocketClient.connect(websocketUrl);
-            connectFuture.get(10, TimeUnit.SECONDS);
+            // Open (or reopen) the pool of upstream connections
+            upstreamConnections.connect(websocketUrl);
             
-            // Wait for connection
-            if (webSocketClient.waitForConnection(10, TimeUnit.SECONDS)) {
+            // Wait for connection; markets on connections still opening are served by the others meanwhile
+            if (upstreamConnections.waitForConnection(10, TimeUnit.SECONDS)) {
                 log.info("WebSocket connected successfully on attempt #{}", attempt);
                 connectionAttempts.set(0); // Reset counter on successful connection
                 
                 // First subscribe to all markets for channels that support it
-                webSocketClient.subscribeToAllMarkets();
+                upstreamConnections.subscribeToAllMarkets();
                 
                 // Then fetch market tickers for orderbook subscriptions
                 List<String> marketTickers = marketDiscoveryService.getAllMarketTickers();
                 
                 if (!marketTickers.isEmpty()) {
                     log.info("Subscribing to orderbook channels for {} markets", marketTickers.size());
-                    webSocketClient.subscribeToOrderbookChannels(marketTickers);
+                    upstreamConnections.subscribeToOrderbookChannels(marketTickers);
                 } else {
                     log.warn("No markets found for orderbook subscription");
                 }
@@ -160,7 +159,7 @@ public class MarketDataProxyService {
      */
     @Scheduled(fixedDelay = 30000) // Check every 30 seconds
     public void checkConnectionHealth() {
-        if (shouldReconnect && (webSocketClient == null || !webSocketClient.isConnected()) && !isConnecting) {
+        if (shouldReconnect && (upstreamConnections == null || !upstreamConnections.isConnected()) && !isConnecting) {
             log.info("WebSocket connection lost, attempting to reconnect");
             connectAndSubscribeAsync();
         }
@@ -171,7 +170,7 @@ public class MarketDataProxyService {
      */
     @Scheduled(fixedDelay = 300000) // Every 5 minutes
     public void refreshMarketSubscriptions() {
-        if (webSocketClient != null && webSocketClient.isConnected()) {
+        if (upstreamConnections != null && upstreamConnections.isConnected()) {
             log.info("Refreshing market subscriptions");
             
             try {
@@ -180,7 +179,7 @@ public class MarketDataProxyService {
                 
                 if (!marketTickers.isEmpty()) {
                     // Subscribe to orderbook channels for any new markets
-                    webSocketClient.subscribeToOrderbookChannels(marketTickers);
+                    upstreamConnections.subscribeToOrderbookChannels(marketTickers);
                 }
             } catch (Exception e) {
                 log.error("Error refreshing market subscriptions", e);
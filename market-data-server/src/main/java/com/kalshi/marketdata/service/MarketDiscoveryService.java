@@ -2,8 +2,12 @@ package com.kalshi.marketdata.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalshi.marketdata.event.MarketsDiscoveredEvent;
+import com.kalshi.marketdata.model.MarketInfo;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -17,20 +21,63 @@ public class MarketDiscoveryService {
     private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+    
     @Value("${mock.kalshi.rest.url}")
     private String mockKalshiRestUrl;
     
     /**
-     * Fetches all available market tickers from the mock Kalshi server
+     * Fetches all available market tickers from the mock Kalshi server.
+     * Uses the bulk tickers endpoint, falling back to paging through /markets.
+     * The markets found are published as a MarketsDiscoveredEvent.
      */
     public List<String> getAllMarketTickers() {
-        List<String> allTickers = new ArrayList<>();
+        try {
+            String response = restTemplate.getForObject(mockKalshiRestUrl + "/trade-api/v2/markets/tickers", String.class);
+            JsonNode tickers = objectMapper.readTree(response).get("tickers");
+            if (tickers != null && tickers.isArray()) {
+                List<String> allTickers = new ArrayList<>(tickers.size());
+                for (JsonNode ticker : tickers) {
+                    allTickers.add(ticker.asText());
+                }
+                log.info("Discovered {} markets from mock Kalshi server", allTickers.size());
+                publishDiscovered(allTickers.stream().map(MarketInfo::new).toList());
+                return allTickers;
+            }
+        } catch (Exception e) {
+            log.warn("Bulk tickers endpoint unavailable, paging through markets instead: {}", e.getMessage());
+        }
+        
+        List<MarketInfo> markets = getMarketsPaged(100);
+        publishDiscovered(markets);
+        return markets.stream().map(MarketInfo::getTicker).toList();
+    }
+    
+    /**
+     * Fetches every market with its title and event ticker, paging through /markets
+     */
+    public List<MarketInfo> getAllMarkets() {
+        return getMarketsPaged(1000);
+    }
+    
+    private void publishDiscovered(List<MarketInfo> markets) {
+        if (eventPublisher != null && !markets.isEmpty()) {
+            eventPublisher.publishEvent(new MarketsDiscoveredEvent(this, markets));
+        }
+    }
+    
+    /**
+     * Pages through /markets pageSize at a time
+     */
+    private List<MarketInfo> getMarketsPaged(int pageSize) {
+        List<MarketInfo> allMarkets = new ArrayList<>();
         String cursor = null;
         int totalMarkets = 0;
         
         try {
             do {
-                String url = mockKalshiRestUrl + "/trade-api/v2/markets?limit=100";
+                String url = mockKalshiRestUrl + "/trade-api/v2/markets?limit=" + pageSize;
                 if (cursor != null) {
                     url += "&cursor=" + cursor;
                 }
@@ -43,8 +90,10 @@ public class MarketDiscoveryService {
                 
                 if (markets != null && markets.isArray()) {
                     for (JsonNode market : markets) {
-                        String ticker = market.get("ticker").asText();
-                        allTickers.add(ticker);
+                        MarketInfo info = new MarketInfo(market.get("ticker").asText());
+                        info.setTitle(text(market, "title"));
+                        info.setEventTicker(text(market, "event_ticker"));
+                        allMarkets.add(info);
                     }
                     totalMarkets += markets.size();
                 }
@@ -61,6 +110,11 @@ public class MarketDiscoveryService {
             log.error("Error fetching market tickers", e);
         }
         
-        return allTickers;
+        return allMarkets;
+    }
+    
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
     }
 }
\ No newline at end of file
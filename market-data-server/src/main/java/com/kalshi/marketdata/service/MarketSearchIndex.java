@@ -0,0 +1,394 @@
+package com.kalshi.marketdata.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index over market ticker, event ticker and title.
+ *
+ * Key features:
+ * - Every field is indexed by its character trigrams, each mapping to a sorted posting list of
+ *   market ids, so a substring query only visits markets holding all of its trigrams
+ * - The lists of all query words are intersected shortest first, galloping through long ones,
+ *   so a rare word bounds the work of a common one
+ * - The first one and two characters of every word are indexed as padded grams, so short
+ *   as-you-type queries resolve with a single lookup
+ * - Query words must all match (in any field); results are ranked by where they matched:
+ *   exact ticker, ticker prefix, word prefix, event, title, then plain substring
+ * - Markets are added or re-indexed one at a time as they are discovered
+ * - Searches run concurrently under a read lock; updates take the write lock
+ */
+public final class MarketSearchIndex {
+
+    // Scores for where a query word matched; a market scores the best place per word
+    static final int SCORE_TICKER_EXACT = 100;
+    static final int SCORE_TICKER_PREFIX = 60;
+    static final int SCORE_TICKER_WORD = 40;
+    static final int SCORE_EVENT_PREFIX = 30;
+    static final int SCORE_TITLE_WORD = 20;
+    static final int SCORE_SUBSTRING = 10;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Gram -> ids of the markets containing it, ascending
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Index a market, or re-index it if its event ticker or title changed. A null event ticker or
+     * title keeps the one already indexed.
+     */
+    public void put(String ticker, String eventTicker, String title) {
+        lock.writeLock().lock();
+        try {
+            Integer id = ids.get(ticker);
+            if (id == null) {
+                id = entries.size();
+                ids.put(ticker, id);
+                Entry entry = new Entry(ticker, eventTicker, title);
+                entries.add(entry);
+                forEachGram(entry, id, true);
+                return;
+            }
+            Entry existing = entries.get(id);
+            String newEvent = eventTicker != null ? eventTicker : existing.eventTicker;
+            String newTitle = title != null ? title : existing.title;
+            if (Objects.equals(newEvent, existing.eventTicker) && Objects.equals(newTitle, existing.title)) {
+                return;
+            }
+            forEachGram(existing, id, false);
+            Entry updated = new Entry(ticker, newEvent, newTitle);
+            entries.set(id, updated);
+            forEachGram(updated, id, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tickers of the best matching markets, highest score first; equal scores are ordered by
+     * the tie break comparator.
+     */
+    public List<String> search(String query, int limit, Comparator<String> tieBreak) {
+        String[] words = words(query);
+        if (words.length == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidates(words);
+            if (candidates.length == 0) {
+                return List.of();
+            }
+
+            // Keep the best `limit` hits, worst at the head
+            Comparator<Hit> ranking = Comparator.<Hit>comparingInt(hit -> hit.score)
+                .thenComparing((a, b) -> tieBreak.compare(b.ticker, a.ticker));
+            PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(limit, candidates.length), ranking);
+            for (int id : candidates) {
+                Entry entry = entries.get(id);
+                int score = score(entry, words);
+                if (score == 0) {
+                    continue;
+                }
+                if (best.size() == limit) {
+                    // Most hits lose to the current worst and never touch the heap
+                    Hit worst = best.peek();
+                    if (score < worst.score
+                            || score == worst.score && tieBreak.compare(entry.ticker, worst.ticker) >= 0) {
+                        continue;
+                    }
+                    best.poll();
+                }
+                best.add(new Hit(entry.ticker, score));
+            }
+
+            String[] ranked = new String[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = best.poll().ticker;
+            }
+            return Arrays.asList(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the markets that may contain every word. Matches of words of three characters or
+     * more can be false positives and are verified when scoring.
+     */
+    private int[] candidates(String[] words) {
+        List<Postings> lists = new ArrayList<>();
+        for (String word : words) {
+            if (!addPostings(word, lists)) {
+                return new int[0];
+            }
+        }
+
+        // Only the shortest list is copied; the others are intersected into it, shortest first
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i).ids, lists.get(i).size);
+        }
+        return result;
+    }
+
+    /**
+     * Add the posting lists a word's markets must all be in; false if a gram is unknown
+     */
+    private boolean addPostings(String word, List<Postings> lists) {
+        if (word.length() < 3) {
+            Postings list = postings.get(prefixGram(word));
+            return list != null && lists.add(list);
+        }
+
+        // Every trigram has to exist, but overlapping ones mostly hold the same markets, so only
+        // the ones tiling the word are intersected
+        int grams = word.length() - 2;
+        for (int i = 0; i < grams; i++) {
+            Postings list = postings.get(gram(word.charAt(i), word.charAt(i + 1), word.charAt(i + 2)));
+            if (list == null) {
+                return false;
+            }
+            if (i % 3 == 0 || i == grams - 1) {
+                lists.add(list);
+            }
+        }
+        return true;
+    }
+
+    private static int score(Entry entry, String[] words) {
+        int total = 0;
+        for (String word : words) {
+            int score = scoreWord(entry, word);
+            if (score == 0) {
+                return 0;
+            }
+            total += score;
+        }
+        return total;
+    }
+
+    private static int scoreWord(Entry entry, String word) {
+        if (entry.tickerKey.equals(word)) {
+            return SCORE_TICKER_EXACT;
+        }
+        if (entry.tickerKey.startsWith(word)) {
+            return SCORE_TICKER_PREFIX;
+        }
+        if (hasWordPrefix(entry.tickerKey, word)) {
+            return SCORE_TICKER_WORD;
+        }
+        if (entry.eventKey != null && hasWordPrefix(entry.eventKey, word)) {
+            return SCORE_EVENT_PREFIX;
+        }
+        if (entry.titleKey != null && hasWordPrefix(entry.titleKey, word)) {
+            return SCORE_TITLE_WORD;
+        }
+        if (entry.tickerKey.contains(word)
+                || entry.eventKey != null && entry.eventKey.contains(word)
+                || entry.titleKey != null && entry.titleKey.contains(word)) {
+            return SCORE_SUBSTRING;
+        }
+        return 0;
+    }
+
+    private static boolean hasWordPrefix(String field, String word) {
+        for (int at = field.indexOf(word); at >= 0; at = field.indexOf(word, at + 1)) {
+            if (at == 0 || !Character.isLetterOrDigit(field.charAt(at - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void forEachGram(Entry entry, int id, boolean add) {
+        long[] grams = new long[2 * (length(entry.tickerKey) + length(entry.eventKey) + length(entry.titleKey))];
+        int count = collectGrams(entry.tickerKey, grams, 0);
+        count = collectGrams(entry.eventKey, grams, count);
+        count = collectGrams(entry.titleKey, grams, count);
+        // A market repeating a gram across fields is listed once
+        Arrays.sort(grams, 0, count);
+        for (int i = 0; i < count; i++) {
+            long gram = grams[i];
+            if (i > 0 && gram == grams[i - 1]) {
+                continue;
+            }
+            if (add) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(id);
+            } else {
+                Postings list = postings.get(gram);
+                if (list != null && list.remove(id) && list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static int length(String field) {
+        return field == null ? 0 : field.length();
+    }
+
+    private static int collectGrams(String field, long[] grams, int count) {
+        if (field == null) {
+            return count;
+        }
+        for (int i = 0; i + 3 <= field.length(); i++) {
+            grams[count++] = gram(field.charAt(i), field.charAt(i + 1), field.charAt(i + 2));
+        }
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (Character.isLetterOrDigit(c) && (i == 0 || !Character.isLetterOrDigit(field.charAt(i - 1)))) {
+                grams[count++] = gram('\0', '\0', c);
+                if (i + 1 < field.length() && Character.isLetterOrDigit(field.charAt(i + 1))) {
+                    grams[count++] = gram('\0', c, field.charAt(i + 1));
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long prefixGram(String word) {
+        return word.length() == 1 ? gram('\0', '\0', word.charAt(0)) : gram('\0', word.charAt(0), word.charAt(1));
+    }
+
+    // Three UTF-16 chars in one key; word prefixes are padded with NUL, which never occurs in text.
+    // Scrambled by an odd multiplier (a bijection) so Long.hashCode spreads the keys.
+    private static long gram(char a, char b, char c) {
+        return (((long) a << 32) | ((long) b << 16) | c) * 0x9E3779B97F4A7C15L;
+    }
+
+    private static String[] words(String query) {
+        if (query == null) {
+            return new String[0];
+        }
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return new String[0];
+        }
+        return new LinkedHashSet<>(Arrays.asList(normalized.split("\\s+"))).toArray(new String[0]);
+    }
+
+    /**
+     * Ids in both sorted lists, the shorter one first. When the other is much longer, every id
+     * gallops forward through it, so a rare gram against a common one costs O(short * log long).
+     */
+    private static int[] intersect(int[] a, int[] b, int bSize) {
+        int[] out = new int[Math.min(a.length, bSize)];
+        int n = 0;
+        if (bSize < a.length * 8) {
+            // Similar sizes: a plain merge is cheaper, advanced without branching on the order
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < bSize) {
+                int x = a[i];
+                int y = b[j];
+                out[n] = x;
+                n += x == y ? 1 : 0;
+                i += x <= y ? 1 : 0;
+                j += y <= x ? 1 : 0;
+            }
+            return n == out.length ? out : Arrays.copyOf(out, n);
+        }
+        int from = 0;
+        for (int i = 0; i < a.length && from < bSize; i++) {
+            int id = a[i];
+            // Double the step until past id, then binary search that window
+            int step = 1;
+            int hi = from;
+            while (hi < bSize && b[hi] < id) {
+                from = hi + 1;
+                hi = from + step;
+                step <<= 1;
+            }
+            int at = Arrays.binarySearch(b, from, Math.min(hi + 1, bSize), id);
+            if (at >= 0) {
+                out[n++] = id;
+                from = at + 1;
+            } else {
+                from = -at - 1;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static final class Entry {
+        final String ticker;
+        final String eventTicker;
+        final String title;
+        final String tickerKey;
+        final String eventKey;
+        final String titleKey;
+
+        Entry(String ticker, String eventTicker, String title) {
+            this.ticker = ticker;
+            this.eventTicker = eventTicker;
+            this.title = title;
+            this.tickerKey = ticker.toLowerCase(Locale.ROOT);
+            this.eventKey = eventTicker == null ? null : eventTicker.toLowerCase(Locale.ROOT);
+            this.titleKey = title == null ? null : title.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private record Hit(String ticker, int score) {
+    }
+
+    /**
+     * Growable sorted int list; ids are handed out in ascending order, so adds are appends
+     */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            int at = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                at = -at - 1;
+            } else if (at < size) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
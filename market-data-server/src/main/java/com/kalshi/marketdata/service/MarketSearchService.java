@@ -1,8 +1,10 @@
 package com.kalshi.marketdata.service;
 
+import com.kalshi.marketdata.event.MarketsDiscoveredEvent;
 import com.kalshi.marketdata.model.MarketInfo;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
@@ -12,20 +14,28 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
- * Market search service with Trie-based prefix matching for fast market filtering
+ * Market search service backed by a trigram inverted index for fast as-you-type filtering.
+ *
+ * Key features:
+ * - Ticker, event ticker and title are indexed by MarketSearchIndex; a query only touches the
+ *   markets holding all of its trigrams instead of scanning every market
+ * - Results are ranked by match quality, then active first, most recently updated, ticker
+ * - New markets are indexed as MarketDiscoveryService finds them, without a rebuild
  */
 @Service
 @Slf4j
 public class MarketSearchService {
     
+    // Limit results to prevent overwhelming UI
+    static final int MAX_RESULTS = 50;
+    
     @Autowired
     private MarketDiscoveryService marketDiscoveryService;
     
     @Autowired
     private OrderBookManager orderBookManager;
     
-    // Trie for efficient prefix searching
-    private final TrieNode root = new TrieNode();
+    private final MarketSearchIndex index = new MarketSearchIndex();
     
     // Cache of market information
     private final Map<String, MarketInfo> marketCache = new ConcurrentHashMap<>();
@@ -36,30 +46,17 @@ public class MarketSearchService {
     }
     
     /**
-     * Search markets using prefix matching with the Trie
+     * Search markets by ticker, event ticker and title. Every word of the query has to match,
+     * words of one or two characters as the start of a word and longer ones anywhere.
      */
     public List<MarketInfo> searchMarkets(String query) {
         if (query == null || query.trim().isEmpty()) {
             return getAllMarkets();
         }
         
-        String normalizedQuery = query.trim().toLowerCase();
-        Set<String> matchingTickers = new HashSet<>();
-        
-        // Find prefix matches
-        List<String> prefixMatches = findPrefixMatches(normalizedQuery);
-        matchingTickers.addAll(prefixMatches);
-        
-        // Find infix matches (substring search)
-        List<String> infixMatches = findInfixMatches(normalizedQuery);
-        matchingTickers.addAll(infixMatches);
-        
-        // Convert tickers to MarketInfo and sort by relevance
-        return matchingTickers.stream()
+        return index.search(query, MAX_RESULTS, this::compareByRelevance).stream()
                 .map(marketCache::get)
                 .filter(Objects::nonNull)
-                .sorted(this::compareByRelevance)
-                .limit(50) // Limit results to prevent overwhelming UI
                 .collect(Collectors.toList());
     }
     
@@ -83,8 +80,8 @@ public class MarketSearchService {
         marketInfo.setMessageCount(messageCount);
         marketInfo.setBootstrapped(orderBookManager.isMarketBootstrapped(ticker));
         
-        // Add to Trie if not already present
-        addToTrie(ticker.toLowerCase());
+        // Indexes the ticker if it is new, no-op otherwise
+        index.put(ticker, null, null);
         
         log.debug("Updated market info for: {} (active: {}, messages: {})", ticker, isActive, messageCount);
     }
@@ -94,63 +91,57 @@ public class MarketSearchService {
      */
     public void refreshMarketCache() {
         try {
-            List<String> marketTickers = marketDiscoveryService.getAllMarketTickers();
-            
-            for (String ticker : marketTickers) {
-                MarketInfo existingInfo = marketCache.get(ticker);
-                if (existingInfo == null) {
-                    MarketInfo newInfo = new MarketInfo(ticker);
-                    newInfo.setBootstrapped(orderBookManager.isMarketBootstrapped(ticker));
-                    marketCache.put(ticker, newInfo);
-                    addToTrie(ticker.toLowerCase());
-                }
-            }
-            
-            log.info("Refreshed market cache with {} markets", marketCache.size());
+            int added = indexMarkets(marketDiscoveryService.getAllMarkets());
+            log.info("Refreshed market cache with {} markets ({} new)", marketCache.size(), added);
             
         } catch (Exception e) {
             log.error("Failed to refresh market cache", e);
         }
     }
     
-    private void addToTrie(String word) {
-        TrieNode current = root;
-        for (char c : word.toCharArray()) {
-            current.children.putIfAbsent(c, new TrieNode());
-            current = current.children.get(c);
+    /**
+     * Index markets found by the periodic discovery runs as they appear
+     */
+    @EventListener
+    public void onMarketsDiscovered(MarketsDiscoveredEvent event) {
+        int added = indexMarkets(event.getMarkets());
+        if (added > 0) {
+            log.info("Indexed {} newly discovered markets", added);
         }
-        current.isEndOfWord = true;
-        current.words.add(word);
     }
     
-    private List<String> findPrefixMatches(String prefix) {
-        TrieNode current = root;
-        
-        // Navigate to prefix node
-        for (char c : prefix.toCharArray()) {
-            if (!current.children.containsKey(c)) {
-                return Collections.emptyList();
+    private int indexMarkets(List<MarketInfo> discovered) {
+        int added = 0;
+        for (MarketInfo market : discovered) {
+            String ticker = market.getTicker();
+            MarketInfo existingInfo = marketCache.get(ticker);
+            if (existingInfo == null) {
+                MarketInfo newInfo = new MarketInfo(ticker);
+                newInfo.setTitle(market.getTitle());
+                newInfo.setEventTicker(market.getEventTicker());
+                newInfo.setBootstrapped(orderBookManager.isMarketBootstrapped(ticker));
+                marketCache.put(ticker, newInfo);
+                added++;
+            } else {
+                if (market.getTitle() != null) {
+                    existingInfo.setTitle(market.getTitle());
+                }
+                if (market.getEventTicker() != null) {
+                    existingInfo.setEventTicker(market.getEventTicker());
+                }
             }
-            current = current.children.get(c);
+            index.put(ticker, market.getEventTicker(), market.getTitle());
         }
-        
-        // Collect all words with this prefix
-        List<String> results = new ArrayList<>();
-        collectAllWords(current, results);
-        return results;
+        return added;
     }
     
-    private void collectAllWords(TrieNode node, List<String> results) {
-        results.addAll(node.words);
-        for (TrieNode child : node.children.values()) {
-            collectAllWords(child, results);
+    private int compareByRelevance(String a, String b) {
+        MarketInfo infoA = marketCache.get(a);
+        MarketInfo infoB = marketCache.get(b);
+        if (infoA == null || infoB == null) {
+            return a.compareTo(b);
         }
-    }
-    
-    private List<String> findInfixMatches(String query) {
-        return marketCache.keySet().stream()
-                .filter(ticker -> ticker.toLowerCase().contains(query))
-                .collect(Collectors.toList());
+        return compareByRelevance(infoA, infoB);
     }
     
     private int compareByRelevance(MarketInfo a, MarketInfo b) {
@@ -168,13 +159,4 @@ public class MarketSearchService {
         
         return a.getTicker().compareTo(b.getTicker());
     }
-    
-    /**
-     * Trie node for efficient prefix matching
-     */
-    private static class TrieNode {
-        Map<Character, TrieNode> children = new HashMap<>();
-        boolean isEndOfWord = false;
-        Set<String> words = new HashSet<>();
-    }
 }
\ No newline at end of file
@@ -1,32 +1,76 @@
 package com.kalshi.marketdata.service;
 
+import com.kalshi.marketdata.model.BookSnapshot;
+import com.kalshi.marketdata.model.MarketBook;
 import com.kalshi.marketdata.model.OrderBookState;
+import com.kalshi.marketdata.model.UpstreamFrame;
 import com.fbg.api.kalshi.InternalOrderBook;
+import com.kalshi.marketdata.event.MarketResyncRequestEvent;
 import com.kalshi.marketdata.event.OrderBookUpdateEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Manages order book states for all markets and determines what updates to publish
+ * Manages order book states for all markets and determines what updates to publish.
+ * Each market has a single MarketBook; every snapshot and delta is applied to it once.
+ *
+ * Published changes are tracked until Kafka acknowledges them, so a book can be snapshotted
+ * as exact as of a known offset on its market data partition (see SnapshotTopicPublisher).
+ *
+ * Kalshi counts order book seqs per subscription (sid), across all the markets on it, so gaps
+ * are detected per sid by the WebSocket client. A gap marks the markets of that sid stale: their
+ * deltas are buffered and a single-market snapshot is requested upstream for each. The snapshot
+ * is published with the buffered deltas spliced in, as a resync frame, and markets on other
+ * subscriptions keep flowing meanwhile.
  */
 @Slf4j
 @Service
 public class OrderBookManager {
     
-    // Market ticker -> OrderBookState (legacy for backward compatibility)
-    private final ConcurrentHashMap<String, OrderBookState> orderBooks = new ConcurrentHashMap<>();
-    
-    // Market ticker -> InternalOrderBook (new internal format)
-    private final ConcurrentHashMap<String, InternalOrderBook> internalOrderBooks = new ConcurrentHashMap<>();
+    // Market ticker -> MarketBook; OrderBookState and InternalOrderBook views are built from it on demand
+    private final ConcurrentHashMap<String, MarketBook> orderBooks = new ConcurrentHashMap<>();
     
     // Track markets that have been bootstrapped
     private final ConcurrentHashMap<String, Boolean> bootstrappedMarkets = new ConcurrentHashMap<>();
     
+    // Market data partition -> highest offset acknowledged or replayed for it
+    private final ConcurrentHashMap<Integer, Long> partitionOffsets = new ConcurrentHashMap<>();
+    
+    // Markets waiting for a resync snapshot -> when the last request went out
+    private final ConcurrentHashMap<String, Long> staleMarkets = new ConcurrentHashMap<>();
+    
+    // Resync statistics
+    private final AtomicLong gapsDetected = new AtomicLong(0);
+    private final AtomicLong resyncsCompleted = new AtomicLong(0);
+    private final AtomicLong resyncRequests = new AtomicLong(0);
+    private final AtomicLong bufferedDeltasDropped = new AtomicLong(0);
+    private final AtomicLong totalRecoveryMs = new AtomicLong(0);
+    private final AtomicLong maxRecoveryMs = new AtomicLong(0);
+    private volatile long lastRecoveryMs;
+    
+    @Value("${orderbook.resync.enabled:true}")
+    private boolean resyncEnabled;
+    
+    @Value("${orderbook.resync.max-buffered-deltas:1000}")
+    private int maxBufferedDeltas;
+    
+    @Value("${orderbook.resync.retry-ms:5000}")
+    private long resyncRetryMs;
+    
     @Autowired
     private OrderBookConverter orderBookConverter;
     
@@ -35,12 +79,19 @@ public class OrderBookManager {
     
     /**
      * Process an incoming WebSocket message and determine if it should be published
-     * Also converts to InternalOrderBook format for internal use
      * @return true if the message should be published, false if it should be skipped
      */
     public boolean shouldPublishMessage(Map<String, Object> message) {
-        String channel = (String) message.get("channel");
-        String marketTicker = (String) message.get("market_ticker");
+        return shouldPublishFrame(UpstreamFrame.fromMessage(message));
+    }
+    
+    /**
+     * Same as shouldPublishMessage, for a frame already decoded by the streaming parser
+     * @return true if the message should be published, false if it should be skipped
+     */
+    public boolean shouldPublishFrame(UpstreamFrame frame) {
+        String channel = frame.getChannel();
+        String marketTicker = frame.getMarketTicker();
         
         if (marketTicker == null || channel == null) {
             // Non-market specific messages or missing data, publish them
@@ -48,106 +99,284 @@ public class OrderBookManager {
         }
         
         // Always publish non-orderbook messages (trades, ticker updates, etc)
-        if (!"orderbook_snapshot".equals(channel) && !"orderbook_delta".equals(channel)) {
+        if (!frame.isOrderBookSnapshot() && !frame.isOrderBookDelta()) {
             return true;
         }
         
-        Object seqObj = message.get("seq");
-        Long sequence = seqObj != null ? ((Number) seqObj).longValue() : null;
+        Long sequence = frame.getSequence();
         long receivedTimestamp = System.currentTimeMillis();
         
-        // Handle legacy OrderBookState for backward compatibility
-        OrderBookState currentState = orderBooks.computeIfAbsent(marketTicker, 
-            k -> {
-                OrderBookState state = new OrderBookState();
-                state.setMarketTicker(marketTicker);
-                return state;
-            });
+        MarketBook book = orderBooks.computeIfAbsent(marketTicker, MarketBook::new);
         
-        synchronized (currentState) {
-            boolean shouldPublish;
-            
-            if ("orderbook_snapshot".equals(channel)) {
-                shouldPublish = handleSnapshot(currentState, message, sequence, marketTicker);
-                // Convert to InternalOrderBook format
-                handleInternalSnapshot(marketTicker, message, receivedTimestamp, sequence);
-            } else if ("orderbook_delta".equals(channel)) {
-                shouldPublish = handleDelta(currentState, message, sequence, marketTicker);
-                // Convert to InternalOrderBook format
-                handleInternalDelta(marketTicker, message, receivedTimestamp, sequence);
+        boolean publish;
+        boolean requestResync = false;
+        synchronized (book) {
+            if (frame.isOrderBookSnapshot() && book.isStale()) {
+                publish = spliceResync(book, frame, sequence, receivedTimestamp);
+                requestResync = book.isStale();
+            } else if (frame.isOrderBookDelta() && frame.getSide() != null && book.isStale()) {
+                bufferDelta(book, frame);
+                publish = false;
             } else {
-                shouldPublish = true;
+                book.adoptSid(frame.getSid());
+                publish = frame.isOrderBookSnapshot()
+                        ? handleSnapshot(book, frame, sequence, receivedTimestamp)
+                        : handleDelta(book, frame, sequence, receivedTimestamp);
+            }
+            if (publish) {
+                // Caller reports the outcome via onPublishAcknowledged or onPublishFailed
+                book.publishStarted();
             }
-            
-            return shouldPublish;
         }
+        
+        if (requestResync) {
+            requestResync(marketTicker);
+        }
+        return publish;
     }
     
     /**
-     * Handle snapshot in InternalOrderBook format
+     * Kafka acknowledged an order book change published for a market
      */
-    private void handleInternalSnapshot(String marketTicker, Map<String, Object> message, 
-                                      long receivedTimestamp, Long sequence) {
-        try {
-            InternalOrderBook newBook = orderBookConverter.convertSnapshot(marketTicker, message, receivedTimestamp, sequence);
-            internalOrderBooks.put(marketTicker, newBook);
-            log.debug("Updated internal order book for {} with snapshot (seq: {})", marketTicker, sequence);
-        } catch (Exception e) {
-            log.error("Failed to convert snapshot to InternalOrderBook for {}: {}", marketTicker, e.getMessage(), e);
+    public void onPublishAcknowledged(String marketTicker, int partition, long offset) {
+        // Advance the partition first, so a book that settles below never snapshots at an older offset
+        advancePartitionOffset(partition, offset);
+        MarketBook book = orderBooks.get(marketTicker);
+        if (book != null) {
+            synchronized (book) {
+                book.publishFinished(partition);
+            }
         }
     }
     
     /**
-     * Handle delta in InternalOrderBook format
+     * Publishing an order book change for a market failed
      */
-    private void handleInternalDelta(String marketTicker, Map<String, Object> message, 
-                                   long receivedTimestamp, Long sequence) {
-        try {
-            InternalOrderBook existingBook = internalOrderBooks.get(marketTicker);
-            if (existingBook != null) {
-                InternalOrderBook updatedBook = orderBookConverter.applyDelta(existingBook, message, receivedTimestamp, sequence);
-                internalOrderBooks.put(marketTicker, updatedBook);
-                log.debug("Updated internal order book for {} with delta (seq: {})", marketTicker, sequence);
-            } else {
-                log.warn("Received delta for {} but no existing InternalOrderBook found", marketTicker);
+    public void onPublishFailed(String marketTicker) {
+        MarketBook book = orderBooks.get(marketTicker);
+        if (book != null) {
+            synchronized (book) {
+                book.publishFinished(-1);
+            }
+        }
+    }
+    
+    /**
+     * Record that every record on a market data partition up to offset is reflected in the books
+     */
+    public void advancePartitionOffset(int partition, long offset) {
+        partitionOffsets.merge(partition, offset, Math::max);
+    }
+    
+    /**
+     * Snapshot every book that has no unacknowledged publishes, a known partition, and either
+     * changed since its last snapshot or was last snapshotted more than maxAgeMs ago
+     */
+    public List<BookSnapshot> collectSnapshots(long now, long maxAgeMs) {
+        List<BookSnapshot> snapshots = new ArrayList<>();
+        for (MarketBook book : orderBooks.values()) {
+            synchronized (book) {
+                if (!book.isSettled()) {
+                    continue;
+                }
+                if (!book.isSnapshotDirty() && now - book.getLastSnapshotTimestamp() < maxAgeMs) {
+                    continue;
+                }
+                Long offset = partitionOffsets.get(book.getPartition());
+                if (offset != null) {
+                    snapshots.add(book.toSnapshot(offset, now));
+                }
+            }
+        }
+        return snapshots;
+    }
+    
+    /**
+     * A snapshot could not be written; take it again on the next pass
+     */
+    public void markSnapshotStale(String marketTicker) {
+        MarketBook book = orderBooks.get(marketTicker);
+        if (book != null) {
+            synchronized (book) {
+                book.setSnapshotDirty(true);
             }
-        } catch (Exception e) {
-            log.error("Failed to apply delta to InternalOrderBook for {}: {}", marketTicker, e.getMessage(), e);
         }
     }
     
-    private boolean handleSnapshot(OrderBookState currentState, Map<String, Object> message, 
-                                 Long sequence, String marketTicker) {
+    /**
+     * A subscription skipped seqs, so any of its markets may have missed a delta. Each goes stale
+     * and gets a snapshot; markets already stale are waiting for one.
+     */
+    public void onSubscriptionGap(Long sid, Collection<String> marketTickers) {
+        if (!resyncEnabled || marketTickers == null) {
+            return;
+        }
+        gapsDetected.incrementAndGet();
+        long now = System.currentTimeMillis();
+        List<String> resync = new ArrayList<>();
+        for (String marketTicker : marketTickers) {
+            MarketBook book = orderBooks.get(marketTicker);
+            if (book == null) {
+                continue;
+            }
+            synchronized (book) {
+                if (!book.isStale()) {
+                    book.markStale(now);
+                    resync.add(marketTicker);
+                }
+            }
+        }
+        log.warn("Sequence gap on sid {}, resyncing {} markets", sid, resync.size());
+        resync.forEach(this::requestResync);
+    }
+    
+    /**
+     * Buffer a delta of a stale market until its snapshot arrives
+     */
+    private void bufferDelta(MarketBook book, UpstreamFrame frame) {
+        if (!book.bufferDelta(frame, maxBufferedDeltas)) {
+            bufferedDeltasDropped.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Apply a snapshot to a stale book and replay the buffered deltas after its seq. The frame is
+     * rewritten to the spliced book and marked resync, so downstream gets the recovered state.
+     * If the buffer does not continue from the snapshot the book stays stale for another snapshot.
+     * Buffered deltas from another sid than the snapshot's cannot be placed by seq; they were
+     * received before the snapshot, so they are taken as already in it.
+     *
+     * @return true if the book recovered and the frame should be published
+     */
+    private boolean spliceResync(MarketBook book, UpstreamFrame frame, Long sequence, long receivedTimestamp) {
+        String marketTicker = book.getMarketTicker();
+        List<UpstreamFrame> buffered = book.drainBufferedDeltas();
+        book.adoptSid(frame.getSid());
+        book.applySnapshot(frame.getYesLevels(), frame.getNoLevels(), sequence, receivedTimestamp);
+        
+        int spliced = 0;
+        for (int i = 0; i < buffered.size(); i++) {
+            UpstreamFrame delta = buffered.get(i);
+            Long deltaSequence = delta.getSequence();
+            boolean sameSid = Objects.equals(delta.getSid(), frame.getSid());
+            if (!sameSid || sequence == null || deltaSequence == null || deltaSequence <= book.getLastSequence()) {
+                // Already in the snapshot
+                continue;
+            }
+            if (book.isGap(deltaSequence)) {
+                // The snapshot is older than the buffer; wait for a newer one with the rest buffered
+                for (int j = i; j < buffered.size(); j++) {
+                    book.bufferDelta(buffered.get(j), maxBufferedDeltas);
+                }
+                log.info("Snapshot seq {} for market {} does not reach buffered seq {}, resyncing again",
+                        sequence, marketTicker, deltaSequence);
+                return false;
+            }
+            book.applyDelta(delta.getSide(), delta.getPrice(), delta.getDelta(), deltaSequence, receivedTimestamp);
+            spliced++;
+        }
+        
+        long recoveryMs = Math.max(0, System.currentTimeMillis() - book.getStaleSince());
+        book.clearStale();
+        staleMarkets.remove(marketTicker);
+        markMarketAsBootstrapped(marketTicker);
+        resyncsCompleted.incrementAndGet();
+        totalRecoveryMs.addAndGet(recoveryMs);
+        maxRecoveryMs.accumulateAndGet(recoveryMs, Math::max);
+        lastRecoveryMs = recoveryMs;
+        
+        frame.setYesLevels(book.getYesLevels());
+        frame.setNoLevels(book.getNoLevels());
+        frame.setSequence(book.getLastSequence());
+        frame.setResync(true);
+        log.info("Resynced market {} in {}ms: snapshot seq {} plus {} buffered deltas, now at seq {}",
+                marketTicker, recoveryMs, sequence, spliced, book.getLastSequence());
+        return true;
+    }
+    
+    private void requestResync(String marketTicker) {
+        staleMarkets.put(marketTicker, System.currentTimeMillis());
+        resyncRequests.incrementAndGet();
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new MarketResyncRequestEvent(this, marketTicker));
+        }
+    }
+    
+    /**
+     * Ask again for snapshots of markets still stale after the retry interval
+     */
+    @Scheduled(fixedDelayString = "${orderbook.resync.retry-ms:5000}")
+    public void retryStaleResyncs() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Long> entry : staleMarkets.entrySet()) {
+            if (now - entry.getValue() >= resyncRetryMs) {
+                log.info("Market {} still stale, requesting another snapshot", entry.getKey());
+                requestResync(entry.getKey());
+            }
+        }
+    }
+    
+    /**
+     * Gap detection and recovery counters; recovery times are from the gap to the spliced snapshot
+     */
+    public Map<String, Object> getResyncStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long completed = resyncsCompleted.get();
+        stats.put("gapsDetected", gapsDetected.get());
+        stats.put("resyncRequests", resyncRequests.get());
+        stats.put("resyncsCompleted", completed);
+        stats.put("staleMarkets", staleMarkets.size());
+        stats.put("bufferedDeltasDropped", bufferedDeltasDropped.get());
+        stats.put("averageRecoveryMs", completed > 0 ? totalRecoveryMs.get() / completed : 0);
+        stats.put("maxRecoveryMs", maxRecoveryMs.get());
+        stats.put("lastRecoveryMs", lastRecoveryMs);
+        return stats;
+    }
+    
+    /**
+     * @return true if the market is waiting for a resync snapshot
+     */
+    public boolean isMarketStale(String marketTicker) {
+        return staleMarkets.containsKey(marketTicker);
+    }
+    
+    private boolean handleSnapshot(MarketBook book, UpstreamFrame frame, Long sequence, long receivedTimestamp) {
+        String marketTicker = book.getMarketTicker();
+        
         // If we haven't bootstrapped this market yet, always publish the first snapshot
         if (!isMarketBootstrapped(marketTicker)) {
-            currentState.applySnapshot(message, sequence);
+            book.applySnapshot(frame.getYesLevels(), frame.getNoLevels(), sequence, receivedTimestamp);
             markMarketAsBootstrapped(marketTicker);
             log.info("Publishing initial snapshot for non-bootstrapped market: {}", marketTicker);
             return true;
         }
         
-        // Check if this snapshot is different from our current state
-        if (!currentState.isSnapshotIdentical(message)) {
+        // Check if this snapshot is different from our current state (content hash compare)
+        if (!book.matchesSnapshot(frame.getYesLevels(), frame.getNoLevels())) {
             log.info("Snapshot differs from current state for market: {}, publishing update", marketTicker);
-            currentState.applySnapshot(message, sequence);
+            book.applySnapshot(frame.getYesLevels(), frame.getNoLevels(), sequence, receivedTimestamp);
             return true;
         } else {
             log.debug("Skipping identical snapshot for market: {} seq: {}", marketTicker, sequence);
             // Update sequence number even if we don't publish
             if (sequence != null) {
-                currentState.setLastSequence(sequence);
+                book.setLastSequence(sequence);
             }
             return false;
         }
     }
     
-    private boolean handleDelta(OrderBookState currentState, Map<String, Object> message, 
-                              Long sequence, String marketTicker) {
+    private boolean handleDelta(MarketBook book, UpstreamFrame frame, Long sequence, long receivedTimestamp) {
+        if (frame.getSide() == null) {
+            log.warn("Invalid delta for {}: missing price, delta, or side", book.getMarketTicker());
+            return false;
+        }
+        
         // Always apply and publish deltas as they represent actual changes
-        boolean changed = currentState.applyDelta(message, sequence);
+        boolean changed = book.applyDelta(frame.getSide(), frame.getPrice(), frame.getDelta(), sequence, receivedTimestamp);
         
         if (!changed) {
-            log.debug("Delta resulted in no change for market: {} seq: {}", marketTicker, sequence);
+            log.debug("Delta resulted in no change for market: {} seq: {}", book.getMarketTicker(), sequence);
             return false;
         }
         
@@ -158,7 +387,12 @@ public class OrderBookManager {
      * Load historical state from bootstrap data
      */
     public void loadHistoricalState(String marketTicker, OrderBookState state) {
-        orderBooks.put(marketTicker, state.copy());
+        MarketBook book = MarketBook.fromOrderBookState(marketTicker, state);
+        if (state.getSourcePartition() != null) {
+            book.setPartition(state.getSourcePartition());
+        }
+        book.setSnapshotDirty(true);
+        orderBooks.put(marketTicker, book);
         markMarketAsBootstrapped(marketTicker);
         log.info("Loaded historical state for market: {} with sequence: {}", 
                 marketTicker, state.getLastSequence());
@@ -182,8 +416,13 @@ public class OrderBookManager {
      * Get current state for a market (for testing/monitoring)
      */
     public OrderBookState getOrderBookState(String marketTicker) {
-        OrderBookState state = orderBooks.get(marketTicker);
-        return state != null ? state.copy() : null;
+        MarketBook book = orderBooks.get(marketTicker);
+        if (book == null) {
+            return null;
+        }
+        synchronized (book) {
+            return book.toOrderBookState();
+        }
     }
     
     /**
@@ -204,14 +443,27 @@ public class OrderBookManager {
      * Get InternalOrderBook for a market (new format)
      */
     public InternalOrderBook getInternalOrderBook(String marketTicker) {
-        return internalOrderBooks.get(marketTicker);
+        MarketBook book = orderBooks.get(marketTicker);
+        if (book == null) {
+            return null;
+        }
+        synchronized (book) {
+            return book.toInternalOrderBook();
+        }
     }
     
     /**
      * Get all internal order books
      */
     public Map<String, InternalOrderBook> getAllInternalOrderBooks() {
-        return new ConcurrentHashMap<>(internalOrderBooks);
+        Map<String, InternalOrderBook> result = new HashMap<>();
+        for (String marketTicker : orderBooks.keySet()) {
+            InternalOrderBook book = getInternalOrderBook(marketTicker);
+            if (book != null) {
+                result.put(marketTicker, book);
+            }
+        }
+        return result;
     }
     
     /**
@@ -234,7 +486,8 @@ public class OrderBookManager {
      */
     public void clearAll() {
         orderBooks.clear();
-        internalOrderBooks.clear();
         bootstrappedMarkets.clear();
+        partitionOffsets.clear();
+        staleMarkets.clear();
     }
 }
\ No newline at end of file
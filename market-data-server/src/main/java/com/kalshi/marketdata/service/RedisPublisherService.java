@@ -1,58 +1,170 @@
 package com.kalshi.marketdata.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fbg.api.kalshi.MarketDataBinaryCodec;
+import com.fbg.api.kalshi.MarketDataFormat;
+import com.kalshi.marketdata.config.KafkaConfig;
+import com.kalshi.marketdata.config.RedisConfig;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Relays market data from Kafka to Redis pub/sub channels, or to Redis streams.
+ *
+ * Key features:
+ * - Routes on the channel and market ticker record headers stamped by the producer;
+ *   record values are never parsed
+ * - Value bytes are forwarded to Redis unchanged, except binary-encoded records (content-format
+ *   header), which are transcoded to the JSON envelope WebSocket clients expect
+ * - Records arrive in batches and each batch is published in a single Redis pipeline
+ * - Records without a market ticker go only to the all-markets channel; records without
+ *   a channel header are skipped
+ * - With redis.transport=streams each record is appended (XADD) to streams named like the
+ *   channels, trimmed to about redis.streams.max-length entries, so clients can resume
+ * - A failed stream batch is thrown back to the listener container, which retries it before the
+ *   offsets are committed; pub/sub has no subscriber that could catch up, so a failed pub/sub
+ *   batch is logged and dropped
+ * - Records are counted as relayed only once their pipeline has run
+ */
 @Service
 @Slf4j
 public class RedisPublisherService {
-    
+
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
-    
-    @Autowired
-    private ObjectMapper objectMapper;
-    
+
     private static final String REDIS_CHANNEL_PREFIX = "market-data:";
-    
+    private static final byte[] PREFIX_BYTES = REDIS_CHANNEL_PREFIX.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ALL_CHANNEL = (REDIS_CHANNEL_PREFIX + "all").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BINARY_FORMAT = MarketDataFormat.BINARY_V1.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] STREAM_PREFIX_BYTES = RedisConfig.STREAM_KEY_PREFIX.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ALL_STREAM = (RedisConfig.STREAM_KEY_PREFIX + "all").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] STREAM_FIELD = RedisConfig.STREAM_FIELD.getBytes(StandardCharsets.UTF_8);
+
+    @Value("${redis.transport:pubsub}")
+    private String transport;
+
+    @Value("${redis.streams.max-length:10000}")
+    private long streamMaxLength;
+
+    private final MarketDataBinaryCodec binaryCodec = new MarketDataBinaryCodec();
+
+    // Statistics
+    private final AtomicLong messagesRelayed = new AtomicLong(0);
+    private final AtomicLong messagesUnrouted = new AtomicLong(0);
+
     /**
-     * Listens to Kafka messages and publishes them to Redis channels
+     * Listens to batches of Kafka records and publishes them to Redis channels
      */
-    @KafkaListener(topics = "${kafka.topic.market-data}", groupId = "market-data-redis-publisher")
-    public void consumeAndPublish(String message) {
+    @KafkaListener(topics = "${kafka.topic.market-data}", groupId = "market-data-redis-publisher",
+                   containerFactory = "relayListenerContainerFactory")
+    public void consumeAndPublish(List<ConsumerRecord<String, byte[]>> records) {
+        int[] routed = new int[1];
         try {
-            // Parse the message to determine routing
-            Map<String, Object> messageData = objectMapper.readValue(message, Map.class);
-            Map<String, Object> originalMessage = (Map<String, Object>) messageData.get("originalMessage");
-            
-            if (originalMessage != null) {
-                // Extract channel and market ticker for routing
-                String channel = (String) originalMessage.get("type");
-                Map<String, Object> msgData = (Map<String, Object>) originalMessage.get("msg");
-                
-                if (msgData != null) {
-                    String marketTicker = (String) msgData.get("marketTicker");
-                    
-                    if (channel != null && marketTicker != null) {
-                        // Publish to market-specific Redis channel
-                        String redisChannel = REDIS_CHANNEL_PREFIX + marketTicker + ":" + channel;
-                        redisTemplate.convertAndSend(redisChannel, message);
-                        log.trace("Published to Redis channel: {}", redisChannel);
-                        
-                        // Also publish to a general channel for all market data
-                        redisTemplate.convertAndSend(REDIS_CHANNEL_PREFIX + "all", message);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (publish(connection, record)) {
+                        routed[0]++;
                     }
                 }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            if (RedisConfig.TRANSPORT_STREAMS.equals(transport)) {
+                // Leave the offsets uncommitted so stream readers see no gap
+                throw e;
+            }
+            log.error("Error publishing batch of {} messages to Redis", records.size(), e);
+            return;
+        }
+        messagesRelayed.addAndGet(routed[0]);
+    }
+
+    public long getMessagesRelayed() {
+        return messagesRelayed.get();
+    }
+
+    public long getMessagesUnrouted() {
+        return messagesUnrouted.get();
+    }
+
+    /**
+     * Queue one record on the pipeline
+     *
+     * @return false if the record was skipped
+     */
+    private boolean publish(RedisConnection connection, ConsumerRecord<String, byte[]> record) {
+        byte[] value = record.value();
+        Header channel = record.headers().lastHeader(KafkaConfig.HEADER_CHANNEL);
+        if (value == null || channel == null) {
+            messagesUnrouted.incrementAndGet();
+            log.trace("Skipping record without channel header at offset {}", record.offset());
+            return false;
+        }
+
+        Header format = record.headers().lastHeader(KafkaConfig.HEADER_FORMAT);
+        if (format != null && Arrays.equals(format.value(), BINARY_FORMAT)) {
+            try {
+                value = binaryCodec.transcodeToJson(value).getBytes(StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                messagesUnrouted.incrementAndGet();
+                log.warn("Skipping undecodable binary record at offset {}: {}", record.offset(), e.getMessage());
+                return false;
             }
-            
-        } catch (Exception e) {
-            log.error("Error processing message for Redis publishing", e);
         }
+
+        Header marketTicker = record.headers().lastHeader(KafkaConfig.HEADER_MARKET_TICKER);
+        if (RedisConfig.TRANSPORT_STREAMS.equals(transport)) {
+            // Approximate trimming lets Redis drop whole nodes, keeping XADD cheap
+            XAddOptions trim = XAddOptions.maxlen(streamMaxLength).approximateTrimming(true);
+            if (marketTicker != null) {
+                connection.streamCommands().xAdd(streamRecord(
+                    redisKey(STREAM_PREFIX_BYTES, marketTicker.value(), channel.value()), value), trim);
+            }
+            connection.streamCommands().xAdd(streamRecord(ALL_STREAM, value), trim);
+            return true;
+        }
+
+        if (marketTicker != null) {
+            // Market-specific channel: market-data:<ticker>:<channel>
+            connection.publish(redisChannel(marketTicker.value(), channel.value()), value);
+        }
+
+        // Also publish to a general channel for all market data
+        connection.publish(ALL_CHANNEL, value);
+        return true;
+    }
+
+    static byte[] redisChannel(byte[] marketTicker, byte[] channel) {
+        return redisKey(PREFIX_BYTES, marketTicker, channel);
+    }
+
+    private static byte[] redisKey(byte[] prefix, byte[] marketTicker, byte[] channel) {
+        byte[] name = new byte[prefix.length + marketTicker.length + 1 + channel.length];
+        System.arraycopy(prefix, 0, name, 0, prefix.length);
+        System.arraycopy(marketTicker, 0, name, prefix.length, marketTicker.length);
+        name[prefix.length + marketTicker.length] = ':';
+        System.arraycopy(channel, 0, name, prefix.length + marketTicker.length + 1, channel.length);
+        return name;
+    }
+
+    private static ByteRecord streamRecord(byte[] key, byte[] value) {
+        return StreamRecords.rawBytes(Map.of(STREAM_FIELD, value)).withStreamKey(key);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package com.kalshi.marketdata.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalshi.marketdata.model.BookSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains the log-compacted market data snapshot topic.
+ *
+ * Key features:
+ * - Periodically writes the full book of every changed market, keyed by market ticker, so
+ *   compaction keeps exactly one latest snapshot per market
+ * - Each snapshot carries the market data partition and offset it is exact as of, plus the
+ *   upstream sequence; consumers load the topic and replay only records after that offset
+ * - Books with publishes still awaiting a Kafka acknowledgement are skipped until they settle
+ * - Unchanged books are re-snapshotted after max-age-ms, so their offsets keep pace with the
+ *   partition and a cold start never replays far back
+ */
+@Slf4j
+@Service
+public class SnapshotTopicPublisher {
+
+    @Autowired
+    private OrderBookManager orderBookManager;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${kafka.topic.market-data-snapshots:market-data-snapshots}")
+    private String snapshotTopic;
+
+    @Value("${snapshot.publish.enabled:true}")
+    private boolean enabled;
+
+    @Value("${snapshot.publish.max-age-ms:600000}")
+    private long maxAgeMs;
+
+    private final AtomicLong snapshotsPublished = new AtomicLong(0);
+
+    /**
+     * Write snapshots for every settled market that changed or aged out since its last snapshot
+     */
+    @Scheduled(fixedDelayString = "${snapshot.publish.interval-ms:30000}")
+    public void publishSnapshots() {
+        if (!enabled) {
+            return;
+        }
+
+        List<BookSnapshot> snapshots = orderBookManager.collectSnapshots(System.currentTimeMillis(), maxAgeMs);
+        if (snapshots.isEmpty()) {
+            return;
+        }
+
+        for (BookSnapshot snapshot : snapshots) {
+            String marketTicker = snapshot.getMarketTicker();
+            try {
+                kafkaTemplate.send(snapshotTopic, marketTicker, objectMapper.writeValueAsString(snapshot))
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            log.warn("Failed to publish snapshot for {}: {}", marketTicker, ex.getMessage());
+                            orderBookManager.markSnapshotStale(marketTicker);
+                        } else {
+                            snapshotsPublished.incrementAndGet();
+                        }
+                    });
+            } catch (Exception e) {
+                log.warn("Failed to publish snapshot for {}: {}", marketTicker, e.getMessage());
+                orderBookManager.markSnapshotStale(marketTicker);
+            }
+        }
+        log.debug("Queued {} order book snapshots to {}", snapshots.size(), snapshotTopic);
+    }
+
+    public long getSnapshotsPublished() {
+        return snapshotsPublished.get();
+    }
+}
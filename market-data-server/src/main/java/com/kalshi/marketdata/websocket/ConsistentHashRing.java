@@ -0,0 +1,95 @@
+package com.kalshi.marketdata.websocket;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Consistent hash ring assigning market tickers to upstream connection shards.
+ *
+ * Key features:
+ * - Every shard owns a number of virtual points on the ring, so keys spread evenly
+ * - A key belongs to the first live shard clockwise from its hash; when a shard goes down only
+ *   its own keys move, and they move back when it returns
+ * - Immutable and allocation-free on lookup, safe to share between threads
+ */
+public final class ConsistentHashRing {
+
+    private final int shardCount;
+    // Ring points in ascending hash order and the shard owning each
+    private final int[] points;
+    private final int[] owners;
+
+    public ConsistentHashRing(int shardCount, int virtualNodes) {
+        if (shardCount < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("Shard and virtual node counts must be positive");
+        }
+        this.shardCount = shardCount;
+
+        long[] entries = new long[shardCount * virtualNodes];
+        int n = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int point = hash("shard-" + shard + "#" + v);
+                // Sort by point (signed order), then shard, packed into one long
+                entries[n++] = ((long) point << 32) | shard;
+            }
+        }
+        Arrays.sort(entries);
+
+        points = new int[entries.length];
+        owners = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = (int) (entries[i] >> 32);
+            owners[i] = (int) entries[i];
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Shard for a key when every shard is live
+     */
+    public int shardFor(String key) {
+        return owners[firstPoint(hash(key))];
+    }
+
+    /**
+     * Shard for a key among the live shards, or -1 if none is live
+     */
+    public int shardFor(String key, BitSet liveShards) {
+        if (liveShards.isEmpty()) {
+            return -1;
+        }
+        int start = firstPoint(hash(key));
+        for (int i = 0; i < points.length; i++) {
+            int owner = owners[(start + i) % points.length];
+            if (liveShards.get(owner)) {
+                return owner;
+            }
+        }
+        return -1;
+    }
+
+    private int firstPoint(int hash) {
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index == points.length ? 0 : index;
+    }
+
+    /**
+     * String hash with a murmur3 finalizer, so similar tickers land far apart
+     */
+    static int hash(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
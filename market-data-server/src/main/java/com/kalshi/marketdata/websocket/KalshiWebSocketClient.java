@@ -1,30 +1,60 @@
 package com.kalshi.marketdata.websocket;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fbg.api.kalshi.MarketDataBinaryCodec;
+import com.fbg.api.kalshi.MarketDataFormat;
+import com.kalshi.marketdata.config.KafkaConfig;
+import com.kalshi.marketdata.model.UpstreamFrame;
 import com.kalshi.marketdata.service.OrderBookManager;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * One upstream WebSocket connection to the Kalshi market data feed.
+ *
+ * Key features:
+ * - Publishes every frame to Kafka keyed by market ticker, after OrderBookManager drops duplicates
+ * - Tracks the last seq of each subscription (sid) on this connection; sids and their sequences
+ *   belong to one connection and start over when it reconnects
+ * - Run as one shard of an UpstreamConnectionPool, drops order book frames for markets the pool
+ *   has moved to another shard, so a book is only ever fed by one connection
+ */
 @Slf4j
-@Component
 public class KalshiWebSocketClient extends WebSocketClient {
     
+    private static final String SOURCE = "kalshi-websocket";
+    private static final int ENVELOPE_VERSION = 1;
+    
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final UpstreamFrameParser frameParser;
     private final OrderBookManager orderBookManager;
     private final String kafkaTopic;
+    // Set when market data is published in the binary format instead of JSON
+    private KafkaTemplate<String, byte[]> binaryTemplate;
+    private MarketDataBinaryCodec binaryCodec;
+    // Shard identity within the connection pool, if any
+    private int shard;
+    private UpstreamShardListener shardListener;
     private final CountDownLatch connectionLatch = new CountDownLatch(1);
     private final AtomicInteger messageId = new AtomicInteger(1);
     
@@ -32,6 +62,16 @@ public class KalshiWebSocketClient extends WebSocketClient {
     private final AtomicLong totalMessagesReceived = new AtomicLong(0);
     private final AtomicLong messagesPublished = new AtomicLong(0);
     private final AtomicLong messagesSkipped = new AtomicLong(0);
+    private final AtomicLong messagesNotOwned = new AtomicLong(0);
+    private final AtomicLong sequenceRegressions = new AtomicLong(0);
+    private final AtomicLong sequenceGaps = new AtomicLong(0);
+    
+    // Subscription ID -> last seq seen on this connection
+    private final Map<Long, Long> lastSequenceBySid = new ConcurrentHashMap<>();
+    
+    // Subscription ID -> markets its order book frames have carried. Kalshi counts seq per
+    // subscription across its markets, so a gap on a sid could have hit any of them.
+    private final Map<Long, Set<String>> orderBookMarketsBySid = new ConcurrentHashMap<>();
     
     public KalshiWebSocketClient(URI serverUri, 
                                 KafkaTemplate<String, String> kafkaTemplate,
@@ -41,14 +81,41 @@ public class KalshiWebSocketClient extends WebSocketClient {
         super(serverUri);
         this.kafkaTemplate = kafkaTemplate;
         this.objectMapper = objectMapper;
+        this.frameParser = new UpstreamFrameParser(objectMapper.getFactory());
         this.orderBookManager = orderBookManager;
         this.kafkaTopic = kafkaTopic;
     }
     
+    /**
+     * Publish market data as MarketDataBinaryCodec records instead of JSON envelopes
+     */
+    public void useBinaryFormat(KafkaTemplate<String, byte[]> binaryTemplate, MarketDataBinaryCodec binaryCodec) {
+        this.binaryTemplate = binaryTemplate;
+        this.binaryCodec = binaryCodec;
+    }
+    
+    /**
+     * Run this connection as one shard of a pool
+     */
+    public void useShard(int shard, UpstreamShardListener shardListener) {
+        this.shard = shard;
+        this.shardListener = shardListener;
+    }
+    
+    public int getShard() {
+        return shard;
+    }
+    
     @Override
     public void onOpen(ServerHandshake handshake) {
-        log.info("WebSocket connection opened to Kalshi mock server");
+        log.info("WebSocket connection {} opened to Kalshi mock server", shard);
+        // Subscriptions from a previous session are gone, and their sequences with them
+        lastSequenceBySid.clear();
+        orderBookMarketsBySid.clear();
         connectionLatch.countDown();
+        if (shardListener != null) {
+            shardListener.onShardOpen(shard);
+        }
     }
     
     @Override
@@ -58,17 +125,24 @@ public class KalshiWebSocketClient extends WebSocketClient {
         totalMessagesReceived.incrementAndGet();
         
         try {
-            // Parse the message to extract metadata
-            Map<String, Object> messageData = objectMapper.readValue(message, HashMap.class);
+            // Single streaming pass: routing fields plus order book levels as primitives
+            UpstreamFrame frame = frameParser.parse(message);
+            String channel = frame.getChannel();
+            String marketTicker = frame.getMarketTicker();
+            Long sequence = frame.getSequence();
+            trackSequence(frame);
             
-            // Extract channel, market ticker and sequence if available
-            String channel = (String) messageData.get("channel");
-            String marketTicker = (String) messageData.get("market_ticker");
-            Object seqObj = messageData.get("seq");
-            Long sequence = seqObj != null ? ((Number) seqObj).longValue() : null;
+            // A market moved to another shard may still have frames in flight on this one
+            if (shardListener != null && marketTicker != null
+                    && (frame.isOrderBookSnapshot() || frame.isOrderBookDelta())
+                    && !shardListener.ownsMarket(shard, marketTicker)) {
+                messagesNotOwned.incrementAndGet();
+                log.debug("Dropping {} for market {} not owned by shard {}", channel, marketTicker, shard);
+                return;
+            }
             
             // Check with OrderBookManager if we should publish this message
-            boolean shouldPublish = orderBookManager.shouldPublishMessage(messageData);
+            boolean shouldPublish = orderBookManager.shouldPublishFrame(frame);
             
             if (!shouldPublish) {
                 messagesSkipped.incrementAndGet();
@@ -82,32 +156,31 @@ public class KalshiWebSocketClient extends WebSocketClient {
                 return;
             }
             
-            // Create the envelope with timing metadata
-            Map<String, Object> envelope = new HashMap<>();
-            envelope.put("payload", messageData);
-            envelope.put("receivedTimestamp", receivedTimestamp);
-            envelope.put("publishedTimestamp", System.currentTimeMillis());
-            envelope.put("channel", channel);
-            envelope.put("marketTicker", marketTicker);
-            envelope.put("sequence", sequence);
-            envelope.put("source", "kalshi-websocket");
-            envelope.put("version", 1);
-            
-            String envelopeJson = objectMapper.writeValueAsString(envelope);
+            // Order book changes are tracked by the manager until Kafka acknowledges them
+            boolean tracked = marketTicker != null && (frame.isOrderBookSnapshot() || frame.isOrderBookDelta());
             
-            // Send to Kafka with market ticker as key for partitioning
-            String kafkaKey = marketTicker != null ? marketTicker : "all-markets";
-            kafkaTemplate.send(kafkaTopic, kafkaKey, envelopeJson)
-                .whenComplete((result, ex) -> {
-                    if (ex != null) {
-                        log.error("Failed to send message to Kafka", ex);
-                    } else {
-                        messagesPublished.incrementAndGet();
-                        long latency = System.currentTimeMillis() - receivedTimestamp;
-                        log.trace("Message sent to Kafka topic: {}, key: {}, latency: {}ms", 
-                                 kafkaTopic, kafkaKey, latency);
-                    }
-                });
+            try {
+                // Send to Kafka with market ticker as key for partitioning
+                String kafkaKey = marketTicker != null ? marketTicker : "all-markets";
+                
+                if (binaryTemplate != null) {
+                    ProducerRecord<String, byte[]> record = new ProducerRecord<>(kafkaTopic, kafkaKey,
+                        encodeBinary(message, frame, receivedTimestamp));
+                    addHeaders(record.headers(), frame, MarketDataFormat.BINARY_V1);
+                    send(binaryTemplate, record, tracked, receivedTimestamp);
+                } else {
+                    // Create the envelope with timing metadata, embedding the upstream frame verbatim
+                    ProducerRecord<String, String> record = new ProducerRecord<>(kafkaTopic, kafkaKey,
+                        writeEnvelope(message, frame, receivedTimestamp));
+                    addHeaders(record.headers(), frame, MarketDataFormat.JSON);
+                    send(kafkaTemplate, record, tracked, receivedTimestamp);
+                }
+            } catch (Exception e) {
+                if (tracked) {
+                    orderBookManager.onPublishFailed(marketTicker);
+                }
+                throw e;
+            }
                 
         } catch (Exception e) {
             log.error("Error processing WebSocket message", e);
@@ -116,7 +189,10 @@ public class KalshiWebSocketClient extends WebSocketClient {
     
     @Override
     public void onClose(int code, String reason, boolean remote) {
-        log.warn("WebSocket connection closed. Code: {}, Reason: {}, Remote: {}", code, reason, remote);
+        log.warn("WebSocket connection {} closed. Code: {}, Reason: {}, Remote: {}", shard, code, reason, remote);
+        if (shardListener != null) {
+            shardListener.onShardClosed(shard);
+        }
     }
     
     @Override
@@ -211,6 +287,170 @@ public class KalshiWebSocketClient extends WebSocketClient {
         }
     }
     
+    private String writeEnvelope(String message, UpstreamFrame frame, long receivedTimestamp) throws IOException {
+        StringWriter out = new StringWriter(message.length() + 192);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeFieldName("payload");
+            if (frame.isResync()) {
+                writeResyncPayload(generator, frame);
+            } else {
+                generator.writeRawValue(message);
+            }
+            generator.writeNumberField("receivedTimestamp", receivedTimestamp);
+            generator.writeNumberField("publishedTimestamp", System.currentTimeMillis());
+            generator.writeStringField("channel", frame.getChannel());
+            generator.writeStringField("marketTicker", frame.getMarketTicker());
+            if (frame.getSequence() != null) {
+                generator.writeNumberField("sequence", frame.getSequence());
+            } else {
+                generator.writeNullField("sequence");
+            }
+            generator.writeStringField("source", SOURCE);
+            generator.writeNumberField("version", ENVELOPE_VERSION);
+            generator.writeEndObject();
+        }
+        return out.toString();
+    }
+    
+    /**
+     * Snapshot message for a book recovered after a sequence gap, in the upstream shape plus a
+     * resync flag; levels and seq are the spliced ones the manager left on the frame
+     */
+    private static void writeResyncPayload(JsonGenerator generator, UpstreamFrame frame) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", frame.getChannel());
+        if (frame.getSid() != null) {
+            generator.writeNumberField("sid", frame.getSid());
+        }
+        if (frame.getSequence() != null) {
+            generator.writeNumberField("seq", frame.getSequence());
+        }
+        generator.writeObjectFieldStart("msg");
+        generator.writeStringField("market_ticker", frame.getMarketTicker());
+        writeLevels(generator, "yes", frame.getYesLevels());
+        writeLevels(generator, "no", frame.getNoLevels());
+        generator.writeBooleanField("resync", true);
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+    
+    private static void writeLevels(JsonGenerator generator, String field, int[] levels) throws IOException {
+        generator.writeArrayFieldStart(field);
+        for (int i = 0; i + 1 < levels.length; i += 2) {
+            generator.writeStartArray();
+            generator.writeNumber(levels[i]);
+            generator.writeNumber(levels[i + 1]);
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+    }
+    
+    /**
+     * Ask upstream for a fresh snapshot of one market, e.g. to recover from a sequence gap
+     */
+    public void requestSnapshot(String marketTicker) {
+        subscribeToMarkets(List.of(marketTicker), List.of("orderbook_snapshot"));
+    }
+    
+    /**
+     * Record the latest seq of a subscription; a seq at or below the last one is a regression.
+     * A seq that skips ahead means frames of the subscription were lost, so every order book
+     * market seen on it goes stale and is resynced before the frame is applied.
+     */
+    private void trackSequence(UpstreamFrame frame) {
+        Long sid = frame.getSid();
+        Long sequence = frame.getSequence();
+        if (sid == null || sequence == null) {
+            return;
+        }
+        boolean orderBookFrame = frame.isOrderBookSnapshot() || frame.isOrderBookDelta();
+        if (orderBookFrame && frame.getMarketTicker() != null) {
+            orderBookMarketsBySid.computeIfAbsent(sid, k -> ConcurrentHashMap.newKeySet()).add(frame.getMarketTicker());
+        }
+        Long previous = lastSequenceBySid.put(sid, sequence);
+        if (previous == null) {
+            return;
+        }
+        if (sequence <= previous) {
+            sequenceRegressions.incrementAndGet();
+            log.debug("Sequence regression on shard {} sid {}: {} after {}", shard, sid, sequence, previous);
+        } else if (sequence > previous + 1 && orderBookFrame) {
+            sequenceGaps.incrementAndGet();
+            log.warn("Sequence gap on shard {} sid {}: expected {} but got {}", shard, sid, previous + 1, sequence);
+            orderBookManager.onSubscriptionGap(sid, orderBookMarketsBySid.get(sid));
+        }
+    }
+    
+    /**
+     * Last seq seen for a subscription on this connection
+     */
+    public Long getLastSequence(long sid) {
+        return lastSequenceBySid.get(sid);
+    }
+    
+    /**
+     * Routing metadata in headers, so the Redis relay never has to parse the value
+     */
+    private static void addHeaders(Headers headers, UpstreamFrame frame, String format) {
+        addHeader(headers, KafkaConfig.HEADER_CHANNEL, frame.getChannel());
+        addHeader(headers, KafkaConfig.HEADER_MARKET_TICKER, frame.getMarketTicker());
+        addHeader(headers, KafkaConfig.HEADER_SEQUENCE, frame.getSequence() != null ? frame.getSequence().toString() : null);
+        addHeader(headers, KafkaConfig.HEADER_FORMAT, format);
+    }
+    
+    private static void addHeader(Headers headers, String name, String value) {
+        if (value != null) {
+            headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    private <V> void send(KafkaTemplate<String, V> template, ProducerRecord<String, V> record,
+                          boolean tracked, long receivedTimestamp) {
+        String marketTicker = record.key();
+        template.send(record)
+            .whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.error("Failed to send message to Kafka", ex);
+                    if (tracked) {
+                        orderBookManager.onPublishFailed(marketTicker);
+                    }
+                } else {
+                    messagesPublished.incrementAndGet();
+                    if (tracked) {
+                        if (result != null && result.getRecordMetadata() != null) {
+                            orderBookManager.onPublishAcknowledged(marketTicker,
+                                result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+                        } else {
+                            orderBookManager.onPublishFailed(marketTicker);
+                        }
+                    }
+                    long latency = System.currentTimeMillis() - receivedTimestamp;
+                    log.trace("Message sent to Kafka topic: {}, key: {}, latency: {}ms", 
+                             kafkaTopic, marketTicker, latency);
+                }
+            });
+    }
+    
+    /**
+     * Binary record for the frame: order book frames are encoded from their decoded fields,
+     * anything else carries the upstream JSON as is
+     */
+    private byte[] encodeBinary(String message, UpstreamFrame frame, long receivedTimestamp) {
+        long now = System.currentTimeMillis();
+        String side = frame.getSide();
+        if (frame.getMarketTicker() != null && frame.isOrderBookSnapshot()) {
+            return binaryCodec.encodeSnapshot(receivedTimestamp, now, frame.getChannel(), frame.getMarketTicker(),
+                frame.getSequence(), frame.getSid(), frame.getYesLevels(), frame.getNoLevels(), SOURCE, ENVELOPE_VERSION);
+        }
+        if (frame.getMarketTicker() != null && frame.isOrderBookDelta() && ("yes".equals(side) || "no".equals(side))) {
+            return binaryCodec.encodeDelta(receivedTimestamp, now, frame.getChannel(), frame.getMarketTicker(),
+                frame.getSequence(), frame.getSid(), side, frame.getPrice(), frame.getDelta(), SOURCE, ENVELOPE_VERSION);
+        }
+        return binaryCodec.encodeJson(receivedTimestamp, now, frame.getChannel(), frame.getMarketTicker(),
+            frame.getSequence(), message, SOURCE, ENVELOPE_VERSION);
+    }
+    
     /**
      * Log statistics about message processing
      */
@@ -235,6 +475,10 @@ public class KalshiWebSocketClient extends WebSocketClient {
         stats.put("totalMessagesReceived", totalMessagesReceived.get());
         stats.put("messagesPublished", messagesPublished.get());
         stats.put("messagesSkipped", messagesSkipped.get());
+        stats.put("messagesNotOwned", messagesNotOwned.get());
+        stats.put("sequenceRegressions", sequenceRegressions.get());
+        stats.put("sequenceGaps", sequenceGaps.get());
+        stats.put("subscriptions", (long) lastSequenceBySid.size());
         stats.put("trackedMarkets", (long) orderBookManager.getTrackedMarketCount());
         stats.put("bootstrappedMarkets", (long) orderBookManager.getBootstrappedMarketCount());
         return stats;
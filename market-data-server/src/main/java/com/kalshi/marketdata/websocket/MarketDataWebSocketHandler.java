@@ -3,10 +3,6 @@ package com.kalshi.marketdata.websocket;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.connection.Message;
-import org.springframework.data.redis.connection.MessageListener;
-import org.springframework.data.redis.listener.ChannelTopic;
-import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
@@ -16,37 +12,35 @@ import org.springframework.web.socket.handler.TextWebSocketHandler;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 @Component
 @Slf4j
 public class MarketDataWebSocketHandler extends TextWebSocketHandler {
     
+    // Redis stream entry id, milliseconds-sequence
+    private static final Pattern STREAM_ID = Pattern.compile("\\d{1,18}-\\d{1,18}");
+    
     @Autowired
     private ObjectMapper objectMapper;
     
+    // One Redis subscription per channel, shared by every session on it
     @Autowired
-    private RedisMessageListenerContainer redisMessageListenerContainer;
-    
-    // Track sessions and their subscriptions
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final Map<String, Set<String>> sessionSubscriptions = new ConcurrentHashMap<>();
-    private final Map<String, MessageListener> sessionListeners = new ConcurrentHashMap<>();
+    private RedisChannelFanout redisChannelFanout;
     
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         log.info("Client connected: {}", session.getId());
-        sessions.put(session.getId(), session);
-        sessionSubscriptions.put(session.getId(), ConcurrentHashMap.newKeySet());
+        redisChannelFanout.register(session);
         
         // Send welcome message
         Map<String, Object> welcome = Map.of(
             "type", "connected",
             "message", "Connected to Kalshi Market Data Server",
-            "sessionId", session.getId()
+            "sessionId", session.getId(),
+            "transport", redisChannelFanout.isStreamsTransport() ? "streams" : "pubsub"
         );
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(welcome)));
+        send(session, objectMapper.writeValueAsString(welcome));
     }
     
     @Override
@@ -85,37 +79,22 @@ public class MarketDataWebSocketHandler extends TextWebSocketHandler {
             return;
         }
         
-        String sessionId = session.getId();
-        Set<String> subscriptions = sessionSubscriptions.get(sessionId);
+        // Last stream id the client saw before reconnecting; the entries after it are replayed
+        Object resumeFrom = request.get("resume_from");
+        if (resumeFrom != null && !(resumeFrom instanceof String && STREAM_ID.matcher((String) resumeFrom).matches())) {
+            sendError(session, "resume_from must be a stream id like 1700000000000-0");
+            return;
+        }
         
-        // Check if already subscribed
-        if (subscriptions.contains(channel)) {
+        String sessionId = session.getId();
+        if (!redisChannelFanout.subscribe(sessionId, channel, (String) resumeFrom)) {
             sendResponse(session, "already_subscribed", Map.of("channel", channel));
             return;
         }
         
-        // Create message listener for this session
-        MessageListener listener = sessionListeners.computeIfAbsent(sessionId, k -> 
-            (Message msg, byte[] pattern) -> {
-                try {
-                    String messageStr = new String(msg.getBody());
-                    WebSocketSession ws = sessions.get(sessionId);
-                    if (ws != null && ws.isOpen()) {
-                        ws.sendMessage(new TextMessage(messageStr));
-                    }
-                } catch (Exception e) {
-                    log.error("Error forwarding message to WebSocket client", e);
-                }
-            }
-        );
-        
-        // Subscribe to Redis channel
-        String redisChannel = "market-data:" + channel;
-        redisMessageListenerContainer.addMessageListener(listener, new ChannelTopic(redisChannel));
-        subscriptions.add(channel);
-        
-        log.info("Client {} subscribed to channel: {}", sessionId, channel);
-        sendResponse(session, "subscribed", Map.of("channel", channel));
+        boolean resuming = resumeFrom != null && redisChannelFanout.isStreamsTransport();
+        log.info("Client {} subscribed to channel: {}{}", sessionId, channel, resuming ? " resuming after " + resumeFrom : "");
+        sendResponse(session, "subscribed", Map.of("channel", channel, "resuming", resuming));
     }
     
     private void handleUnsubscribe(WebSocketSession session, Map<String, Object> request) throws IOException {
@@ -127,17 +106,7 @@ public class MarketDataWebSocketHandler extends TextWebSocketHandler {
         }
         
         String sessionId = session.getId();
-        Set<String> subscriptions = sessionSubscriptions.get(sessionId);
-        
-        if (subscriptions.remove(channel)) {
-            // If no more subscriptions, remove the listener
-            if (subscriptions.isEmpty()) {
-                MessageListener listener = sessionListeners.remove(sessionId);
-                if (listener != null) {
-                    redisMessageListenerContainer.removeMessageListener(listener);
-                }
-            }
-            
+        if (redisChannelFanout.unsubscribe(sessionId, channel)) {
             log.info("Client {} unsubscribed from channel: {}", sessionId, channel);
             sendResponse(session, "unsubscribed", Map.of("channel", channel));
         } else {
@@ -154,15 +123,8 @@ public class MarketDataWebSocketHandler extends TextWebSocketHandler {
         String sessionId = session.getId();
         log.info("Client disconnected: {} - {}", sessionId, status);
         
-        // Clean up
-        sessions.remove(sessionId);
-        sessionSubscriptions.remove(sessionId);
-        
-        // Remove Redis listener
-        MessageListener listener = sessionListeners.remove(sessionId);
-        if (listener != null) {
-            redisMessageListenerContainer.removeMessageListener(listener);
-        }
+        // Leaves every channel, unsubscribing in Redis any that now have no sessions
+        redisChannelFanout.unregister(sessionId);
     }
     
     @Override
@@ -176,7 +138,7 @@ public class MarketDataWebSocketHandler extends TextWebSocketHandler {
         response.put("data", data);
         response.put("timestamp", System.currentTimeMillis());
         
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+        send(session, objectMapper.writeValueAsString(response));
     }
     
     private void sendError(WebSocketSession session, String error) throws IOException {
@@ -186,6 +148,11 @@ public class MarketDataWebSocketHandler extends TextWebSocketHandler {
             "timestamp", System.currentTimeMillis()
         );
         
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+        send(session, objectMapper.writeValueAsString(response));
+    }
+    
+    // Replies share the fan-out's send path so they never overlap a forwarded message
+    private void send(WebSocketSession session, String payload) throws IOException {
+        redisChannelFanout.send(session.getId(), payload);
     }
 }
\ No newline at end of file
@@ -0,0 +1,568 @@
+package com.kalshi.marketdata.websocket;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.kalshi.marketdata.config.RedisConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares one Redis subscription per market data channel among all WebSocket sessions.
+ *
+ * Key features:
+ * - The first session on a channel subscribes it in Redis and the last one to leave unsubscribes it,
+ *   so the listener container sees one listener per channel however many clients there are
+ * - Each Redis message is wrapped once and the same payload is written to every subscriber,
+ *   without decoding or re-serializing it
+ * - Sessions are striped over a fixed set of fan-out threads; the container's dispatch thread only
+ *   hands messages to the stripes, and each session keeps message order
+ * - A stripe never writes to a socket: it appends to the session's bounded outbound queue, which one
+ *   sender thread at a time drains. A client whose queue passes the buffer limit, or whose current
+ *   write has taken longer than the send time limit, is disconnected rather than sent a stream with
+ *   silent holes; either way the stripe moves straight on to the next session
+ * - Disconnect removes a session from every channel it joined in one call
+ * - With redis.transport=streams channels are read from Redis streams instead; each message
+ *   carries its stream id, and a client subscribing with the last id it saw first receives the
+ *   entries it missed in batches, then continues live without gaps or repeats
+ */
+@Component
+@Slf4j
+public class RedisChannelFanout {
+
+    private static final String REDIS_CHANNEL_PREFIX = "market-data:";
+
+    // Pending marker for a channel whose catch-up is still running
+    private static final String CATCHING_UP = "";
+
+    // How long a catch-up waits between checks of a full outbound queue
+    private static final long CATCH_UP_PACING_MS = 5;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private RedisStreamReader redisStreamReader;
+
+    @Value("${redis.transport:pubsub}")
+    private String transport;
+
+    @Value("${redis.streams.catchup-batch-size:500}")
+    private int catchUpBatchSize;
+
+    @Value("${redis.streams.catchup-workers:2}")
+    private int catchUpWorkerCount;
+
+    @Value("${websocket.fanout.workers:4}")
+    private int workerCount;
+
+    @Value("${websocket.fanout.sender-threads:16}")
+    private int senderThreadCount;
+
+    @Value("${websocket.fanout.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.fanout.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    private ExecutorService[] workers;
+    // Drain session outbound queues; a client blocked in a write only holds one of these
+    private ExecutorService senders;
+    // Range reads for resuming clients, kept off the sender stripes
+    private ExecutorService catchUpWorkers;
+
+    private final AtomicLong catchUpMessages = new AtomicLong(0);
+    private final AtomicLong resumeGaps = new AtomicLong(0);
+    private final AtomicLong slowClientsClosed = new AtomicLong(0);
+
+    // Client channel -> shared Redis subscription
+    private final Map<String, ChannelSubscription> channels = new ConcurrentHashMap<>();
+
+    // Session ID -> send handle and joined channels
+    private final Map<String, SessionHandle> sessions = new ConcurrentHashMap<>();
+
+    // Serializes Redis registration so a channel is added and removed exactly once
+    private final ReentrantLock registrationLock = new ReentrantLock();
+
+    private static class SessionHandle {
+        final WebSocketSession session;
+        final int stripe;
+        // Guarded by registrationLock
+        final Set<String> channels = ConcurrentHashMap.newKeySet();
+        // Channel -> last stream id sent by its catch-up (CATCHING_UP while it runs); live entries
+        // up to it are skipped. Read on the session's stripe.
+        final Map<String, String> resuming = new ConcurrentHashMap<>();
+
+        // Frames waiting for the socket, in send order, and their total payload size
+        final Queue<TextMessage> outbound = new ConcurrentLinkedQueue<>();
+        final AtomicInteger outboundBytes = new AtomicInteger();
+        // Set while a sender thread owns the queue
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closing = new AtomicBoolean();
+        // When the write in progress started, 0 when none is
+        volatile long writeStartedAt;
+
+        SessionHandle(WebSocketSession session, int stripe) {
+            this.session = session;
+            this.stripe = stripe;
+        }
+    }
+
+    private class ChannelSubscription implements MessageListener, RedisStreamReader.EntryListener {
+        final String channel;
+        final ChannelTopic topic;
+        final String streamKey;
+        // Channel name escaped for the JSON frames built around stream entries
+        final String quotedChannel;
+        // Subscribers grouped by sender stripe
+        final List<Set<SessionHandle>> stripes = new ArrayList<>();
+        // Guarded by registrationLock
+        int subscriberCount;
+
+        ChannelSubscription(String channel) {
+            this.channel = channel;
+            this.topic = new ChannelTopic(REDIS_CHANNEL_PREFIX + channel);
+            this.streamKey = RedisConfig.STREAM_KEY_PREFIX + channel;
+            this.quotedChannel = new String(JsonStringEncoder.getInstance().quoteAsString(channel));
+            for (int i = 0; i < workers.length; i++) {
+                stripes.add(ConcurrentHashMap.newKeySet());
+            }
+        }
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            // One message object shared by every session on the channel
+            TextMessage text = new TextMessage(message.getBody());
+            for (int i = 0; i < workers.length; i++) {
+                Set<SessionHandle> subscribers = stripes.get(i);
+                if (!subscribers.isEmpty()) {
+                    workers[i].execute(() -> deliver(subscribers, text));
+                }
+            }
+        }
+
+        @Override
+        public void onEntry(String id, byte[] body) {
+            // Wrapped once with the id clients resume from, then shared like a pub/sub message
+            TextMessage text = new TextMessage("{\"type\":\"stream\",\"channel\":\"" + quotedChannel
+                + "\",\"stream_id\":\"" + id + "\",\"data\":" + new String(body, StandardCharsets.UTF_8) + "}");
+            for (int i = 0; i < workers.length; i++) {
+                Set<SessionHandle> subscribers = stripes.get(i);
+                if (!subscribers.isEmpty()) {
+                    workers[i].execute(() -> deliverEntry(subscribers, channel, id, text));
+                }
+            }
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        workers = new ExecutorService[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            CustomizableThreadFactory factory = new CustomizableThreadFactory("ws-fanout-" + i + "-");
+            factory.setDaemon(true);
+            workers[i] = Executors.newSingleThreadExecutor(factory);
+        }
+        CustomizableThreadFactory senderFactory = new CustomizableThreadFactory("ws-send-");
+        senderFactory.setDaemon(true);
+        senders = Executors.newFixedThreadPool(senderThreadCount, senderFactory);
+        if (isStreamsTransport()) {
+            CustomizableThreadFactory factory = new CustomizableThreadFactory("ws-catchup-");
+            factory.setDaemon(true);
+            catchUpWorkers = Executors.newFixedThreadPool(catchUpWorkerCount, factory);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (ExecutorService worker : workers) {
+            worker.shutdownNow();
+        }
+        senders.shutdownNow();
+        if (catchUpWorkers != null) {
+            catchUpWorkers.shutdownNow();
+        }
+    }
+
+    public boolean isStreamsTransport() {
+        return RedisConfig.TRANSPORT_STREAMS.equals(transport);
+    }
+
+    /**
+     * Track a new session; all sends to it, including command replies, must go through send()
+     */
+    public void register(WebSocketSession session) {
+        int stripe = Math.floorMod(session.getId().hashCode(), workers.length);
+        sessions.put(session.getId(), new SessionHandle(session, stripe));
+    }
+
+    /**
+     * Forget a session and leave every channel it joined
+     */
+    public void unregister(String sessionId) {
+        SessionHandle handle = sessions.remove(sessionId);
+        if (handle == null) {
+            return;
+        }
+        handle.outbound.clear();
+        registrationLock.lock();
+        try {
+            for (String channel : handle.channels) {
+                leave(handle, channel);
+            }
+            handle.channels.clear();
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+
+    /**
+     * Add a session to a channel, subscribing the channel in Redis if it is the first.
+     *
+     * @return false if the session was already subscribed
+     */
+    public boolean subscribe(String sessionId, String channel) {
+        return subscribe(sessionId, channel, null);
+    }
+
+    /**
+     * Add a session to a channel and, with the streams transport, first send it the entries after
+     * resumeFrom: catchup frames of up to redis.streams.catchup-batch-size entries, then a
+     * catchup_complete frame, or a resume_gap frame if entries after resumeFrom were trimmed.
+     * resumeFrom is ignored with pub/sub.
+     *
+     * @return false if the session was already subscribed
+     */
+    public boolean subscribe(String sessionId, String channel, String resumeFrom) {
+        SessionHandle handle = sessions.get(sessionId);
+        if (handle == null) {
+            return false;
+        }
+        registrationLock.lock();
+        try {
+            if (!handle.channels.add(channel)) {
+                return false;
+            }
+            ChannelSubscription subscription = channels.get(channel);
+            if (subscription == null) {
+                subscription = new ChannelSubscription(channel);
+                channels.put(channel, subscription);
+                if (isStreamsTransport()) {
+                    redisStreamReader.register(subscription.streamKey, subscription);
+                    log.info("Reading Redis stream {}", subscription.streamKey);
+                } else {
+                    redisMessageListenerContainer.addMessageListener(subscription, subscription.topic);
+                    log.info("Subscribed Redis channel {}", subscription.topic.getTopic());
+                }
+            }
+            if (resumeFrom != null && isStreamsTransport()) {
+                // Live entries wait until the catch-up has caught up with them
+                handle.resuming.put(channel, CATCHING_UP);
+                ChannelSubscription resumed = subscription;
+                catchUpWorkers.execute(() -> catchUp(handle, resumed, resumeFrom));
+            }
+            subscription.stripes.get(handle.stripe).add(handle);
+            subscription.subscriberCount++;
+            return true;
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+
+    /**
+     * Remove a session from a channel, unsubscribing the channel in Redis if it was the last.
+     *
+     * @return false if the session was not subscribed
+     */
+    public boolean unsubscribe(String sessionId, String channel) {
+        SessionHandle handle = sessions.get(sessionId);
+        if (handle == null) {
+            return false;
+        }
+        registrationLock.lock();
+        try {
+            if (!handle.channels.remove(channel)) {
+                return false;
+            }
+            leave(handle, channel);
+            return true;
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+
+    /**
+     * Queue a frame for a session behind the messages already fanned out to it, so replies and
+     * fanned-out messages never overlap
+     */
+    public void send(String sessionId, String payload) {
+        SessionHandle handle = sessions.get(sessionId);
+        if (handle != null) {
+            sendFrame(handle, payload);
+        }
+    }
+
+    public int getChannelCount() {
+        return channels.size();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getCatchUpMessages() {
+        return catchUpMessages.get();
+    }
+
+    public long getResumeGaps() {
+        return resumeGaps.get();
+    }
+
+    public long getSlowClientsClosed() {
+        return slowClientsClosed.get();
+    }
+
+    // Caller holds registrationLock
+    private void leave(SessionHandle handle, String channel) {
+        ChannelSubscription subscription = channels.get(channel);
+        if (subscription == null) {
+            return;
+        }
+        subscription.stripes.get(handle.stripe).remove(handle);
+        handle.resuming.remove(channel);
+        if (--subscription.subscriberCount == 0) {
+            channels.remove(channel);
+            if (isStreamsTransport()) {
+                redisStreamReader.unregister(subscription.streamKey);
+                log.info("Stopped reading Redis stream {}", subscription.streamKey);
+            } else {
+                redisMessageListenerContainer.removeMessageListener(subscription, subscription.topic);
+                log.info("Unsubscribed Redis channel {}", subscription.topic.getTopic());
+            }
+        }
+    }
+
+    /**
+     * Send the entries after resumeFrom in batches, then hand over to live delivery on the
+     * session's stripe
+     */
+    private void catchUp(SessionHandle handle, ChannelSubscription subscription, String resumeFrom) {
+        String channel = subscription.channel;
+        try {
+            String first = redisStreamReader.firstEntryId(subscription.streamKey);
+            if (first != null && compareStreamIds(first, resumeFrom) > 0 && compareStreamIds(resumeFrom, RedisStreamReader.START_ID) > 0) {
+                // Entries after resumeFrom may have been trimmed; the client needs a snapshot
+                handle.resuming.remove(channel);
+                resumeGaps.incrementAndGet();
+                sendFrame(handle, "{\"type\":\"resume_gap\",\"channel\":\"" + subscription.quotedChannel
+                    + "\",\"first_stream_id\":\"" + first + "\"}");
+                return;
+            }
+            CatchUp progress = new CatchUp(resumeFrom);
+            sendBatches(handle, subscription, progress, true);
+            // The last range and the switch to live run on the stripe, between live deliveries
+            workers[handle.stripe].execute(() -> finishCatchUp(handle, subscription, progress));
+        } catch (Exception e) {
+            log.warn("Catch-up of {} for {} failed: {}", channel, handle.session.getId(), e.getMessage());
+            handle.resuming.remove(channel);
+            sendFrame(handle, "{\"type\":\"resume_failed\",\"channel\":\"" + subscription.quotedChannel + "\"}");
+        }
+    }
+
+    private void finishCatchUp(SessionHandle handle, ChannelSubscription subscription, CatchUp progress) {
+        String channel = subscription.channel;
+        try {
+            sendBatches(handle, subscription, progress, false);
+            handle.resuming.replace(channel, CATCHING_UP, progress.lastId);
+            sendFrame(handle, "{\"type\":\"catchup_complete\",\"channel\":\"" + subscription.quotedChannel
+                + "\",\"last_stream_id\":\"" + progress.lastId + "\",\"messages\":" + progress.sent + "}");
+        } catch (Exception e) {
+            log.warn("Catch-up of {} for {} failed: {}", channel, handle.session.getId(), e.getMessage());
+            handle.resuming.remove(channel);
+            sendFrame(handle, "{\"type\":\"resume_failed\",\"channel\":\"" + subscription.quotedChannel + "\"}");
+        }
+    }
+
+    private static class CatchUp {
+        String lastId;
+        long sent;
+
+        CatchUp(String lastId) {
+            this.lastId = lastId;
+        }
+    }
+
+    /**
+     * Send the entries after progress.lastId. With paced set, each range waits until the session's
+     * queue is below half the buffer limit, so a long catch-up keeps pace with the client instead of
+     * overrunning its queue; the stripe's final range never waits.
+     */
+    private void sendBatches(SessionHandle handle, ChannelSubscription subscription, CatchUp progress,
+                             boolean paced) throws InterruptedException {
+        while (handle.session.isOpen() && handle.channels.contains(subscription.channel)) {
+            while (paced && handle.outboundBytes.get() > sendBufferSizeLimit / 2 && handle.session.isOpen()) {
+                TimeUnit.MILLISECONDS.sleep(CATCH_UP_PACING_MS);
+            }
+            List<ByteRecord> batch = redisStreamReader.range(subscription.streamKey, progress.lastId, catchUpBatchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            StringBuilder frame = new StringBuilder("{\"type\":\"catchup\",\"channel\":\"")
+                .append(subscription.quotedChannel).append("\",\"messages\":[");
+            for (int i = 0; i < batch.size(); i++) {
+                ByteRecord record = batch.get(i);
+                progress.lastId = record.getId().getValue();
+                frame.append(i == 0 ? "" : ",").append("{\"stream_id\":\"").append(progress.lastId)
+                    .append("\",\"data\":")
+                    .append(new String(record.getValue().values().iterator().next(), StandardCharsets.UTF_8))
+                    .append('}');
+            }
+            sendFrame(handle, frame.append("]}").toString());
+            progress.sent += batch.size();
+            catchUpMessages.addAndGet(batch.size());
+            if (batch.size() < catchUpBatchSize) {
+                return;
+            }
+        }
+    }
+
+    private void sendFrame(SessionHandle handle, String frame) {
+        if (handle.session.isOpen()) {
+            sendTo(handle, new TextMessage(frame));
+        }
+    }
+
+    /**
+     * Order of two stream ids (milliseconds-sequence)
+     */
+    static int compareStreamIds(String a, String b) {
+        int dashA = a.indexOf('-');
+        int dashB = b.indexOf('-');
+        long msA = Long.parseLong(dashA < 0 ? a : a.substring(0, dashA));
+        long msB = Long.parseLong(dashB < 0 ? b : b.substring(0, dashB));
+        if (msA != msB) {
+            return Long.compare(msA, msB);
+        }
+        long seqA = dashA < 0 ? 0 : Long.parseLong(a.substring(dashA + 1));
+        long seqB = dashB < 0 ? 0 : Long.parseLong(b.substring(dashB + 1));
+        return Long.compare(seqA, seqB);
+    }
+
+    private void deliverEntry(Set<SessionHandle> subscribers, String channel, String id, TextMessage text) {
+        for (SessionHandle handle : subscribers) {
+            if (!handle.session.isOpen()) {
+                continue;
+            }
+            String caughtUpTo = handle.resuming.get(channel);
+            if (caughtUpTo != null) {
+                if (caughtUpTo == CATCHING_UP || compareStreamIds(id, caughtUpTo) <= 0) {
+                    continue;
+                }
+                handle.resuming.remove(channel, caughtUpTo);
+            }
+            sendTo(handle, text);
+        }
+    }
+
+    private void deliver(Set<SessionHandle> subscribers, TextMessage text) {
+        for (SessionHandle handle : subscribers) {
+            if (!handle.session.isOpen()) {
+                continue;
+            }
+            sendTo(handle, text);
+        }
+    }
+
+    /**
+     * Queue a frame for the session and make sure a sender is draining it; never blocks on the socket
+     */
+    private void sendTo(SessionHandle handle, TextMessage text) {
+        if (handle.closing.get()) {
+            return;
+        }
+        long writeStartedAt = handle.writeStartedAt;
+        if (writeStartedAt != 0 && System.currentTimeMillis() - writeStartedAt > sendTimeLimitMs) {
+            closeSlowClient(handle, "write blocked for more than " + sendTimeLimitMs + " ms");
+            return;
+        }
+        if (handle.outboundBytes.addAndGet(text.getPayloadLength()) > sendBufferSizeLimit) {
+            closeSlowClient(handle, "more than " + sendBufferSizeLimit + " bytes queued");
+            return;
+        }
+        handle.outbound.add(text);
+        if (handle.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(handle));
+        }
+    }
+
+    /**
+     * Write the session's queued frames in order; only the sender holding draining writes to it
+     */
+    private void drain(SessionHandle handle) {
+        do {
+            TextMessage text;
+            while ((text = handle.outbound.poll()) != null) {
+                if (handle.session.isOpen() && !handle.closing.get()) {
+                    handle.writeStartedAt = System.currentTimeMillis();
+                    try {
+                        handle.session.sendMessage(text);
+                    } catch (IOException | IllegalStateException e) {
+                        log.debug("Failed to forward message to {}: {}", handle.session.getId(), e.getMessage());
+                    } finally {
+                        handle.writeStartedAt = 0;
+                    }
+                }
+                handle.outboundBytes.addAndGet(-text.getPayloadLength());
+            }
+            handle.draining.set(false);
+            // A frame queued after the last poll but before the flag cleared still needs a sender
+        } while (!handle.outbound.isEmpty() && handle.draining.compareAndSet(false, true));
+    }
+
+    private void closeSlowClient(SessionHandle handle, String reason) {
+        if (!handle.closing.compareAndSet(false, true)) {
+            return;
+        }
+        slowClientsClosed.incrementAndGet();
+        log.warn("Closing slow client {}: {}", handle.session.getId(), reason);
+        handle.outbound.clear();
+        // Closing may wait behind the blocked write, so it is not done on the caller's thread
+        senders.execute(() -> closeQuietly(handle.session));
+    }
+
+    private void closeQuietly(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Error closing session {}", session.getId(), e);
+        }
+    }
+}
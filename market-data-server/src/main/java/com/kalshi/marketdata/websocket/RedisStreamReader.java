@@ -0,0 +1,210 @@
+package com.kalshi.marketdata.websocket;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tails the Redis streams that WebSocket clients are subscribed to when the streams transport is on.
+ *
+ * Key features:
+ * - One blocking XREAD covers every subscribed stream, so reads do not multiply with markets or
+ *   clients; a stream added meanwhile is picked up when the current read returns
+ * - A stream is read from the last entry it had when it was registered, and its entries reach
+ *   its listener in order on the reader thread
+ * - Range reads for resuming clients run on the caller's thread over their own connection
+ */
+@Component
+@Slf4j
+public class RedisStreamReader {
+
+    /**
+     * Receives the entries of one stream, in order
+     */
+    public interface EntryListener {
+        void onEntry(String id, byte[] body);
+    }
+
+    // Id before every real entry, used for empty streams
+    static final String START_ID = "0-0";
+
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
+    @Value("${redis.streams.block-ms:200}")
+    private long blockMs;
+
+    @Value("${redis.streams.read-count:1000}")
+    private int readCount;
+
+    // Stream key -> read position and listener
+    private final Map<String, Cursor> cursors = new ConcurrentHashMap<>();
+
+    private Thread reader;
+    private volatile boolean running;
+
+    private static class Cursor {
+        final byte[] key;
+        final EntryListener listener;
+        // Written by the reader thread only
+        volatile String lastId;
+
+        Cursor(byte[] key, EntryListener listener, String lastId) {
+            this.key = key;
+            this.listener = listener;
+            this.lastId = lastId;
+        }
+    }
+
+    /**
+     * Start delivering new entries of a stream to the listener
+     */
+    public void register(String streamKey, EntryListener listener) {
+        byte[] key = streamKey.getBytes(StandardCharsets.UTF_8);
+        cursors.put(streamKey, new Cursor(key, listener, lastEntryId(key)));
+        startReader();
+    }
+
+    public void unregister(String streamKey) {
+        cursors.remove(streamKey);
+    }
+
+    /**
+     * Up to count entries after the given id, oldest first
+     */
+    public List<ByteRecord> range(String streamKey, String afterId, int count) {
+        try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+            List<ByteRecord> records = connection.streamCommands().xRange(streamKey.getBytes(StandardCharsets.UTF_8),
+                Range.leftOpen(afterId, "+"), Limit.limit().count(count));
+            return records != null ? records : List.of();
+        }
+    }
+
+    /**
+     * Id of the oldest entry still in the stream, or null if it is empty
+     */
+    public String firstEntryId(String streamKey) {
+        try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+            List<ByteRecord> first = connection.streamCommands().xRange(streamKey.getBytes(StandardCharsets.UTF_8),
+                Range.unbounded(), Limit.limit().count(1));
+            return first == null || first.isEmpty() ? null : first.get(0).getId().getValue();
+        }
+    }
+
+    public int getStreamCount() {
+        return cursors.size();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (reader != null) {
+            reader.interrupt();
+            reader = null;
+        }
+    }
+
+    private String lastEntryId(byte[] key) {
+        try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+            List<ByteRecord> last = connection.streamCommands().xRevRange(key, Range.unbounded(), Limit.limit().count(1));
+            return last == null || last.isEmpty() ? START_ID : last.get(0).getId().getValue();
+        }
+    }
+
+    private synchronized void startReader() {
+        if (reader != null) {
+            return;
+        }
+        running = true;
+        reader = new Thread(this::readLoop, "redis-stream-reader");
+        reader.setDaemon(true);
+        reader.start();
+        log.info("Started Redis stream reader");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readLoop() {
+        RedisConnection connection = null;
+        StreamReadOptions options = StreamReadOptions.empty().block(Duration.ofMillis(blockMs)).count(readCount);
+        while (running) {
+            try {
+                Map<String, Cursor> reading = new HashMap<>(cursors);
+                if (reading.isEmpty()) {
+                    Thread.sleep(blockMs);
+                    continue;
+                }
+                if (connection == null) {
+                    connection = redisConnectionFactory.getConnection();
+                }
+
+                StreamOffset<byte[]>[] offsets = new StreamOffset[reading.size()];
+                int i = 0;
+                for (Cursor cursor : reading.values()) {
+                    offsets[i++] = StreamOffset.create(cursor.key, ReadOffset.from(cursor.lastId));
+                }
+                List<ByteRecord> records = connection.streamCommands().xRead(options, offsets);
+                if (records == null) {
+                    continue;
+                }
+
+                for (ByteRecord record : records) {
+                    String streamKey = new String(record.getStream(), StandardCharsets.UTF_8);
+                    Cursor cursor = reading.get(streamKey);
+                    // Skip streams unregistered, or registered again, while the read was blocked
+                    if (cursor == null || cursors.get(streamKey) != cursor) {
+                        continue;
+                    }
+                    cursor.lastId = record.getId().getValue();
+                    cursor.listener.onEntry(cursor.lastId, record.getValue().values().iterator().next());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.error("Error reading Redis streams, retrying", e);
+                connection = closeQuietly(connection);
+                sleepQuietly();
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    private RedisConnection closeQuietly(RedisConnection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (Exception e) {
+                log.debug("Error closing Redis stream connection", e);
+            }
+        }
+        return null;
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(blockMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.kalshi.marketdata.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fbg.api.kalshi.MarketDataBinaryCodec;
+import com.fbg.api.kalshi.MarketDataFormat;
+import com.kalshi.marketdata.event.MarketResyncRequestEvent;
+import com.kalshi.marketdata.service.OrderBookManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.enums.ReadyState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads the upstream market data feed over a pool of WebSocket connections.
+ *
+ * Key features:
+ * - Opens websocket.upstream.connections connections, each with its own socket and reader thread,
+ *   so ingest is no longer bound by one stream
+ * - Markets are assigned to connections by consistent hash of the ticker; the channels subscribed
+ *   for all markets at once live on a single connection
+ * - Each connection tracks the sid/seq of its own subscriptions
+ * - When a connection drops, its markets are resubscribed on the remaining ones (each starts from
+ *   a fresh snapshot); when it is back, they move home again. A market is owned by exactly one
+ *   connection at a time and the others drop its order book frames, so a book is never fed twice
+ * - Subscriptions are sent from one thread per connection, in order and without blocking callers
+ * - Closed connections are reconnected on a fixed interval
+ * - A market that missed deltas gets its resync snapshot requested on the connection serving it
+ * - With kafka.market-data.format=binary every connection publishes MarketDataBinaryCodec records
+ *   through the binary template instead of JSON envelopes
+ */
+@Component
+@Slf4j
+public class UpstreamConnectionPool implements UpstreamShardListener {
+
+    // Ring key for the channels subscribed without market tickers
+    static final String ALL_MARKETS = "*all-markets*";
+
+    // kafka.market-data.format value selecting binary records; the schema name kmd-v1 is accepted too
+    static final String FORMAT_BINARY = "binary";
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> binaryKafkaTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderBookManager orderBookManager;
+
+    @Value("${kafka.topic.market-data}")
+    private String kafkaTopic;
+
+    @Value("${kafka." + MarketDataFormat.CONFIG + ":" + MarketDataFormat.JSON + "}")
+    private String marketDataFormat;
+
+    @Value("${websocket.upstream.connections:4}")
+    private int connectionCount;
+
+    @Value("${websocket.upstream.virtual-nodes:64}")
+    private int virtualNodes;
+
+    private ConsistentHashRing ring;
+    // Shared by all connections when publishing binary, so they share its ticker dictionary
+    private MarketDataBinaryCodec binaryCodec;
+    private ExecutorService[] subscribers;
+    private volatile KalshiWebSocketClient[] shards;
+    private volatile boolean closing;
+
+    // Guarded by this: connected shards and every market that should be subscribed
+    private final BitSet liveShards = new BitSet();
+    private final Set<String> markets = new LinkedHashSet<>();
+
+    // Market -> shard it is subscribed on; written under this, read by the shards' reader threads
+    private final Map<String, Integer> assignments = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        ring = new ConsistentHashRing(connectionCount, virtualNodes);
+        subscribers = new ExecutorService[connectionCount];
+        for (int i = 0; i < connectionCount; i++) {
+            CustomizableThreadFactory factory = new CustomizableThreadFactory("upstream-" + i + "-");
+            factory.setDaemon(true);
+            subscribers[i] = Executors.newSingleThreadExecutor(factory);
+        }
+        if (FORMAT_BINARY.equals(marketDataFormat) || MarketDataFormat.BINARY_V1.equals(marketDataFormat)) {
+            binaryCodec = new MarketDataBinaryCodec();
+        } else if (!MarketDataFormat.JSON.equals(marketDataFormat)) {
+            throw new IllegalStateException("Unsupported kafka." + MarketDataFormat.CONFIG + ": " + marketDataFormat);
+        }
+        log.info("Upstream connection pool with {} connections publishing {}", connectionCount,
+            binaryCodec != null ? MarketDataFormat.BINARY_V1 : MarketDataFormat.JSON);
+    }
+
+    /**
+     * Open every connection, or reopen the ones that are closed
+     */
+    public synchronized void connect(String url) {
+        closing = false;
+        if (shards != null) {
+            reconnectClosedShards();
+            return;
+        }
+        URI uri = URI.create(url);
+        KalshiWebSocketClient[] created = new KalshiWebSocketClient[connectionCount];
+        for (int i = 0; i < connectionCount; i++) {
+            created[i] = createShard(i, uri);
+        }
+        shards = created;
+        for (KalshiWebSocketClient shard : created) {
+            shard.connect();
+        }
+    }
+
+    KalshiWebSocketClient createShard(int shard, URI uri) {
+        KalshiWebSocketClient client = new KalshiWebSocketClient(uri, kafkaTemplate, objectMapper,
+            orderBookManager, kafkaTopic);
+        client.useShard(shard, this);
+        if (binaryCodec != null) {
+            client.useBinaryFormat(binaryKafkaTemplate, binaryCodec);
+        }
+        return client;
+    }
+
+    /**
+     * Wait for every connection to open, up to the timeout in total.
+     *
+     * @return true if at least one connection is open
+     */
+    public boolean waitForConnection(long timeout, TimeUnit unit) throws InterruptedException {
+        KalshiWebSocketClient[] current = shards;
+        if (current == null) {
+            return false;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (KalshiWebSocketClient shard : current) {
+            shard.waitForConnection(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        return isConnected();
+    }
+
+    public synchronized boolean isConnected() {
+        return !liveShards.isEmpty();
+    }
+
+    /**
+     * Subscribe the channels that support all markets mode, on one connection
+     */
+    public synchronized void subscribeToAllMarkets() {
+        markets.add(ALL_MARKETS);
+        rebalance();
+    }
+
+    /**
+     * Subscribe order book channels for the markets, each on the connection it hashes to.
+     * Markets that are already subscribed are left alone.
+     */
+    public synchronized void subscribeToOrderbookChannels(List<String> marketTickers) {
+        if (marketTickers == null || marketTickers.isEmpty()) {
+            log.warn("No market tickers provided for orderbook subscription");
+            return;
+        }
+        markets.addAll(marketTickers);
+        rebalance();
+    }
+
+    @Override
+    public synchronized void onShardOpen(int shard) {
+        liveShards.set(shard);
+        log.info("Upstream connection {} open, {}/{} live", shard, liveShards.cardinality(), connectionCount);
+        rebalance();
+    }
+
+    @Override
+    public synchronized void onShardClosed(int shard) {
+        liveShards.clear(shard);
+        // Its subscriptions ended with the connection
+        assignments.values().removeIf(assigned -> assigned == shard);
+        if (closing) {
+            return;
+        }
+        log.warn("Upstream connection {} closed, {}/{} live", shard, liveShards.cardinality(), connectionCount);
+        rebalance();
+    }
+
+    @Override
+    public boolean ownsMarket(int shard, String marketTicker) {
+        Integer assigned = assignments.get(marketTicker);
+        return assigned != null && assigned == shard;
+    }
+
+    /**
+     * Request a fresh snapshot of a market on the connection it is subscribed on. A market with no
+     * live connection gets one anyway when it is next subscribed.
+     */
+    @EventListener
+    public void onResyncRequested(MarketResyncRequestEvent event) {
+        String marketTicker = event.getMarketTicker();
+        Integer assigned = assignments.get(marketTicker);
+        KalshiWebSocketClient[] current = shards;
+        if (assigned == null || current == null) {
+            log.debug("No upstream connection serves {}, resync waits for its subscription", marketTicker);
+            return;
+        }
+        KalshiWebSocketClient shard = current[assigned];
+        subscribers[assigned].execute(() -> shard.requestSnapshot(marketTicker));
+    }
+
+    /**
+     * Reopen connections that have closed; the pool moves their markets back once they are open
+     */
+    @Scheduled(fixedDelayString = "${websocket.upstream.reconnect-interval-ms:5000}")
+    public void reconnectClosedShards() {
+        KalshiWebSocketClient[] current = shards;
+        if (current == null || closing) {
+            return;
+        }
+        for (KalshiWebSocketClient shard : current) {
+            if (shard.getReadyState() == ReadyState.CLOSED) {
+                subscribers[shard.getShard()].execute(() -> {
+                    if (!closing && shard.getReadyState() == ReadyState.CLOSED) {
+                        log.info("Reconnecting upstream connection {}", shard.getShard());
+                        shard.reconnect();
+                    }
+                });
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        closing = true;
+        KalshiWebSocketClient[] current = shards;
+        if (current != null) {
+            for (KalshiWebSocketClient shard : current) {
+                shard.close();
+            }
+        }
+    }
+
+    /**
+     * Assign every market to its shard among the live ones and subscribe those that moved
+     */
+    private void rebalance() {
+        Map<Integer, List<String>> moved = new HashMap<>();
+        boolean allMarketsMoved = false;
+        for (String market : markets) {
+            Integer current = assignments.get(market);
+            // The all-markets channels stay put while their shard is up, so they never run twice
+            if (ALL_MARKETS.equals(market) && current != null) {
+                continue;
+            }
+            int target = ring.shardFor(market, liveShards);
+            if (target < 0) {
+                continue;
+            }
+            if (current == null || current != target) {
+                assignments.put(market, target);
+                moved.computeIfAbsent(target, shard -> new ArrayList<>()).add(market);
+            }
+        }
+        if (moved.isEmpty()) {
+            return;
+        }
+
+        KalshiWebSocketClient[] current = shards;
+        for (Map.Entry<Integer, List<String>> entry : moved.entrySet()) {
+            KalshiWebSocketClient shard = current[entry.getKey()];
+            List<String> tickers = entry.getValue();
+            if (tickers.remove(ALL_MARKETS)) {
+                subscribers[shard.getShard()].execute(shard::subscribeToAllMarkets);
+            }
+            if (!tickers.isEmpty()) {
+                subscribers[shard.getShard()].execute(() -> shard.subscribeToOrderbookChannels(tickers));
+            }
+        }
+        log.info("Assigned {} markets over {} live upstream connections",
+            moved.values().stream().mapToInt(List::size).sum(), liveShards.cardinality());
+    }
+
+    /**
+     * Per-connection statistics plus the number of markets each one serves
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        KalshiWebSocketClient[] current = shards;
+        if (current == null) {
+            return stats;
+        }
+        Map<Integer, Long> marketsPerShard = new HashMap<>();
+        assignments.values().forEach(shard -> marketsPerShard.merge(shard, 1L, Long::sum));
+        for (KalshiWebSocketClient shard : current) {
+            Map<String, Object> shardStats = new LinkedHashMap<>(shard.getStatistics());
+            shardStats.put("open", shard.isOpen());
+            shardStats.put("markets", marketsPerShard.getOrDefault(shard.getShard(), 0L));
+            stats.put("connection-" + shard.getShard(), shardStats);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,138 @@
+package com.kalshi.marketdata.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.kalshi.marketdata.model.UpstreamFrame;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Streaming decoder for upstream Kalshi WebSocket frames.
+ *
+ * Key features:
+ * - One token pass per frame: picks out channel/type, sid, seq and market_ticker and skips
+ *   every other field without materializing it
+ * - Order book bodies ("data" or "msg") are decoded straight into ints: side, price and delta
+ *   for deltas, flattened level pairs for snapshots
+ * - No maps, lists or boxed numbers are built for the frame
+ */
+public class UpstreamFrameParser {
+
+    private final JsonFactory jsonFactory;
+
+    public UpstreamFrameParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * @throws IOException if the frame is not a JSON object
+     */
+    public UpstreamFrame parse(String message) throws IOException {
+        UpstreamFrame frame = new UpstreamFrame();
+        String type = null;
+
+        try (JsonParser parser = jsonFactory.createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "channel" -> frame.setChannel(parser.getValueAsString());
+                    case "type" -> type = parser.getValueAsString();
+                    case "sid" -> frame.setSid(longValue(parser, token));
+                    case "seq" -> frame.setSequence(longValue(parser, token));
+                    case "market_ticker" -> frame.setMarketTicker(parser.getValueAsString());
+                    case "data", "msg" -> {
+                        if (token == JsonToken.START_OBJECT) {
+                            parseBody(parser, frame);
+                        }
+                    }
+                    default -> { }
+                }
+                // Skips unknown fields, and known ones that arrive with an unexpected shape
+                parser.skipChildren();
+            }
+        }
+
+        if (frame.getChannel() == null) {
+            frame.setChannel(type);
+        }
+        return frame;
+    }
+
+    private void parseBody(JsonParser parser, UpstreamFrame frame) throws IOException {
+        String bodyTicker = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "market_ticker" -> bodyTicker = parser.getValueAsString();
+                case "side" -> frame.setSide(parser.getValueAsString());
+                case "price" -> frame.setPrice(parser.getValueAsInt());
+                case "delta" -> frame.setDelta(parser.getValueAsInt());
+                case "yes" -> frame.setYesLevels(readLevels(parser, token));
+                case "no" -> frame.setNoLevels(readLevels(parser, token));
+                default -> { }
+            }
+            parser.skipChildren();
+        }
+        // A top-level market_ticker wins over the one in the body
+        if (frame.getMarketTicker() == null) {
+            frame.setMarketTicker(bodyTicker);
+        }
+    }
+
+    /**
+     * Read [[price, quantity, ...], ...] into flattened price, quantity pairs
+     */
+    private int[] readLevels(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            return null;
+        }
+        int[] pairs = new int[16];
+        int size = 0;
+        JsonToken level;
+        while ((level = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (level != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            // Price and quantity come first; anything after them, e.g. a dollar price, is skipped
+            int index = 0;
+            int price = 0;
+            int quantity = 0;
+            int numeric = 0;
+            JsonToken value;
+            while ((value = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (index < 2 && value.isNumeric()) {
+                    if (index == 0) {
+                        price = parser.getIntValue();
+                    } else {
+                        quantity = parser.getIntValue();
+                    }
+                    numeric++;
+                } else {
+                    parser.skipChildren();
+                }
+                index++;
+            }
+            if (numeric == 2) {
+                if (size + 2 > pairs.length) {
+                    pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                }
+                pairs[size++] = price;
+                pairs[size++] = quantity;
+            }
+        }
+        return Arrays.copyOf(pairs, size);
+    }
+
+    private static Long longValue(JsonParser parser, JsonToken token) throws IOException {
+        return token.isNumeric() ? parser.getLongValue() : null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.kalshi.marketdata.websocket;
+
+/**
+ * Callbacks from one upstream connection to the pool that owns it
+ */
+public interface UpstreamShardListener {
+
+    void onShardOpen(int shard);
+
+    void onShardClosed(int shard);
+
+    /**
+     * True if the market's order book is currently served by this shard
+     */
+    boolean ownsMarket(int shard, String marketTicker);
+}
@@ -0,0 +1,107 @@
+package com.kalshi.marketdata.benchmark;
+
+import com.kalshi.marketdata.service.MarketSearchIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Query latency of MarketSearchIndex against the linear substring scan it replaced.
+ *
+ * Builds a synthetic catalog shaped like exchange tickers (EVENT-DATE-STRIKE with a title), then
+ * runs as-you-type queries of increasing length against both and prints the latency per query:
+ *
+ *   MarketSearchBenchmark [markets] [iterations]
+ *
+ * Defaults to 100,000 markets. Results include index build time and the number of hits per query.
+ */
+public class MarketSearchBenchmark {
+
+    private static final String[] SERIES = {"INXD", "BTCZ", "ETHZ", "NASDAQ", "FED", "CPI", "GDP", "PRES",
+        "SENATE", "HOUSE", "RAIN", "TEMP", "OIL", "GOLD", "EURUSD", "UNRATE", "NFLX", "TSLA", "AAPL", "NVDA"};
+    private static final String[] TOPICS = {"S&P 500", "Bitcoin", "Ethereum", "Nasdaq 100", "Fed funds rate",
+        "CPI inflation", "GDP growth", "Presidential election", "Senate control", "House control",
+        "Rain in NYC", "High temperature in Chicago", "WTI crude oil", "Gold price", "EUR/USD",
+        "Unemployment rate", "Netflix stock", "Tesla stock", "Apple stock", "Nvidia stock"};
+    private static final String[] MONTHS = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP",
+        "OCT", "NOV", "DEC"};
+
+    private static final String[] QUERIES = {"b", "bt", "btc", "btcz-24", "nvda-25mar", "inflation",
+        "tesla above", "gold 2350", "eurusd-24dec31-b1", "no-such-market"};
+
+    public static void main(String[] args) {
+        int markets = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        Random random = new Random(42);
+        List<String[]> catalog = new ArrayList<>(markets);
+        for (int i = 0; i < markets; i++) {
+            int series = random.nextInt(SERIES.length);
+            String event = SERIES[series] + "-" + (23 + random.nextInt(3)) + MONTHS[random.nextInt(12)]
+                + String.format("%02d", 1 + random.nextInt(28));
+            int strike = 100 + random.nextInt(5000);
+            String ticker = event + "-B" + strike + "-" + Integer.toString(i, 36).toUpperCase(Locale.ROOT);
+            String title = TOPICS[series] + " above " + strike + " on " + event.substring(event.indexOf('-') + 1);
+            catalog.add(new String[] {ticker, event, title});
+        }
+
+        long buildStart = System.nanoTime();
+        MarketSearchIndex index = new MarketSearchIndex();
+        for (String[] market : catalog) {
+            index.put(market[0], market[1], market[2]);
+        }
+        System.out.printf("markets=%d index build=%.0f ms%n", index.size(), (System.nanoTime() - buildStart) / 1e6);
+
+        Comparator<String> byTicker = Comparator.naturalOrder();
+        System.out.printf("%-20s %8s %12s %12s %12s%n", "query", "hits", "index p50", "index p99", "scan p50");
+        for (String query : QUERIES) {
+            int hits = index.search(query, Integer.MAX_VALUE, byTicker).size();
+
+            // Warm up, then time each query on its own
+            for (int i = 0; i < iterations; i++) {
+                index.search(query, 50, byTicker);
+            }
+            long[] indexed = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                index.search(query, 50, byTicker);
+                indexed[i] = System.nanoTime() - start;
+            }
+
+            int scanIterations = Math.max(1, iterations / 20);
+            long[] scanned = new long[scanIterations];
+            for (int i = 0; i < scanIterations; i++) {
+                long start = System.nanoTime();
+                linearScan(catalog, query);
+                scanned[i] = System.nanoTime() - start;
+            }
+
+            System.out.printf("%-20s %8d %9.3f ms %9.3f ms %9.3f ms%n", query, hits,
+                percentile(indexed, 0.50), percentile(indexed, 0.99), percentile(scanned, 0.50));
+        }
+    }
+
+    /**
+     * The previous search: every ticker lower-cased and checked for the query
+     */
+    private static List<String> linearScan(List<String[]> catalog, String query) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        List<String> matches = new ArrayList<>();
+        for (String[] market : catalog) {
+            if (market[0].toLowerCase(Locale.ROOT).contains(normalized)) {
+                matches.add(market[0]);
+            }
+        }
+        return matches;
+    }
+
+    private static double percentile(long[] nanos, double percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)))] / 1e6;
+    }
+}
@@ -0,0 +1,339 @@
+package com.kalshi.marketdata.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalshi.marketdata.model.OrderBookState;
+import com.kalshi.marketdata.websocket.RedisChannelFanout;
+import com.kalshi.marketdata.websocket.RedisStreamReader;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of a reconnect storm with the pub/sub transport against the streams transport.
+ *
+ * Every client drops and reconnects at once, having missed the last D deltas of each market it
+ * follows. With pub/sub the missed messages are gone, so each client gets a fresh book snapshot per
+ * market; with streams each client resumes from its last stream id and RedisChannelFanout replays
+ * the D entries in catch-up batches. Redis is replaced by an in-process stand-in implementing the
+ * stream commands the server uses, which also counts commands and bytes read:
+ *
+ *   ReconnectStormBenchmark [clients] [markets] [book levels per side]
+ *
+ * Defaults to 200 clients following 20 markets with 40 levels per side, for D = 1, 10, 100 and 1000.
+ */
+public class ReconnectStormBenchmark {
+
+    private static final int[] MISSED_DELTAS = {1, 10, 100, 1000};
+    private static final int STREAM_MAX_LENGTH = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int markets = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int levels = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+
+        System.out.printf("clients=%d markets=%d levels/side=%d%n", clients, markets, levels);
+        System.out.printf("%-8s %8s %10s %14s %12s %14s%n", "mode", "missed", "time", "client bytes",
+            "redis cmds", "redis bytes");
+        for (int missed : MISSED_DELTAS) {
+            // Warm-up run, then the measured one
+            pubSub(clients, markets, levels, missed);
+            print(pubSub(clients, markets, levels, missed));
+            streams(clients, markets, missed);
+            print(streams(clients, markets, missed));
+        }
+    }
+
+    private record Result(String mode, int missed, double millis, long clientBytes, long redisCommands, long redisBytes) {
+    }
+
+    private static void print(Result result) {
+        System.out.printf("%-8s %8d %7.1f ms %14d %12d %14d%n", result.mode, result.missed, result.millis,
+            result.clientBytes, result.redisCommands, result.redisBytes);
+    }
+
+    /**
+     * Pub/sub keeps no history: each client is sent the current book of every market it follows
+     */
+    private static Result pubSub(int clients, int markets, int levels, int missed) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<OrderBookState> books = new ArrayList<>();
+        for (int m = 0; m < markets; m++) {
+            OrderBookState book = new OrderBookState();
+            book.setMarketTicker(ticker(m));
+            int[] yes = new int[levels * 2];
+            int[] no = new int[levels * 2];
+            for (int l = 0; l < levels; l++) {
+                yes[l * 2] = 1 + l;
+                yes[l * 2 + 1] = 100 + l * 7;
+                no[l * 2] = 99 - l;
+                no[l * 2 + 1] = 120 + l * 5;
+            }
+            book.applySnapshot(yes, no, (long) missed);
+            books.add(book);
+        }
+
+        RedisChannelFanout fanout = fanout(null, "pubsub");
+        AtomicLong clientBytes = new AtomicLong();
+        List<String> sessionIds = connect(fanout, clients, clientBytes, null);
+
+        long start = System.nanoTime();
+        for (String sessionId : sessionIds) {
+            for (OrderBookState book : books) {
+                Map<String, Object> snapshot = new HashMap<>();
+                snapshot.put("type", "orderbook_snapshot");
+                snapshot.put("marketTicker", book.getMarketTicker());
+                snapshot.put("seq", book.getLastSequence());
+                snapshot.put("yes", book.getYesBids());
+                snapshot.put("no", book.getNoBids());
+                fanout.send(sessionId, objectMapper.writeValueAsString(snapshot));
+            }
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        fanout.stop();
+        return new Result("pubsub", missed, millis, clientBytes.get(), 0, 0);
+    }
+
+    /**
+     * Streams keep the last entries of each market: each client resumes from the id it saw last
+     */
+    private static Result streams(int clients, int markets, int missed) throws Exception {
+        LocalRedisStreams redis = new LocalRedisStreams();
+        RedisStreamCommands commands = redis.connection().streamCommands();
+        List<String> resumeFrom = new ArrayList<>();
+        for (int m = 0; m < markets; m++) {
+            byte[] key = ("market-data-stream:" + channel(m)).getBytes(StandardCharsets.UTF_8);
+            String lastSeen = null;
+            for (int seq = 1; seq <= missed + 100; seq++) {
+                RecordId id = commands.xAdd(StreamRecords.rawBytes(Map.of("d".getBytes(StandardCharsets.UTF_8),
+                    delta(m, seq))).withStreamKey(key), XAddOptions.maxlen(STREAM_MAX_LENGTH).approximateTrimming(true));
+                if (seq == 100) {
+                    lastSeen = id.getValue();
+                }
+            }
+            resumeFrom.add(lastSeen);
+        }
+        redis.resetCounters();
+
+        RedisStreamReader reader = new RedisStreamReader();
+        ReflectionTestUtils.setField(reader, "redisConnectionFactory", redis.connectionFactory());
+        ReflectionTestUtils.setField(reader, "blockMs", 50L);
+        ReflectionTestUtils.setField(reader, "readCount", 1000);
+        RedisChannelFanout fanout = fanout(reader, "streams");
+        AtomicLong clientBytes = new AtomicLong();
+        CountDownLatch caughtUp = new CountDownLatch(clients * markets);
+        List<String> sessionIds = connect(fanout, clients, clientBytes, caughtUp);
+
+        long start = System.nanoTime();
+        for (String sessionId : sessionIds) {
+            for (int m = 0; m < markets; m++) {
+                fanout.subscribe(sessionId, channel(m), resumeFrom.get(m));
+            }
+        }
+        if (!caughtUp.await(120, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Catch-up did not finish");
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        fanout.stop();
+        reader.stop();
+        return new Result("streams", missed, millis, clientBytes.get(), redis.commands.get(), redis.bytesRead.get());
+    }
+
+    private static RedisChannelFanout fanout(RedisStreamReader reader, String transport) {
+        RedisChannelFanout fanout = new RedisChannelFanout();
+        ReflectionTestUtils.setField(fanout, "redisStreamReader", reader);
+        ReflectionTestUtils.setField(fanout, "transport", transport);
+        ReflectionTestUtils.setField(fanout, "workerCount", 4);
+        ReflectionTestUtils.setField(fanout, "sendTimeLimitMs", 60_000);
+        ReflectionTestUtils.setField(fanout, "sendBufferSizeLimit", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(fanout, "catchUpBatchSize", 500);
+        ReflectionTestUtils.setField(fanout, "catchUpWorkerCount", 2);
+        fanout.start();
+        return fanout;
+    }
+
+    /**
+     * Sessions that count the bytes they are sent and each finished catch-up
+     */
+    private static List<String> connect(RedisChannelFanout fanout, int clients, AtomicLong clientBytes,
+                                        CountDownLatch caughtUp) {
+        List<String> sessionIds = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            String id = "client-" + c;
+            WebSocketSession session = (WebSocketSession) Proxy.newProxyInstance(
+                ReconnectStormBenchmark.class.getClassLoader(), new Class<?>[] {WebSocketSession.class},
+                (proxy, method, methodArgs) -> switch (method.getName()) {
+                    case "getId" -> id;
+                    case "isOpen" -> true;
+                    case "sendMessage" -> {
+                        String payload = ((TextMessage) methodArgs[0]).getPayload();
+                        clientBytes.addAndGet(payload.length());
+                        if (caughtUp != null && (payload.startsWith("{\"type\":\"catchup_complete\"")
+                            || payload.startsWith("{\"type\":\"resume_gap\""))) {
+                            caughtUp.countDown();
+                        }
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == methodArgs[0];
+                    case "getTextMessageSizeLimit", "getBinaryMessageSizeLimit" -> Integer.MAX_VALUE;
+                    default -> null;
+                });
+            fanout.register(session);
+            sessionIds.add(id);
+        }
+        return sessionIds;
+    }
+
+    private static String ticker(int market) {
+        return "BENCH-24DEC31-B" + (1000 + market);
+    }
+
+    private static String channel(int market) {
+        return ticker(market) + ":orderbook_delta";
+    }
+
+    private static byte[] delta(int market, int seq) {
+        return ("{\"channel\":\"orderbook_delta\",\"marketTicker\":\"" + ticker(market) + "\",\"receivedTimestamp\":"
+            + (1_700_000_000_000L + seq) + ",\"payload\":{\"type\":\"orderbook_delta\",\"sid\":1,\"seq\":" + seq
+            + ",\"msg\":{\"market_ticker\":\"" + ticker(market) + "\",\"price\":" + (1 + seq % 99)
+            + ",\"delta\":" + (seq % 2 == 0 ? 25 : -25) + ",\"side\":\"yes\"}}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * In-process stand-in for the Redis stream commands: XADD with MAXLEN, XRANGE, XREVRANGE and a
+     * blocking multi-stream XREAD, counting commands and the entry bytes they return
+     */
+    private static class LocalRedisStreams {
+        private final Map<String, TreeMap<RecordId, byte[]>> streams = new ConcurrentHashMap<>();
+        private final AtomicLong commands = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private long lastMillis;
+        private long lastSequence;
+
+        void resetCounters() {
+            commands.set(0);
+            bytesRead.set(0);
+        }
+
+        RedisConnectionFactory connectionFactory() {
+            return (RedisConnectionFactory) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {RedisConnectionFactory.class}, (proxy, method, args) ->
+                    "getConnection".equals(method.getName()) ? connection() : null);
+        }
+
+        RedisConnection connection() {
+            RedisStreamCommands streamCommands = (RedisStreamCommands) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {RedisStreamCommands.class}, (proxy, method, args) -> {
+                    commands.incrementAndGet();
+                    return switch (method.getName()) {
+                        case "xAdd" -> xAdd((MapRecord<byte[], byte[], byte[]>) args[0], (XAddOptions) args[1]);
+                        case "xRange" -> range((byte[]) args[0], (Range<String>) args[1], (Limit) args[2], false);
+                        case "xRevRange" -> range((byte[]) args[0], (Range<String>) args[1], (Limit) args[2], true);
+                        case "xRead" -> xRead((StreamReadOptions) args[0], (StreamOffset<byte[]>[]) args[1]);
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+            return (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {RedisConnection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "streamCommands" -> streamCommands;
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        }
+
+        private synchronized RecordId xAdd(MapRecord<byte[], byte[], byte[]> record, XAddOptions options) {
+            long now = System.currentTimeMillis();
+            if (now > lastMillis) {
+                lastMillis = now;
+                lastSequence = 0;
+            } else {
+                lastSequence++;
+            }
+            RecordId id = RecordId.of(lastMillis, lastSequence);
+            TreeMap<RecordId, byte[]> stream = streams.computeIfAbsent(key(record.getStream()), k -> new TreeMap<>(
+                ReconnectStormBenchmark::compareIds));
+            stream.put(id, record.getValue().values().iterator().next());
+            while (options.hasMaxlen() && stream.size() > options.getMaxlen()) {
+                stream.pollFirstEntry();
+            }
+            notifyAll();
+            return id;
+        }
+
+        private synchronized List<ByteRecord> range(byte[] key, Range<String> range, Limit limit, boolean reverse) {
+            TreeMap<RecordId, byte[]> stream = streams.getOrDefault(key(key), new TreeMap<>());
+            Map<RecordId, byte[]> entries = reverse ? stream.descendingMap() : stream;
+            String after = range.getLowerBound().getValue().filter(value -> !"-".equals(value)).orElse(null);
+            if (after != null && !reverse) {
+                entries = stream.tailMap(RecordId.of(after), range.getLowerBound().isInclusive());
+            }
+            return collect(key, entries, limit.isUnlimited() ? Integer.MAX_VALUE : limit.getCount());
+        }
+
+        private synchronized List<ByteRecord> xRead(StreamReadOptions options, StreamOffset<byte[]>[] offsets)
+                throws InterruptedException {
+            long deadline = System.currentTimeMillis() + (options.getBlock() != null ? options.getBlock() : 0);
+            while (true) {
+                List<ByteRecord> records = new ArrayList<>();
+                for (StreamOffset<byte[]> offset : offsets) {
+                    TreeMap<RecordId, byte[]> stream = streams.get(key(offset.getKey()));
+                    if (stream != null) {
+                        records.addAll(collect(offset.getKey(), stream.tailMap(RecordId.of(offset.getOffset().getOffset()),
+                            false), options.getCount() != null ? options.getCount().intValue() : Integer.MAX_VALUE));
+                    }
+                }
+                long wait = deadline - System.currentTimeMillis();
+                if (!records.isEmpty() || wait <= 0) {
+                    return records;
+                }
+                wait(wait);
+            }
+        }
+
+        private List<ByteRecord> collect(byte[] key, Map<RecordId, byte[]> entries, int count) {
+            List<ByteRecord> records = new ArrayList<>();
+            for (Map.Entry<RecordId, byte[]> entry : entries.entrySet()) {
+                if (records.size() == count) {
+                    break;
+                }
+                bytesRead.addAndGet(entry.getValue().length);
+                records.add(StreamRecords.newRecord().in(key).withId(entry.getKey())
+                    .ofBytes(Map.of("d".getBytes(StandardCharsets.UTF_8), entry.getValue())));
+            }
+            return records;
+        }
+
+        private static String key(byte[] key) {
+            return new String(key, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int compareIds(RecordId a, RecordId b) {
+        int byMillis = Long.compare(a.getTimestamp(), b.getTimestamp());
+        return byMillis != 0 ? byMillis : Long.compare(a.getSequence(), b.getSequence());
+    }
+}
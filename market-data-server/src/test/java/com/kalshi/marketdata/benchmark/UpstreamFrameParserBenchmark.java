@@ -0,0 +1,183 @@
+package com.kalshi.marketdata.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalshi.marketdata.model.UpstreamFrame;
+import com.kalshi.marketdata.websocket.UpstreamFrameParser;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Throughput of UpstreamFrameParser against the tree parse it replaced in KalshiWebSocketClient.
+ *
+ * Generates a stream of upstream frames shaped like Kalshi's (mostly order book deltas, with a
+ * snapshot of a few dozen levels every so often), then pushes the whole stream through each path
+ * and prints frames per second for two stages:
+ *
+ *   UpstreamFrameParserBenchmark [frames] [rounds] [snapshot every N frames]
+ *
+ * "decode" is the frame turned into what the order book needs: before, a HashMap read with
+ * ObjectMapper and then walked; now, one streaming token pass. "decode + envelope" adds the Kafka
+ * envelope: before, the map re-serialized inside an envelope map; now, the frame embedded raw by a
+ * JsonGenerator. Each round runs both paths back to back; the best round of each is reported.
+ */
+public class UpstreamFrameParserBenchmark {
+
+    private static final String[] SERIES = {"INXD", "BTCZ", "ETHZ", "FED", "CPI", "PRES", "RAIN", "NVDA"};
+
+    public static void main(String[] args) throws IOException {
+        int frameCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int snapshotEvery = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        List<String> frames = generateFrames(frameCount, snapshotEvery);
+        long bytes = frames.stream().mapToLong(String::length).sum();
+        System.out.printf("frames=%d avg size=%d chars snapshot every %d frames%n",
+            frames.size(), bytes / frames.size(), snapshotEvery);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        UpstreamFrameParser parser = new UpstreamFrameParser(objectMapper.getFactory());
+
+        double bestTreeDecode = 0;
+        double bestStreamDecode = 0;
+        double bestTreeEnvelope = 0;
+        double bestStreamEnvelope = 0;
+        long sink = 0;
+        // Round 0 is warm-up and not counted
+        for (int round = 0; round <= rounds; round++) {
+            long start = System.nanoTime();
+            for (String frame : frames) {
+                sink += treeDecode(objectMapper, frame).getPrice();
+            }
+            double treeDecode = rate(frames.size(), start);
+
+            start = System.nanoTime();
+            for (String frame : frames) {
+                sink += parser.parse(frame).getPrice();
+            }
+            double streamDecode = rate(frames.size(), start);
+
+            start = System.nanoTime();
+            for (String frame : frames) {
+                sink += treeEnvelope(objectMapper, frame).length();
+            }
+            double treeEnvelope = rate(frames.size(), start);
+
+            start = System.nanoTime();
+            for (String frame : frames) {
+                sink += streamEnvelope(objectMapper, parser, frame).length();
+            }
+            double streamEnvelope = rate(frames.size(), start);
+
+            if (round > 0) {
+                bestTreeDecode = Math.max(bestTreeDecode, treeDecode);
+                bestStreamDecode = Math.max(bestStreamDecode, streamDecode);
+                bestTreeEnvelope = Math.max(bestTreeEnvelope, treeEnvelope);
+                bestStreamEnvelope = Math.max(bestStreamEnvelope, streamEnvelope);
+            }
+        }
+
+        System.out.printf("%-20s %16s %16s %8s%n", "stage", "tree frames/s", "stream frames/s", "speedup");
+        System.out.printf("%-20s %,16.0f %,16.0f %7.2fx%n", "decode",
+            bestTreeDecode, bestStreamDecode, bestStreamDecode / bestTreeDecode);
+        System.out.printf("%-20s %,16.0f %,16.0f %7.2fx%n", "decode + envelope",
+            bestTreeEnvelope, bestStreamEnvelope, bestStreamEnvelope / bestTreeEnvelope);
+        // Keeps the JIT from discarding the work
+        System.out.println("checksum=" + sink);
+    }
+
+    private static List<String> generateFrames(int count, int snapshotEvery) {
+        Random random = new Random(42);
+        List<String> frames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String ticker = SERIES[random.nextInt(SERIES.length)] + "-25JAN" + (10 + random.nextInt(20))
+                + "-B" + (100 + random.nextInt(900));
+            if (i % snapshotEvery == 0) {
+                frames.add("{\"type\":\"orderbook_snapshot\",\"sid\":1,\"seq\":" + i + ",\"msg\":{\"market_ticker\":\""
+                    + ticker + "\",\"yes\":" + levels(random) + ",\"no\":" + levels(random) + "}}");
+            } else {
+                frames.add("{\"type\":\"orderbook_delta\",\"sid\":1,\"seq\":" + i + ",\"msg\":{\"market_ticker\":\""
+                    + ticker + "\",\"price\":" + (1 + random.nextInt(99)) + ",\"delta\":" + (random.nextInt(200) - 100)
+                    + ",\"side\":\"" + (random.nextBoolean() ? "yes" : "no") + "\",\"ts\":\"2025-01-10T14:00:00Z\"}}");
+            }
+        }
+        return frames;
+    }
+
+    private static String levels(Random random) {
+        StringBuilder levels = new StringBuilder("[");
+        int count = 10 + random.nextInt(30);
+        for (int price = 1; price <= count; price++) {
+            if (price > 1) {
+                levels.append(',');
+            }
+            levels.append('[').append(price).append(',').append(1 + random.nextInt(5000)).append(']');
+        }
+        return levels.append(']').toString();
+    }
+
+    /**
+     * The previous decode: the frame read into a HashMap, then the book fields pulled out of it
+     */
+    @SuppressWarnings("unchecked")
+    private static UpstreamFrame treeDecode(ObjectMapper objectMapper, String message) throws IOException {
+        Map<String, Object> messageData = objectMapper.readValue(message, HashMap.class);
+        return UpstreamFrame.fromMessage(messageData);
+    }
+
+    /**
+     * The previous envelope: the parsed map placed in an envelope map and serialized again
+     */
+    @SuppressWarnings("unchecked")
+    private static String treeEnvelope(ObjectMapper objectMapper, String message) throws IOException {
+        Map<String, Object> messageData = objectMapper.readValue(message, HashMap.class);
+        UpstreamFrame frame = UpstreamFrame.fromMessage(messageData);
+        Map<String, Object> envelope = new HashMap<>();
+        envelope.put("payload", messageData);
+        envelope.put("receivedTimestamp", 0L);
+        envelope.put("publishedTimestamp", System.currentTimeMillis());
+        envelope.put("channel", frame.getChannel());
+        envelope.put("marketTicker", frame.getMarketTicker());
+        envelope.put("sequence", frame.getSequence());
+        envelope.put("source", "kalshi-websocket");
+        envelope.put("version", 1);
+        return objectMapper.writeValueAsString(envelope);
+    }
+
+    /**
+     * The current envelope, as KalshiWebSocketClient writes it: the frame embedded verbatim
+     */
+    private static String streamEnvelope(ObjectMapper objectMapper, UpstreamFrameParser parser, String message)
+            throws IOException {
+        UpstreamFrame frame = parser.parse(message);
+        StringWriter out = new StringWriter(message.length() + 192);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeFieldName("payload");
+            generator.writeRawValue(message);
+            generator.writeNumberField("receivedTimestamp", 0L);
+            generator.writeNumberField("publishedTimestamp", System.currentTimeMillis());
+            generator.writeStringField("channel", frame.getChannel());
+            generator.writeStringField("marketTicker", frame.getMarketTicker());
+            if (frame.getSequence() != null) {
+                generator.writeNumberField("sequence", frame.getSequence());
+            } else {
+                generator.writeNullField("sequence");
+            }
+            generator.writeStringField("source", "kalshi-websocket");
+            generator.writeNumberField("version", 1);
+            generator.writeEndObject();
+        }
+        return out.toString();
+    }
+
+    private static double rate(int frames, long startNanos) {
+        return frames / ((System.nanoTime() - startNanos) / 1e9);
+    }
+}
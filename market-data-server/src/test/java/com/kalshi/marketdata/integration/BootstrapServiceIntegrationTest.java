@@ -29,6 +29,7 @@ import static org.junit.jupiter.api.Assertions.*;
     "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
     "bootstrap.enabled=false", // Disable auto-bootstrap
     "bootstrap.lookback.minutes=5",
+    "snapshot.publish.enabled=false", // Tests replay the market data topic only
     "logging.level.com.kalshi.marketdata=DEBUG"
 })
 @DirtiesContext
@@ -0,0 +1,211 @@
+package com.kalshi.marketdata.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalshi.marketdata.model.BookSnapshot;
+import com.kalshi.marketdata.model.OrderBookState;
+import com.kalshi.marketdata.service.BootstrapService;
+import com.kalshi.marketdata.service.OrderBookManager;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@EmbeddedKafka(partitions = 3,
+               topics = {"market-data-all", "market-data-snapshots"})
+@TestPropertySource(properties = {
+    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "bootstrap.enabled=false", // Bootstrap is run by the tests
+    "bootstrap.lookback.minutes=5",
+    "snapshot.publish.enabled=false",
+    "logging.level.com.kalshi.marketdata=INFO"
+})
+@DirtiesContext
+class SnapshotBootstrapIntegrationTest {
+
+    private static final int MARKET_COUNT = 10_000;
+
+    @Autowired
+    private BootstrapService bootstrapService;
+
+    @Autowired
+    private OrderBookManager orderBookManager;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+    private KafkaProducer<String, String> producer;
+
+    @BeforeEach
+    void setUp() {
+        orderBookManager.clearAll();
+
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(embeddedKafka);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG,
+                         "org.apache.kafka.common.serialization.StringSerializer");
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                         "org.apache.kafka.common.serialization.StringSerializer");
+        producer = new KafkaProducer<>(producerProps);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (producer != null) {
+            producer.close();
+        }
+    }
+
+    @Test
+    void testColdStartWithTenThousandMarkets() throws Exception {
+        // Given - Each market has a history of deltas
+        List<Future<RecordMetadata>> lastRecords = new ArrayList<>();
+        for (int i = 0; i < MARKET_COUNT; i++) {
+            String ticker = "COLD-" + i;
+            publishMessage(ticker, createSnapshotEnvelope(ticker, 1L, 65, 100, 35, 150));
+            Future<RecordMetadata> last = null;
+            for (long seq = 2; seq <= 10; seq++) {
+                last = publishMessage(ticker, createDeltaEnvelope(ticker, seq, "yes", 65, 10));
+            }
+            lastRecords.add(last);
+        }
+
+        // And - Snapshots taken as of the latest offset on each market's partition, as the publisher does
+        Map<Integer, Long> partitionOffsets = new HashMap<>();
+        List<RecordMetadata> metadata = new ArrayList<>();
+        for (Future<RecordMetadata> last : lastRecords) {
+            RecordMetadata recordMetadata = last.get(30, TimeUnit.SECONDS);
+            metadata.add(recordMetadata);
+            partitionOffsets.merge(recordMetadata.partition(), recordMetadata.offset(), Math::max);
+        }
+        for (int i = 0; i < MARKET_COUNT; i++) {
+            int partition = metadata.get(i).partition();
+            publishSnapshot(new BookSnapshot("COLD-" + i, partition, partitionOffsets.get(partition), 10L,
+                    System.currentTimeMillis(), new int[] {65, 190}, new int[] {35, 150}));
+        }
+
+        // And - One market moves on after its snapshot
+        publishMessage("COLD-0", createDeltaEnvelope("COLD-0", 11L, "no", 35, -50));
+        producer.flush();
+
+        // When
+        long start = System.currentTimeMillis();
+        Map<String, OrderBookState> bootstrappedStates = bootstrapService.loadHistoricalData();
+        long duration = System.currentTimeMillis() - start;
+
+        // Then - Every market comes from its snapshot and only the later delta is replayed
+        assertEquals(MARKET_COUNT, countMarkets(bootstrappedStates, "COLD-"));
+        assertTrue(duration < 10_000, "Cold start took " + duration + "ms");
+
+        OrderBookState moved = bootstrappedStates.get("COLD-0");
+        assertEquals(11L, moved.getLastSequence());
+        assertEquals(190, moved.getYesBids().get(65));
+        assertEquals(100, moved.getNoBids().get(35));
+
+        OrderBookState idle = bootstrappedStates.get("COLD-" + (MARKET_COUNT - 1));
+        assertEquals(10L, idle.getLastSequence());
+        assertEquals(190, idle.getYesBids().get(65));
+        assertNotNull(idle.getSourcePartition());
+    }
+
+    @Test
+    void testRecordsCoveredBySnapshotAreSkipped() throws Exception {
+        // Given - The snapshot disagrees with the records it covers, so replaying them would show
+        RecordMetadata covered = publishMessage("SKIP-1",
+                createSnapshotEnvelope("SKIP-1", 100L, 65, 100, 35, 150)).get(5, TimeUnit.SECONDS);
+        publishSnapshot(new BookSnapshot("SKIP-1", covered.partition(), covered.offset(), 100L,
+                System.currentTimeMillis(), new int[] {70, 500}, new int[] {30, 500}));
+
+        // And - Later records, including a market with no snapshot yet
+        publishMessage("SKIP-1", createDeltaEnvelope("SKIP-1", 101L, "yes", 70, 25));
+        publishMessage("SKIP-2", createSnapshotEnvelope("SKIP-2", 5L, 60, 10, 40, 10));
+        producer.flush();
+
+        // When
+        Map<String, OrderBookState> bootstrappedStates = bootstrapService.loadHistoricalData();
+
+        // Then
+        OrderBookState snapshotted = bootstrappedStates.get("SKIP-1");
+        assertEquals(101L, snapshotted.getLastSequence());
+        assertEquals(525, snapshotted.getYesBids().get(70));
+        assertFalse(snapshotted.getYesBids().containsKey(65));
+
+        OrderBookState replayed = bootstrappedStates.get("SKIP-2");
+        assertNotNull(replayed);
+        assertEquals(10, replayed.getYesBids().get(60));
+    }
+
+    // Helper methods
+    private Future<RecordMetadata> publishMessage(String key, Map<String, Object> envelope) throws Exception {
+        String json = objectMapper.writeValueAsString(envelope);
+        return producer.send(new ProducerRecord<>("market-data-all", key, json));
+    }
+
+    private void publishSnapshot(BookSnapshot snapshot) throws Exception {
+        producer.send(new ProducerRecord<>("market-data-snapshots", snapshot.getMarketTicker(),
+                objectMapper.writeValueAsString(snapshot)));
+    }
+
+    private long countMarkets(Map<String, OrderBookState> states, String prefix) {
+        return states.keySet().stream().filter(ticker -> ticker.startsWith(prefix)).count();
+    }
+
+    private Map<String, Object> createSnapshotEnvelope(String marketTicker, Long sequence,
+                                                      int yesPrice, int yesQuantity, int noPrice, int noQuantity) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("channel", "orderbook_snapshot");
+        payload.put("market_ticker", marketTicker);
+        payload.put("seq", sequence);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("yes", List.of(List.of(yesPrice, yesQuantity)));
+        data.put("no", List.of(List.of(noPrice, noQuantity)));
+        payload.put("data", data);
+
+        return createEnvelope(payload, marketTicker, "orderbook_snapshot", sequence);
+    }
+
+    private Map<String, Object> createDeltaEnvelope(String marketTicker, Long sequence,
+                                                   String side, Integer price, Integer delta) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("channel", "orderbook_delta");
+        payload.put("market_ticker", marketTicker);
+        payload.put("seq", sequence);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("side", side);
+        data.put("price", price);
+        data.put("delta", delta);
+        payload.put("data", data);
+
+        return createEnvelope(payload, marketTicker, "orderbook_delta", sequence);
+    }
+
+    private Map<String, Object> createEnvelope(Map<String, Object> payload, String marketTicker,
+                                             String channel, Long sequence) {
+        Map<String, Object> envelope = new HashMap<>();
+        envelope.put("payload", payload);
+        envelope.put("receivedTimestamp", System.currentTimeMillis());
+        envelope.put("publishedTimestamp", System.currentTimeMillis());
+        envelope.put("channel", channel);
+        envelope.put("marketTicker", marketTicker);
+        envelope.put("sequence", sequence);
+        envelope.put("source", "kalshi-websocket");
+        envelope.put("version", 1);
+        return envelope;
+    }
+}
@@ -0,0 +1,91 @@
+package com.kalshi.marketdata.model;
+
+import com.fbg.api.kalshi.InternalOrderBook;
+import com.fbg.api.kalshi.UpdateType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketBookTest {
+
+    private MarketBook book;
+
+    @BeforeEach
+    void setUp() {
+        book = new MarketBook("TEST-MARKET");
+        book.applySnapshot(new int[] {65, 100, 64, 200}, new int[] {35, 150}, 100L, 0L);
+    }
+
+    @Test
+    void testSnapshotMatchedByHashRegardlessOfLevelOrder() {
+        // Then
+        assertTrue(book.matchesSnapshot(new int[] {64, 200, 65, 100}, new int[] {35, 150}));
+        assertFalse(book.matchesSnapshot(new int[] {65, 100, 64, 201}, new int[] {35, 150}));
+        assertFalse(book.matchesSnapshot(new int[] {65, 100}, new int[] {35, 150}));
+        // Same level on the other side is a different book
+        assertFalse(book.matchesSnapshot(new int[] {65, 100, 64, 200, 35, 150}, null));
+    }
+
+    @Test
+    void testDeltasKeepHashInStep() {
+        // When: a level is added then removed again
+        assertTrue(book.applyDelta("yes", 66, 50, 101L, 0L));
+        assertFalse(book.matchesSnapshot(new int[] {65, 100, 64, 200}, new int[] {35, 150}));
+        assertTrue(book.applyDelta("yes", 66, -50, 102L, 0L));
+
+        // Then: the book hashes the same as the original snapshot
+        assertTrue(book.matchesSnapshot(new int[] {65, 100, 64, 200}, new int[] {35, 150}));
+        assertEquals(MarketBook.snapshotHash(new int[] {65, 100, 64, 200}, new int[] {35, 150}), book.getContentHash());
+        assertEquals(0, book.getYesQuantity(66));
+    }
+
+    @Test
+    void testDeltaIgnoredWhenStaleOrNoChange() {
+        assertFalse(book.applyDelta("no", 35, 10, 100L, 0L));   // stale sequence
+        assertFalse(book.applyDelta("no", 40, -10, 101L, 0L));  // removing from an empty level
+        assertFalse(book.applyDelta("no", 120, 10, 101L, 0L));  // out of range
+        assertEquals(150, book.getNoQuantity(35));
+        assertEquals(100L, book.getLastSequence());
+    }
+
+    @Test
+    void testViews() {
+        // Given
+        book.applyDelta("no", 35, 25, 101L, 0L);
+
+        // When
+        OrderBookState state = book.toOrderBookState();
+        InternalOrderBook internal = book.toInternalOrderBook();
+
+        // Then
+        assertEquals(101L, state.getLastSequence());
+        assertEquals(100, state.getYesBids().get(65));
+        assertEquals(175, state.getNoBids().get(35));
+        assertEquals(2, internal.getYesSide().getLevelCount());
+        assertEquals(UpdateType.DELTA_MODIFY, internal.getNoSide().getLevels().get(35).getLastUpdateType());
+        assertEquals(UpdateType.SNAPSHOT, internal.getYesSide().getLevels().get(65).getLastUpdateType());
+
+        // And a book loaded from the legacy view matches the original
+        MarketBook reloaded = MarketBook.fromOrderBookState("TEST-MARKET", state);
+        assertEquals(book.getContentHash(), reloaded.getContentHash());
+        assertEquals(101L, reloaded.getLastSequence());
+    }
+
+    @Test
+    void testSnapshotRoundTrip() {
+        // Given
+        book.setPartition(1);
+
+        // When
+        BookSnapshot snapshot = book.toSnapshot(500L, 1000L);
+        OrderBookState state = snapshot.toOrderBookState();
+
+        // Then: levels are best price first and the state records its partition
+        assertArrayEquals(new int[] {65, 100, 64, 200}, snapshot.getYesLevels());
+        assertEquals(500L, snapshot.getOffset());
+        assertEquals(1, state.getSourcePartition());
+        assertEquals(book.getContentHash(), MarketBook.fromOrderBookState("TEST-MARKET", state).getContentHash());
+        assertFalse(book.isSnapshotDirty());
+    }
+}
@@ -0,0 +1,118 @@
+package com.kalshi.marketdata.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalshi.marketdata.model.BookSnapshot;
+import com.kalshi.marketdata.model.OrderBookState;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class BootstrapServiceTest {
+
+    private static final String TOPIC = "market-data-all";
+    private static final String SNAPSHOT_TOPIC = "market-data-snapshots";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TopicPartition partition = new TopicPartition(TOPIC, 0);
+    private final TopicPartition snapshotPartition = new TopicPartition(SNAPSHOT_TOPIC, 0);
+
+    private MockConsumer<String, byte[]> marketDataConsumer;
+    private MockConsumer<String, String> snapshotConsumer;
+    // Offset the lookback window starts at on the market data partition
+    private long windowStartOffset;
+    private BootstrapService bootstrapService;
+
+    @BeforeEach
+    void setUp() {
+        marketDataConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes(Map<TopicPartition, Long> timestamps) {
+                Map<TopicPartition, OffsetAndTimestamp> found = new HashMap<>();
+                timestamps.forEach((tp, timestamp) -> found.put(tp, new OffsetAndTimestamp(windowStartOffset, timestamp)));
+                return found;
+            }
+        };
+        snapshotConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        marketDataConsumer.updatePartitions(TOPIC, List.of(partitionInfo(TOPIC)));
+        snapshotConsumer.updatePartitions(SNAPSHOT_TOPIC, List.of(partitionInfo(SNAPSHOT_TOPIC)));
+
+        bootstrapService = new BootstrapService() {
+            @Override
+            @SuppressWarnings("unchecked")
+            <V> Consumer<String, V> createConsumer(Class<? extends Deserializer<V>> valueDeserializer) {
+                return (Consumer<String, V>) (StringDeserializer.class.equals(valueDeserializer) ? snapshotConsumer : marketDataConsumer);
+            }
+        };
+        ReflectionTestUtils.setField(bootstrapService, "orderBookManager", mock(OrderBookManager.class));
+        ReflectionTestUtils.setField(bootstrapService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(bootstrapService, "kafkaTopic", TOPIC);
+        ReflectionTestUtils.setField(bootstrapService, "snapshotTopic", SNAPSHOT_TOPIC);
+        ReflectionTestUtils.setField(bootstrapService, "lookbackMinutes", 120);
+        ReflectionTestUtils.setField(bootstrapService, "snapshotsEnabled", true);
+    }
+
+    private static PartitionInfo partitionInfo(String topic) {
+        return new PartitionInfo(topic, 0, Node.noNode(), new Node[0], new Node[0]);
+    }
+
+    private ConsumerRecord<String, byte[]> record(long offset, String ticker, String type, String msg, long seq) {
+        String envelope = "{\"payload\":{\"type\":\"" + type + "\",\"sid\":1,\"seq\":" + seq
+            + ",\"msg\":{\"market_ticker\":\"" + ticker + "\"," + msg + "}}}";
+        return new ConsumerRecord<>(TOPIC, 0, offset, ticker, envelope.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testMarketWithoutSnapshotReplayedFromWindowStart() throws Exception {
+        // Given - MARKET-A has a snapshot as of offset 10; MARKET-B has none, and its records are older
+        long now = System.currentTimeMillis();
+        BookSnapshot snapshot = new BookSnapshot("MARKET-A", 0, 10, 5L, now, new int[]{45, 10}, new int[0]);
+        snapshotConsumer.updateBeginningOffsets(Map.of(snapshotPartition, 0L));
+        snapshotConsumer.updateEndOffsets(Map.of(snapshotPartition, 1L));
+        snapshotConsumer.schedulePollTask(() -> {
+            try {
+                snapshotConsumer.addRecord(new ConsumerRecord<>(SNAPSHOT_TOPIC, 0, 0, "MARKET-A",
+                    objectMapper.writeValueAsString(snapshot)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        windowStartOffset = 5;
+        marketDataConsumer.updateBeginningOffsets(Map.of(partition, 0L));
+        marketDataConsumer.updateEndOffsets(Map.of(partition, 12L));
+        marketDataConsumer.schedulePollTask(() -> {
+            marketDataConsumer.addRecord(record(5, "MARKET-B", "orderbook_snapshot", "\"yes\":[[30,20]],\"no\":[]", 1));
+            marketDataConsumer.addRecord(record(8, "MARKET-B", "orderbook_delta", "\"side\":\"yes\",\"price\":31,\"delta\":5", 2));
+            // Covered by MARKET-A's snapshot
+            marketDataConsumer.addRecord(record(9, "MARKET-A", "orderbook_delta", "\"side\":\"yes\",\"price\":50,\"delta\":10", 6));
+            marketDataConsumer.addRecord(record(11, "MARKET-A", "orderbook_delta", "\"side\":\"yes\",\"price\":40,\"delta\":5", 7));
+        });
+
+        // When
+        Map<String, OrderBookState> states = bootstrapService.loadHistoricalData();
+
+        // Then - MARKET-B is rebuilt from the window even though the partition has a later snapshot
+        assertEquals(Map.of(30, 20, 31, 5), states.get("MARKET-B").getYesBids());
+        // And MARKET-A is its snapshot plus only the records after it
+        assertEquals(Map.of(40, 5, 45, 10), states.get("MARKET-A").getYesBids());
+        assertEquals(7L, states.get("MARKET-A").getLastSequence());
+    }
+}
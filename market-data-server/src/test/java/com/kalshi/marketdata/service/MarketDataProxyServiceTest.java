@@ -2,7 +2,7 @@ package com.kalshi.marketdata.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kalshi.marketdata.config.KafkaErrorAlertService;
-import com.kalshi.marketdata.websocket.KalshiWebSocketClient;
+import com.kalshi.marketdata.websocket.UpstreamConnectionPool;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -33,7 +33,7 @@ class MarketDataProxyServiceTest {
     private ObjectMapper objectMapper;
 
     @Mock
-    private KalshiWebSocketClient webSocketClient;
+    private UpstreamConnectionPool upstreamConnections;
     
     @Mock
     private OrderBookManager orderBookManager;
@@ -53,7 +53,7 @@ class MarketDataProxyServiceTest {
     @Test
     void testCheckConnectionHealthReconnectsWhenClosed() throws Exception {
         // Given
-        ReflectionTestUtils.setField(marketDataProxyService, "webSocketClient", null);
+        ReflectionTestUtils.setField(marketDataProxyService, "upstreamConnections", null);
         ReflectionTestUtils.setField(marketDataProxyService, "shouldReconnect", true);
         
         // When
@@ -69,9 +69,9 @@ class MarketDataProxyServiceTest {
     @Test
     void testCheckConnectionHealthDoesNotReconnectWhenConnected() {
         // Given
-        ReflectionTestUtils.setField(marketDataProxyService, "webSocketClient", webSocketClient);
+        ReflectionTestUtils.setField(marketDataProxyService, "upstreamConnections", upstreamConnections);
         ReflectionTestUtils.setField(marketDataProxyService, "shouldReconnect", true);
-        when(webSocketClient.isClosed()).thenReturn(false);
+        when(upstreamConnections.isConnected()).thenReturn(true);
 
         // When
         marketDataProxyService.checkConnectionHealth();
@@ -83,8 +83,8 @@ class MarketDataProxyServiceTest {
     @Test
     void testRefreshMarketSubscriptionsWithActiveConnection() {
         // Given
-        ReflectionTestUtils.setField(marketDataProxyService, "webSocketClient", webSocketClient);
-        when(webSocketClient.isClosed()).thenReturn(false);
+        ReflectionTestUtils.setField(marketDataProxyService, "upstreamConnections", upstreamConnections);
+        when(upstreamConnections.isConnected()).thenReturn(true);
         List<String> markets = Arrays.asList("MARKET1", "MARKET2", "MARKET3");
         when(marketDiscoveryService.getAllMarketTickers()).thenReturn(markets);
 
@@ -93,28 +93,28 @@ class MarketDataProxyServiceTest {
 
         // Then
         verify(marketDiscoveryService).getAllMarketTickers();
-        verify(webSocketClient).subscribeToOrderbookChannels(markets);
+        verify(upstreamConnections).subscribeToOrderbookChannels(markets);
     }
 
     @Test
     void testRefreshMarketSubscriptionsWithClosedConnection() {
         // Given
-        ReflectionTestUtils.setField(marketDataProxyService, "webSocketClient", webSocketClient);
-        when(webSocketClient.isClosed()).thenReturn(true);
+        ReflectionTestUtils.setField(marketDataProxyService, "upstreamConnections", upstreamConnections);
+        when(upstreamConnections.isConnected()).thenReturn(false);
 
         // When
         marketDataProxyService.refreshMarketSubscriptions();
 
         // Then
         verify(marketDiscoveryService, never()).getAllMarketTickers();
-        verify(webSocketClient, never()).subscribeToOrderbookChannels(any());
+        verify(upstreamConnections, never()).subscribeToOrderbookChannels(any());
     }
 
     @Test
     void testRefreshMarketSubscriptionsHandlesException() {
         // Given
-        ReflectionTestUtils.setField(marketDataProxyService, "webSocketClient", webSocketClient);
-        when(webSocketClient.isClosed()).thenReturn(false);
+        ReflectionTestUtils.setField(marketDataProxyService, "upstreamConnections", upstreamConnections);
+        when(upstreamConnections.isConnected()).thenReturn(true);
         when(marketDiscoveryService.getAllMarketTickers()).thenThrow(new RuntimeException("Test error"));
 
         // When
@@ -122,20 +122,19 @@ class MarketDataProxyServiceTest {
 
         // Then
         verify(marketDiscoveryService).getAllMarketTickers();
-        verify(webSocketClient, never()).subscribeToOrderbookChannels(any());
+        verify(upstreamConnections, never()).subscribeToOrderbookChannels(any());
     }
 
     @Test
-    void testShutdownClosesWebSocketClient() {
+    void testShutdownClosesUpstreamConnections() {
         // Given
-        ReflectionTestUtils.setField(marketDataProxyService, "webSocketClient", webSocketClient);
-        when(webSocketClient.isClosed()).thenReturn(false);
+        ReflectionTestUtils.setField(marketDataProxyService, "upstreamConnections", upstreamConnections);
 
         // When
         marketDataProxyService.shutdown();
 
         // Then
-        verify(webSocketClient).close();
+        verify(upstreamConnections).close();
         Boolean shouldReconnect = (Boolean) ReflectionTestUtils.getField(marketDataProxyService, "shouldReconnect");
         assert shouldReconnect != null && !shouldReconnect;
     }
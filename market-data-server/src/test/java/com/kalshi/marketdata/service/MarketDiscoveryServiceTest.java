@@ -1,11 +1,15 @@
 package com.kalshi.marketdata.service;
 
+import com.kalshi.marketdata.event.MarketsDiscoveredEvent;
+import com.kalshi.marketdata.model.MarketInfo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
@@ -56,7 +60,8 @@ class MarketDiscoveryServiceTest {
         assertTrue(tickers.contains("MARKET2"));
         assertTrue(tickers.contains("MARKET3"));
         
-        verify(restTemplate, times(1)).getForObject(anyString(), eq(String.class));
+        // The bulk tickers attempt, then one page
+        verify(restTemplate, times(2)).getForObject(anyString(), eq(String.class));
     }
 
     @Test
@@ -95,7 +100,53 @@ class MarketDiscoveryServiceTest {
         assertTrue(tickers.contains("MARKET2"));
         assertTrue(tickers.contains("MARKET3"));
         
-        verify(restTemplate, times(2)).getForObject(anyString(), eq(String.class));
+        // The bulk tickers attempt, then two pages
+        verify(restTemplate, times(3)).getForObject(anyString(), eq(String.class));
+    }
+
+    @Test
+    void testGetAllMarketTickersFromBulkEndpoint() {
+        // Given
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        ReflectionTestUtils.setField(marketDiscoveryService, "eventPublisher", eventPublisher);
+        when(restTemplate.getForObject(endsWith("/markets/tickers"), eq(String.class)))
+            .thenReturn("{\"tickers\": [\"MARKET1\", \"MARKET2\"]}");
+
+        // When
+        List<String> tickers = marketDiscoveryService.getAllMarketTickers();
+
+        // Then
+        assertEquals(List.of("MARKET1", "MARKET2"), tickers);
+        verify(restTemplate, times(1)).getForObject(anyString(), eq(String.class));
+        ArgumentCaptor<MarketsDiscoveredEvent> eventCaptor = ArgumentCaptor.forClass(MarketsDiscoveredEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(2, eventCaptor.getValue().getMarkets().size());
+    }
+
+    @Test
+    void testGetAllMarketsWithTitles() {
+        // Given
+        String mockResponse = """
+            {
+                "markets": [
+                    {"ticker": "MARKET1", "event_ticker": "EVENT1", "title": "First market"},
+                    {"ticker": "MARKET2", "event_ticker": "EVENT1", "title": null}
+                ],
+                "cursor": null
+            }
+            """;
+        
+        when(restTemplate.getForObject(contains("limit=1000"), eq(String.class))).thenReturn(mockResponse);
+
+        // When
+        List<MarketInfo> markets = marketDiscoveryService.getAllMarkets();
+
+        // Then
+        assertEquals(2, markets.size());
+        assertEquals("MARKET1", markets.get(0).getTicker());
+        assertEquals("EVENT1", markets.get(0).getEventTicker());
+        assertEquals("First market", markets.get(0).getTitle());
+        assertNull(markets.get(1).getTitle());
     }
 
     @Test
@@ -0,0 +1,89 @@
+package com.kalshi.marketdata.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketSearchIndexTest {
+
+    private MarketSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MarketSearchIndex();
+        index.put("INXD-23DEC29-B5000", "INXD-23DEC29", "S&P 500 close above 5000 on Dec 29");
+        index.put("INXD-23DEC29-B4900", "INXD-23DEC29", "S&P 500 close above 4900 on Dec 29");
+        index.put("BTCZ-23DEC31-B50000", "BTCZ-23DEC31", "Bitcoin above 50000 at year end");
+        index.put("TRUMPWIN-24NOV05", "PRES-2024", "Trump wins the presidential election");
+        index.put("PRES-2024-DEM", "PRES-2024", "Democratic candidate wins the presidency");
+    }
+
+    @Test
+    void testRanksExactTickerThenPrefixThenSubstring() {
+        // When
+        List<String> results = index.search("pres-2024", 10, Comparator.naturalOrder());
+
+        // Then - Ticker prefix beats an event match
+        assertEquals(List.of("PRES-2024-DEM", "TRUMPWIN-24NOV05"), results);
+
+        // When
+        results = index.search("inxd-23dec29-b5000", 10, Comparator.naturalOrder());
+
+        // Then
+        assertEquals(List.of("INXD-23DEC29-B5000"), results);
+    }
+
+    @Test
+    void testShortQueriesMatchWordPrefixes() {
+        // When
+        List<String> results = index.search("b", 10, Comparator.naturalOrder());
+
+        // Then - "B5000" and "Bitcoin"; the "b" inside other words does not count
+        assertEquals(List.of("BTCZ-23DEC31-B50000", "INXD-23DEC29-B4900", "INXD-23DEC29-B5000"), results);
+        assertEquals(List.of("INXD-23DEC29-B4900", "INXD-23DEC29-B5000"),
+            index.search("cl", 10, Comparator.naturalOrder()));
+    }
+
+    @Test
+    void testAllWordsMustMatchAcrossFields() {
+        // When
+        List<String> results = index.search("Bitcoin 50000", 10, Comparator.naturalOrder());
+
+        // Then
+        assertEquals(List.of("BTCZ-23DEC31-B50000"), results);
+        assertTrue(index.search("bitcoin trump", 10, Comparator.naturalOrder()).isEmpty());
+        // Substring of a title word, verified past the trigram candidates
+        assertEquals(List.of("PRES-2024-DEM", "TRUMPWIN-24NOV05"),
+            index.search("residen", 10, Comparator.naturalOrder()));
+    }
+
+    @Test
+    void testTieBreakAndLimit() {
+        // When - Both INXD markets score the same
+        List<String> results = index.search("inxd", 1, Comparator.reverseOrder());
+
+        // Then
+        assertEquals(List.of("INXD-23DEC29-B5000"), results);
+    }
+
+    @Test
+    void testReindexReplacesTitleGrams() {
+        // Given
+        assertEquals(List.of("BTCZ-23DEC31-B50000"), index.search("bitcoin", 10, Comparator.naturalOrder()));
+
+        // When
+        index.put("BTCZ-23DEC31-B50000", null, "Ethereum above 3000 at year end");
+        index.put("NEW-MARKET", null, null);
+
+        // Then - Old title words are gone, the event ticker is kept
+        assertTrue(index.search("bitcoin", 10, Comparator.naturalOrder()).isEmpty());
+        assertEquals(List.of("BTCZ-23DEC31-B50000"), index.search("ethereum", 10, Comparator.naturalOrder()));
+        assertEquals(List.of("BTCZ-23DEC31-B50000"), index.search("btcz-23dec31", 10, Comparator.naturalOrder()));
+        assertEquals(List.of("NEW-MARKET"), index.search("new", 10, Comparator.naturalOrder()));
+        assertEquals(6, index.size());
+    }
+}
@@ -0,0 +1,85 @@
+package com.kalshi.marketdata.service;
+
+import com.kalshi.marketdata.event.MarketsDiscoveredEvent;
+import com.kalshi.marketdata.model.MarketInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MarketSearchServiceTest {
+
+    @Mock
+    private MarketDiscoveryService marketDiscoveryService;
+
+    @Mock
+    private OrderBookManager orderBookManager;
+
+    @InjectMocks
+    private MarketSearchService marketSearchService;
+
+    @BeforeEach
+    void setUp() {
+        when(marketDiscoveryService.getAllMarkets()).thenReturn(List.of(
+            market("INXD-23DEC29-B5000", "INXD-23DEC29", "S&P 500 close above 5000"),
+            market("INXD-23DEC29-B4900", "INXD-23DEC29", "S&P 500 close above 4900"),
+            market("BTCZ-23DEC31-B50000", "BTCZ-23DEC31", "Bitcoin above 50000")));
+        marketSearchService.refreshMarketCache();
+    }
+
+    @Test
+    void testSearchByTitleAndEvent() {
+        // When
+        List<MarketInfo> byTitle = marketSearchService.searchMarkets("bitcoin");
+        List<MarketInfo> byEvent = marketSearchService.searchMarkets("INXD-23DEC29");
+
+        // Then
+        assertEquals(1, byTitle.size());
+        assertEquals("BTCZ-23DEC31-B50000", byTitle.get(0).getTicker());
+        assertEquals("Bitcoin above 50000", byTitle.get(0).getTitle());
+        assertEquals(2, byEvent.size());
+        assertEquals(3, marketSearchService.getAllMarkets().size());
+    }
+
+    @Test
+    void testActiveMarketsRankFirstOnEqualMatch() {
+        // Given
+        marketSearchService.updateMarketInfo("INXD-23DEC29-B5000", true, 10);
+
+        // When
+        List<MarketInfo> results = marketSearchService.searchMarkets("inxd");
+
+        // Then
+        assertEquals("INXD-23DEC29-B5000", results.get(0).getTicker());
+        assertEquals("INXD-23DEC29-B4900", results.get(1).getTicker());
+    }
+
+    @Test
+    void testDiscoveredMarketsIndexedIncrementally() {
+        // When
+        marketSearchService.onMarketsDiscovered(new MarketsDiscoveredEvent(marketDiscoveryService, List.of(
+            new MarketInfo("INXD-23DEC29-B4900"),
+            market("ETHZ-23DEC31-B3000", "ETHZ-23DEC31", "Ethereum above 3000"))));
+
+        // Then - The new market is searchable and the known one keeps its title
+        assertEquals("ETHZ-23DEC31-B3000", marketSearchService.searchMarkets("ethereum").get(0).getTicker());
+        assertEquals(2, marketSearchService.searchMarkets("S&P 500").size());
+        assertEquals(4, marketSearchService.getAllMarkets().size());
+        verify(marketDiscoveryService, times(1)).getAllMarkets();
+    }
+
+    private MarketInfo market(String ticker, String eventTicker, String title) {
+        MarketInfo info = new MarketInfo(ticker);
+        info.setEventTicker(eventTicker);
+        info.setTitle(title);
+        return info;
+    }
+}
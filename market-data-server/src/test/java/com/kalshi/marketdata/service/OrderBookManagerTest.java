@@ -1,14 +1,22 @@
 package com.kalshi.marketdata.service;
 
+import com.kalshi.marketdata.event.MarketResyncRequestEvent;
+import com.kalshi.marketdata.model.BookSnapshot;
 import com.kalshi.marketdata.model.OrderBookState;
+import com.kalshi.marketdata.model.UpstreamFrame;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 class OrderBookManagerTest {
 
@@ -213,6 +221,198 @@ class OrderBookManagerTest {
         assertEquals(0, orderBookManager.getBootstrappedMarketCount());
     }
 
+    @Test
+    void testSnapshotsWaitForPublishAcknowledgement() {
+        // Given: a published snapshot and delta, only the first acknowledged
+        orderBookManager.shouldPublishMessage(createSnapshot("TEST-MARKET", 100L,
+                Arrays.asList(Arrays.asList(65, 100)),
+                Arrays.asList(Arrays.asList(35, 150))));
+        orderBookManager.shouldPublishMessage(createDelta("TEST-MARKET", 101L, "yes", 65, 50));
+        orderBookManager.onPublishAcknowledged("TEST-MARKET", 2, 40L);
+
+        // Then: the book is not exact as of any offset yet
+        assertTrue(orderBookManager.collectSnapshots(1000L, 60000L).isEmpty());
+
+        // When: the delta is acknowledged
+        orderBookManager.onPublishAcknowledged("TEST-MARKET", 2, 41L);
+        List<BookSnapshot> snapshots = orderBookManager.collectSnapshots(1000L, 60000L);
+
+        // Then
+        assertEquals(1, snapshots.size());
+        BookSnapshot snapshot = snapshots.get(0);
+        assertEquals(2, snapshot.getPartition());
+        assertEquals(41L, snapshot.getOffset());
+        assertEquals(101L, snapshot.getSequence());
+        assertArrayEquals(new int[] {65, 150}, snapshot.getYesLevels());
+
+        // And an unchanged book is not snapshotted again until it ages out
+        assertTrue(orderBookManager.collectSnapshots(2000L, 60000L).isEmpty());
+        assertEquals(1, orderBookManager.collectSnapshots(61000L, 60000L).size());
+    }
+
+    @Test
+    void testSnapshotOffsetFollowsPartition() {
+        // Given: a settled book, then later records from other markets on its partition
+        orderBookManager.shouldPublishMessage(createSnapshot("TEST-MARKET", 100L,
+                Arrays.asList(Arrays.asList(65, 100)),
+                Arrays.asList(Arrays.asList(35, 150))));
+        orderBookManager.onPublishAcknowledged("TEST-MARKET", 0, 10L);
+        orderBookManager.advancePartitionOffset(0, 25L);
+        orderBookManager.advancePartitionOffset(0, 20L);
+
+        // When
+        List<BookSnapshot> snapshots = orderBookManager.collectSnapshots(1000L, 60000L);
+
+        // Then: the book is exact as of the latest offset seen on the partition
+        assertEquals(25L, snapshots.get(0).getOffset());
+    }
+
+    @Test
+    void testFailedPublishSettlesBook() {
+        // Given: a bootstrapped book whose next change fails to publish
+        OrderBookState state = new OrderBookState();
+        state.setMarketTicker("TEST-MARKET");
+        state.setSourcePartition(1);
+        state.getYesBids().put(65, 100);
+        orderBookManager.loadHistoricalState("TEST-MARKET", state);
+        orderBookManager.advancePartitionOffset(1, 7L);
+        orderBookManager.shouldPublishMessage(createDelta("TEST-MARKET", 101L, "yes", 66, 10));
+
+        // When
+        orderBookManager.onPublishFailed("TEST-MARKET");
+
+        // Then
+        List<BookSnapshot> snapshots = orderBookManager.collectSnapshots(1000L, 60000L);
+        assertEquals(1, snapshots.size());
+        assertEquals(1, snapshots.get(0).getPartition());
+        assertEquals(7L, snapshots.get(0).getOffset());
+    }
+
+    @Test
+    void testSubscriptionGapResyncsOnlyItsMarkets() {
+        // Given: two markets in sync
+        ApplicationEventPublisher eventPublisher = enableResync();
+        orderBookManager.shouldPublishMessage(createSnapshot("GAP-MARKET", 100L,
+                Arrays.asList(Arrays.asList(65, 100)),
+                Arrays.asList(Arrays.asList(35, 150))));
+        orderBookManager.shouldPublishMessage(createSnapshot("OTHER-MARKET", 100L,
+                Arrays.asList(Arrays.asList(50, 10)),
+                Arrays.asList(Arrays.asList(50, 10))));
+
+        // When: the subscription carrying GAP-MARKET skips 101-103
+        orderBookManager.onSubscriptionGap(1L, List.of("GAP-MARKET"));
+        boolean gapPublished = orderBookManager.shouldPublishMessage(createDelta("GAP-MARKET", 104L, "yes", 65, 5));
+        boolean bufferedPublished = orderBookManager.shouldPublishMessage(createDelta("GAP-MARKET", 105L, "no", 35, -50));
+        boolean otherPublished = orderBookManager.shouldPublishMessage(createDelta("OTHER-MARKET", 101L, "yes", 50, 5));
+
+        // Then: its deltas are held back and a snapshot is requested once; the other market flows
+        assertFalse(gapPublished);
+        assertFalse(bufferedPublished);
+        assertTrue(otherPublished);
+        assertTrue(orderBookManager.isMarketStale("GAP-MARKET"));
+        assertFalse(orderBookManager.isMarketStale("OTHER-MARKET"));
+        verify(eventPublisher, times(1)).publishEvent(any(MarketResyncRequestEvent.class));
+
+        // When: the snapshot arrives as of seq 103
+        UpstreamFrame snapshot = UpstreamFrame.fromMessage(createSnapshot("GAP-MARKET", 103L,
+                Arrays.asList(Arrays.asList(65, 120), Arrays.asList(64, 30)),
+                Arrays.asList(Arrays.asList(35, 150))));
+        boolean resyncPublished = orderBookManager.shouldPublishFrame(snapshot);
+
+        // Then: the buffered deltas are spliced on and the frame carries the recovered book
+        assertTrue(resyncPublished);
+        assertTrue(snapshot.isResync());
+        assertEquals(105L, snapshot.getSequence());
+        assertArrayEquals(new int[] {65, 125, 64, 30}, snapshot.getYesLevels());
+        assertArrayEquals(new int[] {35, 100}, snapshot.getNoLevels());
+        assertFalse(orderBookManager.isMarketStale("GAP-MARKET"));
+
+        OrderBookState state = orderBookManager.getOrderBookState("GAP-MARKET");
+        assertEquals(105L, state.getLastSequence());
+        assertEquals(125, state.getYesBids().get(65));
+
+        Map<String, Object> stats = orderBookManager.getResyncStatistics();
+        assertEquals(1L, stats.get("gapsDetected"));
+        assertEquals(1L, stats.get("resyncsCompleted"));
+        assertEquals(0, stats.get("staleMarkets"));
+
+        // And deltas apply normally again
+        assertTrue(orderBookManager.shouldPublishMessage(createDelta("GAP-MARKET", 106L, "yes", 64, 1)));
+    }
+
+    @Test
+    void testSnapshotOlderThanBufferKeepsMarketStale() {
+        // Given: a market that went stale at seq 104
+        ApplicationEventPublisher eventPublisher = enableResync();
+        orderBookManager.shouldPublishMessage(createSnapshot("GAP-MARKET", 100L,
+                Arrays.asList(Arrays.asList(65, 100)),
+                Arrays.asList(Arrays.asList(35, 150))));
+        orderBookManager.onSubscriptionGap(1L, List.of("GAP-MARKET"));
+        orderBookManager.shouldPublishMessage(createDelta("GAP-MARKET", 104L, "yes", 65, 5));
+
+        // When: a snapshot from before the missing deltas arrives
+        UpstreamFrame stale = UpstreamFrame.fromMessage(createSnapshot("GAP-MARKET", 101L,
+                Arrays.asList(Arrays.asList(65, 110)),
+                Arrays.asList(Arrays.asList(35, 150))));
+
+        // Then: it cannot be spliced, so another snapshot is requested
+        assertFalse(orderBookManager.shouldPublishFrame(stale));
+        assertFalse(stale.isResync());
+        assertTrue(orderBookManager.isMarketStale("GAP-MARKET"));
+        verify(eventPublisher, times(2)).publishEvent(any(MarketResyncRequestEvent.class));
+
+        // When: one that reaches the buffer arrives
+        UpstreamFrame current = UpstreamFrame.fromMessage(createSnapshot("GAP-MARKET", 103L,
+                Arrays.asList(Arrays.asList(65, 110)),
+                Arrays.asList(Arrays.asList(35, 150))));
+
+        // Then
+        assertTrue(orderBookManager.shouldPublishFrame(current));
+        assertEquals(104L, current.getSequence());
+        assertArrayEquals(new int[] {65, 115}, current.getYesLevels());
+    }
+
+    @Test
+    void testSnapshotOnAnotherSubscriptionCoversBufferedDeltas() {
+        // Given: a market on sid 1 that went stale with a delta buffered
+        enableResync();
+        Map<String, Object> initial = createSnapshot("GAP-MARKET", 100L,
+                Arrays.asList(Arrays.asList(65, 100)),
+                Arrays.asList(Arrays.asList(35, 150)));
+        initial.put("sid", 1L);
+        orderBookManager.shouldPublishMessage(initial);
+        orderBookManager.onSubscriptionGap(1L, List.of("GAP-MARKET"));
+        Map<String, Object> buffered = createDelta("GAP-MARKET", 104L, "yes", 65, 5);
+        buffered.put("sid", 1L);
+        orderBookManager.shouldPublishMessage(buffered);
+
+        // When: the snapshot comes on the new subscription made to ask for it, with its own seq
+        Map<String, Object> message = createSnapshot("GAP-MARKET", 1L,
+                Arrays.asList(Arrays.asList(65, 110)),
+                Arrays.asList(Arrays.asList(35, 150)));
+        message.put("sid", 2L);
+        UpstreamFrame snapshot = UpstreamFrame.fromMessage(message);
+
+        // Then: seqs of sid 1 say nothing about it, so the earlier delta is taken as included
+        assertTrue(orderBookManager.shouldPublishFrame(snapshot));
+        assertEquals(1L, snapshot.getSequence());
+        assertArrayEquals(new int[] {65, 110}, snapshot.getYesLevels());
+
+        // And later deltas on sid 1 apply again
+        Map<String, Object> next = createDelta("GAP-MARKET", 105L, "yes", 65, 1);
+        next.put("sid", 1L);
+        assertTrue(orderBookManager.shouldPublishMessage(next));
+        assertEquals(111, orderBookManager.getOrderBookState("GAP-MARKET").getYesBids().get(65));
+    }
+
+    private ApplicationEventPublisher enableResync() {
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        ReflectionTestUtils.setField(orderBookManager, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(orderBookManager, "resyncEnabled", true);
+        ReflectionTestUtils.setField(orderBookManager, "maxBufferedDeltas", 100);
+        return eventPublisher;
+    }
+
     // Helper methods
     private Map<String, Object> createSnapshot(String marketTicker, Long sequence,
                                               Object yesBids, Object noBids) {
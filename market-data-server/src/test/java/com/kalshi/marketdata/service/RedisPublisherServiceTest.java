@@ -0,0 +1,175 @@
+package com.kalshi.marketdata.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fbg.api.kalshi.MarketDataBinaryCodec;
+import com.fbg.api.kalshi.MarketDataFormat;
+import com.kalshi.marketdata.config.KafkaConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisPublisherServiceTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    @InjectMocks
+    private RedisPublisherService redisPublisherService;
+
+    @BeforeEach
+    void setUp() {
+        // Run the pipeline callback against the mock connection; failure tests replace this
+        lenient().when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            return List.of();
+        });
+    }
+
+    private ConsumerRecord<String, byte[]> record(String marketTicker, String channel, String value) {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("market-data-all", 0, 0L,
+            marketTicker, value.getBytes(StandardCharsets.UTF_8));
+        if (channel != null) {
+            record.headers().add(KafkaConfig.HEADER_CHANNEL, channel.getBytes(StandardCharsets.UTF_8));
+        }
+        if (marketTicker != null) {
+            record.headers().add(KafkaConfig.HEADER_MARKET_TICKER, marketTicker.getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    @Test
+    void testBatchRoutedOnHeadersInOnePipeline() {
+        // Given: values that are not even JSON, to show they are never parsed
+        ConsumerRecord<String, byte[]> delta = record("TEST-MARKET", "orderbook_delta", "opaque-1");
+        ConsumerRecord<String, byte[]> lifecycle = record(null, "market_lifecycle_v2", "opaque-2");
+
+        // When
+        redisPublisherService.consumeAndPublish(List.of(delta, lifecycle));
+
+        // Then: one pipeline, value bytes forwarded as the same arrays
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        verify(connection).publish(aryEq("market-data:TEST-MARKET:orderbook_delta".getBytes(StandardCharsets.UTF_8)),
+            same(delta.value()));
+        verify(connection).publish(aryEq("market-data:all".getBytes(StandardCharsets.UTF_8)), same(delta.value()));
+        verify(connection).publish(aryEq("market-data:all".getBytes(StandardCharsets.UTF_8)), same(lifecycle.value()));
+        verifyNoMoreInteractions(connection);
+        assertEquals(2, redisPublisherService.getMessagesRelayed());
+    }
+
+    @Test
+    void testStreamsTransportAppendsTrimmedEntries() {
+        // Given
+        ReflectionTestUtils.setField(redisPublisherService, "transport", "streams");
+        ReflectionTestUtils.setField(redisPublisherService, "streamMaxLength", 500L);
+        RedisStreamCommands streamCommands = mock(RedisStreamCommands.class);
+        when(connection.streamCommands()).thenReturn(streamCommands);
+        ConsumerRecord<String, byte[]> delta = record("TEST-MARKET", "orderbook_delta", "opaque-1");
+
+        // When
+        redisPublisherService.consumeAndPublish(List.of(delta));
+
+        // Then: appended to the market stream and the all-markets stream, nothing published
+        ArgumentCaptor<ByteRecord> appended = ArgumentCaptor.forClass(ByteRecord.class);
+        ArgumentCaptor<XAddOptions> options = ArgumentCaptor.forClass(XAddOptions.class);
+        verify(streamCommands, times(2)).xAdd(appended.capture(), options.capture());
+        assertEquals("market-data-stream:TEST-MARKET:orderbook_delta",
+            new String(appended.getAllValues().get(0).getStream(), StandardCharsets.UTF_8));
+        assertEquals("market-data-stream:all", new String(appended.getAllValues().get(1).getStream(), StandardCharsets.UTF_8));
+        assertSame(delta.value(), appended.getValue().getValue().values().iterator().next());
+        assertEquals(500L, options.getValue().getMaxlen());
+        assertTrue(options.getValue().isApproximateTrimming());
+        verify(connection, never()).publish(any(byte[].class), any(byte[].class));
+        assertEquals(1, redisPublisherService.getMessagesRelayed());
+    }
+
+    @Test
+    void testRecordWithoutChannelHeaderIsSkipped() {
+        // When
+        redisPublisherService.consumeAndPublish(List.of(record("TEST-MARKET", null, "{}")));
+
+        // Then
+        verify(connection, never()).publish(any(byte[].class), any(byte[].class));
+        assertEquals(0, redisPublisherService.getMessagesRelayed());
+        assertEquals(1, redisPublisherService.getMessagesUnrouted());
+    }
+
+    @Test
+    void testBinaryRecordTranscodedToJson() throws Exception {
+        // Given: a binary delta record
+        byte[] binary = new MarketDataBinaryCodec().encodeDelta(1000L, 1002L, "orderbook_delta", "TEST-MARKET",
+            7L, null, "yes", 65, -20, "kalshi-websocket", 1);
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("market-data-all", 0, 0L, "TEST-MARKET", binary);
+        record.headers().add(KafkaConfig.HEADER_CHANNEL, "orderbook_delta".getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaConfig.HEADER_FORMAT, MarketDataFormat.BINARY_V1.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        redisPublisherService.consumeAndPublish(List.of(record));
+
+        // Then: Redis subscribers get the JSON envelope
+        ArgumentCaptor<byte[]> published = ArgumentCaptor.forClass(byte[].class);
+        verify(connection).publish(aryEq("market-data:all".getBytes(StandardCharsets.UTF_8)), published.capture());
+        JsonNode envelope = new ObjectMapper().readTree(published.getValue());
+        assertEquals("TEST-MARKET", envelope.get("marketTicker").asText());
+        assertEquals(1002L, envelope.get("publishedTimestamp").asLong());
+        assertEquals(-20, envelope.get("payload").get("msg").get("delta").asInt());
+        assertEquals(1, redisPublisherService.getMessagesRelayed());
+    }
+
+    @Test
+    void testStreamsFailureReachesContainerUncounted() {
+        // Given: streams transport and Redis failing the pipeline
+        ReflectionTestUtils.setField(redisPublisherService, "transport", "streams");
+        RedisStreamCommands streamCommands = mock(RedisStreamCommands.class);
+        when(connection.streamCommands()).thenReturn(streamCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            throw new RedisConnectionFailureException("Redis down");
+        });
+
+        // When / Then: the container sees the failure, so the offsets are not committed
+        assertThrows(RedisConnectionFailureException.class,
+            () -> redisPublisherService.consumeAndPublish(List.of(record("TEST-MARKET", "orderbook_delta", "opaque-1"))));
+        assertEquals(0, redisPublisherService.getMessagesRelayed());
+    }
+
+    @Test
+    void testPubSubFailureDroppedUncounted() {
+        // Given: Redis failing the pipeline
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+            .thenThrow(new RedisConnectionFailureException("Redis down"));
+
+        // When
+        redisPublisherService.consumeAndPublish(List.of(record("TEST-MARKET", "orderbook_delta", "opaque-1")));
+
+        // Then: nothing counted as relayed
+        assertEquals(0, redisPublisherService.getMessagesRelayed());
+    }
+}
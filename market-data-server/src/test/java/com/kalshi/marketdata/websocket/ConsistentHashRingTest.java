@@ -0,0 +1,64 @@
+package com.kalshi.marketdata.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int MARKET_COUNT = 10_000;
+
+    @Test
+    void testMarketsSpreadEvenlyOverShards() {
+        // Given
+        ConsistentHashRing ring = new ConsistentHashRing(4, 64);
+
+        // When
+        int[] counts = new int[4];
+        for (int i = 0; i < MARKET_COUNT; i++) {
+            counts[ring.shardFor("MARKET-" + i)]++;
+        }
+
+        // Then - Every shard is within 30% of a fair share
+        for (int count : counts) {
+            assertTrue(Math.abs(count - MARKET_COUNT / 4) < MARKET_COUNT / 4 * 0.3, "Shard has " + count + " markets");
+        }
+    }
+
+    @Test
+    void testOnlyMarketsOfDownShardMove() {
+        // Given
+        ConsistentHashRing ring = new ConsistentHashRing(4, 64);
+        BitSet live = new BitSet();
+        live.set(0, 4);
+        BitSet withoutTwo = (BitSet) live.clone();
+        withoutTwo.clear(2);
+
+        for (int i = 0; i < MARKET_COUNT; i++) {
+            String ticker = "MARKET-" + i;
+            int home = ring.shardFor(ticker, live);
+
+            // When
+            int fallback = ring.shardFor(ticker, withoutTwo);
+
+            // Then
+            assertEquals(ring.shardFor(ticker), home);
+            if (home == 2) {
+                assertNotEquals(2, fallback);
+            } else {
+                assertEquals(home, fallback, ticker + " moved although its shard is up");
+            }
+        }
+    }
+
+    @Test
+    void testNoLiveShards() {
+        // Given
+        ConsistentHashRing ring = new ConsistentHashRing(2, 8);
+
+        // When / Then
+        assertEquals(-1, ring.shardFor("MARKET-1", new BitSet()));
+    }
+}
@@ -1,6 +1,13 @@
 package com.kalshi.marketdata.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fbg.api.kalshi.MarketDataBinaryCodec;
+import com.fbg.api.kalshi.MarketDataFormat;
+import com.fbg.api.kalshi.MarketDataRecord;
+import com.fbg.api.kalshi.TickerDictionary;
+import com.kalshi.marketdata.config.KafkaConfig;
+import com.kalshi.marketdata.model.UpstreamFrame;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,6 +18,8 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -24,6 +33,9 @@ class KalshiWebSocketClientTest {
     @Mock
     private KafkaTemplate<String, String> kafkaTemplate;
 
+    @Mock
+    private KafkaTemplate<String, byte[]> binaryTemplate;
+
     @Mock
     private com.kalshi.marketdata.service.OrderBookManager orderBookManager;
 
@@ -43,8 +55,8 @@ class KalshiWebSocketClientTest {
         // Given
         String testMessage = "{\"channel\":\"ticker_v2\",\"market_ticker\":\"TEST-MARKET\",\"seq\":12345,\"data\":{\"price\":50}}";
         CompletableFuture<SendResult<String, String>> future = CompletableFuture.completedFuture(null);
-        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenReturn(future);
-        when(orderBookManager.shouldPublishMessage(any())).thenReturn(true);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+        when(orderBookManager.shouldPublishFrame(any())).thenReturn(true);
 
         // When
         long beforeTimestamp = System.currentTimeMillis();
@@ -52,16 +64,15 @@ class KalshiWebSocketClientTest {
         long afterTimestamp = System.currentTimeMillis();
 
         // Then
-        ArgumentCaptor<String> topicCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> valueCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<ProducerRecord<String, String>> recordCaptor = ArgumentCaptor.forClass(ProducerRecord.class);
 
-        verify(kafkaTemplate).send(topicCaptor.capture(), keyCaptor.capture(), valueCaptor.capture());
+        verify(kafkaTemplate).send(recordCaptor.capture());
 
-        assertEquals(kafkaTopic, topicCaptor.getValue());
-        assertEquals("TEST-MARKET", keyCaptor.getValue());
+        ProducerRecord<String, String> record = recordCaptor.getValue();
+        assertEquals(kafkaTopic, record.topic());
+        assertEquals("TEST-MARKET", record.key());
 
-        Map<String, Object> envelope = objectMapper.readValue(valueCaptor.getValue(), Map.class);
+        Map<String, Object> envelope = objectMapper.readValue(record.value(), Map.class);
         
         // Verify envelope structure
         assertNotNull(envelope.get("payload"));
@@ -83,22 +94,173 @@ class KalshiWebSocketClientTest {
         assertTrue(publishedTs <= afterTimestamp);
     }
 
+    @Test
+    void testOnMessageStampsRoutingHeaders() throws Exception {
+        // Given
+        String testMessage = "{\"channel\":\"orderbook_delta\",\"market_ticker\":\"TEST-MARKET\",\"seq\":7,\"data\":{}}";
+        CompletableFuture<SendResult<String, String>> future = CompletableFuture.completedFuture(null);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+        when(orderBookManager.shouldPublishFrame(any())).thenReturn(true);
+
+        // When
+        webSocketClient.onMessage(testMessage);
+
+        // Then
+        ArgumentCaptor<ProducerRecord<String, String>> recordCaptor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(recordCaptor.capture());
+
+        ProducerRecord<String, String> record = recordCaptor.getValue();
+        assertEquals("orderbook_delta", header(record, KafkaConfig.HEADER_CHANNEL));
+        assertEquals("TEST-MARKET", header(record, KafkaConfig.HEADER_MARKET_TICKER));
+        assertEquals("7", header(record, KafkaConfig.HEADER_SEQUENCE));
+        assertEquals(MarketDataFormat.JSON, header(record, KafkaConfig.HEADER_FORMAT));
+    }
+
+    @Test
+    void testOnMessageDropsOrderBookFramesForMarketsOnAnotherShard() {
+        // Given - This connection is shard 1 and the market has moved to another shard
+        UpstreamShardListener listener = mock(UpstreamShardListener.class);
+        when(listener.ownsMarket(1, "MOVED-MARKET")).thenReturn(false);
+        webSocketClient.useShard(1, listener);
+        String testMessage = "{\"type\":\"orderbook_delta\",\"sid\":3,\"seq\":9,"
+            + "\"msg\":{\"market_ticker\":\"MOVED-MARKET\",\"price\":65,\"delta\":10,\"side\":\"yes\"}}";
+
+        // When
+        webSocketClient.onMessage(testMessage);
+
+        // Then
+        verifyNoInteractions(kafkaTemplate);
+        verify(orderBookManager, never()).shouldPublishFrame(any());
+        assertEquals(1L, webSocketClient.getStatistics().get("messagesNotOwned"));
+        assertEquals(9L, webSocketClient.getLastSequence(3));
+    }
+
+    @Test
+    void testSequencesTrackedPerSubscription() {
+        // Given
+        when(orderBookManager.shouldPublishFrame(any())).thenReturn(false);
+
+        // When - Two subscriptions on this connection, one of which goes backwards
+        webSocketClient.onMessage("{\"type\":\"ticker_v2\",\"sid\":1,\"seq\":5,\"msg\":{\"market_ticker\":\"A\"}}");
+        webSocketClient.onMessage("{\"type\":\"ticker_v2\",\"sid\":2,\"seq\":3,\"msg\":{\"market_ticker\":\"B\"}}");
+        webSocketClient.onMessage("{\"type\":\"ticker_v2\",\"sid\":1,\"seq\":4,\"msg\":{\"market_ticker\":\"A\"}}");
+
+        // Then
+        assertEquals(4L, webSocketClient.getLastSequence(1));
+        assertEquals(3L, webSocketClient.getLastSequence(2));
+        assertEquals(1L, webSocketClient.getStatistics().get("sequenceRegressions"));
+        assertEquals(2L, webSocketClient.getStatistics().get("subscriptions"));
+    }
+
+    @Test
+    void testGapOnSubscriptionResyncsItsMarkets() {
+        // Given - one order book subscription carrying two markets, seq counted across both
+        when(orderBookManager.shouldPublishFrame(any())).thenReturn(true);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+        webSocketClient.onMessage("{\"type\":\"orderbook_delta\",\"sid\":7,\"seq\":1,"
+            + "\"msg\":{\"market_ticker\":\"A\",\"price\":65,\"delta\":10,\"side\":\"yes\"}}");
+        webSocketClient.onMessage("{\"type\":\"orderbook_delta\",\"sid\":7,\"seq\":2,"
+            + "\"msg\":{\"market_ticker\":\"B\",\"price\":40,\"delta\":5,\"side\":\"no\"}}");
+        verify(orderBookManager, never()).onSubscriptionGap(any(), any());
+
+        // When - seq 3 is lost and seq 4 is for market A
+        webSocketClient.onMessage("{\"type\":\"orderbook_delta\",\"sid\":7,\"seq\":4,"
+            + "\"msg\":{\"market_ticker\":\"A\",\"price\":65,\"delta\":-10,\"side\":\"yes\"}}");
+
+        // Then - the lost frame could have been for either market, so both are resynced
+        ArgumentCaptor<java.util.Collection<String>> markets = ArgumentCaptor.forClass(java.util.Collection.class);
+        verify(orderBookManager).onSubscriptionGap(eq(7L), markets.capture());
+        assertEquals(java.util.Set.of("A", "B"), java.util.Set.copyOf(markets.getValue()));
+        assertEquals(1L, webSocketClient.getStatistics().get("sequenceGaps"));
+    }
+
+    @Test
+    void testResyncFramePublishedWithSplicedBook() throws Exception {
+        // Given - The manager recovers the market and rewrites the snapshot frame
+        String testMessage = "{\"type\":\"orderbook_snapshot\",\"seq\":103,"
+            + "\"msg\":{\"market_ticker\":\"GAP-MARKET\",\"yes\":[[65,120]],\"no\":[]}}";
+        CompletableFuture<SendResult<String, String>> future = CompletableFuture.completedFuture(null);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+        when(orderBookManager.shouldPublishFrame(any())).thenAnswer(invocation -> {
+            UpstreamFrame frame = invocation.getArgument(0);
+            frame.setYesLevels(new int[] {65, 125});
+            frame.setNoLevels(new int[] {35, 100});
+            frame.setSequence(105L);
+            frame.setResync(true);
+            return true;
+        });
+
+        // When
+        webSocketClient.onMessage(testMessage);
+
+        // Then
+        ArgumentCaptor<ProducerRecord<String, String>> recordCaptor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(recordCaptor.capture());
+        ProducerRecord<String, String> record = recordCaptor.getValue();
+        Map<String, Object> envelope = objectMapper.readValue(record.value(), Map.class);
+        Map<String, Object> payload = (Map<String, Object>) envelope.get("payload");
+        Map<String, Object> msg = (Map<String, Object>) payload.get("msg");
+
+        assertEquals("orderbook_snapshot", payload.get("type"));
+        assertEquals(105, payload.get("seq"));
+        assertEquals(Boolean.TRUE, msg.get("resync"));
+        assertEquals(List.of(List.of(65, 125)), msg.get("yes"));
+        assertEquals(List.of(List.of(35, 100)), msg.get("no"));
+        assertEquals(105, ((Number) envelope.get("sequence")).intValue());
+        assertEquals("105", header(record, KafkaConfig.HEADER_SEQUENCE));
+    }
+
+    @Test
+    void testOnMessagePublishesBinaryFormat() throws Exception {
+        // Given
+        MarketDataBinaryCodec codec = new MarketDataBinaryCodec(new TickerDictionary(16));
+        webSocketClient.useBinaryFormat(binaryTemplate, codec);
+        String testMessage = "{\"type\":\"orderbook_snapshot\",\"sid\":2,\"seq\":7,"
+            + "\"msg\":{\"market_ticker\":\"TEST-MARKET\",\"yes\":[[65,100],[64,200]],\"no\":[[35,150]]}}";
+        CompletableFuture<SendResult<String, byte[]>> future = CompletableFuture.completedFuture(null);
+        when(binaryTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+        when(orderBookManager.shouldPublishFrame(any())).thenReturn(true);
+
+        // When
+        webSocketClient.onMessage(testMessage);
+
+        // Then
+        ArgumentCaptor<ProducerRecord<String, byte[]>> recordCaptor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(binaryTemplate).send(recordCaptor.capture());
+        verifyNoInteractions(kafkaTemplate);
+
+        ProducerRecord<String, byte[]> record = recordCaptor.getValue();
+        assertEquals(MarketDataFormat.BINARY_V1, header(record, KafkaConfig.HEADER_FORMAT));
+        assertEquals("orderbook_snapshot", header(record, KafkaConfig.HEADER_CHANNEL));
+
+        MarketDataRecord decoded = codec.decodeRecord(record.value());
+        assertTrue(decoded.isOrderBookSnapshot());
+        assertEquals("TEST-MARKET", decoded.getMarketTicker());
+        assertEquals(7L, decoded.getSequence());
+        assertEquals(2L, decoded.getSid());
+        assertArrayEquals(new int[] {65, 100, 64, 200}, decoded.getYesLevels());
+        assertArrayEquals(new int[] {35, 150}, decoded.getNoLevels());
+        assertTrue(record.value().length < testMessage.length() / 2);
+    }
+
     @Test
     void testOnMessageWithoutMarketTicker() throws Exception {
         // Given
         String testMessage = "{\"channel\":\"market_lifecycle_v2\",\"data\":{\"event\":\"opened\"}}";
         CompletableFuture<SendResult<String, String>> future = CompletableFuture.completedFuture(null);
-        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenReturn(future);
-        when(orderBookManager.shouldPublishMessage(any())).thenReturn(true);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+        when(orderBookManager.shouldPublishFrame(any())).thenReturn(true);
 
         // When
         webSocketClient.onMessage(testMessage);
 
         // Then
-        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
-        verify(kafkaTemplate).send(eq(kafkaTopic), keyCaptor.capture(), anyString());
+        ArgumentCaptor<ProducerRecord<String, String>> recordCaptor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(recordCaptor.capture());
         
-        assertEquals("all-markets", keyCaptor.getValue());
+        assertEquals(kafkaTopic, recordCaptor.getValue().topic());
+        assertEquals("all-markets", recordCaptor.getValue().key());
+        assertNull(recordCaptor.getValue().headers().lastHeader(KafkaConfig.HEADER_MARKET_TICKER));
     }
 
     @Test
@@ -133,7 +295,11 @@ class KalshiWebSocketClientTest {
         assertDoesNotThrow(() -> webSocketClient.onMessage(invalidMessage));
         
         // Verify no kafka send was attempted
-        verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
-        verify(orderBookManager, never()).shouldPublishMessage(any());
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+        verify(orderBookManager, never()).shouldPublishFrame(any());
+    }
+
+    private String header(ProducerRecord<String, ?> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,246 @@
+package com.kalshi.marketdata.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RedisChannelFanoutTest {
+
+    private static final String CHANNEL = "TEST-MARKET:orderbook_delta";
+
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Mock
+    private RedisStreamReader redisStreamReader;
+
+    @InjectMocks
+    private RedisChannelFanout fanout;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fanout, "workerCount", 2);
+        ReflectionTestUtils.setField(fanout, "senderThreadCount", 2);
+        ReflectionTestUtils.setField(fanout, "sendTimeLimitMs", 1000);
+        ReflectionTestUtils.setField(fanout, "sendBufferSizeLimit", 65536);
+        fanout.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fanout.stop();
+    }
+
+    private void useStreams() {
+        // One stripe, so live delivery and the catch-up handover share a thread
+        fanout.stop();
+        ReflectionTestUtils.setField(fanout, "transport", "streams");
+        ReflectionTestUtils.setField(fanout, "workerCount", 1);
+        ReflectionTestUtils.setField(fanout, "catchUpBatchSize", 2);
+        ReflectionTestUtils.setField(fanout, "catchUpWorkerCount", 1);
+        fanout.start();
+    }
+
+    private ByteRecord entry(String id) {
+        return StreamRecords.newRecord().in(("market-data-stream:" + CHANNEL).getBytes(StandardCharsets.UTF_8))
+            .withId(id).ofBytes(Map.of("d".getBytes(StandardCharsets.UTF_8), body(id)));
+    }
+
+    private byte[] body(String id) {
+        return ("{\"seq\":\"" + id + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        fanout.register(session);
+        return session;
+    }
+
+    @Test
+    void testOneRedisSubscriptionSharedBySessions() throws Exception {
+        // Given
+        WebSocketSession first = session("session-1");
+        WebSocketSession second = session("session-2");
+
+        // When
+        assertTrue(fanout.subscribe("session-1", CHANNEL));
+        assertTrue(fanout.subscribe("session-2", CHANNEL));
+        assertFalse(fanout.subscribe("session-2", CHANNEL));
+
+        // Then: Redis sees a single listener for the channel
+        ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(redisMessageListenerContainer, times(1))
+            .addMessageListener(listener.capture(), eq(new ChannelTopic("market-data:" + CHANNEL)));
+        assertEquals(1, fanout.getChannelCount());
+
+        // And each message reaches both sessions unchanged
+        byte[] body = "{\"type\":\"orderbook_delta\"}".getBytes(StandardCharsets.UTF_8);
+        listener.getValue().onMessage(new DefaultMessage(("market-data:" + CHANNEL).getBytes(), body), null);
+
+        ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+        verify(first, timeout(2000)).sendMessage(sent.capture());
+        verify(second, timeout(2000)).sendMessage(any(TextMessage.class));
+        assertEquals("{\"type\":\"orderbook_delta\"}", sent.getValue().getPayload());
+    }
+
+    @Test
+    void testLastSessionOutUnsubscribesRedis() {
+        // Given
+        session("session-1");
+        session("session-2");
+        fanout.subscribe("session-1", CHANNEL);
+        fanout.subscribe("session-2", CHANNEL);
+        fanout.subscribe("session-2", "OTHER-MARKET:trade");
+
+        // When: one session leaves the channel, the other disconnects
+        assertTrue(fanout.unsubscribe("session-1", CHANNEL));
+        verify(redisMessageListenerContainer, never()).removeMessageListener(any(), any(ChannelTopic.class));
+        fanout.unregister("session-2");
+
+        // Then: both channels are released in Redis and nothing is tracked
+        verify(redisMessageListenerContainer, times(2)).removeMessageListener(any(), any(ChannelTopic.class));
+        assertEquals(0, fanout.getChannelCount());
+        assertEquals(1, fanout.getSessionCount());
+        assertFalse(fanout.unsubscribe("session-1", CHANNEL));
+    }
+
+    @Test
+    void testSlowClientDoesNotHoldUpItsStripe() throws Exception {
+        // Given: one stripe, and a client whose socket write never returns
+        fanout.stop();
+        ReflectionTestUtils.setField(fanout, "workerCount", 1);
+        ReflectionTestUtils.setField(fanout, "sendBufferSizeLimit", 128);
+        fanout.start();
+        WebSocketSession slow = session("session-1");
+        WebSocketSession fast = session("session-2");
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writeStarted.countDown();
+            unblock.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(slow).sendMessage(any(TextMessage.class));
+        fanout.subscribe("session-1", CHANNEL);
+        fanout.subscribe("session-2", CHANNEL);
+        ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(redisMessageListenerContainer).addMessageListener(listener.capture(), any(ChannelTopic.class));
+
+        // When: messages keep arriving while the slow client is stuck in its first write
+        byte[] body = "{\"type\":\"orderbook_delta\",\"pad\":\"0123456789\"}".getBytes(StandardCharsets.UTF_8);
+        listener.getValue().onMessage(new DefaultMessage(("market-data:" + CHANNEL).getBytes(), body), null);
+        assertTrue(writeStarted.await(2, TimeUnit.SECONDS));
+        for (int i = 2; i <= 5; i++) {
+            listener.getValue().onMessage(new DefaultMessage(("market-data:" + CHANNEL).getBytes(), body), null);
+
+            // Then: the other session on the stripe still gets each message
+            verify(fast, timeout(2000).times(i)).sendMessage(any(TextMessage.class));
+        }
+
+        // And the slow client is closed once its queue passes the buffer limit
+        verify(slow, timeout(2000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, fanout.getSlowClientsClosed());
+        unblock.countDown();
+        verify(slow, after(200).times(1)).sendMessage(any(TextMessage.class));
+    }
+
+    @Test
+    void testResumeCatchesUpThenGoesLiveWithoutRepeats() throws Exception {
+        // Given
+        useStreams();
+        String streamKey = "market-data-stream:" + CHANNEL;
+        WebSocketSession live = session("session-1");
+        WebSocketSession resumed = session("session-2");
+        fanout.subscribe("session-1", CHANNEL);
+        ArgumentCaptor<RedisStreamReader.EntryListener> listener = ArgumentCaptor.forClass(RedisStreamReader.EntryListener.class);
+        verify(redisStreamReader).register(eq(streamKey), listener.capture());
+
+        // The first range waits until a live entry has gone out while the catch-up runs
+        CountDownLatch liveSent = new CountDownLatch(1);
+        when(redisStreamReader.firstEntryId(streamKey)).thenReturn("90-0");
+        when(redisStreamReader.range(streamKey, "100-0", 2)).thenAnswer(invocation -> {
+            assertTrue(liveSent.await(2, TimeUnit.SECONDS));
+            return List.of(entry("101-0"), entry("102-0"));
+        });
+        when(redisStreamReader.range(streamKey, "102-0", 2)).thenReturn(List.of(entry("103-0")));
+        // Appended after the catch-up's last read, read again at the handover
+        when(redisStreamReader.range(streamKey, "103-0", 2)).thenReturn(List.of(entry("104-0")));
+
+        // When
+        assertTrue(fanout.subscribe("session-2", CHANNEL, "100-0"));
+        listener.getValue().onEntry("102-0", body("102-0"));
+        verify(live, timeout(2000)).sendMessage(any(TextMessage.class));
+        liveSent.countDown();
+        ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+        verify(resumed, timeout(2000).times(4)).sendMessage(sent.capture());
+        listener.getValue().onEntry("104-0", body("104-0"));
+        listener.getValue().onEntry("105-0", body("105-0"));
+        verify(live, timeout(2000).times(3)).sendMessage(any(TextMessage.class));
+        verify(resumed, timeout(2000).times(5)).sendMessage(sent.capture());
+
+        // Then: every entry once, in order; the live 102 and 104 were already covered
+        List<String> frames = sent.getAllValues().stream().map(TextMessage::getPayload).distinct().toList();
+        assertEquals(List.of(
+            "{\"type\":\"catchup\",\"channel\":\"" + CHANNEL + "\",\"messages\":[{\"stream_id\":\"101-0\",\"data\":{\"seq\":\"101-0\"}},"
+                + "{\"stream_id\":\"102-0\",\"data\":{\"seq\":\"102-0\"}}]}",
+            "{\"type\":\"catchup\",\"channel\":\"" + CHANNEL + "\",\"messages\":[{\"stream_id\":\"103-0\",\"data\":{\"seq\":\"103-0\"}}]}",
+            "{\"type\":\"catchup\",\"channel\":\"" + CHANNEL + "\",\"messages\":[{\"stream_id\":\"104-0\",\"data\":{\"seq\":\"104-0\"}}]}",
+            "{\"type\":\"catchup_complete\",\"channel\":\"" + CHANNEL + "\",\"last_stream_id\":\"104-0\",\"messages\":4}",
+            "{\"type\":\"stream\",\"channel\":\"" + CHANNEL + "\",\"stream_id\":\"105-0\",\"data\":{\"seq\":\"105-0\"}}"),
+            frames);
+        assertEquals(4, fanout.getCatchUpMessages());
+    }
+
+    @Test
+    void testResumeFromTrimmedIdReportsGap() throws Exception {
+        // Given: the stream no longer holds the entries after 100-0
+        useStreams();
+        String streamKey = "market-data-stream:" + CHANNEL;
+        WebSocketSession resumed = session("session-1");
+        when(redisStreamReader.firstEntryId(streamKey)).thenReturn("500-0");
+
+        // When
+        fanout.subscribe("session-1", CHANNEL, "100-0");
+
+        // Then: the client is told to take a snapshot and is live straight away
+        ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+        verify(resumed, timeout(2000)).sendMessage(sent.capture());
+        assertEquals("{\"type\":\"resume_gap\",\"channel\":\"" + CHANNEL + "\",\"first_stream_id\":\"500-0\"}",
+            sent.getValue().getPayload());
+        verify(redisStreamReader, never()).range(anyString(), anyString(), anyInt());
+        assertEquals(1, fanout.getResumeGaps());
+
+        fanout.unsubscribe("session-1", CHANNEL);
+        verify(redisStreamReader).unregister(streamKey);
+    }
+}
@@ -0,0 +1,215 @@
+package com.kalshi.marketdata.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class UpstreamConnectionPoolTest {
+
+    private static final int SHARDS = 3;
+
+    private final KalshiWebSocketClient[] clients = new KalshiWebSocketClient[SHARDS];
+    private UpstreamConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new UpstreamConnectionPool() {
+            @Override
+            KalshiWebSocketClient createShard(int shard, URI uri) {
+                KalshiWebSocketClient client = mock(KalshiWebSocketClient.class);
+                when(client.getShard()).thenReturn(shard);
+                clients[shard] = client;
+                return client;
+            }
+        };
+        ReflectionTestUtils.setField(pool, "connectionCount", SHARDS);
+        ReflectionTestUtils.setField(pool, "virtualNodes", 64);
+        ReflectionTestUtils.setField(pool, "marketDataFormat", "json");
+        pool.start();
+        pool.connect("ws://localhost:9090/trade-api/ws/v2");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void testMarketsSubscribedOnTheirShardOnly() {
+        // Given
+        for (int shard = 0; shard < SHARDS; shard++) {
+            pool.onShardOpen(shard);
+        }
+        List<String> markets = markets(300);
+
+        // When
+        pool.subscribeToOrderbookChannels(markets);
+
+        // Then - Every market is subscribed exactly once, on the shard that owns it
+        Set<String> subscribed = new HashSet<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            for (String ticker : subscribedOn(shard)) {
+                assertTrue(pool.ownsMarket(shard, ticker));
+                assertTrue(subscribed.add(ticker), ticker + " subscribed twice");
+            }
+        }
+        assertEquals(new HashSet<>(markets), subscribed);
+        assertTrue(pool.isConnected());
+    }
+
+    @Test
+    void testClosedShardMarketsMoveAndReturn() {
+        // Given
+        for (int shard = 0; shard < SHARDS; shard++) {
+            pool.onShardOpen(shard);
+        }
+        List<String> markets = markets(300);
+        pool.subscribeToOrderbookChannels(markets);
+        List<String> onShardOne = subscribedOn(1);
+        assertFalse(onShardOne.isEmpty());
+
+        // When - Shard 1 drops
+        pool.onShardClosed(1);
+
+        // Then - Its markets are owned by the survivors, and no market is left without an owner
+        for (String ticker : markets) {
+            assertFalse(pool.ownsMarket(1, ticker));
+            assertTrue(pool.ownsMarket(0, ticker) || pool.ownsMarket(2, ticker), ticker + " dropped");
+        }
+        verify(clients[0], timeout(1000).times(2)).subscribeToOrderbookChannels(anyList());
+        verify(clients[2], timeout(1000).times(2)).subscribeToOrderbookChannels(anyList());
+
+        // When - Shard 1 is back
+        pool.onShardOpen(1);
+
+        // Then - Its markets return home
+        for (String ticker : onShardOne) {
+            assertTrue(pool.ownsMarket(1, ticker));
+        }
+        verify(clients[1], timeout(1000).times(2)).subscribeToOrderbookChannels(anyList());
+    }
+
+    @Test
+    void testAllMarketsChannelsOnOneShard() {
+        // Given
+        for (int shard = 0; shard < SHARDS; shard++) {
+            pool.onShardOpen(shard);
+        }
+
+        // When
+        pool.subscribeToAllMarkets();
+        pool.subscribeToOrderbookChannels(markets(30));
+
+        // Then
+        for (int shard = 0; shard < SHARDS; shard++) {
+            if (pool.ownsMarket(shard, UpstreamConnectionPool.ALL_MARKETS)) {
+                verify(clients[shard], timeout(1000)).subscribeToAllMarkets();
+            } else {
+                verify(clients[shard], after(200).never()).subscribeToAllMarkets();
+            }
+        }
+    }
+
+    @Test
+    void testMarketsWaitForFirstConnection() {
+        // Given - No connection is open yet
+        pool.subscribeToOrderbookChannels(markets(10));
+        assertFalse(pool.isConnected());
+
+        // When
+        pool.onShardOpen(2);
+
+        // Then - Everything goes to the one open shard
+        verify(clients[2], timeout(1000)).subscribeToOrderbookChannels(markets(10));
+        verify(clients[0], never()).subscribeToOrderbookChannels(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBinaryFormatWiredIntoEveryShard() {
+        // Given - A pool configured with kafka.market-data.format=binary
+        KafkaTemplate<String, byte[]> binaryTemplate = mock(KafkaTemplate.class);
+        UpstreamConnectionPool binaryPool = new UpstreamConnectionPool();
+        ReflectionTestUtils.setField(binaryPool, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(binaryPool, "binaryKafkaTemplate", binaryTemplate);
+        ReflectionTestUtils.setField(binaryPool, "connectionCount", 2);
+        ReflectionTestUtils.setField(binaryPool, "virtualNodes", 64);
+        ReflectionTestUtils.setField(binaryPool, "marketDataFormat", "binary");
+        binaryPool.start();
+
+        try {
+            // When
+            URI uri = URI.create("ws://localhost:9090/trade-api/ws/v2");
+            KalshiWebSocketClient first = binaryPool.createShard(0, uri);
+            KalshiWebSocketClient second = binaryPool.createShard(1, uri);
+
+            // Then - Both publish through the binary template with one shared codec
+            assertSame(binaryTemplate, ReflectionTestUtils.getField(first, "binaryTemplate"));
+            assertSame(binaryTemplate, ReflectionTestUtils.getField(second, "binaryTemplate"));
+            assertNotNull(ReflectionTestUtils.getField(first, "binaryCodec"));
+            assertSame(ReflectionTestUtils.getField(first, "binaryCodec"),
+                ReflectionTestUtils.getField(second, "binaryCodec"));
+        } finally {
+            binaryPool.close();
+        }
+    }
+
+    @Test
+    void testJsonFormatLeavesShardsOnJson() {
+        // Given
+        UpstreamConnectionPool jsonPool = new UpstreamConnectionPool();
+        ReflectionTestUtils.setField(jsonPool, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(jsonPool, "connectionCount", 1);
+        ReflectionTestUtils.setField(jsonPool, "virtualNodes", 64);
+        ReflectionTestUtils.setField(jsonPool, "marketDataFormat", "json");
+        jsonPool.start();
+
+        try {
+            // When
+            KalshiWebSocketClient client = jsonPool.createShard(0, URI.create("ws://localhost:9090/trade-api/ws/v2"));
+
+            // Then
+            assertNull(ReflectionTestUtils.getField(client, "binaryTemplate"));
+        } finally {
+            jsonPool.close();
+        }
+
+        // And an unknown format is refused at startup
+        UpstreamConnectionPool badPool = new UpstreamConnectionPool();
+        ReflectionTestUtils.setField(badPool, "connectionCount", 1);
+        ReflectionTestUtils.setField(badPool, "virtualNodes", 64);
+        ReflectionTestUtils.setField(badPool, "marketDataFormat", "avro");
+        assertThrows(IllegalStateException.class, badPool::start);
+    }
+
+    private List<String> markets(int count) {
+        List<String> markets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            markets.add("MARKET-" + i);
+        }
+        return markets;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> subscribedOn(int shard) {
+        ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
+        verify(clients[shard], timeout(1000).atLeastOnce()).subscribeToOrderbookChannels(captor.capture());
+        List<String> tickers = new ArrayList<>();
+        captor.getAllValues().forEach(tickers::addAll);
+        return tickers;
+    }
+}
@@ -0,0 +1,75 @@
+package com.kalshi.marketdata.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalshi.marketdata.model.UpstreamFrame;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamFrameParserTest {
+
+    private final UpstreamFrameParser parser = new UpstreamFrameParser(new JsonFactory());
+
+    @Test
+    void testDeltaDecodedIntoPrimitives() throws Exception {
+        // Given: Kalshi-style frame with the ticker inside msg and fields we do not need
+        String message = "{\"type\":\"orderbook_delta\",\"sid\":3,\"seq\":42,"
+            + "\"msg\":{\"market_ticker\":\"TEST-MARKET\",\"price\":65,\"delta\":-20,\"side\":\"yes\","
+            + "\"ts\":{\"nested\":[1,2,3]}}}";
+
+        // When
+        UpstreamFrame frame = parser.parse(message);
+
+        // Then
+        assertEquals("orderbook_delta", frame.getChannel());
+        assertEquals(3L, frame.getSid());
+        assertEquals(42L, frame.getSequence());
+        assertEquals("TEST-MARKET", frame.getMarketTicker());
+        assertEquals("yes", frame.getSide());
+        assertEquals(65, frame.getPrice());
+        assertEquals(-20, frame.getDelta());
+        assertTrue(frame.isOrderBookDelta());
+    }
+
+    @Test
+    void testSnapshotLevelsFlattened() throws Exception {
+        // Given: mock-server style frame with top-level channel and ticker
+        String message = "{\"channel\":\"orderbook_snapshot\",\"market_ticker\":\"TEST-MARKET\",\"seq\":7,"
+            + "\"data\":{\"yes\":[[65,100],[64,200,\"0.64\"]],\"no\":[[35,150],[\"bad\"]]}}";
+
+        // When
+        UpstreamFrame frame = parser.parse(message);
+
+        // Then: extra and malformed entries are skipped
+        assertEquals("orderbook_snapshot", frame.getChannel());
+        assertNull(frame.getSid());
+        assertArrayEquals(new int[] {65, 100, 64, 200}, frame.getYesLevels());
+        assertArrayEquals(new int[] {35, 150}, frame.getNoLevels());
+        assertNull(frame.getSide());
+    }
+
+    @Test
+    void testMatchesMapDecoding() throws Exception {
+        // Given
+        String message = "{\"channel\":\"orderbook_snapshot\",\"market_ticker\":\"TEST-MARKET\",\"seq\":7,"
+            + "\"data\":{\"yes\":[[65,100]],\"no\":[[35,150]]}}";
+
+        // When
+        UpstreamFrame streamed = parser.parse(message);
+        UpstreamFrame mapped = UpstreamFrame.fromMessage(
+            new ObjectMapper().readValue(message, Map.class));
+
+        // Then
+        assertEquals(mapped, streamed);
+    }
+
+    @Test
+    void testRejectsNonObject() {
+        assertThrows(IOException.class, () -> parser.parse("not-valid-json"));
+        assertThrows(IOException.class, () -> parser.parse("[1,2]"));
+    }
+}
@@ -0,0 +1,515 @@
+package com.kalshi.mock;
+
+import com.fbg.api.market.KalshiSide;
+import com.fbg.api.rest.Order;
+import com.fbg.api.rest.OrderRequest;
+import com.kalshi.mock.event.OrderUpdateEvent;
+import com.kalshi.mock.event.OrderUpdateEventListener;
+import com.kalshi.mock.event.OrderUpdateEventPublisher;
+import com.kalshi.mock.exception.RateLimitExceededException;
+import com.kalshi.mock.service.AdmissionControlService;
+import com.kalshi.mock.service.MatchingEngine.Execution;
+import com.kalshi.mock.service.OrderBookService;
+import com.kalshi.mock.service.OrderIntakeService;
+import com.kalshi.mock.service.OrderIntakeService.Lane;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import quickfix.FieldNotFound;
+import quickfix.Group;
+import quickfix.Message;
+import quickfix.Session;
+import quickfix.SessionID;
+import quickfix.SessionNotFound;
+import quickfix.field.*;
+import quickfix.fix50sp2.ExecutionReport;
+import quickfix.fix50sp2.NewOrderSingle;
+import quickfix.fix50sp2.OrderCancelReject;
+import quickfix.fix50sp2.OrderCancelReplaceRequest;
+import quickfix.fix50sp2.OrderCancelRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Routes FIX order entry straight into the order book and matching engine.
+ *
+ * Key features:
+ * - NewOrderSingle, OrderCancelRequest and OrderCancelReplaceRequest go to OrderBookService
+ *   without passing through the REST layer, but through the same admission control and
+ *   per-market intake: new and replacement orders take a token and queue as new orders,
+ *   cancels skip admission and go ahead of queued new orders
+ * - Each request holds its market's intake turn before it takes the order's lock, the same
+ *   order in which matching reaches the order's lock to report passive fills
+ * - Execution reports carry the real fills: one TRADE report per execution with LastQty/LastPx,
+ *   for the incoming order and for FIX orders resting on the other side
+ * - Orders belong to the PartyID (customer account) on the message, or to the session's
+ *   counterparty when no party is given
+ * - IOC remainders are canceled right after matching; FOK orders are checked against the
+ *   liquidity at their limit first and canceled without fills unless they fill in full
+ * - Orders canceled outside FIX (REST cancel, market close) get an unsolicited CANCELED report
+ *   and are forgotten
+ * - Per-session message rates are logged against a configured target
+ */
+@Service
+public class FixOrderEntryService implements OrderBookService.ExecutionListener, OrderUpdateEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(FixOrderEntryService.class);
+
+    // PartyRole 24: customer account
+    private static final int CUSTOMER_ACCOUNT_ROLE = 24;
+
+    @Autowired
+    private OrderBookService orderBookService;
+
+    @Autowired
+    private OrderUpdateEventPublisher orderUpdateEventPublisher;
+
+    @Autowired
+    private AdmissionControlService admissionControlService;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    // Prefix for the user ID of orders that carry no PartyID; the session's counterparty CompID is appended
+    @Value("${fix.order-entry.session-user-prefix:FIX-}")
+    private String sessionUserPrefix;
+
+    @Value("${fix.order-entry.target-msgs-per-sec:2000}")
+    private long targetMessagesPerSecond;
+
+    // Live FIX orders by exchange order ID, and exchange order ID by session + ClOrdID
+    private final Map<String, FixOrder> ordersById = new ConcurrentHashMap<>();
+    private final Map<String, String> orderIdsByClOrdId = new ConcurrentHashMap<>();
+
+    private final Map<SessionID, SessionCounter> sessionCounters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        orderBookService.addExecutionListener(this);
+        orderUpdateEventPublisher.addListener(this);
+    }
+
+    public void onNewOrderSingle(NewOrderSingle message, SessionID sessionID) throws FieldNotFound {
+        count(sessionID);
+        String clOrdID = message.getClOrdID().getValue();
+        String symbol = message.getSymbol().getValue();
+        char side = message.getSide().getValue();
+        int quantity = (int) message.getOrderQty().getValue();
+
+        if (orderIdsByClOrdId.containsKey(clOrdKey(sessionID, clOrdID))) {
+            sendReject(sessionID, clOrdID, symbol, side, quantity, OrdRejReason.DUPLICATE_ORDER, "Duplicate ClOrdID");
+            return;
+        }
+        if (message.getOrdType().getValue() != OrdType.LIMIT || !message.isSetPrice()) {
+            sendReject(sessionID, clOrdID, symbol, side, quantity, OrdRejReason.UNSUPPORTED_ORDER_CHARACTERISTIC,
+                "Only limit orders with a price are supported");
+            return;
+        }
+        if (side != Side.BUY && side != Side.SELL) {
+            sendReject(sessionID, clOrdID, symbol, side, quantity, OrdRejReason.UNSUPPORTED_ORDER_CHARACTERISTIC,
+                "Side must be buy or sell");
+            return;
+        }
+
+        char timeInForce = message.isSetTimeInForce() ? message.getTimeInForce().getValue() : TimeInForce.GOOD_TILL_CANCEL;
+        int price = (int) Math.round(message.getPrice().getValue());
+        String userId = resolveUser(message, sessionID);
+        try {
+            admissionControlService.admit(userId, 1);
+            orderIntakeService.submit(symbol, Lane.NORMAL, () -> {
+                place(new FixOrder(orderBookService.nextOrderId(), sessionID, clOrdID, symbol, side,
+                    quantity, price, userId, 0, 0), timeInForce, null);
+                return null;
+            });
+        } catch (RateLimitExceededException e) {
+            sendReject(sessionID, clOrdID, symbol, side, quantity, OrdRejReason.OTHER, e.getMessage());
+        }
+    }
+
+    public void onOrderCancelRequest(OrderCancelRequest message, SessionID sessionID) throws FieldNotFound {
+        count(sessionID);
+        String clOrdID = message.getClOrdID().getValue();
+        String origClOrdID = message.isSetOrigClOrdID() ? message.getOrigClOrdID().getValue() : "NONE";
+
+        // Kalshi identifies the order by OrigClOrdID; fall back to our OrderID when only that is sent
+        FixOrder order = message.isSetOrigClOrdID()
+            ? lookup(sessionID, origClOrdID)
+            : message.isSetOrderID() ? ordersById.get(message.getOrderID().getValue()) : null;
+        if (order == null) {
+            sendCancelReject(sessionID, "NONE", clOrdID, origClOrdID, CxlRejResponseTo.ORDER_CANCEL_REQUEST,
+                CxlRejReason.UNKNOWN_ORDER, "Unknown order");
+            return;
+        }
+
+        orderIntakeService.submit(order.symbol, Lane.PRIORITY, () -> {
+            order.lock.lock();
+            try {
+                if (!cancel(order)) {
+                    sendCancelReject(sessionID, order.orderId, clOrdID, origClOrdID, CxlRejResponseTo.ORDER_CANCEL_REQUEST,
+                        CxlRejReason.TOO_LATE_TO_CANCEL, "Order is no longer open");
+                    return null;
+                }
+                ExecutionReport report = report(order, ExecType.CANCELED, OrdStatus.CANCELED, 0);
+                report.set(new ClOrdID(clOrdID));
+                report.set(new OrigClOrdID(origClOrdID));
+                send(report, sessionID);
+                return null;
+            } finally {
+                order.lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Replace is cancel-and-new: the replacement keeps the fills so far but loses time priority
+     */
+    public void onOrderCancelReplaceRequest(OrderCancelReplaceRequest message, SessionID sessionID) throws FieldNotFound {
+        count(sessionID);
+        String clOrdID = message.getClOrdID().getValue();
+        String origClOrdID = message.getOrigClOrdID().getValue();
+
+        FixOrder order = lookup(sessionID, origClOrdID);
+        if (order == null) {
+            sendCancelReject(sessionID, "NONE", clOrdID, origClOrdID, CxlRejResponseTo.ORDER_CANCEL_REPLACE_REQUEST,
+                CxlRejReason.UNKNOWN_ORDER, "Unknown order");
+            return;
+        }
+
+        int newQuantity = message.isSetOrderQty() ? (int) message.getOrderQty().getValue() : order.orderQty;
+        int newPrice = message.isSetPrice() ? (int) Math.round(message.getPrice().getValue()) : order.price;
+        // The replacement is a new order; a refusal leaves the original working
+        try {
+            admissionControlService.admit(order.userId, 1);
+            orderIntakeService.submit(order.symbol, Lane.NORMAL, () -> {
+                replace(order, clOrdID, origClOrdID, newQuantity, newPrice);
+                return null;
+            });
+        } catch (RateLimitExceededException e) {
+            sendCancelReject(sessionID, order.orderId, clOrdID, origClOrdID, CxlRejResponseTo.ORDER_CANCEL_REPLACE_REQUEST,
+                CxlRejReason.OTHER, e.getMessage());
+        }
+    }
+
+    private void replace(FixOrder order, String clOrdID, String origClOrdID, int newQuantity, int newPrice) {
+        order.lock.lock();
+        try {
+            if (newQuantity <= order.cumQty) {
+                sendCancelReject(order.sessionID, order.orderId, clOrdID, origClOrdID, CxlRejResponseTo.ORDER_CANCEL_REPLACE_REQUEST,
+                    CxlRejReason.OTHER, "Quantity must exceed the filled quantity " + order.cumQty);
+                return;
+            }
+            if (!cancel(order)) {
+                sendCancelReject(order.sessionID, order.orderId, clOrdID, origClOrdID, CxlRejResponseTo.ORDER_CANCEL_REPLACE_REQUEST,
+                    CxlRejReason.TOO_LATE_TO_CANCEL, "Order is no longer open");
+                return;
+            }
+
+            FixOrder replacement = new FixOrder(orderBookService.nextOrderId(), order.sessionID, clOrdID, order.symbol,
+                order.side, newQuantity, newPrice, order.userId, order.cumQty, order.cumValue);
+            place(replacement, TimeInForce.GOOD_TILL_CANCEL, origClOrdID);
+        } finally {
+            order.lock.unlock();
+        }
+    }
+
+    /**
+     * Report fills on FIX orders that were resting when another order matched them
+     */
+    @Override
+    public void onExecutions(String marketTicker, List<Execution> executions) {
+        for (Execution execution : executions) {
+            FixOrder order = ordersById.get(execution.getPassive().getOrderId());
+            if (order != null) {
+                order.lock.lock();
+                try {
+                    reportFill(order, execution);
+                } finally {
+                    order.lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Report and forget FIX orders canceled by something other than this session: a REST
+     * cancel or the market being closed. Cancels made here have already forgotten the order.
+     */
+    @Override
+    public void onOrderUpdateEvent(OrderUpdateEvent event) {
+        if (event.getUpdateType() != OrderUpdateEvent.OrderUpdateType.CANCEL) {
+            return;
+        }
+        FixOrder order = ordersById.get(event.getOrderId());
+        if (order == null) {
+            return;
+        }
+        order.lock.lock();
+        try {
+            // A FIX cancel or final fill may have finished with the order while we waited
+            if (ordersById.get(order.orderId) == order) {
+                forget(order);
+                send(report(order, ExecType.CANCELED, OrdStatus.CANCELED, 0), order.sessionID);
+            }
+        } finally {
+            order.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedRateString = "${fix.order-entry.stats-interval-ms:10000}")
+    public void logThroughput() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<SessionID, SessionCounter> entry : sessionCounters.entrySet()) {
+            SessionCounter counter = entry.getValue();
+            long messages = counter.messages.get();
+            long elapsed = now - counter.windowStart;
+            long delta = messages - counter.windowMessages;
+            counter.windowStart = now;
+            counter.windowMessages = messages;
+            if (delta > 0 && elapsed > 0) {
+                logger.info("FIX session {}: {} msgs/sec (target {})",
+                    entry.getKey(), delta * 1000 / elapsed, targetMessagesPerSecond);
+            }
+        }
+    }
+
+    /**
+     * Place a new or replacement order, then acknowledge it and report its immediate fills.
+     * The order is registered first so fills from other threads find it once it rests.
+     * Runs inside the market's intake turn, so an IOC remainder is canceled directly.
+     */
+    private void place(FixOrder order, char timeInForce, String origClOrdID) {
+        order.lock.lock();
+        try {
+            ordersById.put(order.orderId, order);
+            orderIdsByClOrdId.put(clOrdKey(order.sessionID, order.clOrdID), order.orderId);
+
+            // Kalshi FIX convention: orders are always on the YES contract, Side 1/2 is buy/sell YES
+            // and NO exposure is held as a short YES position
+            OrderRequest request = new OrderRequest(KalshiSide.yes, order.symbol, "limit",
+                order.orderQty - order.cumQty, order.price, timeInForceName(timeInForce), order.clOrdID);
+            OrderBookService.OrderResult result;
+            try {
+                result = orderBookService.placeOrder(order.orderId, order.symbol, request,
+                    order.side == Side.BUY ? "buy" : "sell", order.userId);
+            } catch (RuntimeException e) {
+                forget(order);
+                sendReject(order.sessionID, order.clOrdID, order.symbol, order.side, order.orderQty,
+                    OrdRejReason.OTHER, e.getMessage());
+                return;
+            }
+
+            if (timeInForce == TimeInForce.FILL_OR_KILL && "canceled".equals(result.getOrder().getStatus())) {
+                // Killed before it traded: nothing was acknowledged or filled
+                forget(order);
+                ExecutionReport killed = report(order, ExecType.CANCELED, OrdStatus.CANCELED, 0);
+                killed.set(new Text("Fill or kill order could not be filled in full"));
+                send(killed, order.sessionID);
+                return;
+            }
+
+            ExecutionReport ack = origClOrdID == null
+                ? report(order, ExecType.NEW, OrdStatus.NEW, order.orderQty - order.cumQty)
+                : report(order, ExecType.REPLACED, order.cumQty > 0 ? OrdStatus.PARTIALLY_FILLED : OrdStatus.NEW,
+                    order.orderQty - order.cumQty);
+            if (origClOrdID != null) {
+                ack.set(new OrigClOrdID(origClOrdID));
+            }
+            send(ack, order.sessionID);
+
+            for (Execution execution : result.getExecutions()) {
+                reportFill(order, execution);
+            }
+
+            Order placed = result.getOrder();
+            if (timeInForce == TimeInForce.IMMEDIATE_OR_CANCEL && placed.getRemaining_quantity() > 0 && cancel(order)) {
+                send(report(order, ExecType.CANCELED, OrdStatus.CANCELED, 0), order.sessionID);
+            }
+        } finally {
+            order.lock.unlock();
+        }
+    }
+
+    private void reportFill(FixOrder order, Execution execution) {
+        int quantity = execution.getQuantity();
+        int price = execution.getExecutionPrice();
+        order.cumQty += quantity;
+        order.cumValue += (long) quantity * price;
+
+        int leaves = order.orderQty - order.cumQty;
+        ExecutionReport report = report(order, ExecType.TRADE,
+            leaves == 0 ? OrdStatus.FILLED : OrdStatus.PARTIALLY_FILLED, leaves);
+        report.set(new ExecID(execution.getTradeId() + "-" + order.orderId));
+        report.set(new LastQty(quantity));
+        report.set(new LastPx(price));
+        report.set(new TrdMatchID(execution.getTradeId()));
+        send(report, order.sessionID);
+
+        if (leaves == 0) {
+            forget(order);
+        }
+    }
+
+    private boolean cancel(FixOrder order) {
+        try {
+            orderBookService.cancelOrder(order.orderId);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return false;
+        }
+        forget(order);
+        return true;
+    }
+
+    private ExecutionReport report(FixOrder order, char execType, char ordStatus, int leaves) {
+        ExecutionReport report = new ExecutionReport(
+            new OrderID(order.orderId),
+            new ExecID(order.orderId + "-" + order.nextExecSeq++),
+            new ExecType(execType),
+            new OrdStatus(ordStatus),
+            new Side(order.side),
+            new LeavesQty(leaves),
+            new CumQty(order.cumQty)
+        );
+        report.set(new ClOrdID(order.clOrdID));
+        report.set(new Symbol(order.symbol));
+        report.set(new OrderQty(order.orderQty));
+        report.set(new OrdType(OrdType.LIMIT));
+        report.set(new Price(order.price));
+        report.set(new AvgPx(order.cumQty > 0 ? (double) order.cumValue / order.cumQty : 0));
+        report.set(new TransactTime());
+        return report;
+    }
+
+    private void sendReject(SessionID sessionID, String clOrdID, String symbol, char side, int quantity,
+                            int reason, String text) {
+        ExecutionReport report = new ExecutionReport(
+            new OrderID("NONE"),
+            new ExecID("REJ-" + clOrdID + "-" + System.nanoTime()),
+            new ExecType(ExecType.REJECTED),
+            new OrdStatus(OrdStatus.REJECTED),
+            new Side(side),
+            new LeavesQty(0),
+            new CumQty(0)
+        );
+        report.set(new ClOrdID(clOrdID));
+        report.set(new Symbol(symbol));
+        report.set(new OrderQty(quantity));
+        report.set(new OrdRejReason(reason));
+        if (text != null) {
+            report.set(new Text(text));
+        }
+        send(report, sessionID);
+    }
+
+    private void sendCancelReject(SessionID sessionID, String orderId, String clOrdID, String origClOrdID,
+                                  char responseTo, int reason, String text) {
+        OrderCancelReject reject = new OrderCancelReject(
+            new OrderID(orderId),
+            new ClOrdID(clOrdID),
+            new OrdStatus(OrdStatus.REJECTED),
+            new CxlRejResponseTo(responseTo)
+        );
+        reject.set(new OrigClOrdID(origClOrdID));
+        reject.set(new CxlRejReason(reason));
+        reject.set(new Text(text));
+        send(reject, sessionID);
+    }
+
+    private void send(Message message, SessionID sessionID) {
+        try {
+            Session.sendToTarget(message, sessionID);
+        } catch (SessionNotFound e) {
+            logger.warn("FIX session {} not found, dropping {}", sessionID, message.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * The order's PartyID with the customer account role if present, else the session's counterparty
+     */
+    private String resolveUser(Message message, SessionID sessionID) throws FieldNotFound {
+        if (message.hasGroup(NoPartyIDs.FIELD)) {
+            for (Group party : message.getGroups(NoPartyIDs.FIELD)) {
+                if (party.isSetField(PartyID.FIELD)
+                    && (!party.isSetField(PartyRole.FIELD) || party.getInt(PartyRole.FIELD) == CUSTOMER_ACCOUNT_ROLE)) {
+                    return party.getString(PartyID.FIELD);
+                }
+            }
+        }
+        return sessionUserPrefix + sessionID.getTargetCompID();
+    }
+
+    private FixOrder lookup(SessionID sessionID, String clOrdID) {
+        String orderId = orderIdsByClOrdId.get(clOrdKey(sessionID, clOrdID));
+        return orderId != null ? ordersById.get(orderId) : null;
+    }
+
+    private void forget(FixOrder order) {
+        ordersById.remove(order.orderId, order);
+        orderIdsByClOrdId.remove(clOrdKey(order.sessionID, order.clOrdID), order.orderId);
+    }
+
+    private void count(SessionID sessionID) {
+        sessionCounters.computeIfAbsent(sessionID, id -> new SessionCounter()).messages.incrementAndGet();
+    }
+
+    private static String clOrdKey(SessionID sessionID, String clOrdID) {
+        return sessionID + "|" + clOrdID;
+    }
+
+    private static String timeInForceName(char timeInForce) {
+        switch (timeInForce) {
+            case TimeInForce.IMMEDIATE_OR_CANCEL:
+                return "IOC";
+            case TimeInForce.FILL_OR_KILL:
+                return "FOK";
+            default:
+                return "GTC";
+        }
+    }
+
+    /**
+     * A FIX order that is still open. Fill state is guarded by the order's lock, which is held
+     * while reports are sent, so it is a ReentrantLock that does not pin virtual threads.
+     */
+    private static class FixOrder {
+        private final String orderId;
+        private final SessionID sessionID;
+        private final String clOrdID;
+        private final String symbol;
+        private final char side;
+        private final int orderQty;
+        private final int price;
+        private final String userId;
+        private int cumQty;
+        private long cumValue;
+        private int nextExecSeq = 1;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private FixOrder(String orderId, SessionID sessionID, String clOrdID, String symbol, char side,
+                         int orderQty, int price, String userId, int cumQty, long cumValue) {
+            this.orderId = orderId;
+            this.sessionID = sessionID;
+            this.clOrdID = clOrdID;
+            this.symbol = symbol;
+            this.side = side;
+            this.orderQty = orderQty;
+            this.price = price;
+            this.userId = userId;
+            this.cumQty = cumQty;
+            this.cumValue = cumValue;
+        }
+    }
+
+    private static class SessionCounter {
+        private final AtomicLong messages = new AtomicLong();
+        private volatile long windowStart = System.currentTimeMillis();
+        private volatile long windowMessages;
+    }
+}
@@ -1,13 +1,19 @@
 package com.kalshi.mock;
 
+import com.kalshi.mock.audit.AuditLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import quickfix.*;
 import quickfix.MemoryStoreFactory;
 import quickfix.field.*;
-import quickfix.fix50sp2.ExecutionReport;
 import quickfix.fix50sp2.NewOrderSingle;
+import quickfix.fix50sp2.OrderCancelReplaceRequest;
+import quickfix.fix50sp2.OrderCancelRequest;
 
 import java.io.InputStream;
 import java.time.LocalDateTime;
@@ -19,13 +25,25 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @ConditionalOnProperty(name = "fix.enabled", havingValue = "true", matchIfMissing = true)
 public class FixServerService implements Application {
 
+    private static final Logger logger = LoggerFactory.getLogger(FixServerService.class);
+
+    @Autowired
+    private FixOrderEntryService fixOrderEntryService;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    // Print every FIX message to stdout; off by default so order entry is not console-bound
+    @Value("${fix.screen-log:false}")
+    private boolean screenLog;
+
     private Acceptor acceptor;
     private final AtomicBoolean serverRunning = new AtomicBoolean(false);
     private SessionSettings settings;
 
     public void startServer() throws Exception {
         if (serverRunning.get()) {
-            System.out.println("FIX Server is already running");
+            logger.debug("FIX Server is already running");
             return;
         }
 
@@ -36,8 +54,10 @@ public class FixServerService implements Application {
             // Create message store factory
             MessageStoreFactory storeFactory = new MemoryStoreFactory();
 
-            // Create log factory
-            LogFactory logFactory = new ScreenLogFactory(true, true, true);
+            // Create log factory; SLF4J keeps message logging at DEBUG under quickfixj.msg.*
+            LogFactory logFactory = screenLog
+                ? new ScreenLogFactory(true, true, true)
+                : new SLF4JLogFactory(settings);
 
             // Create message factory
             MessageFactory messageFactory = new DefaultMessageFactory();
@@ -49,9 +69,9 @@ public class FixServerService implements Application {
             acceptor.start();
             serverRunning.set(true);
 
-            System.out.println("FIX Server started at: " + LocalDateTime.now());
+            logger.debug("FIX Server started at: {}", LocalDateTime.now());
         } catch (Exception e) {
-            System.err.println("Failed to start FIX server: " + e.getMessage());
+            logger.error("Failed to start FIX server", e);
             throw e;
         }
     }
@@ -75,7 +95,6 @@ public class FixServerService implements Application {
         settings.setString("HeartBtInt", "30");
         settings.setString("ValidOrderTypes", "1,2,8,D,F,G");
 
-        settings.setString("DefaultMarketPrice", "77");
         settings.setString("ScreenLogLevels", "DEBUG");
         
         // Use your custom Kalshi dictionary instead of standard FIX dictionaries
@@ -94,6 +113,7 @@ public class FixServerService implements Application {
         settings.setString("ScreenLogShowIncoming", "Y");
         settings.setString("ScreenLogShowOutgoing", "Y");
         settings.setString("ScreenLogShowEvents", "Y");
+        settings.setString("SLF4JLogHeartbeats", "N");
 
 
         // Session-specific settings
@@ -116,7 +136,7 @@ public class FixServerService implements Application {
 
     public void stopServer() throws Exception {
         if (!serverRunning.get()) {
-            System.out.println("FIX Server is not running");
+            logger.debug("FIX Server is not running");
             return;
         }
 
@@ -124,10 +144,10 @@ public class FixServerService implements Application {
             if (acceptor != null) {
                 acceptor.stop();
                 serverRunning.set(false);
-                System.out.println("FIX Server stopped at: " + LocalDateTime.now());
+                logger.debug("FIX Server stopped at: {}", LocalDateTime.now());
             }
         } catch (Exception e) {
-            System.err.println("Failed to stop FIX server: " + e.getMessage());
+            logger.error("Failed to stop FIX server", e);
             throw e;
         }
     }
@@ -136,10 +156,10 @@ public class FixServerService implements Application {
     @Scheduled(cron = "0 0 2 * * ?", zone = "America/New_York")
     public void scheduledStop() {
         try {
-            System.out.println("Scheduled stop initiated at 2:00 AM ET");
+            logger.debug("Scheduled stop initiated at 2:00 AM ET");
             stopServer();
         } catch (Exception e) {
-            System.err.println("Error during scheduled stop: " + e.getMessage());
+            logger.error("Error during scheduled stop", e);
         }
     }
 
@@ -147,12 +167,12 @@ public class FixServerService implements Application {
     @Scheduled(cron = "0 10 2 * * ?", zone = "America/New_York")
     public void scheduledStart() {
         try {
-            System.out.println("Scheduled start initiated at 2:10 AM ET");
+            logger.debug("Scheduled start initiated at 2:10 AM ET");
             // Reset session sequence numbers
             resetSessionSequenceNumbers();
             startServer();
         } catch (Exception e) {
-            System.err.println("Error during scheduled start: " + e.getMessage());
+            logger.error("Error during scheduled start", e);
         }
     }
 
@@ -164,11 +184,11 @@ public class FixServerService implements Application {
                 Session session = Session.lookupSession(sessionID);
                 if (session != null) {
                     session.reset();
-                    System.out.println("Reset session sequence numbers for: " + sessionID);
+                    logger.debug("Reset session sequence numbers for: {}", sessionID);
                 }
             }
         } catch (Exception e) {
-            System.err.println("Error resetting session sequence numbers: " + e.getMessage());
+            logger.error("Error resetting session sequence numbers", e);
         }
     }
 
@@ -179,58 +199,45 @@ public class FixServerService implements Application {
     public void fromAdmin(Message message, SessionID sessionID)
             throws FieldNotFound, IncorrectDataFormat, IncorrectTagValue, RejectLogon {
         
-        System.out.println("=== ADMIN MESSAGE RECEIVED ===");
-        System.out.println("SessionID: " + sessionID);
-        System.out.println("Raw Message: " + message.toString());
-        try {
-            System.out.println("Message Type: " + message.getHeader().getString(MsgType.FIELD));
-            System.out.println("Sender: " + message.getHeader().getString(SenderCompID.FIELD));
-            System.out.println("Target: " + message.getHeader().getString(TargetCompID.FIELD));
-        } catch (Exception e) {
-            System.out.println("Error parsing message fields: " + e.getMessage());
-        }
-        System.out.println("===============================");
+        logger.debug("FromAdmin [{}]: {}", sessionID, message);
+        auditIn(sessionID, message);
     }
 
     // Also add exception handling to onCreate
     @Override
     public void onCreate(SessionID sessionID) {
-        System.out.println("=== SESSION CREATED ===");
-        System.out.println("Expecting --> SessionID: " + sessionID);
-        System.out.println("Server as: " + sessionID.getSenderCompID());
-        System.out.println("Expecting client: " + sessionID.getTargetCompID());
-        System.out.println("========================");
+        logger.debug("Session created: {} (server as {}, expecting client {})",
+            sessionID, sessionID.getSenderCompID(), sessionID.getTargetCompID());
         sessionIDMap.put(sessionID.toString(), sessionID);
     }
 
     @Override
     public void onLogon(SessionID sessionID) {
-        System.out.println("*** SUCCESSFUL LOGON ***");
-        System.out.println("SessionID: " + sessionID);
-        System.out.println("Time: " + LocalDateTime.now());
+        logger.debug("Successful logon: {} at {}", sessionID, LocalDateTime.now());
     }
 
     @Override
     public void onLogout(SessionID sessionID) {
-        System.out.println("*** LOGOUT ***");
-        System.out.println("SessionID: " + sessionID);
-        System.out.println("Time: " + LocalDateTime.now());
+        logger.debug("Logout: {} at {}", sessionID, LocalDateTime.now());
     }
 
     @Override
     public void toAdmin(Message message, SessionID sessionID) {
-        System.out.println("ToAdmin: " + message);
+        logger.debug("ToAdmin [{}]: {}", sessionID, message);
+        auditOut(sessionID, message);
     }
 
     @Override
     public void toApp(Message message, SessionID sessionID) throws DoNotSend {
-        System.out.println("ToApp: " + message);
+        logger.debug("ToApp [{}]: {}", sessionID, message);
+        auditOut(sessionID, message);
     }
 
     @Override
     public void fromApp(Message message, SessionID sessionID)
             throws FieldNotFound, IncorrectDataFormat, IncorrectTagValue, UnsupportedMessageType {
-        System.out.println("FromApp: " + message);
+        logger.debug("FromApp [{}]: {}", sessionID, message);
+        auditIn(sessionID, message);
 
         // Handle different message types
         crack(message, sessionID);
@@ -238,40 +245,16 @@ public class FixServerService implements Application {
 
 
 
-    // Example message handler for New Order Single
-    public void onMessage(NewOrderSingle message, SessionID sessionID)
-            throws FieldNotFound, UnsupportedMessageType, IncorrectTagValue {
-
-        System.out.println("Received New Order Single: " + message);
-
-        // Extract order details
-        String symbol = message.getSymbol().getValue();
-        Side side = message.getSide();
-        double quantity = message.getOrderQty().getValue();
-        String clOrdID = message.getClOrdID().getValue();
-
-        // Create ExecutionReport
-        ExecutionReport executionReport = new ExecutionReport(
-                new OrderID("ORDER_" + System.currentTimeMillis()),
-                new ExecID("EXEC_" + System.currentTimeMillis()),
-                new ExecType(ExecType.FILL),
-                new OrdStatus(OrdStatus.FILLED),
-                side,
-                new LeavesQty(0),
-                new CumQty(quantity)
-        );
-
-        executionReport.set(new ClOrdID(clOrdID));
-        executionReport.set(new Symbol(symbol));
-        executionReport.set(new OrderQty(quantity));
-        executionReport.set(new LastQty(quantity));
-        executionReport.set(new LastPx(77));
+    // Rendering a FIX message allocates, so it is only done when the audit log will take it
+    private void auditIn(SessionID sessionID, Message message) {
+        if (auditLog.isEnabled()) {
+            auditLog.fixIn(sessionID.toString(), message.toString());
+        }
+    }
 
-        try {
-            Session.sendToTarget(executionReport, sessionID);
-            System.out.println("Sent execution report: " + executionReport);
-        } catch (SessionNotFound e) {
-            System.err.println("Session not found: " + e.getMessage());
+    private void auditOut(SessionID sessionID, Message message) {
+        if (auditLog.isEnabled()) {
+            auditLog.fixOut(sessionID.toString(), message.toString());
         }
     }
 
@@ -283,10 +266,16 @@ public class FixServerService implements Application {
 
         switch (msgType) {
             case MsgType.NEW_ORDER_SINGLE:
-                onMessage((NewOrderSingle) message, sessionID);
+                fixOrderEntryService.onNewOrderSingle((NewOrderSingle) message, sessionID);
+                break;
+            case MsgType.ORDER_CANCEL_REQUEST:
+                fixOrderEntryService.onOrderCancelRequest((OrderCancelRequest) message, sessionID);
+                break;
+            case MsgType.ORDER_CANCEL_REPLACE_REQUEST:
+                fixOrderEntryService.onOrderCancelReplaceRequest((OrderCancelReplaceRequest) message, sessionID);
                 break;
             default:
-                System.out.println("Unhandled message type: " + msgType);
+                throw new UnsupportedMessageType();
         }
     }
 }
\ No newline at end of file
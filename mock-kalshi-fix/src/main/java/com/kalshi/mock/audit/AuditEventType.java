@@ -0,0 +1,42 @@
+package com.kalshi.mock.audit;
+
+/**
+ * Audit record types. The code is the byte written after the record length;
+ * field layouts after the timestamp are documented on each constant and read back by AuditLogDecoder.
+ */
+public enum AuditEventType {
+
+    // price (int), quantity (int), orderId, userId, marketTicker, side, action
+    ORDER_ACCEPTED(1),
+
+    // price (int), quantity (int), tradeId, marketTicker, aggressorOrderId, passiveOrderId
+    FILL(2),
+
+    // canceledQuantity (int), orderId, marketTicker
+    CANCEL(3),
+
+    // sessionId, raw FIX message
+    FIX_IN(4),
+
+    // sessionId, raw FIX message
+    FIX_OUT(5);
+
+    private final byte code;
+
+    AuditEventType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static AuditEventType fromCode(byte code) {
+        for (AuditEventType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown audit event type: " + code);
+    }
+}
@@ -0,0 +1,334 @@
+package com.kalshi.mock.audit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Binary audit trail for orders, fills, cancels and FIX traffic.
+ *
+ * Key features:
+ * - Callers copy each event into a slot of one preallocated ring buffer; no allocation,
+ *   formatting or I/O on the calling thread
+ * - A single writer thread drains the ring in order to rolling files under audit.dir
+ * - Each record is [u16 length][u8 type][i64 epoch millis][fields], strings as [u16 length][ASCII];
+ *   a record that outgrows its slot has its last string cut short and any after it left out
+ * - If the ring is full the event is dropped and counted rather than blocking the matching thread
+ * - AuditLogDecoder renders the files as text
+ */
+@Service
+public class AuditLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    static final byte[] FILE_MAGIC = {'K', 'A', 'U', 'D', 1};
+    static final String FILE_PREFIX = "audit-";
+    static final String FILE_SUFFIX = ".bin";
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // Room for the record header and the fixed-size fields of any event
+    static final int MIN_SLOT_BYTES = 32;
+
+    @Value("${audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audit.dir:logs/audit}")
+    private String directory;
+
+    // Slots in the ring; rounded up to a power of two
+    @Value("${audit.ring-slots:16384}")
+    private int ringSlots;
+
+    // Longer records (large FIX messages) are truncated to fit
+    @Value("${audit.slot-bytes:512}")
+    private int slotBytes;
+
+    @Value("${audit.max-file-bytes:67108864}")
+    private long maxFileBytes;
+
+    @Value("${audit.max-files:20}")
+    private int maxFiles;
+
+    private byte[] ring;
+    private int mask;
+    private AtomicLongArray published;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writer;
+    private OutputStream out;
+    private long fileBytes;
+    private int fileIndex;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        slotBytes = Math.max(slotBytes, MIN_SLOT_BYTES);
+        int capacity = Integer.highestOneBit(Math.max(2, ringSlots - 1)) << 1;
+        ring = new byte[capacity * slotBytes];
+        mask = capacity - 1;
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+
+        running = true;
+        writer = new Thread(this::drain, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Audit log writing to {} ({} slots of {} bytes)", directory, capacity, slotBytes);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.get() > 0) {
+            logger.warn("Audit log dropped {} events because the ring was full", dropped.get());
+        }
+    }
+
+    public void orderAccepted(String orderId, String userId, String marketTicker, String side, String action,
+                              int price, int quantity) {
+        long seq = claim();
+        if (seq < 0) {
+            return;
+        }
+        int limit = slotLimit(seq);
+        int pos = header(seq, AuditEventType.ORDER_ACCEPTED);
+        pos = putInt(pos, price);
+        pos = putInt(pos, quantity);
+        pos = putString(pos, limit, orderId);
+        pos = putString(pos, limit, userId);
+        pos = putString(pos, limit, marketTicker);
+        pos = putString(pos, limit, side);
+        pos = putString(pos, limit, action);
+        publish(seq, pos);
+    }
+
+    public void fill(String tradeId, String marketTicker, String aggressorOrderId, String passiveOrderId,
+                     int price, int quantity) {
+        long seq = claim();
+        if (seq < 0) {
+            return;
+        }
+        int limit = slotLimit(seq);
+        int pos = header(seq, AuditEventType.FILL);
+        pos = putInt(pos, price);
+        pos = putInt(pos, quantity);
+        pos = putString(pos, limit, tradeId);
+        pos = putString(pos, limit, marketTicker);
+        pos = putString(pos, limit, aggressorOrderId);
+        pos = putString(pos, limit, passiveOrderId);
+        publish(seq, pos);
+    }
+
+    public void cancel(String orderId, String marketTicker, int canceledQuantity) {
+        long seq = claim();
+        if (seq < 0) {
+            return;
+        }
+        int limit = slotLimit(seq);
+        int pos = header(seq, AuditEventType.CANCEL);
+        pos = putInt(pos, canceledQuantity);
+        pos = putString(pos, limit, orderId);
+        pos = putString(pos, limit, marketTicker);
+        publish(seq, pos);
+    }
+
+    public void fixIn(String sessionId, CharSequence message) {
+        fix(AuditEventType.FIX_IN, sessionId, message);
+    }
+
+    public void fixOut(String sessionId, CharSequence message) {
+        fix(AuditEventType.FIX_OUT, sessionId, message);
+    }
+
+    /**
+     * False when auditing is off; callers check it before building anything to record
+     */
+    public boolean isEnabled() {
+        return running;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    private void fix(AuditEventType type, String sessionId, CharSequence message) {
+        long seq = claim();
+        if (seq < 0) {
+            return;
+        }
+        int limit = slotLimit(seq);
+        int pos = header(seq, type);
+        pos = putString(pos, limit, sessionId);
+        pos = putString(pos, limit, message);
+        publish(seq, pos);
+    }
+
+    /**
+     * Reserve the next slot, or return -1 if auditing is off or the ring is full
+     */
+    private long claim() {
+        if (!running) {
+            return -1;
+        }
+        long seq;
+        do {
+            seq = head.get();
+            if (seq - tail > mask) {
+                dropped.incrementAndGet();
+                return -1;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+        return seq;
+    }
+
+    private int slotLimit(long seq) {
+        return (int) (seq & mask) * slotBytes + slotBytes;
+    }
+
+    private int header(long seq, AuditEventType type) {
+        int pos = (int) (seq & mask) * slotBytes + 2; // length is filled in by publish
+        ring[pos++] = type.getCode();
+        return putLong(pos, System.currentTimeMillis());
+    }
+
+    private void publish(long seq, int end) {
+        int start = (int) (seq & mask) * slotBytes;
+        int length = end - start - 2;
+        ring[start] = (byte) (length >>> 8);
+        ring[start + 1] = (byte) length;
+        published.set((int) (seq & mask), seq);
+    }
+
+    private int putInt(int pos, int value) {
+        ring[pos] = (byte) (value >>> 24);
+        ring[pos + 1] = (byte) (value >>> 16);
+        ring[pos + 2] = (byte) (value >>> 8);
+        ring[pos + 3] = (byte) value;
+        return pos + 4;
+    }
+
+    private int putLong(int pos, long value) {
+        pos = putInt(pos, (int) (value >>> 32));
+        return putInt(pos, (int) value);
+    }
+
+    private int putString(int pos, int limit, CharSequence value) {
+        if (pos + 2 > limit) {
+            return pos; // slot is full, the field is left out
+        }
+        int length = value == null ? 0 : Math.min(value.length(), limit - pos - 2);
+        ring[pos] = (byte) (length >>> 8);
+        ring[pos + 1] = (byte) length;
+        pos += 2;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            ring[pos++] = (byte) (c < 128 ? c : '?');
+        }
+        return pos;
+    }
+
+    /**
+     * Writer thread: copy published slots to the current file in sequence order
+     */
+    private void drain() {
+        try {
+            Files.createDirectories(Paths.get(directory));
+            openFile();
+            while (running || tail < head.get()) {
+                long seq = tail;
+                int slot = (int) (seq & mask);
+                if (seq >= head.get() || published.get(slot) != seq) {
+                    out.flush();
+                    LockSupport.parkNanos(1_000_000);
+                    continue;
+                }
+
+                int start = slot * slotBytes;
+                int length = 2 + (((ring[start] & 0xFF) << 8) | (ring[start + 1] & 0xFF));
+                out.write(ring, start, length);
+                fileBytes += length;
+                tail = seq + 1;
+                written.incrementAndGet();
+
+                if (fileBytes >= maxFileBytes) {
+                    out.close();
+                    openFile();
+                }
+            }
+            out.close();
+        } catch (IOException e) {
+            running = false;
+            logger.error("Audit log writer stopped", e);
+        }
+    }
+
+    private void openFile() throws IOException {
+        Path file = Paths.get(directory, FILE_PREFIX + LocalDateTime.now().format(FILE_TIME)
+            + "-" + (fileIndex++) + FILE_SUFFIX);
+        out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+        out.write(FILE_MAGIC);
+        fileBytes = FILE_MAGIC.length;
+        deleteOldFiles();
+    }
+
+    private void deleteOldFiles() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(Paths.get(directory))) {
+            files = listing
+                .filter(p -> p.getFileName().toString().startsWith(FILE_PREFIX)
+                    && p.getFileName().toString().endsWith(FILE_SUFFIX))
+                .sorted((a, b) -> {
+                    try {
+                        return Files.getLastModifiedTime(a).compareTo(Files.getLastModifiedTime(b));
+                    } catch (IOException e) {
+                        return a.compareTo(b);
+                    }
+                })
+                .collect(Collectors.toList());
+        }
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+}
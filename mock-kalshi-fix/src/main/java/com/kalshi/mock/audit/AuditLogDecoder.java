@@ -0,0 +1,126 @@
+package com.kalshi.mock.audit;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Renders binary audit files written by AuditLog as one line of text per record.
+ *
+ * Usage: java -cp mock-kalshi-fix.jar com.kalshi.mock.audit.AuditLogDecoder [file-or-directory...]
+ * Directories are expanded to their audit files in name order; the default is logs/audit.
+ */
+public final class AuditLogDecoder {
+
+    private AuditLogDecoder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String arg : args.length == 0 ? new String[] {"logs/audit"} : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> listing = Files.list(path)) {
+                    files.addAll(listing
+                        .filter(p -> p.getFileName().toString().endsWith(AuditLog.FILE_SUFFIX))
+                        .sorted()
+                        .collect(Collectors.toList()));
+                }
+            } else {
+                files.add(path);
+            }
+        }
+
+        for (Path file : files) {
+            decode(file, System.out::println);
+        }
+    }
+
+    /**
+     * Decode every record in one audit file, passing each rendered line to the consumer
+     */
+    public static void decode(Path file, Consumer<String> lines) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] magic = new byte[AuditLog.FILE_MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, AuditLog.FILE_MAGIC)) {
+                throw new IOException("Not an audit file: " + file);
+            }
+
+            while (true) {
+                int length;
+                try {
+                    length = in.readUnsignedShort();
+                } catch (EOFException e) {
+                    return;
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                lines.accept(render(new DataInputStream(new ByteArrayInputStream(record))));
+            }
+        }
+    }
+
+    private static String render(DataInputStream record) throws IOException {
+        AuditEventType type = AuditEventType.fromCode(record.readByte());
+        StringBuilder line = new StringBuilder()
+            .append(Instant.ofEpochMilli(record.readLong()))
+            .append(' ')
+            .append(type);
+
+        switch (type) {
+            case ORDER_ACCEPTED -> {
+                int price = record.readInt();
+                int quantity = record.readInt();
+                line.append(" order=").append(readString(record))
+                    .append(" user=").append(readString(record))
+                    .append(" market=").append(readString(record))
+                    .append(" side=").append(readString(record))
+                    .append(" action=").append(readString(record))
+                    .append(" price=").append(price)
+                    .append(" qty=").append(quantity);
+            }
+            case FILL -> {
+                int price = record.readInt();
+                int quantity = record.readInt();
+                line.append(" trade=").append(readString(record))
+                    .append(" market=").append(readString(record))
+                    .append(" aggressor=").append(readString(record))
+                    .append(" passive=").append(readString(record))
+                    .append(" price=").append(price)
+                    .append(" qty=").append(quantity);
+            }
+            case CANCEL -> {
+                int quantity = record.readInt();
+                line.append(" order=").append(readString(record))
+                    .append(" market=").append(readString(record))
+                    .append(" qty=").append(quantity);
+            }
+            case FIX_IN, FIX_OUT -> line.append(" session=").append(readString(record))
+                .append(' ').append(readString(record).replace('\u0001', '|'));
+        }
+        return line.toString();
+    }
+
+    private static String readString(DataInputStream record) throws IOException {
+        if (record.available() < 2) {
+            return ""; // left out of a record that filled its slot
+        }
+        byte[] bytes = new byte[record.readUnsignedShort()];
+        record.readFully(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -68,12 +68,8 @@ public class CatalogMarketController {
                 filter.setMaxCloseTime(LocalDateTime.parse(max_close_ts));
             }
             
-            // Decode cursor to offset if provided
-            if (cursor != null) {
-                int offset = CursorUtil.decodeCursor(cursor);
-                // TODO: Use offset in query
-            }
-            filter.setCursor(cursor);
+            // Keyset cursor: the listing continues after this ticker
+            filter.setCursor(CursorUtil.decodeKeyCursor(cursor));
             filter.setLimit(limit);
             
             List<Market> markets = marketService.getMarkets(filter);
@@ -85,9 +81,8 @@ public class CatalogMarketController {
             
             // Generate next cursor if needed
             String nextCursor = null;
-            if (markets.size() == limit) {
-                // For now, just encode the next offset
-                nextCursor = CursorUtil.encodeCursor(markets.size());
+            if (!markets.isEmpty() && markets.size() == limit) {
+                nextCursor = CursorUtil.encodeKeyCursor(markets.get(markets.size() - 1).getTicker());
             }
             
             return ResponseEntity.ok(new MarketListResponse(marketResponses, nextCursor));
@@ -99,6 +94,26 @@ public class CatalogMarketController {
         }
     }
     
+    @GetMapping("/markets/tickers")
+    @Operation(summary = "List all market tickers", description = "Returns every market ticker in one call, optionally filtered by status")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved tickers"),
+        @ApiResponse(responseCode = "400", description = "Invalid status"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<MarketTickersResponse> listMarketTickers(
+            @Parameter(description = "Filter by status") @RequestParam(required = false) String status) {
+        
+        try {
+            Market.MarketStatus marketStatus = status != null ? Market.MarketStatus.valueOf(status.toUpperCase()) : null;
+            return ResponseEntity.ok(new MarketTickersResponse(marketService.getAllTickers(marketStatus)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     @GetMapping("/markets/{ticker}")
     @Operation(summary = "Get single market", description = "Returns detailed information about a specific market")
     @ApiResponses(value = {
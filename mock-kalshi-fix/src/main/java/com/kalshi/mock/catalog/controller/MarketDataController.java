@@ -1,9 +1,13 @@
 package com.kalshi.mock.catalog.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kalshi.mock.catalog.service.MarketDataService;
 import com.kalshi.mock.catalog.service.MarketService;
-import com.kalshi.mock.catalog.dto.CursorUtil;
+import com.kalshi.mock.dto.EventOrderbookResponse;
 import com.kalshi.mock.dto.OrderbookResponse;
+import com.kalshi.mock.model.ConcurrentOrderBook;
+import com.kalshi.mock.service.TradeTapeService;
 import com.fbg.api.rest.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,13 +16,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.List;
 
 @RestController
@@ -32,6 +41,16 @@ public class MarketDataController {
     @Autowired
     private MarketService marketService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private static final int MAX_BATCH_TICKERS = 1000;
+    
+    // Books written between flushes, so the response goes out in chunks as it is built
+    private static final int BOOKS_PER_FLUSH = 100;
+    
+    private static final String NDJSON = "application/x-ndjson";
+    
     @GetMapping("/markets/{ticker}/orderbook")
     @Operation(summary = "Get market orderbook", description = "Returns the current orderbook for a specific market")
     @ApiResponses(value = {
@@ -58,6 +77,90 @@ public class MarketDataController {
         }
     }
     
+    @GetMapping("/events/{event_ticker}/orderbook")
+    @Operation(summary = "Get event orderbook",
+               description = "Returns the best bid and ask of every market in an event with the implied probability sums. The same view is pushed on the event_orderbook WebSocket channel.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event orderbook retrieved successfully"),
+        @ApiResponse(responseCode = "404", description = "Event not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<EventOrderbookResponse> getEventOrderbook(
+            @Parameter(description = "Event ticker", required = true) @PathVariable String event_ticker) {
+        
+        try {
+            return ResponseEntity.ok(new EventOrderbookResponse(marketDataService.getEventOrderbook(event_ticker)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    @GetMapping(value = "/markets/orderbooks", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get orderbooks for many markets",
+               description = "Streams the orderbooks of the given markets in one response; each book carries the version it was read at. Markets without a book are left out.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Orderbooks streamed successfully"),
+        @ApiResponse(responseCode = "400", description = "No tickers, or too many tickers")
+    })
+    public ResponseEntity<StreamingResponseBody> getOrderbooks(
+            @Parameter(description = "Comma-separated market tickers", required = true) @RequestParam String tickers,
+            @Parameter(description = "Depth of each orderbook") @RequestParam(required = false, defaultValue = "10") Integer depth) {
+        
+        List<String> marketTickers = Arrays.stream(tickers.split(","))
+            .map(String::trim)
+            .filter(ticker -> !ticker.isEmpty())
+            .distinct()
+            .toList();
+        if (marketTickers.isEmpty() || marketTickers.size() > MAX_BATCH_TICKERS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_BATCH_TICKERS + " tickers are required");
+        }
+        
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = createGenerator(out);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("orderbooks");
+            int written = 0;
+            for (String ticker : marketTickers) {
+                if (writeOrderbook(generator, ticker, depth) && ++written % BOOKS_PER_FLUSH == 0) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+    
+    @GetMapping(value = "/markets/orderbooks/all", produces = NDJSON)
+    @Operation(summary = "Stream every orderbook",
+               description = "Streams the orderbook of every market as newline-delimited JSON, one versioned book per line, for bootstrapping a cold consumer")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Orderbooks streamed successfully")
+    })
+    public ResponseEntity<StreamingResponseBody> streamAllOrderbooks(
+            @Parameter(description = "Depth of each orderbook") @RequestParam(required = false, defaultValue = "10") Integer depth) {
+        
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = createGenerator(out);
+            // One book per line rather than Jackson's default space between root values
+            generator.setRootValueSeparator(null);
+            int written = 0;
+            for (String ticker : marketDataService.getOrderbookTickers()) {
+                if (writeOrderbook(generator, ticker, depth)) {
+                    generator.writeRaw('\n');
+                    if (++written % BOOKS_PER_FLUSH == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+    
     @GetMapping("/markets/trades")
     @Operation(summary = "Get trades", description = "Returns recent trades across markets with optional filters")
     @ApiResponses(value = {
@@ -91,17 +194,19 @@ public class MarketDataController {
             // Get trades from market data service
             List<Trade> trades = marketDataService.getTrades(ticker, minTs, maxTs, cursor, limit);
             
-            // Generate next cursor if needed
+            // Keyset cursor continuing after the last (oldest) trade on this page
             String nextCursor = null;
-            if (trades.size() == limit) {
-                // Use simple offset-based cursor for now
-                nextCursor = CursorUtil.encodeCursor(trades.size());
+            if (!trades.isEmpty() && trades.size() == limit) {
+                nextCursor = TradeTapeService.encodeCursor(trades.get(trades.size() - 1));
             }
             
             return ResponseEntity.ok(new TradesResponse(trades, nextCursor));
             
         } catch (DateTimeParseException e) {
             return ResponseEntity.badRequest().build();
+        } catch (IllegalArgumentException e) {
+            // Invalid cursor
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -190,4 +295,28 @@ public class MarketDataController {
         return period == 1 || period == 5 || period == 15 || 
                period == 60 || period == 240 || period == 1440;
     }
-}
\ No newline at end of file
+    
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        // The servlet container owns the response stream
+        return objectMapper.getFactory().createGenerator(out)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+    
+    /**
+     * Write one market's versioned book as {"market_ticker", "version", "orderbook": {"yes", "no"}}
+     *
+     * @return false if the market has no book
+     */
+    private boolean writeOrderbook(JsonGenerator generator, String ticker, int depth) throws IOException {
+        ConcurrentOrderBook.VersionedOrderbook book = marketDataService.getVersionedOrderbook(ticker, depth);
+        if (book == null) {
+            return false;
+        }
+        generator.writeStartObject();
+        generator.writeStringField("market_ticker", ticker);
+        generator.writeNumberField("version", book.getVersion());
+        generator.writeObjectField("orderbook", book.getOrderbook());
+        generator.writeEndObject();
+        return true;
+    }
+}
@@ -62,4 +62,39 @@ public class CursorUtil {
         
         return encodeCursor(nextOffset);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Encodes the last key of a page (e.g. a market ticker) into a keyset cursor
+     * 
+     * @param key The last key returned on the current page
+     * @return URL-safe Base64 encoded cursor string
+     */
+    public static String encodeKeyCursor(String key) {
+        String cursorData = "key:" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursorData.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decodes a keyset cursor back to the key the next page starts after
+     * 
+     * @param cursor The cursor string
+     * @return The key, or null for an empty cursor
+     * @throws IllegalArgumentException if the cursor is not a keyset cursor
+     */
+    public static String decodeKeyCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        
+        try {
+            String decodedString = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decodedString.startsWith("key:")) {
+                return decodedString.substring("key:".length());
+            }
+        } catch (IllegalArgumentException e) {
+            // Not Base64, reported below
+        }
+        
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+}
@@ -0,0 +1,30 @@
+package com.kalshi.mock.catalog.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Unpaginated response listing every market ticker
+ */
+public class MarketTickersResponse {
+
+    @JsonProperty("tickers")
+    private List<String> tickers;
+
+    // Constructors
+    public MarketTickersResponse() {
+    }
+
+    public MarketTickersResponse(List<String> tickers) {
+        this.tickers = tickers;
+    }
+
+    // Getters and Setters
+    public List<String> getTickers() {
+        return tickers;
+    }
+
+    public void setTickers(List<String> tickers) {
+        this.tickers = tickers;
+    }
+}
@@ -146,6 +146,54 @@ public class Market {
         this.updatedAt = LocalDateTime.now();
     }
     
+    /**
+     * Copy of another market; the catalog hands these out so its own instances are never shared
+     */
+    public Market(Market other) {
+        this.ticker = other.ticker;
+        this.eventTicker = other.eventTicker;
+        this.marketType = other.marketType;
+        this.title = other.title;
+        this.subtitle = other.subtitle;
+        this.yesSubtitle = other.yesSubtitle;
+        this.noSubtitle = other.noSubtitle;
+        this.openTime = other.openTime;
+        this.closeTime = other.closeTime;
+        this.expectedExpirationTime = other.expectedExpirationTime;
+        this.expirationTime = other.expirationTime;
+        this.status = other.status;
+        this.yesBid = other.yesBid;
+        this.yesAsk = other.yesAsk;
+        this.noBid = other.noBid;
+        this.noAsk = other.noAsk;
+        this.lastPrice = other.lastPrice;
+        this.previousYesBid = other.previousYesBid;
+        this.previousYesAsk = other.previousYesAsk;
+        this.previousPrice = other.previousPrice;
+        this.volume = other.volume;
+        this.volume24h = other.volume24h;
+        this.liquidity = other.liquidity;
+        this.openInterest = other.openInterest;
+        this.notionalValue = other.notionalValue;
+        this.riskLimitCents = other.riskLimitCents;
+        this.strikeType = other.strikeType;
+        this.floorStrike = other.floorStrike;
+        this.capStrike = other.capStrike;
+        this.result = other.result;
+        this.canCloseEarly = other.canCloseEarly;
+        this.expirationValue = other.expirationValue;
+        this.category = other.category;
+        this.rulesPrimary = other.rulesPrimary;
+        this.rulesSecondary = other.rulesSecondary;
+        this.responsePriceUnits = other.responsePriceUnits;
+        this.settlementTimerSeconds = other.settlementTimerSeconds;
+        this.settlementSource = other.settlementSource;
+        this.customStrike = other.customStrike;
+        this.isDeactivated = other.isDeactivated;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+    }
+    
     // Getters and Setters
     public String getTicker() {
         return ticker;
@@ -500,6 +548,7 @@ public class Market {
     }
     
     public enum MarketStatus {
+        UNOPENED,
         OPEN,
         CLOSED,
         SETTLED,
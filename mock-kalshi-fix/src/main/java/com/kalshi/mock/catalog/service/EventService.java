@@ -220,6 +220,10 @@ public class EventService {
             eventTicker
         );
         
+        if (updates.getSeriesTicker() != null) {
+            marketService.onEventSeriesChanged(eventTicker, updates.getSeriesTicker());
+        }
+        
         return getEventByTicker(eventTicker, false);
     }
     
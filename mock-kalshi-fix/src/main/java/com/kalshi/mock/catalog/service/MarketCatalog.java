@@ -0,0 +1,337 @@
+package com.kalshi.mock.catalog.service;
+
+import com.kalshi.mock.catalog.model.Market;
+import com.kalshi.mock.catalog.model.Market.MarketStatus;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory copy of the market catalog with secondary indexes.
+ *
+ * Key features:
+ * - Markets kept sorted by ticker so keyset cursors are a tailSet lookup
+ * - Secondary indexes by event, series, status, open time and close time
+ * - Filtered listings start from the smallest matching index instead of scanning
+ * - All writes go through MarketService, which keeps this coherent with the database
+ * - Cached markets are never handed out or changed in place: reads get copies, updates swap in a
+ *   changed copy, so a reader never sees half of an update and callers cannot alter the catalog
+ */
+public class MarketCatalog {
+
+    private final NavigableMap<String, Market> markets = new TreeMap<>();
+    private final Map<String, String> seriesByMarket = new HashMap<>();
+
+    // Secondary indexes, each holding sorted tickers
+    private final Map<String, NavigableSet<String>> byEvent = new HashMap<>();
+    private final Map<String, NavigableSet<String>> bySeries = new HashMap<>();
+    private final Map<MarketStatus, NavigableSet<String>> byStatus = new EnumMap<>(MarketStatus.class);
+    private final NavigableMap<LocalDateTime, NavigableSet<String>> byOpenTime = new TreeMap<>();
+    private final NavigableMap<LocalDateTime, NavigableSet<String>> byCloseTime = new TreeMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Add or replace a market
+     */
+    public void put(Market market, String seriesTicker) {
+        lock.writeLock().lock();
+        try {
+            Market previous = markets.get(market.getTicker());
+            if (previous != null) {
+                unindex(previous);
+            }
+            Market cached = new Market(market);
+            markets.put(cached.getTicker(), cached);
+            if (seriesTicker != null) {
+                seriesByMarket.put(cached.getTicker(), seriesTicker);
+            } else {
+                seriesByMarket.remove(cached.getTicker());
+            }
+            index(cached);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a change to a copy of a cached market, then re-index and swap the copy in.
+     *
+     * @return false if the market is not in the catalog
+     */
+    public boolean update(String ticker, Consumer<Market> change) {
+        lock.writeLock().lock();
+        try {
+            Market current = markets.get(ticker);
+            if (current == null) {
+                return false;
+            }
+            Market changed = new Market(current);
+            change.accept(changed);
+            unindex(current);
+            markets.put(ticker, changed);
+            index(changed);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String ticker) {
+        lock.writeLock().lock();
+        try {
+            Market market = markets.remove(ticker);
+            if (market != null) {
+                unindex(market);
+                seriesByMarket.remove(ticker);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-point every market of an event at a new series
+     */
+    public void moveEvent(String eventTicker, String seriesTicker) {
+        lock.writeLock().lock();
+        try {
+            NavigableSet<String> tickers = byEvent.get(eventTicker);
+            if (tickers == null) {
+                return;
+            }
+            for (String ticker : tickers) {
+                removeFromIndex(bySeries, seriesByMarket.get(ticker), ticker);
+                seriesByMarket.put(ticker, seriesTicker);
+                addToIndex(bySeries, seriesTicker, ticker);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Market get(String ticker) {
+        lock.readLock().lock();
+        try {
+            Market market = markets.get(ticker);
+            return market != null ? new Market(market) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getSeriesTicker(String ticker) {
+        lock.readLock().lock();
+        try {
+            return seriesByMarket.get(ticker);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String ticker) {
+        lock.readLock().lock();
+        try {
+            return markets.containsKey(ticker);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Market> getByEvent(String eventTicker) {
+        lock.readLock().lock();
+        try {
+            List<Market> result = new ArrayList<>();
+            for (String ticker : byEvent.getOrDefault(eventTicker, Collections.emptyNavigableSet())) {
+                result.add(new Market(markets.get(ticker)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * All tickers in ticker order, optionally restricted to one status
+     */
+    public List<String> getTickers(MarketStatus status) {
+        lock.readLock().lock();
+        try {
+            if (status == null) {
+                return new ArrayList<>(markets.keySet());
+            }
+            return new ArrayList<>(byStatus.getOrDefault(status, Collections.emptyNavigableSet()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return markets.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count(MarketStatus status) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<String> tickers = byStatus.get(status);
+            return tickers != null ? tickers.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Filtered listing in ticker order, starting strictly after the cursor ticker
+     */
+    public List<Market> query(MarketService.MarketFilter filter) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<String> candidates = selectCandidates(filter);
+            if (filter.getCursor() != null && !filter.getCursor().isEmpty()) {
+                candidates = candidates.tailSet(filter.getCursor(), false);
+            }
+
+            List<Market> result = new ArrayList<>(Math.min(filter.getLimit(), candidates.size()));
+            for (String ticker : candidates) {
+                if (result.size() >= filter.getLimit()) {
+                    break;
+                }
+                Market market = markets.get(ticker);
+                if (market != null && matches(market, filter)) {
+                    result.add(new Market(market));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pick the smallest index that satisfies one of the filter's conditions.
+     * The remaining conditions are checked per market by matches().
+     */
+    private NavigableSet<String> selectCandidates(MarketService.MarketFilter filter) {
+        NavigableSet<String> best = null;
+
+        if (filter.getTickers() != null && !filter.getTickers().isEmpty()) {
+            best = new TreeSet<>(filter.getTickers());
+        }
+        if (filter.getEventTicker() != null && !filter.getEventTicker().isEmpty()) {
+            best = smaller(best, byEvent.getOrDefault(filter.getEventTicker(), Collections.emptyNavigableSet()));
+        }
+        if (filter.getSeriesTicker() != null && !filter.getSeriesTicker().isEmpty()) {
+            best = smaller(best, bySeries.getOrDefault(filter.getSeriesTicker(), Collections.emptyNavigableSet()));
+        }
+        if (filter.getStatus() != null) {
+            best = smaller(best, byStatus.getOrDefault(filter.getStatus(), Collections.emptyNavigableSet()));
+        }
+        if (best != null) {
+            return best;
+        }
+
+        // Time ranges only drive the scan when nothing narrower was given
+        if (filter.getMinCloseTime() != null || filter.getMaxCloseTime() != null) {
+            return collectRange(byCloseTime, filter.getMinCloseTime(), filter.getMaxCloseTime());
+        }
+        if (filter.getMinOpenTime() != null || filter.getMaxOpenTime() != null) {
+            return collectRange(byOpenTime, filter.getMinOpenTime(), filter.getMaxOpenTime());
+        }
+        return markets.navigableKeySet();
+    }
+
+    private static NavigableSet<String> smaller(NavigableSet<String> a, NavigableSet<String> b) {
+        return a == null || b.size() < a.size() ? b : a;
+    }
+
+    private static NavigableSet<String> collectRange(NavigableMap<LocalDateTime, NavigableSet<String>> index,
+                                                     LocalDateTime min, LocalDateTime max) {
+        NavigableMap<LocalDateTime, NavigableSet<String>> range = index;
+        if (min != null && max != null) {
+            range = index.subMap(min, true, max, true);
+        } else if (min != null) {
+            range = index.tailMap(min, true);
+        } else if (max != null) {
+            range = index.headMap(max, true);
+        }
+        NavigableSet<String> tickers = new TreeSet<>();
+        for (NavigableSet<String> bucket : range.values()) {
+            tickers.addAll(bucket);
+        }
+        return tickers;
+    }
+
+    private boolean matches(Market market, MarketService.MarketFilter filter) {
+        if (filter.getTickers() != null && !filter.getTickers().isEmpty()
+                && !filter.getTickers().contains(market.getTicker())) {
+            return false;
+        }
+        if (filter.getEventTicker() != null && !filter.getEventTicker().isEmpty()
+                && !filter.getEventTicker().equals(market.getEventTicker())) {
+            return false;
+        }
+        if (filter.getSeriesTicker() != null && !filter.getSeriesTicker().isEmpty()
+                && !filter.getSeriesTicker().equals(seriesByMarket.get(market.getTicker()))) {
+            return false;
+        }
+        if (filter.getStatus() != null && filter.getStatus() != market.getStatus()) {
+            return false;
+        }
+        return inRange(market.getCloseTime(), filter.getMinCloseTime(), filter.getMaxCloseTime())
+            && inRange(market.getOpenTime(), filter.getMinOpenTime(), filter.getMaxOpenTime());
+    }
+
+    private static boolean inRange(LocalDateTime value, LocalDateTime min, LocalDateTime max) {
+        if (min == null && max == null) {
+            return true;
+        }
+        if (value == null) {
+            return false;
+        }
+        return (min == null || !value.isBefore(min)) && (max == null || !value.isAfter(max));
+    }
+
+    private void index(Market market) {
+        String ticker = market.getTicker();
+        addToIndex(byEvent, market.getEventTicker(), ticker);
+        addToIndex(bySeries, seriesByMarket.get(ticker), ticker);
+        addToIndex(byStatus, market.getStatus(), ticker);
+        addToIndex(byOpenTime, market.getOpenTime(), ticker);
+        addToIndex(byCloseTime, market.getCloseTime(), ticker);
+    }
+
+    private void unindex(Market market) {
+        String ticker = market.getTicker();
+        removeFromIndex(byEvent, market.getEventTicker(), ticker);
+        removeFromIndex(bySeries, seriesByMarket.get(ticker), ticker);
+        removeFromIndex(byStatus, market.getStatus(), ticker);
+        removeFromIndex(byOpenTime, market.getOpenTime(), ticker);
+        removeFromIndex(byCloseTime, market.getCloseTime(), ticker);
+    }
+
+    private static <K> void addToIndex(Map<K, NavigableSet<String>> index, K key, String ticker) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new TreeSet<>()).add(ticker);
+        }
+    }
+
+    private static <K> void removeFromIndex(Map<K, NavigableSet<String>> index, K key, String ticker) {
+        if (key == null) {
+            return;
+        }
+        NavigableSet<String> tickers = index.get(key);
+        if (tickers != null) {
+            tickers.remove(ticker);
+            if (tickers.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.kalshi.mock.catalog.service;
 
-import com.fbg.api.market.KalshiSide;
 import com.fbg.api.rest.Orderbook;
+import com.kalshi.mock.catalog.model.Market;
 import com.fbg.api.rest.Trade;
+import com.kalshi.mock.dto.EventOrderbookResponse;
 import com.kalshi.mock.dto.OrderbookResponse;
+import com.kalshi.mock.model.ConcurrentOrderBook;
+import com.kalshi.mock.service.EventBookService;
 import com.kalshi.mock.service.OrderBookService;
+import com.kalshi.mock.service.TradeTapeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -29,6 +33,15 @@ public class MarketDataService {
     @Autowired
     private OrderBookService orderBookService;
     
+    @Autowired
+    private TradeTapeService tradeTapeService;
+    
+    @Autowired
+    private EventBookService eventBookService;
+    
+    @Autowired
+    private MarketService marketService;
+    
     // Trade data for candlestick generation
     private static class TradeData {
         public String tradeId;
@@ -85,59 +98,32 @@ public class MarketDataService {
     }
     
     /**
-     * Get trades for a market
+     * Get a market's orderbook in Kalshi format with the book version it was read at, or null if it has no book
+     */
+    public ConcurrentOrderBook.VersionedOrderbook getVersionedOrderbook(String marketTicker, int depth) {
+        return orderBookService.getVersionedOrderbook(marketTicker, depth);
+    }
+    
+    /**
+     * Top of book of every market in an event with the implied probability sums
+     */
+    public EventOrderbookResponse.EventOrderbook getEventOrderbook(String eventTicker) {
+        return eventBookService.getEventOrderbook(eventTicker);
+    }
+    
+    /**
+     * Tickers of every market with an orderbook, sorted
+     */
+    public List<String> getOrderbookTickers() {
+        return orderBookService.getOrderBookTickers();
+    }
+    
+    /**
+     * Get trades for a market, newest first. Recent trades come from the in-memory
+     * trade tape; only history older than the tape is read from the trades table.
      */
     public List<Trade> getTrades(String marketTicker, Long minTs, Long maxTs, String cursor, int limit) {
-        StringBuilder sql = new StringBuilder("""
-            SELECT t.id, t.market_ticker, t.price, t.quantity, t.created_time,
-                   ao.side as taker_side, ao.user_id as taker_user_id,
-                   po.side as maker_side, po.user_id as maker_user_id
-            FROM trades t
-            JOIN orders ao ON t.aggressive_order_id = ao.id
-            JOIN orders po ON t.passive_order_id = po.id
-            WHERE t.market_ticker = ?
-        """);
-        
-        List<Object> params = new ArrayList<>();
-        params.add(marketTicker);
-        
-        if (minTs != null) {
-            sql.append(" AND t.created_time >= ?");
-            params.add(minTs);
-        }
-        
-        if (maxTs != null) {
-            sql.append(" AND t.created_time <= ?");
-            params.add(maxTs);
-        }
-        
-        if (cursor != null && !cursor.isEmpty()) {
-            // Cursor is the trade ID
-            sql.append(" AND t.id > ?");
-            params.add(cursor);
-        }
-        
-        sql.append(" ORDER BY t.created_time DESC, t.id DESC LIMIT ?");
-        params.add(limit);
-        
-        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
-            String takerSide = rs.getString("taker_side");
-            // In Kalshi, trades are reported from the taker's perspective
-            // Convert BUY/SELL to yes/no Side enum
-            KalshiSide side = "BUY".equals(takerSide) ? KalshiSide.yes : KalshiSide.no;
-            
-            return new Trade(
-                rs.getString("id"),              // trade_id
-                rs.getString("market_ticker"),   // ticker
-                rs.getString("market_ticker"),   // market_ticker
-                rs.getInt("price"),             // price
-                rs.getInt("quantity"),          // count
-                side,                           // side
-                rs.getLong("created_time"),     // created_time
-                null,                           // yes_price
-                null                            // no_price
-            );
-        }, params.toArray());
+        return tradeTapeService.getTrades(marketTicker, minTs, maxTs, cursor, limit);
     }
     
     /**
@@ -150,7 +136,7 @@ public class MarketDataService {
         
         // Get trades within the time range
         StringBuilder sql = new StringBuilder("""
-            SELECT id, market_ticker, price, quantity, created_time
+            SELECT trade_id AS id, market_ticker, price, quantity, created_time
             FROM trades
             WHERE market_ticker = ?
         """);
@@ -262,21 +248,17 @@ public class MarketDataService {
         MarketStats stats = new MarketStats();
         stats.marketTicker = marketTicker;
         
-        // Get current market data
-        String marketSql = """
-            SELECT last_price, previous_price, volume, volume_24h, open_interest
-            FROM markets
-            WHERE ticker = ?
-        """;
-        
-        jdbcTemplate.queryForObject(marketSql, (rs, rowNum) -> {
-            stats.lastPrice = rs.getInt("last_price");
-            stats.previousPrice = rs.getInt("previous_price");
-            stats.volume = rs.getLong("volume");
-            stats.volume24h = rs.getLong("volume_24h");
-            stats.openInterest = rs.getLong("open_interest");
-            return null;
-        }, marketTicker);
+        // Current prices and volume come from the in-memory catalog, which is ahead of the
+        // markets table between statistics flushes
+        Market market = marketService.getMarketByTicker(marketTicker);
+        if (market == null) {
+            throw new IllegalArgumentException("Market not found: " + marketTicker);
+        }
+        stats.lastPrice = market.getLastPrice() != null ? market.getLastPrice().intValue() : 0;
+        stats.previousPrice = market.getPreviousPrice() != null ? market.getPreviousPrice().intValue() : 0;
+        stats.volume = market.getVolume();
+        stats.volume24h = market.getVolume24h();
+        stats.openInterest = market.getOpenInterest();
         
         // Calculate price change
         if (stats.previousPrice != null && stats.previousPrice > 0) {
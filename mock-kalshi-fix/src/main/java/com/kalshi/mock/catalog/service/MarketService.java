@@ -5,11 +5,12 @@ import com.kalshi.mock.catalog.model.Market.MarketStatus;
 import com.kalshi.mock.catalog.model.Market.MarketType;
 import com.kalshi.mock.service.OrderBookService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.sql.ResultSet;
@@ -17,10 +18,15 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Service class for managing Market entities in the catalog system.
  * Provides full CRUD operations with complex filtering and integration with OrderBookService.
+ * 
+ * Reads are served from an in-memory MarketCatalog loaded from the database on first use;
+ * every write below updates the database and then, once the transaction commits, the catalog.
  */
 @Service
 public class MarketService {
@@ -31,6 +37,23 @@ public class MarketService {
     @Autowired
     private OrderBookService orderBookService;
     
+    // Loaded lazily so seed data from spring.sql.init is in place first
+    private volatile MarketCatalog catalog;
+    
+    // Notified when a market is created or its status/times may have changed
+    private final List<MarketScheduleListener> scheduleListeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Listener for changes to a market's status, open time or close time
+     */
+    public interface MarketScheduleListener {
+        void onMarketScheduleChanged(Market market);
+    }
+    
+    public void addScheduleListener(MarketScheduleListener listener) {
+        scheduleListeners.add(listener);
+    }
+    
     // Market RowMapper
     private final RowMapper<Market> marketRowMapper = new RowMapper<Market>() {
         @Override
@@ -234,6 +257,15 @@ public class MarketService {
             Timestamp.valueOf(market.getUpdatedAt())
         );
         
+        String seriesTicker = jdbcTemplate.queryForObject(
+            "SELECT series_ticker FROM events WHERE event_ticker = ?", String.class, market.getEventTicker());
+        MarketCatalog catalog = catalog();
+        Market created = new Market(market);
+        afterCommit(() -> {
+            catalog.put(created, seriesTicker);
+            notifyScheduleListeners(created);
+        });
+        
         // Initialize order book for the market if it's open
         if (market.getStatus() == MarketStatus.OPEN) {
             initializeOrderBook(market.getTicker());
@@ -246,80 +278,36 @@ public class MarketService {
      * Get a market by ticker
      */
     public Market getMarketByTicker(String ticker) {
-        String sql = "SELECT * FROM markets WHERE ticker = ?";
-        try {
-            return jdbcTemplate.queryForObject(sql, marketRowMapper, ticker);
-        } catch (EmptyResultDataAccessException e) {
-            return null;
-        }
+        return catalog().get(ticker);
     }
     
     /**
-     * Get all markets with complex filtering
+     * Get all markets with complex filtering, in ticker order after the cursor ticker
      */
     public List<Market> getMarkets(MarketFilter filter) {
-        StringBuilder sql = new StringBuilder("SELECT * FROM markets WHERE 1=1");
-        List<Object> params = new ArrayList<>();
-        
-        // Apply filters
-        if (filter.getEventTicker() != null && !filter.getEventTicker().isEmpty()) {
-            sql.append(" AND event_ticker = ?");
-            params.add(filter.getEventTicker());
-        }
-        
-        if (filter.getSeriesTicker() != null && !filter.getSeriesTicker().isEmpty()) {
-            sql.append(" AND event_ticker IN (SELECT event_ticker FROM events WHERE series_ticker = ?)");
-            params.add(filter.getSeriesTicker());
-        }
-        
-        if (filter.getStatus() != null) {
-            sql.append(" AND status = ?");
-            params.add(filter.getStatus().name());
-        }
-        
-        if (filter.getTickers() != null && !filter.getTickers().isEmpty()) {
-            String placeholders = String.join(",", Collections.nCopies(filter.getTickers().size(), "?"));
-            sql.append(" AND ticker IN (").append(placeholders).append(")");
-            params.addAll(filter.getTickers());
-        }
-        
-        if (filter.getMinCloseTime() != null) {
-            sql.append(" AND close_time >= ?");
-            params.add(Timestamp.valueOf(filter.getMinCloseTime()));
-        }
-        
-        if (filter.getMaxCloseTime() != null) {
-            sql.append(" AND close_time <= ?");
-            params.add(Timestamp.valueOf(filter.getMaxCloseTime()));
-        }
-        
-        if (filter.getMinOpenTime() != null) {
-            sql.append(" AND open_time >= ?");
-            params.add(Timestamp.valueOf(filter.getMinOpenTime()));
-        }
-        
-        if (filter.getMaxOpenTime() != null) {
-            sql.append(" AND open_time <= ?");
-            params.add(Timestamp.valueOf(filter.getMaxOpenTime()));
-        }
-        
-        if (filter.getCursor() != null && !filter.getCursor().isEmpty()) {
-            sql.append(" AND ticker > ?");
-            params.add(filter.getCursor());
-        }
-        
-        sql.append(" ORDER BY ticker LIMIT ?");
-        params.add(filter.getLimit());
-        
-        return jdbcTemplate.query(sql.toString(), marketRowMapper, params.toArray());
+        return catalog().query(filter);
+    }
+    
+    /**
+     * Get every market ticker in one call, optionally restricted to one status
+     */
+    public List<String> getAllTickers(MarketStatus status) {
+        return catalog().getTickers(status);
     }
     
     /**
      * Get markets by event
      */
     public List<Market> getMarketsByEvent(String eventTicker) {
-        String sql = "SELECT * FROM markets WHERE event_ticker = ? ORDER BY ticker";
-        return jdbcTemplate.query(sql, marketRowMapper, eventTicker);
+        return catalog().getByEvent(eventTicker);
+    }
+    
+    /**
+     * Keep the catalog's series index in step when an event moves to another series
+     */
+    public void onEventSeriesChanged(String eventTicker, String seriesTicker) {
+        MarketCatalog catalog = catalog();
+        afterCommit(() -> catalog.moveEvent(eventTicker, seriesTicker));
     }
     
     /**
@@ -381,7 +369,25 @@ public class MarketService {
         String sql = "UPDATE markets SET " + String.join(", ", setClauses) + " WHERE ticker = ?";
         jdbcTemplate.update(sql, params.toArray());
         
-        return getMarketByTicker(ticker);
+        // Apply only the columns written above; prices and volume in the catalog may be ahead of the
+        // row until MarketStatisticsService flushes them, so the row is not re-read over them
+        Consumer<Market> change = m -> {
+            if (updates.getTitle() != null) m.setTitle(updates.getTitle());
+            if (updates.getStatus() != null) m.setStatus(updates.getStatus());
+            if (updates.getCloseTime() != null) m.setCloseTime(updates.getCloseTime());
+            if (updates.getResult() != null) m.setResult(updates.getResult());
+            if (updates.getExpirationTime() != null) m.setExpirationTime(updates.getExpirationTime());
+            if (updates.getExpirationValue() != null) m.setExpirationValue(updates.getExpirationValue());
+            m.setUpdatedAt(updates.getUpdatedAt());
+        };
+        Market updated = new Market(existing);
+        change.accept(updated);
+        MarketCatalog catalog = catalog();
+        afterCommit(() -> {
+            catalog.update(ticker, change);
+            notifyScheduleListeners(updated);
+        });
+        return updated;
     }
     
     /**
@@ -409,11 +415,50 @@ public class MarketService {
             WHERE ticker = ?
         """;
         
+        LocalDateTime now = LocalDateTime.now();
         jdbcTemplate.update(sql,
             yesBid, yesAsk, noBid, noAsk, lastPrice,
-            Timestamp.valueOf(LocalDateTime.now()),
+            Timestamp.valueOf(now),
             ticker
         );
+        
+        MarketCatalog catalog = catalog();
+        afterCommit(() -> catalog.update(ticker, m -> {
+            m.setPreviousYesBid(m.getYesBid());
+            m.setPreviousYesAsk(m.getYesAsk());
+            m.setPreviousPrice(m.getLastPrice());
+            m.setYesBid(yesBid);
+            m.setYesAsk(yesAsk);
+            m.setNoBid(noBid);
+            m.setNoAsk(noAsk);
+            m.setLastPrice(lastPrice);
+            m.setUpdatedAt(now);
+        }));
+    }
+    
+    /**
+     * Apply price and volume changes to the in-memory catalog only.
+     * MarketStatisticsService persists the same changes to the database in coalesced batches.
+     */
+    public void applyMarketStatistics(String ticker, BigDecimal yesBid, BigDecimal yesAsk,
+                                      BigDecimal noBid, BigDecimal noAsk, BigDecimal lastPrice,
+                                      long volumeIncrease) {
+        LocalDateTime now = LocalDateTime.now();
+        catalog().update(ticker, m -> {
+            m.setPreviousYesBid(m.getYesBid());
+            m.setPreviousYesAsk(m.getYesAsk());
+            m.setYesBid(yesBid);
+            m.setYesAsk(yesAsk);
+            m.setNoBid(noBid);
+            m.setNoAsk(noAsk);
+            if (lastPrice != null) {
+                m.setPreviousPrice(m.getLastPrice());
+                m.setLastPrice(lastPrice);
+            }
+            m.setVolume((m.getVolume() != null ? m.getVolume() : 0L) + volumeIncrease);
+            m.setVolume24h((m.getVolume24h() != null ? m.getVolume24h() : 0L) + volumeIncrease);
+            m.setUpdatedAt(now);
+        });
     }
     
     /**
@@ -429,12 +474,20 @@ public class MarketService {
             WHERE ticker = ?
         """;
         
+        LocalDateTime now = LocalDateTime.now();
         jdbcTemplate.update(sql,
             volumeIncrease,
             volumeIncrease, // Simplified - in production would track 24h separately
-            Timestamp.valueOf(LocalDateTime.now()),
+            Timestamp.valueOf(now),
             ticker
         );
+        
+        MarketCatalog catalog = catalog();
+        afterCommit(() -> catalog.update(ticker, m -> {
+            m.setVolume((m.getVolume() != null ? m.getVolume() : 0L) + volumeIncrease);
+            m.setVolume24h((m.getVolume24h() != null ? m.getVolume24h() : 0L) + volumeIncrease);
+            m.setUpdatedAt(now);
+        }));
     }
     
     /**
@@ -456,15 +509,16 @@ public class MarketService {
         if (rowsAffected == 0) {
             throw new IllegalArgumentException("Market not found: " + ticker);
         }
+        
+        MarketCatalog catalog = catalog();
+        afterCommit(() -> catalog.remove(ticker));
     }
     
     /**
      * Check if a market exists
      */
     public boolean existsMarket(String ticker) {
-        String sql = "SELECT COUNT(*) FROM markets WHERE ticker = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, ticker);
-        return count != null && count > 0;
+        return catalog().contains(ticker);
     }
     
     /**
@@ -476,10 +530,8 @@ public class MarketService {
             initializeOrderBook(ticker);
         }
         
-        // Any -> CLOSED: Cancel all open orders
-        if (newStatus == MarketStatus.CLOSED && oldStatus != MarketStatus.CLOSED) {
-            cancelAllOpenOrders(ticker);
-        }
+        // Any -> CLOSED: resting orders are canceled by the lifecycle scheduler,
+        // which is notified once the update is applied
         
         // Any -> SETTLED: Ensure market is closed first
         if (newStatus == MarketStatus.SETTLED && oldStatus != MarketStatus.CLOSED) {
@@ -495,76 +547,109 @@ public class MarketService {
         // This is called when a market transitions to OPEN status
     }
     
-    /**
-     * Cancel all open orders for a market
-     */
-    private void cancelAllOpenOrders(String ticker) {
-        String sql = """
-            UPDATE orders SET 
-                status = 'canceled',
-                updated_time = ?
-            WHERE symbol = ? 
-            AND status IN ('open', 'partially_filled')
-        """;
-        
-        jdbcTemplate.update(sql, System.currentTimeMillis(), ticker);
-    }
-    
     /**
      * Get market count
      */
     public int getMarketCount() {
-        String sql = "SELECT COUNT(*) FROM markets";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class);
-        return count != null ? count : 0;
+        return catalog().size();
     }
     
     /**
      * Get active market count
      */
     public int getActiveMarketCount() {
-        String sql = "SELECT COUNT(*) FROM markets WHERE status = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, MarketStatus.OPEN.name());
-        return count != null ? count : 0;
+        return catalog().count(MarketStatus.OPEN);
     }
     
     /**
-     * Bulk update expired markets
+     * Move an unopened market to open (called by the lifecycle scheduler at open time)
+     *
+     * @return false if the market was not unopened
      */
     @Transactional
-    public int closeExpiredMarkets() {
+    public boolean openMarket(String ticker) {
+        return transitionStatus(ticker, MarketStatus.UNOPENED, MarketStatus.OPEN);
+    }
+    
+    /**
+     * Close a market (called by the lifecycle scheduler at close time)
+     *
+     * @return false if the market was already closed
+     */
+    @Transactional
+    public boolean closeMarket(String ticker) {
+        return transitionStatus(ticker, MarketStatus.OPEN, MarketStatus.CLOSED)
+            || transitionStatus(ticker, MarketStatus.UNOPENED, MarketStatus.CLOSED);
+    }
+    
+    private boolean transitionStatus(String ticker, MarketStatus from, MarketStatus to) {
         LocalDateTime now = LocalDateTime.now();
-        
-        // First get markets that need to be closed
-        String selectSql = """
-            SELECT ticker FROM markets 
-            WHERE status = ? 
-            AND close_time < ?
-        """;
-        
-        List<String> marketsToClose = jdbcTemplate.queryForList(selectSql, String.class, 
-            MarketStatus.OPEN.name(), Timestamp.valueOf(now));
-        
-        // Cancel orders for each market
-        for (String ticker : marketsToClose) {
-            cancelAllOpenOrders(ticker);
+        String sql = "UPDATE markets SET status = ?, updated_at = ? WHERE ticker = ? AND status = ?";
+        int rows = jdbcTemplate.update(sql,
+            to.name().toLowerCase(), Timestamp.valueOf(now), ticker, from.name().toLowerCase());
+        if (rows == 0) {
+            return false;
+        }
+        
+        MarketCatalog catalog = catalog();
+        afterCommit(() -> catalog.update(ticker, m -> {
+            m.setStatus(to);
+            m.setUpdatedAt(now);
+        }));
+        return true;
+    }
+    
+    private void notifyScheduleListeners(Market market) {
+        for (MarketScheduleListener listener : scheduleListeners) {
+            listener.onMarketScheduleChanged(market);
         }
-        
-        // Update market status
-        String updateSql = """
-            UPDATE markets SET 
-                status = ?, 
-                updated_at = ?
-            WHERE status = ? 
-            AND close_time < ?
+    }
+    
+    /**
+     * Run a catalog change once the surrounding transaction commits, or straight away outside one,
+     * so a rolled back write never shows up in the catalog
+     */
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+    
+    /**
+     * Catalog accessor, loading every market in one query on first use
+     */
+    private MarketCatalog catalog() {
+        MarketCatalog loaded = catalog;
+        if (loaded == null) {
+            synchronized (this) {
+                if (catalog == null) {
+                    catalog = loadCatalog();
+                }
+                loaded = catalog;
+            }
+        }
+        return loaded;
+    }
+    
+    private MarketCatalog loadCatalog() {
+        MarketCatalog loaded = new MarketCatalog();
+        String sql = """
+            SELECT m.*, e.series_ticker AS catalog_series_ticker
+            FROM markets m
+            LEFT JOIN events e ON m.event_ticker = e.event_ticker
         """;
-        
-        return jdbcTemplate.update(updateSql,
-            MarketStatus.CLOSED.name(),
-            Timestamp.valueOf(now),
-            MarketStatus.OPEN.name(),
-            Timestamp.valueOf(now)
-        );
+        jdbcTemplate.query(sql, rs -> {
+            Market market = marketRowMapper.mapRow(rs, rs.getRow());
+            loaded.put(market, rs.getString("catalog_series_ticker"));
+        });
+        return loaded;
     }
     
     /**
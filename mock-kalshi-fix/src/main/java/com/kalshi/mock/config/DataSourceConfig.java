@@ -50,6 +50,10 @@ public class DataSourceConfig {
         initializer.setDataSource(dataSource);
         
         ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+        if (driverClassName.contains("postgresql")) {
+            // Day-partitioned fills and trades; must exist before schema.sql creates the plain tables
+            populator.addScript(new ClassPathResource("db/partitioning.sql"));
+        }
         populator.addScript(new ClassPathResource("db/schema.sql"));
         populator.setContinueOnError(true); // Continue even if tables already exist
         
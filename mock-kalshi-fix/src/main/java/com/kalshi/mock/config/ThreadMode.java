@@ -0,0 +1,78 @@
+package com.kalshi.mock.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses between platform and virtual threads for the exchange's own executors.
+ *
+ * Key features:
+ * - Follows spring.threads.virtual.enabled, the same switch Spring Boot applies to Tomcat,
+ *   the application task executor and scheduling
+ * - Virtual mode runs each task on its own virtual thread, so blocking JDBC and socket writes
+ *   no longer hold a pooled thread
+ * - Platform mode keeps the fixed, named pools sized by the caller
+ * - Virtual threads need a Java 21 runtime; on older runtimes the switch is reported and ignored
+ */
+@Component
+public class ThreadMode {
+    private static final Logger logger = LoggerFactory.getLogger(ThreadMode.class);
+
+    @Autowired
+    private Environment environment;
+
+    private boolean virtual;
+
+    @PostConstruct
+    public void init() {
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        virtual = Threading.VIRTUAL.isActive(environment);
+        if (requested && !virtual) {
+            logger.warn("Virtual threads requested but Java {} does not support them; using platform threads",
+                Runtime.version().feature());
+        }
+        logger.info("Exchange executors use {} threads", virtual ? "virtual" : "platform");
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * An executor for blocking work: a thread per task in virtual mode, otherwise a fixed pool
+     */
+    public ExecutorService newExecutor(String name, int platformThreads) {
+        if (virtual) {
+            // No pooling and no queue: every task starts its own virtual thread
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threadFactory(name));
+        }
+        return Executors.newFixedThreadPool(platformThreads, threadFactory(name));
+    }
+
+    /**
+     * Thread factory for the current mode; platform threads are daemons named name-N
+     */
+    public ThreadFactory threadFactory(String name) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(name + "-").getVirtualThreadFactory();
+        }
+        CustomizableThreadFactory factory = new CustomizableThreadFactory(name + "-");
+        factory.setDaemon(true);
+        return factory;
+    }
+}
@@ -2,7 +2,11 @@ package com.kalshi.mock.controller;
 
 import com.fbg.api.rest.Orderbook;
 import com.fbg.api.rest.OrderbookResponse;
+import com.fbg.api.rest.Trade;
+import com.fbg.api.rest.TradesResponse;
 import com.kalshi.mock.catalog.service.MarketDataService;
+import com.kalshi.mock.service.OrderBookService;
+import com.kalshi.mock.service.TradeTapeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -10,6 +14,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/trade-api/v2")
 @Tag(name = "Market Data Simple", description = "Simplified market data endpoints")
@@ -18,6 +25,9 @@ public class MarketDataSimpleController {
     @Autowired
     private MarketDataService marketDataService;
     
+    @Autowired
+    private OrderBookService orderBookService;
+    
     @GetMapping("/orderbook")
     @Operation(summary = "Get orderbook by ticker parameter", 
                description = "Returns the current orderbook for a market specified by ticker query parameter")
@@ -49,10 +59,20 @@ public class MarketDataSimpleController {
             @RequestParam(required = false, defaultValue = "100") Integer limit) {
         
         try {
-            // For now, return empty trades list
-            return ResponseEntity.ok().body("{\"trades\":[]}");
+            List<Trade> trades = marketDataService.getTrades(ticker, null, null, null, limit);
+            String nextCursor = !trades.isEmpty() && trades.size() == limit
+                ? TradeTapeService.encodeCursor(trades.get(trades.size() - 1))
+                : null;
+            return ResponseEntity.ok(new TradesResponse(trades, nextCursor));
         } catch (Exception e) {
             return ResponseEntity.status(500).build();
         }
     }
-}
\ No newline at end of file
+    
+    @GetMapping("/orderbook/tiers")
+    @Operation(summary = "Get order book tier statistics", 
+               description = "Returns how many order books are live versus held in compact form while idle")
+    public ResponseEntity<Map<String, Long>> getOrderbookTiers() {
+        return ResponseEntity.ok(orderBookService.getTierStatistics());
+    }
+}
@@ -3,8 +3,13 @@ package com.kalshi.mock.controller;
 import com.fbg.api.rest.*;
 import com.fbg.api.market.KalshiSide;
 import com.kalshi.mock.dto.KalshiOrderRequest;
+import com.kalshi.mock.exception.RateLimitExceededException;
+import com.kalshi.mock.service.AdmissionControlService;
 import com.kalshi.mock.service.OrderBookService;
+import com.kalshi.mock.service.OrderIntakeService;
 import com.kalshi.mock.service.OrderTrackingService;
+import com.kalshi.mock.service.PortfolioIndexService;
+import com.kalshi.mock.service.PositionsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,6 +17,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -37,6 +43,18 @@ public class OrderController {
     @Autowired
     private OrderTrackingService orderTrackingService;
     
+    @Autowired
+    private PortfolioIndexService portfolioIndexService;
+    
+    @Autowired
+    private AdmissionControlService admissionControlService;
+    
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+    
+    @Autowired
+    private PositionsService positionsService;
+    
     // For demo purposes, using a fixed user ID
     private static final String DEMO_USER_ID = "USER-DEMO-001";
     
@@ -47,6 +65,7 @@ public class OrderController {
         @ApiResponse(responseCode = "400", description = "Invalid order request"),
         @ApiResponse(responseCode = "401", description = "Unauthorized"),
         @ApiResponse(responseCode = "404", description = "Market not found"),
+        @ApiResponse(responseCode = "429", description = "Order rate limit exceeded"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<OrderResponse> createOrder(
@@ -54,26 +73,13 @@ public class OrderController {
             @RequestHeader(value = "KALSHI-ACCESS-KEY", required = false) String apiKey) {
         
         try {
-            // Convert Kalshi request to internal OrderRequest format
-            OrderRequest orderRequest = new OrderRequest(
-                KalshiSide.valueOf(kalshiRequest.getSide()),
-                kalshiRequest.getMarketTicker(),
-                kalshiRequest.getType(),
-                kalshiRequest.getCount(),
-                kalshiRequest.getPrice(),
-                kalshiRequest.getTimeInForce(),
-                kalshiRequest.getClientOrderId()
-            );
-            
-            // Create order through order book service with action
-            Order order = orderBookService.createOrder(
-                kalshiRequest.getMarketTicker(),
-                orderRequest,
-                kalshiRequest.getAction(),
-                DEMO_USER_ID
-            );
+            admissionControlService.admit(DEMO_USER_ID, 1);
+            Order order = submitOrder(kalshiRequest);
             
             return ResponseEntity.status(HttpStatus.CREATED).body(new OrderResponse(order));
+        } catch (RateLimitExceededException e) {
+            logger.warn("Order rejected: {}", e.getMessage());
+            return tooManyRequests(e);
         } catch (IllegalArgumentException e) {
             logger.error("Bad request creating order: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
@@ -94,29 +100,14 @@ public class OrderController {
             @Parameter(description = "Filter by market ticker") @RequestParam(required = false) String ticker,
             @Parameter(description = "Filter by order status") @RequestParam(required = false) String status,
             @Parameter(description = "Maximum number of orders to return") @RequestParam(required = false, defaultValue = "100") Integer limit,
+            @Parameter(description = "Pagination cursor from a previous response") @RequestParam(required = false) String cursor,
             @RequestHeader(value = "KALSHI-ACCESS-KEY", required = false) String apiKey) {
         
-        List<Order> orders = orderBookService.getUserOrders(DEMO_USER_ID);
+        // Served from the per-user index; only pages past its recent window read the database
+        PortfolioIndexService.Page<Order> page = portfolioIndexService.getOrders(
+            DEMO_USER_ID, ticker, status, cursor, limit != null ? limit : 100);
         
-        // Apply filters
-        if (ticker != null) {
-            orders = orders.stream()
-                .filter(o -> o.getSymbol().equals(ticker))
-                .toList();
-        }
-        
-        if (status != null) {
-            orders = orders.stream()
-                .filter(o -> o.getStatus().equals(status))
-                .toList();
-        }
-        
-        // Apply limit
-        if (limit != null && orders.size() > limit) {
-            orders = orders.subList(0, limit);
-        }
-        
-        return ResponseEntity.ok(new OrdersResponse(orders, null));
+        return ResponseEntity.ok(new OrdersResponse(page.getItems(), page.getCursor()));
     }
     
     @GetMapping("/orders/{order_id}")
@@ -164,7 +155,9 @@ public class OrderController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
             
-            Order canceledOrder = orderBookService.cancelOrder(order_id);
+            // Cancels skip admission control and run ahead of queued new orders for the market
+            Order canceledOrder = orderIntakeService.submit(existingOrder.getSymbol(), OrderIntakeService.Lane.PRIORITY,
+                () -> orderBookService.cancelOrder(order_id));
             return ResponseEntity.ok(new OrderResponse(canceledOrder));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
@@ -179,33 +172,26 @@ public class OrderController {
         @ApiResponse(responseCode = "201", description = "Orders created successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid order request"),
         @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "429", description = "Order rate limit exceeded"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<BatchOrderResponse> createBatchOrders(
             @Valid @RequestBody List<KalshiOrderRequest> batchRequests,
             @RequestHeader(value = "KALSHI-ACCESS-KEY", required = false) String apiKey) {
         
+        // The whole batch is admitted or refused up front, one token per order
+        try {
+            admissionControlService.admit(DEMO_USER_ID, batchRequests.size());
+        } catch (RateLimitExceededException e) {
+            logger.warn("Batch rejected: {}", e.getMessage());
+            return tooManyRequests(e);
+        }
+        
         List<Order> createdOrders = new java.util.ArrayList<>();
         
         for (KalshiOrderRequest kalshiRequest : batchRequests) {
             try {
-                OrderRequest orderRequest = new OrderRequest(
-                    KalshiSide.valueOf(kalshiRequest.getSide()),
-                    kalshiRequest.getMarketTicker(),
-                    kalshiRequest.getType(),
-                    kalshiRequest.getCount(),
-                    kalshiRequest.getPrice(),
-                    kalshiRequest.getTimeInForce(),
-                    kalshiRequest.getClientOrderId()
-                );
-                
-                Order order = orderBookService.createOrder(
-                    kalshiRequest.getMarketTicker(),
-                    orderRequest,
-                    kalshiRequest.getAction(),
-                    DEMO_USER_ID
-                );
-                createdOrders.add(order);
+                createdOrders.add(submitOrder(kalshiRequest));
             } catch (Exception e) {
                 // Log error but continue processing other orders
                 System.err.println("Failed to create order: " + e.getMessage());
@@ -226,29 +212,61 @@ public class OrderController {
             @Parameter(description = "Filter by market ticker") @RequestParam(required = false) String ticker,
             @Parameter(description = "Filter by order ID") @RequestParam(required = false) String order_id,
             @Parameter(description = "Maximum number of fills to return") @RequestParam(required = false, defaultValue = "100") Integer limit,
+            @Parameter(description = "Pagination cursor from a previous response") @RequestParam(required = false) String cursor,
             @RequestHeader(value = "KALSHI-ACCESS-KEY", required = false) String apiKey) {
         
-        List<Fill> fills = orderBookService.getUserFills(DEMO_USER_ID);
+        PortfolioIndexService.Page<Fill> page = portfolioIndexService.getFills(
+            DEMO_USER_ID, ticker, order_id, cursor, limit != null ? limit : 100);
         
-        // Apply filters
-        if (ticker != null) {
-            fills = fills.stream()
-                .filter(f -> f.getMarket_ticker().equals(ticker))
-                .toList();
-        }
+        return ResponseEntity.ok(new FillsResponse(page.getItems(), page.getCursor()));
+    }
+    
+    /**
+     * Run an order through the intake lane for its market; reduce-only orders take the priority lane
+     */
+    private Order submitOrder(KalshiOrderRequest kalshiRequest) {
+        // Convert Kalshi request to internal OrderRequest format
+        OrderRequest orderRequest = new OrderRequest(
+            KalshiSide.valueOf(kalshiRequest.getSide()),
+            kalshiRequest.getMarketTicker(),
+            kalshiRequest.getType(),
+            kalshiRequest.getCount(),
+            kalshiRequest.getPrice(),
+            kalshiRequest.getTimeInForce(),
+            kalshiRequest.getClientOrderId()
+        );
+        boolean reduceOnly = Boolean.TRUE.equals(kalshiRequest.getReduceOnly());
         
-        if (order_id != null) {
-            fills = fills.stream()
-                .filter(f -> f.getOrder_id().equals(order_id))
-                .toList();
+        return orderIntakeService.submit(kalshiRequest.getMarketTicker(),
+            reduceOnly ? OrderIntakeService.Lane.PRIORITY : OrderIntakeService.Lane.NORMAL,
+            () -> {
+                if (reduceOnly) {
+                    // Checked inside the market's turn so it is ordered with the market's other requests
+                    validateReduceOnly(kalshiRequest);
+                }
+                return orderBookService.createOrder(
+                    kalshiRequest.getMarketTicker(),
+                    orderRequest,
+                    kalshiRequest.getAction(),
+                    DEMO_USER_ID
+                );
+            });
+    }
+    
+    private void validateReduceOnly(KalshiOrderRequest kalshiRequest) {
+        if (!"sell".equals(kalshiRequest.getAction())) {
+            throw new IllegalArgumentException("reduce_only orders must be sells");
         }
-        
-        // Apply limit
-        if (limit != null && fills.size() > limit) {
-            fills = fills.subList(0, limit);
+        Position position = positionsService.getUserPosition(
+            DEMO_USER_ID, kalshiRequest.getMarketTicker(), KalshiSide.valueOf(kalshiRequest.getSide()));
+        if (position == null || position.getQuantity() < kalshiRequest.getCount()) {
+            throw new IllegalArgumentException("reduce_only order would exceed the current position");
         }
-        
-        return ResponseEntity.ok(new FillsResponse(fills, null));
     }
     
+    private static <T> ResponseEntity<T> tooManyRequests(RateLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .build();
+    }
 }
\ No newline at end of file
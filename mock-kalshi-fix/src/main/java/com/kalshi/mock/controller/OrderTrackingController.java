@@ -44,19 +44,8 @@ public class OrderTrackingController {
             @Parameter(description = "Maximum number of orders to return") @RequestParam(required = false, defaultValue = "100") Integer limit) {
         
         try {
-            List<Order> orders = orderTrackingService.getOrdersForMarket(market_ticker);
-            
-            // Apply status filter
-            if (status != null) {
-                orders = orders.stream()
-                    .filter(o -> o.getStatus().equals(status))
-                    .toList();
-            }
-            
-            // Apply limit
-            if (limit != null && orders.size() > limit) {
-                orders = orders.subList(0, limit);
-            }
+            // Open orders come from memory; history falls through to the database
+            List<Order> orders = orderTrackingService.getOrdersForMarket(market_ticker, status, limit);
             
             logger.info("Retrieved {} orders for market {}", orders.size(), market_ticker);
             return ResponseEntity.ok(new OrdersResponse(orders, null));
@@ -84,6 +73,16 @@ public class OrderTrackingController {
         }
     }
     
+    @GetMapping("/cache")
+    @Operation(summary = "Get order cache statistics", description = "Returns the in-memory working set size and hit/miss counters")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<Map<String, Long>> getCacheStatistics() {
+        return ResponseEntity.ok(orderTrackingService.getCacheStatistics());
+    }
+    
     @GetMapping("/user/{user_id}")
     @Operation(summary = "Get orders for user", description = "Returns all orders for a specific user")
     @ApiResponses(value = {
@@ -98,19 +97,8 @@ public class OrderTrackingController {
             @Parameter(description = "Maximum number of orders to return") @RequestParam(required = false, defaultValue = "100") Integer limit) {
         
         try {
-            List<Order> orders = orderTrackingService.getOrdersForUser(user_id);
-            
-            // Apply status filter
-            if (status != null) {
-                orders = orders.stream()
-                    .filter(o -> o.getStatus().equals(status))
-                    .toList();
-            }
-            
-            // Apply limit
-            if (limit != null && orders.size() > limit) {
-                orders = orders.subList(0, limit);
-            }
+            // Open orders come from memory; history falls through to the database
+            List<Order> orders = orderTrackingService.getOrdersForUser(user_id, status, limit);
             
             logger.info("Retrieved {} orders for user {}", orders.size(), user_id);
             return ResponseEntity.ok(new OrdersResponse(orders, null));
@@ -2,7 +2,7 @@ package com.kalshi.mock.controller;
 
 import com.fbg.api.rest.*;
 import com.fbg.api.market.KalshiSide;
-import com.kalshi.mock.service.PositionsService;
+import com.kalshi.mock.service.PortfolioIndexService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -22,7 +22,7 @@ import java.util.List;
 public class PortfolioController {
     
     @Autowired
-    private PositionsService positionsService;
+    private PortfolioIndexService portfolioIndexService;
     
     // For demo purposes, using a fixed user ID
     private static final String DEMO_USER_ID = "USER-DEMO-001";
@@ -58,8 +58,8 @@ public class PortfolioController {
     public ResponseEntity<PositionsResponse> getPositions(
             @RequestHeader(value = "KALSHI-ACCESS-KEY", required = false) String apiKey) {
         
-        // Get positions from the positions service
-        List<Position> positions = positionsService.getUserPositions(DEMO_USER_ID);
+        // Positions are held per user and refreshed as fills arrive
+        List<Position> positions = portfolioIndexService.getPositions(DEMO_USER_ID);
         
         return ResponseEntity.ok(new PositionsResponse(positions));
     }
@@ -0,0 +1,158 @@
+package com.kalshi.mock.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Top of book for every market in an event, with the implied probability sums.
+ *
+ * Example:
+ * {
+ *   "event_orderbook": {
+ *     "event_ticker": "INXD-23DEC29",
+ *     "mutually_exclusive": true,
+ *     "seq": 42,
+ *     "yes_bid_sum": 97,
+ *     "yes_ask_sum": 104,
+ *     "markets": [
+ *       {"market_ticker": "INXD-23DEC29-B5000", "yes_bid": 31, "yes_bid_size": 100, "yes_ask": 34, "yes_ask_size": 50}
+ *     ]
+ *   }
+ * }
+ *
+ * Prices are in cents. yes_ask is 100 minus the best NO bid. In the sums a market with no
+ * bid counts as 0 and one with no ask as 100. For mutually exclusive markets the sums
+ * bracket 100 in a consistent book: buying YES on every market costs yes_ask_sum and
+ * pays exactly 100.
+ */
+public class EventOrderbookResponse {
+
+    @JsonProperty("event_orderbook")
+    private EventOrderbook eventOrderbook;
+
+    public EventOrderbookResponse() {}
+
+    public EventOrderbookResponse(EventOrderbook eventOrderbook) {
+        this.eventOrderbook = eventOrderbook;
+    }
+
+    public EventOrderbook getEventOrderbook() {
+        return eventOrderbook;
+    }
+
+    public void setEventOrderbook(EventOrderbook eventOrderbook) {
+        this.eventOrderbook = eventOrderbook;
+    }
+
+    public static class EventOrderbook {
+        @JsonProperty("event_ticker")
+        private final String eventTicker;
+
+        @JsonProperty("mutually_exclusive")
+        private final boolean mutuallyExclusive;
+
+        @JsonProperty("seq")
+        private final long seq;
+
+        @JsonProperty("yes_bid_sum")
+        private final int yesBidSum;
+
+        @JsonProperty("yes_ask_sum")
+        private final int yesAskSum;
+
+        @JsonProperty("markets")
+        private final List<MarketTop> markets;
+
+        public EventOrderbook(String eventTicker, boolean mutuallyExclusive, long seq,
+                              int yesBidSum, int yesAskSum, List<MarketTop> markets) {
+            this.eventTicker = eventTicker;
+            this.mutuallyExclusive = mutuallyExclusive;
+            this.seq = seq;
+            this.yesBidSum = yesBidSum;
+            this.yesAskSum = yesAskSum;
+            this.markets = markets;
+        }
+
+        public String getEventTicker() { return eventTicker; }
+        public boolean isMutuallyExclusive() { return mutuallyExclusive; }
+        public long getSeq() { return seq; }
+        public int getYesBidSum() { return yesBidSum; }
+        public int getYesAskSum() { return yesAskSum; }
+        public List<MarketTop> getMarkets() { return markets; }
+    }
+
+    /**
+     * One market's top of book changed; carries the event's sums after the change
+     */
+    public static class EventOrderbookDelta {
+        @JsonProperty("event_ticker")
+        private final String eventTicker;
+
+        @JsonProperty("seq")
+        private final long seq;
+
+        @JsonProperty("yes_bid_sum")
+        private final int yesBidSum;
+
+        @JsonProperty("yes_ask_sum")
+        private final int yesAskSum;
+
+        @JsonProperty("market")
+        private final MarketTop market;
+
+        public EventOrderbookDelta(String eventTicker, long seq, int yesBidSum, int yesAskSum, MarketTop market) {
+            this.eventTicker = eventTicker;
+            this.seq = seq;
+            this.yesBidSum = yesBidSum;
+            this.yesAskSum = yesAskSum;
+            this.market = market;
+        }
+
+        public String getEventTicker() { return eventTicker; }
+        public long getSeq() { return seq; }
+        public int getYesBidSum() { return yesBidSum; }
+        public int getYesAskSum() { return yesAskSum; }
+        public MarketTop getMarket() { return market; }
+    }
+
+    /**
+     * Best YES bid and ask of one market; null price and zero size for an empty side
+     */
+    public static class MarketTop {
+        @JsonProperty("market_ticker")
+        private final String marketTicker;
+
+        @JsonProperty("yes_bid")
+        private final Integer yesBid;
+
+        @JsonProperty("yes_bid_size")
+        private final int yesBidSize;
+
+        @JsonProperty("yes_ask")
+        private final Integer yesAsk;
+
+        @JsonProperty("yes_ask_size")
+        private final int yesAskSize;
+
+        public MarketTop(String marketTicker, Integer yesBid, int yesBidSize, Integer yesAsk, int yesAskSize) {
+            this.marketTicker = marketTicker;
+            this.yesBid = yesBid;
+            this.yesBidSize = yesBidSize;
+            this.yesAsk = yesAsk;
+            this.yesAskSize = yesAskSize;
+        }
+
+        public String getMarketTicker() { return marketTicker; }
+        public Integer getYesBid() { return yesBid; }
+        public int getYesBidSize() { return yesBidSize; }
+        public Integer getYesAsk() { return yesAsk; }
+        public int getYesAskSize() { return yesAskSize; }
+
+        public boolean sameQuote(MarketTop other) {
+            return other != null
+                && Objects.equals(yesBid, other.yesBid) && yesBidSize == other.yesBidSize
+                && Objects.equals(yesAsk, other.yesAsk) && yesAskSize == other.yesAskSize;
+        }
+    }
+}
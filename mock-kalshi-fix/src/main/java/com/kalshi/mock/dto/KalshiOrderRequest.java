@@ -49,6 +49,10 @@ public class KalshiOrderRequest {
     @JsonProperty("client_order_id")
     private String clientOrderId;
     
+    @Schema(description = "Only reduce an existing position; must be a sell no larger than the position", defaultValue = "false")
+    @JsonProperty("reduce_only")
+    private Boolean reduceOnly;
+    
     // Getters and setters
     public String getMarketTicker() { return marketTicker; }
     public void setMarketTicker(String marketTicker) { this.marketTicker = marketTicker; }
@@ -73,4 +77,7 @@ public class KalshiOrderRequest {
     
     public String getClientOrderId() { return clientOrderId; }
     public void setClientOrderId(String clientOrderId) { this.clientOrderId = clientOrderId; }
+    
+    public Boolean getReduceOnly() { return reduceOnly; }
+    public void setReduceOnly(Boolean reduceOnly) { this.reduceOnly = reduceOnly; }
 }
\ No newline at end of file
@@ -8,7 +8,8 @@ public class OrderBookEvent {
         SNAPSHOT,
         DELTA,
         TRADE,
-        TICKER_UPDATE
+        TICKER_UPDATE,
+        MARKET_LIFECYCLE
     }
     
     private final EventType type;
@@ -45,29 +46,45 @@ public class OrderBookEvent {
         private final Integer price;
         private final Integer delta;
         private final String side;
+        // The book's delta number, contiguous per market
+        private final long sequence;
         
         public DeltaData(Integer price, Integer delta, String side) {
+            this(price, delta, side, 0);
+        }
+        
+        public DeltaData(Integer price, Integer delta, String side, long sequence) {
             this.price = price;
             this.delta = delta;
             this.side = side;
+            this.sequence = sequence;
         }
         
         public Integer getPrice() { return price; }
         public Integer getDelta() { return delta; }
         public String getSide() { return side; }
+        public long getSequence() { return sequence; }
     }
     
     public static class SnapshotData {
         private final List<List<Integer>> yesSide;
         private final List<List<Integer>> noSide;
+        // Delta number the levels are as of: deltas up to it are included
+        private final long sequence;
         
         public SnapshotData(List<List<Integer>> yesSide, List<List<Integer>> noSide) {
+            this(yesSide, noSide, 0);
+        }
+        
+        public SnapshotData(List<List<Integer>> yesSide, List<List<Integer>> noSide, long sequence) {
             this.yesSide = yesSide;
             this.noSide = noSide;
+            this.sequence = sequence;
         }
         
         public List<List<Integer>> getYesSide() { return yesSide; }
         public List<List<Integer>> getNoSide() { return noSide; }
+        public long getSequence() { return sequence; }
     }
     
     public static class TradeData {
@@ -75,18 +92,25 @@ public class OrderBookEvent {
         private final Integer count;
         private final String side;
         private final String tradeId;
+        private final long createdTime;
         
         public TradeData(Integer price, Integer count, String side, String tradeId) {
+            this(price, count, side, tradeId, System.currentTimeMillis());
+        }
+        
+        public TradeData(Integer price, Integer count, String side, String tradeId, long createdTime) {
             this.price = price;
             this.count = count;
             this.side = side;
             this.tradeId = tradeId;
+            this.createdTime = createdTime;
         }
         
         public Integer getPrice() { return price; }
         public Integer getCount() { return count; }
         public String getSide() { return side; }
         public String getTradeId() { return tradeId; }
+        public long getCreatedTime() { return createdTime; }
     }
     
     public static class TickerData {
@@ -110,4 +134,20 @@ public class OrderBookEvent {
         public Integer getBestBid() { return bestBid; }
         public Integer getBestAsk() { return bestAsk; }
     }
-}
\ No newline at end of file
+    
+    public static class LifecycleData {
+        private final String eventType;  // "opened" or "closed"
+        private final Long openTs;
+        private final Long closeTs;
+        
+        public LifecycleData(String eventType, Long openTs, Long closeTs) {
+            this.eventType = eventType;
+            this.openTs = openTs;
+            this.closeTs = closeTs;
+        }
+        
+        public String getEventType() { return eventType; }
+        public Long getOpenTs() { return openTs; }
+        public Long getCloseTs() { return closeTs; }
+    }
+}
@@ -1,14 +1,16 @@
 package com.kalshi.mock.event;
 
+import com.kalshi.mock.config.ThreadMode;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 @Slf4j
 @Component
@@ -17,7 +19,17 @@ public class OrderBookEventPublisher {
     private static final Logger logger = LoggerFactory.getLogger(OrderBookEventPublisher.class);
     
     private final List<OrderBookEventListener> listeners = new CopyOnWriteArrayList<>();
-    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    
+    @Autowired
+    private ThreadMode threadMode;
+    
+    // Listener callbacks write to sockets; a virtual thread per event in virtual mode
+    private ExecutorService executor;
+    
+    @PostConstruct
+    public void init() {
+        executor = threadMode.newExecutor("orderbook-events", 4);
+    }
     
     public void addListener(OrderBookEventListener listener) {
         listeners.add(listener);
@@ -0,0 +1,25 @@
+package com.kalshi.mock.exception;
+
+/**
+ * Thrown when a request is refused by admission control; maps to 429 with a Retry-After header
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterMillis;
+
+    public RateLimitExceededException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Retry-After value in whole seconds, rounded up and never less than one
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+}
@@ -0,0 +1,83 @@
+package com.kalshi.mock.model;
+
+import com.fbg.api.market.KalshiSide;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Compact serialized form of an idle order book's resting orders.
+ *
+ * Key features:
+ * - One byte array per book instead of skip lists, maps, locks and listener lists
+ * - Orders are written bids first, then asks, each level in FIFO order, so rehydration
+ *   restores time priority
+ * - An empty book encodes to a shared zero-length array
+ */
+public final class CompactOrderBook {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private CompactOrderBook() {
+    }
+
+    public static byte[] encode(ConcurrentOrderBook orderBook) {
+        List<OrderBookEntry> orders = orderBook.getRestingOrders();
+        if (orders.isEmpty()) {
+            return EMPTY;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(orders.size() * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(orders.size());
+            for (OrderBookEntry order : orders) {
+                out.writeUTF(order.getOrderId());
+                out.writeUTF(order.getUserId());
+                out.writeBoolean(order.getSide() == KalshiSide.yes);
+                out.writeBoolean("buy".equals(order.getAction()));
+                out.writeByte(order.getPrice());
+                out.writeInt(order.getQuantity());
+                out.writeLong(order.getTimestamp());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Rebuild a live order book. Listeners are not attached, so callers add theirs afterwards
+     * and no events are published for the restored orders.
+     */
+    public static ConcurrentOrderBook decode(String marketTicker, byte[] data) {
+        ConcurrentOrderBook orderBook = new ConcurrentOrderBook(marketTicker);
+        if (data.length == 0) {
+            return orderBook;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String orderId = in.readUTF();
+                String userId = in.readUTF();
+                KalshiSide side = in.readBoolean() ? KalshiSide.yes : KalshiSide.no;
+                String action = in.readBoolean() ? "buy" : "sell";
+                int price = in.readByte();
+                int quantity = in.readInt();
+                long timestamp = in.readLong();
+                orderBook.addOrder(new OrderBookEntry(orderId, userId, side, action, price, quantity, timestamp));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // The book was demoted with its deltas already published, so start tracking from here
+        orderBook.calculateDeltas();
+        return orderBook;
+    }
+}
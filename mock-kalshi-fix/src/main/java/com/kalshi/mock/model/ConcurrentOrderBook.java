@@ -10,7 +10,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -21,6 +23,9 @@ import java.util.stream.Collectors;
  * - Maintains FIFO order priority at each price level
  * - Detects both self-crosses and external crosses
  * - Thread-safe using concurrent collections and read/write locks
+ * - Versioned: every change bumps a per-book version that snapshots report
+ * - Published deltas are numbered per book, and a delta stream snapshot reports the levels as of
+ *   a delta number, so a subscriber can tell which deltas a snapshot already contains
  */
 @Slf4j
 public class ConcurrentOrderBook {
@@ -41,6 +46,10 @@ public class ConcurrentOrderBook {
     // Lock for complex operations
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     
+    // Execution listeners update stored orders; this keeps them in turn per book without the
+    // write lock, so snapshot readers never wait on the database
+    private final ReentrantLock executionNotifyLock = new ReentrantLock();
+    
     // Listeners for order book events
     private final List<OrderBookListener> listeners = new CopyOnWriteArrayList<>();
     
@@ -48,6 +57,16 @@ public class ConcurrentOrderBook {
     private Map<Integer, Integer> previousYesLevels = new HashMap<>();
     private Map<Integer, Integer> previousNoLevels = new HashMap<>();
     
+    // Number of the last delta calculateDeltas handed out; the previous levels are as of it.
+    // Both change together under the write lock.
+    private long deltaSequence;
+    
+    // Last order, cancel or execution; used to demote idle books to their compact form
+    private volatile long lastActivityTime = System.currentTimeMillis();
+    
+    // Bumped under the write lock on every change to resting orders
+    private volatile long version;
+    
     public ConcurrentOrderBook(String marketTicker) {
         this.marketTicker = marketTicker;
     }
@@ -79,6 +98,8 @@ public class ConcurrentOrderBook {
             
             priceLevel.offer(order);
             orderMap.put(order.getOrderId(), order);
+            version++;
+            lastActivityTime = System.currentTimeMillis();
             
             notifyListeners(listener -> listener.onOrderAdded(marketTicker, order));
             return true;
@@ -97,6 +118,8 @@ public class ConcurrentOrderBook {
             if (order == null) {
                 return false;
             }
+            lastActivityTime = System.currentTimeMillis();
+            version++;
             
             // Remove from price level
             ConcurrentSkipListMap<Integer, Queue<OrderBookEntry>> book = 
@@ -150,6 +173,32 @@ public class ConcurrentOrderBook {
         }
     }
     
+    /**
+     * Resting quantity an incoming order at limitPrice could trade against, counted up to needed.
+     * Used to decide a fill-or-kill order before matching, under the same write lock.
+     */
+    public int quantityAvailable(boolean incomingIsBuy, int limitPrice, int needed) {
+        lock.readLock().lock();
+        try {
+            // Asks ascend and bids descend, so the head map holds the levels at or better than the limit
+            Map<Integer, Queue<OrderBookEntry>> levels = incomingIsBuy
+                ? asks.headMap(limitPrice, true)
+                : bids.headMap(limitPrice, true);
+            int available = 0;
+            for (Queue<OrderBookEntry> level : levels.values()) {
+                for (OrderBookEntry order : level) {
+                    available += order.getQuantity();
+                    if (available >= needed) {
+                        return available;
+                    }
+                }
+            }
+            return available;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
     /**
      * Remove a filled order from the order map
      */
@@ -172,10 +221,91 @@ public class ConcurrentOrderBook {
     }
     
     /**
-     * Notify listeners of order execution
+     * Record an execution against a resting order; called inside modify() while matching
+     */
+    public void recordOrderExecuted() {
+        lastActivityTime = System.currentTimeMillis();
+        version++;
+    }
+    
+    /**
+     * Notify listeners of order execution. Called after the match has released the write lock;
+     * notifications for this book still run one at a time.
      */
     public void notifyOrderExecuted(OrderBookEntry order, int executedQuantity) {
-        notifyListeners(listener -> listener.onOrderExecuted(marketTicker, order, executedQuantity));
+        executionNotifyLock.lock();
+        try {
+            notifyListeners(listener -> listener.onOrderExecuted(marketTicker, order, executedQuantity));
+        } finally {
+            executionNotifyLock.unlock();
+        }
+    }
+    
+    /**
+     * Mark the book as in use without changing it, e.g. when a subscriber attaches
+     */
+    public void touch() {
+        lastActivityTime = System.currentTimeMillis();
+    }
+    
+    public long getLastActivityTime() {
+        return lastActivityTime;
+    }
+    
+    /**
+     * Run a multi-step change, such as matching an incoming order, with the book write-locked
+     * so that snapshots see it either fully applied or not at all
+     */
+    public <T> T modify(Supplier<T> change) {
+        lock.writeLock().lock();
+        try {
+            return change.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Carry the version over when a book is rebuilt from its compact form, so it never goes backwards
+     */
+    public void restoreVersion(long version) {
+        lock.writeLock().lock();
+        try {
+            this.version = Math.max(this.version, version);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * All resting orders with quantity left: bids then asks, each price level in FIFO order
+     */
+    public List<OrderBookEntry> getRestingOrders() {
+        lock.readLock().lock();
+        try {
+            List<OrderBookEntry> orders = new ArrayList<>(orderMap.size());
+            for (Queue<OrderBookEntry> level : bids.values()) {
+                for (OrderBookEntry order : level) {
+                    if (order.getQuantity() > 0) {
+                        orders.add(order);
+                    }
+                }
+            }
+            for (Queue<OrderBookEntry> level : asks.values()) {
+                for (OrderBookEntry order : level) {
+                    if (order.getQuantity() > 0) {
+                        orders.add(order);
+                    }
+                }
+            }
+            return orders;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     /**
@@ -222,66 +352,115 @@ public class ConcurrentOrderBook {
     public OrderbookResponse.OrderbookData getOrderbookSnapshotKalshiFormat(int depth) {
         lock.readLock().lock();
         try {
-            List<List<Integer>> yesSide = new ArrayList<>();
-            List<List<Integer>> noSide = new ArrayList<>();
-            
-            // In buy-only architecture, we need to separate Buy YES and Buy NO orders
-            // Both are stored in the order book, but we need to identify them correctly
-            
-            // Process Buy YES orders (these appear in bids)
-            Map<Integer, Integer> yesLevels = new TreeMap<>(Comparator.reverseOrder()); // YES: descending
-            Map<Integer, Integer> noLevels = new TreeMap<>(); // NO: ascending (natural order)
-            
-            // Check bids for Buy YES orders
-            for (Map.Entry<Integer, Queue<OrderBookEntry>> level : bids.entrySet()) {
-                for (OrderBookEntry order : level.getValue()) {
-                    if (order.getSide() == KalshiSide.yes && order.getAction().equals("buy")) {
-                        yesLevels.merge(order.getPrice(), order.getQuantity(), Integer::sum);
-                    }
-                }
+            return buildKalshiFormat(depth);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Kalshi format snapshot together with the version of the book it was taken from
+     */
+    public VersionedOrderbook getVersionedSnapshotKalshiFormat(int depth) {
+        lock.readLock().lock();
+        try {
+            return new VersionedOrderbook(version, buildKalshiFormat(depth));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Best bid and ask in YES terms with the quantity resting at each. Buy NO orders count
+     * toward the ask and sell NO orders toward the bid, at their normalized prices.
+     */
+    public TopOfBook getTopOfBook() {
+        lock.readLock().lock();
+        try {
+            Map.Entry<Integer, Integer> bid = firstLiveLevel(bids);
+            Map.Entry<Integer, Integer> ask = firstLiveLevel(asks);
+            return new TopOfBook(
+                bid != null ? bid.getKey() : null, bid != null ? bid.getValue() : 0,
+                ask != null ? ask.getKey() : null, ask != null ? ask.getValue() : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Price and total quantity of the best level with any quantity left; filled orders
+    // can rest at zero until removeZeroQuantityOrders runs
+    private static Map.Entry<Integer, Integer> firstLiveLevel(ConcurrentSkipListMap<Integer, Queue<OrderBookEntry>> side) {
+        for (Map.Entry<Integer, Queue<OrderBookEntry>> level : side.entrySet()) {
+            int quantity = 0;
+            for (OrderBookEntry order : level.getValue()) {
+                quantity += order.getQuantity();
             }
-            
-            // Check asks for Buy NO orders (they appear as Sell YES after normalization)
-            for (Map.Entry<Integer, Queue<OrderBookEntry>> level : asks.entrySet()) {
-                for (OrderBookEntry order : level.getValue()) {
-                    if (order.getSide() == KalshiSide.no && order.getAction().equals("buy")) {
-                        // This is a Buy NO order at its original price
-                        noLevels.merge(order.getPrice(), order.getQuantity(), Integer::sum);
-                    }
-                }
+            if (quantity > 0) {
+                return Map.entry(level.getKey(), quantity);
             }
-            
-            // Also check bids for Sell NO orders (they were converted to Buy YES)
-            for (Map.Entry<Integer, Queue<OrderBookEntry>> level : bids.entrySet()) {
-                for (OrderBookEntry order : level.getValue()) {
-                    if (order.getSide() == KalshiSide.no && order.getAction().equals("sell")) {
-                        // This was originally Sell NO @ X, converted to Buy YES @ (100-X)
-                        // It should appear as Buy YES at the normalized price
-                        yesLevels.merge(order.getNormalizedPrice(), order.getQuantity(), Integer::sum);
-                    }
+        }
+        return null;
+    }
+    
+    // Caller holds the read or write lock
+    private OrderbookResponse.OrderbookData buildKalshiFormat(int depth) {
+        List<List<Integer>> yesSide = new ArrayList<>();
+        List<List<Integer>> noSide = new ArrayList<>();
+        
+        // In buy-only architecture, we need to separate Buy YES and Buy NO orders
+        // Both are stored in the order book, but we need to identify them correctly
+        
+        // Process Buy YES orders (these appear in bids)
+        Map<Integer, Integer> yesLevels = new TreeMap<>(Comparator.reverseOrder()); // YES: descending
+        Map<Integer, Integer> noLevels = new TreeMap<>(); // NO: ascending (natural order)
+        
+        // Check bids for Buy YES orders
+        for (Map.Entry<Integer, Queue<OrderBookEntry>> level : bids.entrySet()) {
+            for (OrderBookEntry order : level.getValue()) {
+                if (order.getSide() == KalshiSide.yes && order.getAction().equals("buy")) {
+                    yesLevels.merge(order.getPrice(), order.getQuantity(), Integer::sum);
                 }
             }
-            
-            // Build YES side (up to depth)
-            int count = 0;
-            for (Map.Entry<Integer, Integer> entry : yesLevels.entrySet()) {
-                if (count >= depth) break;
-                yesSide.add(Arrays.asList(entry.getKey(), entry.getValue()));
-                count++;
+        }
+        
+        // Check asks for Buy NO orders (they appear as Sell YES after normalization)
+        for (Map.Entry<Integer, Queue<OrderBookEntry>> level : asks.entrySet()) {
+            for (OrderBookEntry order : level.getValue()) {
+                if (order.getSide() == KalshiSide.no && order.getAction().equals("buy")) {
+                    // This is a Buy NO order at its original price
+                    noLevels.merge(order.getPrice(), order.getQuantity(), Integer::sum);
+                }
             }
-            
-            // Build NO side (up to depth)
-            count = 0;
-            for (Map.Entry<Integer, Integer> entry : noLevels.entrySet()) {
-                if (count >= depth) break;
-                noSide.add(Arrays.asList(entry.getKey(), entry.getValue()));
-                count++;
+        }
+        
+        // Also check bids for Sell NO orders (they were converted to Buy YES)
+        for (Map.Entry<Integer, Queue<OrderBookEntry>> level : bids.entrySet()) {
+            for (OrderBookEntry order : level.getValue()) {
+                if (order.getSide() == KalshiSide.no && order.getAction().equals("sell")) {
+                    // This was originally Sell NO @ X, converted to Buy YES @ (100-X)
+                    // It should appear as Buy YES at the normalized price
+                    yesLevels.merge(order.getNormalizedPrice(), order.getQuantity(), Integer::sum);
+                }
             }
-            
-            return new OrderbookResponse.OrderbookData(yesSide, noSide);
-        } finally {
-            lock.readLock().unlock();
         }
+        
+        // Build YES side (up to depth)
+        int count = 0;
+        for (Map.Entry<Integer, Integer> entry : yesLevels.entrySet()) {
+            if (count >= depth) break;
+            yesSide.add(Arrays.asList(entry.getKey(), entry.getValue()));
+            count++;
+        }
+        
+        // Build NO side (up to depth)
+        count = 0;
+        for (Map.Entry<Integer, Integer> entry : noLevels.entrySet()) {
+            if (count >= depth) break;
+            noSide.add(Arrays.asList(entry.getKey(), entry.getValue()));
+            count++;
+        }
+        
+        return new OrderbookResponse.OrderbookData(yesSide, noSide);
     }
     
     /**
@@ -389,7 +568,7 @@ public class ConcurrentOrderBook {
         for (OrderBookListener listener : listeners) {
             try {
                 action.accept(listener);
-                log.info("Notified listener "+listener+" of order book event for market "+marketTicker+" (thread "+Thread.currentThread().getName()+")");
+                log.debug("Notified listener {} of order book event for market {}", listener, marketTicker);
             } catch (Exception e) {
                 log.info("Listener notify failed; maybe it is gone? "+e.getMessage());
                 // Log error but don't let one listener break others
@@ -441,6 +620,7 @@ public class ConcurrentOrderBook {
             
             // Also clean up the orderMap
             orderMap.entrySet().removeIf(entry -> entry.getValue().getQuantity() == 0);
+            version++;
         } finally {
             lock.writeLock().unlock();
         }
@@ -448,43 +628,17 @@ public class ConcurrentOrderBook {
 
     /**
      * Calculate deltas between current and previous order book state
-     * Returns a list of price level changes
+     * Returns a list of price level changes, each numbered with the next delta sequence
      */
     public List<PriceLevelDelta> calculateDeltas() {
-        lock.readLock().lock();
+        // Write lock: the previous levels and the delta sequence move on together
+        lock.writeLock().lock();
         try {
             List<PriceLevelDelta> deltas = new ArrayList<>();
             
             // Get current state
-            Map<Integer, Integer> currentYesLevels = new TreeMap<>(Comparator.reverseOrder());
-            Map<Integer, Integer> currentNoLevels = new TreeMap<>(Comparator.reverseOrder());
-            
-            // Build current levels based on normalized order book structure
-            // All orders in bids are Buy orders (either Buy YES or converted Sell NO)
-            for (Map.Entry<Integer, Queue<OrderBookEntry>> level : bids.entrySet()) {
-                int totalQuantity = 0;
-                for (OrderBookEntry order : level.getValue()) {
-                    totalQuantity += order.getQuantity();
-                }
-                if (totalQuantity > 0) {
-                    // In our normalized format, bids represent Buy YES orders
-                    currentYesLevels.put(level.getKey(), totalQuantity);
-                }
-            }
-            
-            // All orders in asks are Sell orders (either Sell YES or converted Buy NO)
-            // But in Kalshi format, we show these as Buy NO orders
-            for (Map.Entry<Integer, Queue<OrderBookEntry>> level : asks.entrySet()) {
-                int totalQuantity = 0;
-                for (OrderBookEntry order : level.getValue()) {
-                    totalQuantity += order.getQuantity();
-                }
-                if (totalQuantity > 0) {
-                    // Convert normalized Sell YES price to Buy NO price for display
-                    int noPrice = 100 - level.getKey();
-                    currentNoLevels.put(noPrice, totalQuantity);
-                }
-            }
+            Map<Integer, Integer> currentYesLevels = currentYesLevels();
+            Map<Integer, Integer> currentNoLevels = currentNoLevels();
             
             log.debug("calculateDeltas for {}: current state - YES levels: {}, NO levels: {}", 
                      marketTicker, currentYesLevels, currentNoLevels);
@@ -501,7 +655,7 @@ public class ConcurrentOrderBook {
                 int previousQty = previousYesLevels.getOrDefault(price, 0);
                 
                 if (currentQty != previousQty) {
-                    deltas.add(new PriceLevelDelta(price, currentQty - previousQty, "yes"));
+                    deltas.add(new PriceLevelDelta(price, currentQty - previousQty, "yes", ++deltaSequence));
                     log.debug("YES delta at price {}: {} -> {} (delta: {})", 
                              price, previousQty, currentQty, currentQty - previousQty);
                 }
@@ -517,7 +671,7 @@ public class ConcurrentOrderBook {
                 int previousQty = previousNoLevels.getOrDefault(price, 0);
                 
                 if (currentQty != previousQty) {
-                    deltas.add(new PriceLevelDelta(price, currentQty - previousQty, "no"));
+                    deltas.add(new PriceLevelDelta(price, currentQty - previousQty, "no", ++deltaSequence));
                     log.debug("NO delta at price {}: {} -> {} (delta: {})", 
                              price, previousQty, currentQty, currentQty - previousQty);
                 }
@@ -527,28 +681,89 @@ public class ConcurrentOrderBook {
             previousYesLevels = currentYesLevels;
             previousNoLevels = currentNoLevels;
             
-            log.info("ConcurrentOrderBook.calculateDeltas for {}: currentYes={} levels, currentNo={} levels, deltas={}", 
+            log.debug("ConcurrentOrderBook.calculateDeltas for {}: currentYes={} levels, currentNo={} levels, deltas={}", 
                      marketTicker, currentYesLevels.size(), currentNoLevels.size(), deltas.size());
             
             return deltas;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * The levels the published deltas add up to, with the number of the last of them. Read under
+     * the lock calculateDeltas takes, so a subscriber applying this snapshot and then the deltas
+     * numbered after it ends up with the book exactly.
+     */
+    public DeltaStreamSnapshot getDeltaStreamSnapshot() {
+        lock.readLock().lock();
+        try {
+            List<List<Integer>> yesSide = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> level : new TreeMap<>(previousYesLevels).descendingMap().entrySet()) {
+                yesSide.add(Arrays.asList(level.getKey(), level.getValue()));
+            }
+            List<List<Integer>> noSide = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> level : new TreeMap<>(previousNoLevels).entrySet()) {
+                noSide.add(Arrays.asList(level.getKey(), level.getValue()));
+            }
+            return new DeltaStreamSnapshot(deltaSequence, new OrderbookResponse.OrderbookData(yesSide, noSide));
         } finally {
             lock.readLock().unlock();
         }
     }
     
+    public long getDeltaSequence() {
+        return deltaSequence;
+    }
+    
     /**
-     * Reset delta tracking state
+     * Carry the delta sequence over when a book is rebuilt from its compact form. The book was
+     * idle, so its deltas were all published and the stream continues from the current levels.
      */
-    public void resetDeltaTracking() {
+    public void restoreDeltaSequence(long sequence) {
         lock.writeLock().lock();
         try {
-            previousYesLevels.clear();
-            previousNoLevels.clear();
+            deltaSequence = sequence;
+            previousYesLevels = currentYesLevels();
+            previousNoLevels = currentNoLevels();
         } finally {
             lock.writeLock().unlock();
         }
     }
     
+    // Caller holds the lock. All orders in bids are Buy orders (either Buy YES or converted Sell NO)
+    private Map<Integer, Integer> currentYesLevels() {
+        Map<Integer, Integer> levels = new TreeMap<>(Comparator.reverseOrder());
+        for (Map.Entry<Integer, Queue<OrderBookEntry>> level : bids.entrySet()) {
+            int totalQuantity = 0;
+            for (OrderBookEntry order : level.getValue()) {
+                totalQuantity += order.getQuantity();
+            }
+            if (totalQuantity > 0) {
+                // In our normalized format, bids represent Buy YES orders
+                levels.put(level.getKey(), totalQuantity);
+            }
+        }
+        return levels;
+    }
+    
+    // Caller holds the lock. All orders in asks are Sell orders (either Sell YES or converted Buy NO),
+    // shown in Kalshi format as Buy NO orders
+    private Map<Integer, Integer> currentNoLevels() {
+        Map<Integer, Integer> levels = new TreeMap<>(Comparator.reverseOrder());
+        for (Map.Entry<Integer, Queue<OrderBookEntry>> level : asks.entrySet()) {
+            int totalQuantity = 0;
+            for (OrderBookEntry order : level.getValue()) {
+                totalQuantity += order.getQuantity();
+            }
+            if (totalQuantity > 0) {
+                // Convert normalized Sell YES price to Buy NO price for display
+                levels.put(100 - level.getKey(), totalQuantity);
+            }
+        }
+        return levels;
+    }
+    
     /**
      * Price level delta data
      */
@@ -556,16 +771,73 @@ public class ConcurrentOrderBook {
         private final int price;
         private final int delta;
         private final String side;
+        private final long sequence;
         
-        public PriceLevelDelta(int price, int delta, String side) {
+        public PriceLevelDelta(int price, int delta, String side, long sequence) {
             this.price = price;
             this.delta = delta;
             this.side = side;
+            this.sequence = sequence;
         }
         
         public int getPrice() { return price; }
         public int getDelta() { return delta; }
         public String getSide() { return side; }
+        public long getSequence() { return sequence; }
+    }
+    
+    /**
+     * Levels in Kalshi format as of a delta number: deltas up to it are included
+     */
+    public static class DeltaStreamSnapshot {
+        private final long sequence;
+        private final OrderbookResponse.OrderbookData orderbook;
+        
+        public DeltaStreamSnapshot(long sequence, OrderbookResponse.OrderbookData orderbook) {
+            this.sequence = sequence;
+            this.orderbook = orderbook;
+        }
+        
+        public long getSequence() { return sequence; }
+        public OrderbookResponse.OrderbookData getOrderbook() { return orderbook; }
+    }
+
+    /**
+     * A Kalshi format snapshot and the book version it reflects
+     */
+    public static class VersionedOrderbook {
+        private final long version;
+        private final OrderbookResponse.OrderbookData orderbook;
+        
+        public VersionedOrderbook(long version, OrderbookResponse.OrderbookData orderbook) {
+            this.version = version;
+            this.orderbook = orderbook;
+        }
+        
+        public long getVersion() { return version; }
+        public OrderbookResponse.OrderbookData getOrderbook() { return orderbook; }
+    }
+
+    /**
+     * Best YES bid and ask; a null price and zero quantity mark an empty side
+     */
+    public static class TopOfBook {
+        private final Integer bid;
+        private final int bidQuantity;
+        private final Integer ask;
+        private final int askQuantity;
+        
+        public TopOfBook(Integer bid, int bidQuantity, Integer ask, int askQuantity) {
+            this.bid = bid;
+            this.bidQuantity = bidQuantity;
+            this.ask = ask;
+            this.askQuantity = askQuantity;
+        }
+        
+        public Integer getBid() { return bid; }
+        public int getBidQuantity() { return bidQuantity; }
+        public Integer getAsk() { return ask; }
+        public int getAskQuantity() { return askQuantity; }
     }
 
     public interface OrderBookListener {
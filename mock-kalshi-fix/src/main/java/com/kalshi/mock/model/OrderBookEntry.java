@@ -82,7 +82,7 @@ public class OrderBookEntry {
         }
 
         int newQty = quantity - amount;
-        log.info("Reducing quantity for order " + orderId + " by " + amount + " to " + newQty+", due to execution.");
+        log.debug("Reducing quantity for order {} by {} to {}, due to execution.", orderId, amount, newQty);
 
         this.quantity = newQty;
     }
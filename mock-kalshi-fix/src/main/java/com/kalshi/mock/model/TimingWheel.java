@@ -0,0 +1,199 @@
+package com.kalshi.mock.model;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Hierarchical timing wheel for keyed deadlines.
+ *
+ * Key features:
+ * - Level 0 has one slot per tick; each higher level's slot spans a whole lower wheel
+ * - Scheduling and cancelling are O(1); advancing costs one slot visit per tick
+ * - Entries cascade down a level when their higher-level slot comes due
+ * - Deadlines beyond the top level wait in an overflow queue until they fit
+ * - A deadline fires on the first tick at or after it, never early
+ *
+ * Not thread-safe on its own; callers serialize access.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+
+    // levels[i][slot] holds entries keyed by their key; level i slot spans wheelSize^i ticks
+    private final List<List<Map<String, Entry<T>>>> levels = new ArrayList<>();
+    private final long[] ticksPerSlot;
+
+    private final PriorityQueue<Entry<T>> overflow =
+        new PriorityQueue<>(Comparator.comparingLong((Entry<T> e) -> e.deadlineTick));
+    private final Map<String, Entry<T>> entries = new HashMap<>();
+
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int wheelSize, int levelCount, long startTimeMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions: tick=" + tickMillis
+                + "ms, size=" + wheelSize + ", levels=" + levelCount);
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.ticksPerSlot = new long[levelCount];
+        long span = 1;
+        for (int i = 0; i < levelCount; i++) {
+            ticksPerSlot[i] = span;
+            List<Map<String, Entry<T>>> slots = new ArrayList<>(wheelSize);
+            for (int s = 0; s < wheelSize; s++) {
+                slots.add(new LinkedHashMap<>());
+            }
+            levels.add(slots);
+            span *= wheelSize;
+        }
+        this.currentTick = startTimeMillis / tickMillis;
+    }
+
+    /**
+     * Schedule a value under a key, replacing any earlier deadline for that key.
+     *
+     * @return false if the deadline is already due; nothing is scheduled and the caller should act now
+     */
+    public boolean schedule(String key, long deadlineMillis, T value) {
+        cancel(key);
+        // Round up so the entry never fires before its deadline
+        long deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        if (deadlineTick <= currentTick) {
+            return false;
+        }
+        Entry<T> entry = new Entry<>(key, deadlineMillis, deadlineTick, value);
+        entries.put(key, entry);
+        place(entry);
+        return true;
+    }
+
+    /**
+     * Remove a scheduled key
+     *
+     * @return the value that was scheduled, or null
+     */
+    public T cancel(String key) {
+        Entry<T> entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.level >= 0) {
+            levels.get(entry.level).get(entry.slot).remove(key);
+        } else {
+            overflow.remove(entry);
+        }
+        return entry.value;
+    }
+
+    /**
+     * Advance the wheel to the given time, passing every entry that came due to the handler
+     * in deadline-tick order together with its original deadline
+     */
+    public void advanceTo(long nowMillis, BiConsumer<T, Long> handler) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            // Cascade from the top so entries can fall through several levels in one tick
+            for (int i = levels.size() - 1; i >= 1; i--) {
+                if (currentTick % ticksPerSlot[i] == 0) {
+                    cascade(i, (int) ((currentTick / ticksPerSlot[i]) % wheelSize), handler);
+                }
+            }
+            if (!overflow.isEmpty()) {
+                drainOverflow(handler);
+            }
+
+            Map<String, Entry<T>> due = levels.get(0).get((int) (currentTick % wheelSize));
+            if (!due.isEmpty()) {
+                List<Entry<T>> fired = new ArrayList<>(due.values());
+                due.clear();
+                for (Entry<T> entry : fired) {
+                    entries.remove(entry.key);
+                    handler.accept(entry.value, entry.deadlineMillis);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    public long getCurrentTimeMillis() {
+        return currentTick * tickMillis;
+    }
+
+    private void cascade(int level, int slot, BiConsumer<T, Long> handler) {
+        Map<String, Entry<T>> bucket = levels.get(level).get(slot);
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Entry<T>> moved = new ArrayList<>(bucket.values());
+        bucket.clear();
+        for (Entry<T> entry : moved) {
+            reinsert(entry, handler);
+        }
+    }
+
+    private void drainOverflow(BiConsumer<T, Long> handler) {
+        int top = levels.size() - 1;
+        while (!overflow.isEmpty()) {
+            Entry<T> entry = overflow.peek();
+            if (entry.deadlineTick / ticksPerSlot[top] - currentTick / ticksPerSlot[top] >= wheelSize) {
+                return;
+            }
+            overflow.poll();
+            reinsert(entry, handler);
+        }
+    }
+
+    private void reinsert(Entry<T> entry, BiConsumer<T, Long> handler) {
+        if (entry.deadlineTick <= currentTick) {
+            entries.remove(entry.key);
+            handler.accept(entry.value, entry.deadlineMillis);
+        } else {
+            place(entry);
+        }
+    }
+
+    /**
+     * Put an entry in the lowest level whose wheel still reaches its deadline
+     */
+    private void place(Entry<T> entry) {
+        for (int i = 0; i < levels.size(); i++) {
+            long deadlineSlot = entry.deadlineTick / ticksPerSlot[i];
+            if (deadlineSlot - currentTick / ticksPerSlot[i] < wheelSize) {
+                int slot = (int) (deadlineSlot % wheelSize);
+                entry.level = i;
+                entry.slot = slot;
+                levels.get(i).get(slot).put(entry.key, entry);
+                return;
+            }
+        }
+        entry.level = -1;
+        overflow.add(entry);
+    }
+
+    private static class Entry<T> {
+        private final String key;
+        private final long deadlineMillis;
+        private final long deadlineTick;
+        private final T value;
+        private int level;
+        private int slot;
+
+        private Entry(String key, long deadlineMillis, long deadlineTick, T value) {
+            this.key = key;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+            this.value = value;
+        }
+    }
+}
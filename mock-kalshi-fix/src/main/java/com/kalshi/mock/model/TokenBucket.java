@@ -0,0 +1,67 @@
+package com.kalshi.mock.model;
+
+/**
+ * Token bucket rate limiter.
+ *
+ * Key features:
+ * - Holds up to capacity tokens and refills continuously at a fixed rate
+ * - A request takes several tokens at once or none at all
+ * - A refused request reports how long until enough tokens will have accumulated
+ * - Time is passed in by the caller, so behaviour is deterministic under test
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerMilli;
+
+    private double tokens;
+    private long lastRefillMillis;
+
+    public TokenBucket(double capacity, double tokensPerSecond, long nowMillis) {
+        if (capacity < 1 || tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid token bucket: capacity=" + capacity
+                + ", rate=" + tokensPerSecond + "/s");
+        }
+        this.capacity = capacity;
+        this.tokensPerMilli = tokensPerSecond / 1000.0;
+        this.tokens = capacity;
+        this.lastRefillMillis = nowMillis;
+    }
+
+    /**
+     * Take the given number of tokens if they are available
+     *
+     * @return 0 if the tokens were taken, otherwise the milliseconds until they would be available
+     */
+    public synchronized long tryAcquire(int count, long nowMillis) {
+        refill(nowMillis);
+        if (tokens >= count) {
+            tokens -= count;
+            return 0;
+        }
+        if (count > capacity) {
+            // Can never be satisfied; report the time for a full bucket
+            return (long) Math.ceil(capacity / tokensPerMilli);
+        }
+        return Math.max(1, (long) Math.ceil((count - tokens) / tokensPerMilli));
+    }
+
+    /**
+     * Return tokens taken by a request that was refused further along
+     */
+    public synchronized void release(int count) {
+        tokens = Math.min(capacity, tokens + count);
+    }
+
+    public synchronized double getAvailableTokens(long nowMillis) {
+        refill(nowMillis);
+        return tokens;
+    }
+
+    private void refill(long nowMillis) {
+        if (nowMillis > lastRefillMillis) {
+            tokens = Math.min(capacity, tokens + (nowMillis - lastRefillMillis) * tokensPerMilli);
+            lastRefillMillis = nowMillis;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.kalshi.mock.model;
+
+import com.fbg.api.rest.Trade;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded ring buffer holding the most recent public trades for one market.
+ *
+ * Key features:
+ * - Filled directly by the matching path, oldest trade is overwritten when full
+ * - Kept sorted by (created_time, trade_id) so time lookups are a binary search
+ * - Keyset pagination newest-first, the same ordering the trades table uses
+ * - Tracks how far back it is complete so callers know when to go to the database
+ */
+public class TradeTape {
+    private final String marketTicker;
+    private final Trade[] buffer;
+
+    // Index of the oldest retained trade and number of retained trades
+    private int start;
+    private int size;
+
+    // The tape holds every trade with created_time > completeAfter
+    private long completeAfter;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public TradeTape(String marketTicker, int capacity, long completeAfter) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Trade tape capacity must be positive, got: " + capacity);
+        }
+        this.marketTicker = marketTicker;
+        this.buffer = new Trade[capacity];
+        this.completeAfter = completeAfter;
+    }
+
+    /**
+     * Append a trade, evicting the oldest one if the tape is full.
+     * Trades from concurrent order threads can arrive slightly out of order,
+     * so the new trade is shifted back into (created_time, trade_id) position.
+     */
+    public void append(Trade trade) {
+        lock.writeLock().lock();
+        try {
+            if (size == buffer.length) {
+                Trade evicted = buffer[start];
+                completeAfter = Math.max(completeAfter, evicted.getCreated_time());
+                buffer[start] = null;
+                start = (start + 1) % buffer.length;
+                size--;
+            }
+
+            int i = size;
+            while (i > 0 && compare(at(i - 1), trade.getCreated_time(), trade.getTrade_id()) > 0) {
+                buffer[slot(i)] = at(i - 1);
+                i--;
+            }
+            buffer[slot(i)] = trade;
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Query trades newest-first.
+     *
+     * @param minTs       inclusive lower bound on created_time, or null
+     * @param maxTs       inclusive upper bound on created_time, or null
+     * @param afterTime   keyset cursor: only trades strictly older than (afterTime, afterTradeId), or null
+     * @param afterTradeId trade id half of the keyset cursor
+     * @param limit       maximum trades to return
+     */
+    public Page query(Long minTs, Long maxTs, Long afterTime, String afterTradeId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Trade> trades = new ArrayList<>(Math.min(limit, size));
+
+            // Start from the newest trade at or below the upper time bound
+            long upper = Long.MAX_VALUE;
+            if (maxTs != null) upper = maxTs;
+            if (afterTime != null) upper = Math.min(upper, afterTime);
+            int i = lastIndexAtOrBefore(upper);
+
+            // Skip trades at the cursor timestamp that are not strictly older than the cursor
+            if (afterTime != null) {
+                while (i >= 0 && compare(at(i), afterTime, afterTradeId) >= 0) {
+                    i--;
+                }
+            }
+
+            boolean reachedMinTs = false;
+            for (; i >= 0 && trades.size() < limit; i--) {
+                Trade trade = at(i);
+                if (minTs != null && trade.getCreated_time() < minTs) {
+                    reachedMinTs = true;
+                    break;
+                }
+                trades.add(trade);
+            }
+
+            // Exhausted means the walk ran off the oldest retained trade,
+            // so anything older can only be found in the database
+            boolean exhausted = i < 0 && !reachedMinTs && trades.size() < limit;
+            Trade oldest = size > 0 ? at(0) : null;
+            return new Page(trades, exhausted, completeAfter, oldest);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copy of all retained trades, newest first
+     */
+    public List<Trade> snapshot() {
+        lock.readLock().lock();
+        try {
+            List<Trade> trades = new ArrayList<>(size);
+            for (int i = size - 1; i >= 0; i--) {
+                trades.add(at(i));
+            }
+            return trades;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getMarketTicker() {
+        return marketTicker;
+    }
+
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getCompleteAfter() {
+        lock.readLock().lock();
+        try {
+            return completeAfter;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Binary search for the newest retained trade with created_time <= ts, -1 if none
+     */
+    private int lastIndexAtOrBefore(long ts) {
+        int lo = 0;
+        int hi = size - 1;
+        int result = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (at(mid).getCreated_time() <= ts) {
+                result = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    private Trade at(int logicalIndex) {
+        return buffer[slot(logicalIndex)];
+    }
+
+    private int slot(int logicalIndex) {
+        return (start + logicalIndex) % buffer.length;
+    }
+
+    private static int compare(Trade trade, long createdTime, String tradeId) {
+        int byTime = Long.compare(trade.getCreated_time(), createdTime);
+        if (byTime != 0 || tradeId == null) {
+            return byTime;
+        }
+        return trade.getTrade_id().compareTo(tradeId);
+    }
+
+    /**
+     * Result of a tape query
+     */
+    public static class Page {
+        private final List<Trade> trades;
+        private final boolean exhausted;
+        private final long completeAfter;
+        private final Trade oldestRetained;
+
+        public Page(List<Trade> trades, boolean exhausted, long completeAfter, Trade oldestRetained) {
+            this.trades = trades;
+            this.exhausted = exhausted;
+            this.completeAfter = completeAfter;
+            this.oldestRetained = oldestRetained;
+        }
+
+        public List<Trade> getTrades() { return trades; }
+        public boolean isExhausted() { return exhausted; }
+        public long getCompleteAfter() { return completeAfter; }
+        public Trade getOldestRetained() { return oldestRetained; }
+    }
+}
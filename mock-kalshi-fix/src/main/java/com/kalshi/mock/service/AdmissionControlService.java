@@ -0,0 +1,132 @@
+package com.kalshi.mock.service;
+
+import com.kalshi.mock.exception.RateLimitExceededException;
+import com.kalshi.mock.model.TokenBucket;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket admission control for new order entry.
+ *
+ * Key features:
+ * - Every order takes one token from its user's bucket and one from the global bucket
+ * - A batch is admitted or refused as a whole, costing one token per order
+ * - Refusals carry the wait until enough tokens refill, surfaced as 429 with Retry-After
+ * - Cancels are never rate limited here; they only reduce exposure and engine load
+ * - A user's bucket is dropped once it has refilled, since a fresh bucket would start the same
+ * - Admitted and rejected counts are published as order.admission.* metrics
+ */
+@Service
+public class AdmissionControlService implements MeterBinder {
+
+    @Value("${admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${admission.global.rate-per-sec:2000}")
+    private double globalRatePerSecond;
+
+    @Value("${admission.global.burst:4000}")
+    private double globalBurst;
+
+    @Value("${admission.user.rate-per-sec:50}")
+    private double userRatePerSecond;
+
+    @Value("${admission.user.burst:100}")
+    private double userBurst;
+
+    private volatile TokenBucket globalBucket;
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong evictedUsers = new AtomicLong();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejectedUser = new AtomicLong();
+    private final AtomicLong rejectedGlobal = new AtomicLong();
+
+    /**
+     * Admit orders for a user or throw
+     *
+     * @param orderCount number of orders in the request
+     * @throws RateLimitExceededException if the user's or the global budget is exhausted
+     */
+    public void admit(String userId, int orderCount) {
+        if (!enabled || orderCount <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        TokenBucket userBucket = userBuckets.computeIfAbsent(userId,
+            id -> new TokenBucket(userBurst, userRatePerSecond, now));
+        long userWait = userBucket.tryAcquire(orderCount, now);
+        if (userWait > 0) {
+            rejectedUser.addAndGet(orderCount);
+            throw new RateLimitExceededException("Order rate limit exceeded for user " + userId, userWait);
+        }
+
+        long globalWait = globalBucket(now).tryAcquire(orderCount, now);
+        if (globalWait > 0) {
+            // Not the user's fault; give their tokens back
+            userBucket.release(orderCount);
+            rejectedGlobal.addAndGet(orderCount);
+            throw new RateLimitExceededException("Exchange order rate limit exceeded", globalWait);
+        }
+        admitted.addAndGet(orderCount);
+    }
+
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("admitted", admitted.get());
+        stats.put("rejected_user", rejectedUser.get());
+        stats.put("rejected_global", rejectedGlobal.get());
+        stats.put("tracked_users", (long) userBuckets.size());
+        stats.put("evicted_users", evictedUsers.get());
+        return stats;
+    }
+
+    /**
+     * Drop user buckets that are full again. A request racing the sweep may take its tokens from
+     * the dropped bucket, giving that user at most one request's worth of extra burst.
+     */
+    @Scheduled(fixedDelayString = "${admission.user.sweep-interval-ms:60000}")
+    public void evictIdleUsers() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, TokenBucket> entry : userBuckets.entrySet()) {
+            if (entry.getValue().getAvailableTokens(now) >= userBurst && userBuckets.remove(entry.getKey(), entry.getValue())) {
+                evictedUsers.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("order.admission.admitted", admitted, AtomicLong::get).register(registry);
+        FunctionCounter.builder("order.admission.rejected", rejectedUser, AtomicLong::get)
+            .tag("bucket", "user").register(registry);
+        FunctionCounter.builder("order.admission.rejected", rejectedGlobal, AtomicLong::get)
+            .tag("bucket", "global").register(registry);
+        Gauge.builder("order.admission.tracked.users", userBuckets, Map::size).register(registry);
+        FunctionCounter.builder("order.admission.evicted.users", evictedUsers, AtomicLong::get).register(registry);
+    }
+
+    private TokenBucket globalBucket(long now) {
+        TokenBucket bucket = globalBucket;
+        if (bucket == null) {
+            synchronized (this) {
+                if (globalBucket == null) {
+                    globalBucket = new TokenBucket(globalBurst, globalRatePerSecond, now);
+                }
+                bucket = globalBucket;
+            }
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,170 @@
+package com.kalshi.mock.service;
+
+import com.kalshi.mock.catalog.model.Event;
+import com.kalshi.mock.catalog.model.Market;
+import com.kalshi.mock.catalog.service.EventService;
+import com.kalshi.mock.catalog.service.MarketService;
+import com.kalshi.mock.dto.EventOrderbookResponse.EventOrderbook;
+import com.kalshi.mock.dto.EventOrderbookResponse.EventOrderbookDelta;
+import com.kalshi.mock.dto.EventOrderbookResponse.MarketTop;
+import com.kalshi.mock.model.ConcurrentOrderBook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Event-level view of the order books of an event's markets.
+ *
+ * Key features:
+ * - Keeps the best YES bid and ask of every market in an event, plus the implied
+ *   probability sums across them
+ * - One sequence per event, bumped only when some market's top of book actually changes,
+ *   so a 40-market event is one stream instead of 40
+ * - Events are indexed on first request (a subscription or a REST read) and tracked from then on,
+ *   whether or not anyone is subscribed
+ * - Markets added to an indexed event later join it on their first book change
+ */
+@Service
+public class EventBookService {
+
+    @Autowired
+    private OrderBookService orderBookService;
+
+    @Autowired
+    private MarketService marketService;
+
+    @Autowired
+    private EventService eventService;
+
+    // Event ticker -> top of book of each of its markets
+    private final Map<String, EventBook> eventBooks = new ConcurrentHashMap<>();
+
+    private static class EventBook {
+        final String eventTicker;
+        final boolean mutuallyExclusive;
+        // Sorted by market ticker so snapshots list markets in a stable order
+        final Map<String, MarketTop> markets = new TreeMap<>();
+        // Held while reading books and publishing, so deltas leave in sequence order
+        final ReentrantLock lock = new ReentrantLock();
+        boolean loaded;
+        long seq;
+        int yesBidSum;
+        int yesAskSum;
+
+        EventBook(String eventTicker, boolean mutuallyExclusive) {
+            this.eventTicker = eventTicker;
+            this.mutuallyExclusive = mutuallyExclusive;
+        }
+
+        void put(MarketTop top) {
+            MarketTop previous = markets.put(top.getMarketTicker(), top);
+            if (previous != null) {
+                yesBidSum -= bidValue(previous);
+                yesAskSum -= askValue(previous);
+            }
+            yesBidSum += bidValue(top);
+            yesAskSum += askValue(top);
+        }
+
+        EventOrderbook snapshot() {
+            return new EventOrderbook(eventTicker, mutuallyExclusive, seq, yesBidSum, yesAskSum,
+                new ArrayList<>(markets.values()));
+        }
+    }
+
+    /**
+     * Current top of book of every market in the event, indexing the event if it is new.
+     *
+     * @throws IllegalArgumentException if the event does not exist
+     */
+    public EventOrderbook getEventOrderbook(String eventTicker) {
+        EventBook book = index(eventTicker);
+        book.lock.lock();
+        try {
+            return book.snapshot();
+        } finally {
+            book.lock.unlock();
+        }
+    }
+
+    /**
+     * Re-read a market's top of book after its order book changed. If the market belongs to an
+     * indexed event and its best bid or ask moved, the event's sequence is bumped and the delta is
+     * handed to the publisher, under the event's lock so deltas are published in sequence order.
+     */
+    public void refresh(String marketTicker, Consumer<EventOrderbookDelta> publisher) {
+        Market market = marketService.getMarketByTicker(marketTicker);
+        if (market == null || market.getEventTicker() == null) {
+            return;
+        }
+        EventBook book = eventBooks.get(market.getEventTicker());
+        if (book == null) {
+            return;
+        }
+
+        book.lock.lock();
+        try {
+            if (!book.loaded) {
+                return; // the first read picks up this change
+            }
+            MarketTop top = readTop(marketTicker);
+            if (top.sameQuote(book.markets.get(marketTicker))) {
+                return;
+            }
+            book.put(top);
+            book.seq++;
+            publisher.accept(new EventOrderbookDelta(book.eventTicker, book.seq, book.yesBidSum, book.yesAskSum, top));
+        } finally {
+            book.lock.unlock();
+        }
+    }
+
+    private EventBook index(String eventTicker) {
+        EventBook book = eventBooks.get(eventTicker);
+        if (book == null) {
+            Event event = eventService.getEventByTicker(eventTicker, false);
+            if (event == null) {
+                throw new IllegalArgumentException("Event not found: " + eventTicker);
+            }
+            book = eventBooks.computeIfAbsent(eventTicker,
+                ticker -> new EventBook(ticker, Boolean.TRUE.equals(event.getMutuallyExclusive())));
+        }
+
+        // Filled under the lock: a refresh racing with the first read waits and then sees
+        // the loaded book, so no change between the two is lost
+        book.lock.lock();
+        try {
+            if (!book.loaded) {
+                for (Market market : marketService.getMarketsByEvent(eventTicker)) {
+                    book.put(readTop(market.getTicker()));
+                }
+                book.loaded = true;
+            }
+        } finally {
+            book.lock.unlock();
+        }
+        return book;
+    }
+
+    private MarketTop readTop(String marketTicker) {
+        ConcurrentOrderBook.TopOfBook top = orderBookService.getTopOfBook(marketTicker);
+        if (top == null) {
+            return new MarketTop(marketTicker, null, 0, null, 0);
+        }
+        return new MarketTop(marketTicker, top.getBid(), top.getBidQuantity(), top.getAsk(), top.getAskQuantity());
+    }
+
+    private static int bidValue(MarketTop top) {
+        return top.getYesBid() != null ? top.getYesBid() : 0;
+    }
+
+    private static int askValue(MarketTop top) {
+        return top.getYesAsk() != null ? top.getYesAsk() : 100;
+    }
+}
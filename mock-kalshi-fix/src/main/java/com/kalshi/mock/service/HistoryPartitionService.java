@@ -0,0 +1,305 @@
+package com.kalshi.mock.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintains the daily partitions of the fills and trades tables.
+ *
+ * Key features:
+ * - Partitions for today and the next few days (UTC) are created ahead of the inserts that need them
+ * - Partitions older than the retention period are detached, so queries and index maintenance
+ *   only ever touch recent days
+ * - Detached partitions are compacted to gzipped CSV files under the archive directory, then dropped
+ * - A partition detached by a run that failed before archiving is picked up by the next run
+ * - Does nothing on databases where the tables are not partitioned (H2 in tests, or a PostgreSQL
+ *   database created before partitioning)
+ * - Runs on its own thread, so a long archive never holds up the jobs on Spring's shared scheduler
+ */
+@Service
+public class HistoryPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryPartitionService.class);
+
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    // History tables partitioned by day in db/partitioning.sql
+    private static final List<String> TABLES = List.of("fills", "trades");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${history.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${history.partitions.days-ahead:3}")
+    private int daysAhead;
+
+    @Value("${history.partitions.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${history.partitions.archive-dir:data/archive}")
+    private String archiveDir;
+
+    @Value("${history.partitions.archive-fetch-size:5000}")
+    private int archiveFetchSize;
+
+    @Value("${history.partitions.maintenance-interval-ms:3600000}")
+    private long maintenanceIntervalMillis;
+
+    private ScheduledExecutorService maintenanceExecutor;
+
+    // Whether each history table is partitioned; set up with the schema, so checked once
+    private final Map<String, Boolean> partitioned = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "history-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenanceExecutor.scheduleWithFixedDelay(this::runMaintenance, 0, maintenanceIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdownNow();
+        }
+    }
+
+    public void runMaintenance() {
+        try {
+            maintain(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule; the next run retries
+            logger.error("Partition maintenance failed", e);
+        }
+    }
+
+    /**
+     * Create upcoming partitions and retire expired ones for every partitioned history table
+     */
+    void maintain(long nowMillis) {
+        LocalDate today = LocalDate.ofEpochDay(Math.floorDiv(nowMillis, DAY_MILLIS));
+        LocalDate oldestKept = today.minusDays(retentionDays);
+
+        for (String table : TABLES) {
+            if (!isPartitioned(table)) {
+                continue;
+            }
+            try {
+                for (int i = 0; i <= daysAhead; i++) {
+                    createPartition(table, today.plusDays(i));
+                }
+                for (String partition : attachedPartitions(table)) {
+                    LocalDate day = partitionDay(table, partition);
+                    if (day != null && day.isBefore(oldestKept)) {
+                        jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+                        logger.info("Detached partition {} from {}", partition, table);
+                    }
+                }
+                for (String partition : detachedPartitions(table)) {
+                    archivePartition(table, partition);
+                }
+            } catch (DataAccessException | UncheckedIOException e) {
+                logger.error("Partition maintenance failed for {}", table, e);
+            }
+        }
+    }
+
+    /**
+     * Earliest time, in epoch millis, of rows still held in the table. Rows before it have been
+     * archived out, so reads can skip those partitions. 0 when nothing is archived: the table is
+     * not partitioned (H2, or an older PostgreSQL database) or maintenance is disabled.
+     */
+    public long retainedSince(String table) {
+        Boolean isPartitioned = partitioned.get(table);
+        if (isPartitioned == null) {
+            isPartitioned = isPartitioned(table);
+            partitioned.put(table, isPartitioned);
+        }
+        if (!enabled || !isPartitioned) {
+            return 0L;
+        }
+        long today = Math.floorDiv(System.currentTimeMillis(), DAY_MILLIS);
+        return (today - retentionDays) * DAY_MILLIS;
+    }
+
+    /**
+     * True if the table is a PostgreSQL partitioned table; false on any other database
+     */
+    private boolean isPartitioned(String table) {
+        try {
+            Integer count = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM pg_partitioned_table pt
+                JOIN pg_class c ON c.oid = pt.partrelid
+                WHERE c.relname = ?
+            """, Integer.class, table);
+            return count != null && count > 0;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+
+    private void createPartition(String table, LocalDate day) {
+        String partition = partitionName(table, day);
+        long from = day.toEpochDay() * DAY_MILLIS;
+        long to = from + DAY_MILLIS;
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + table
+                + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+        } catch (DataAccessException e) {
+            // Typically rows for this day already sit in the default partition; they stay there
+            logger.warn("Could not create partition {}: {}", partition, e.getMessage());
+        }
+    }
+
+    private List<String> attachedPartitions(String table) {
+        return jdbcTemplate.queryForList("""
+            SELECT c.relname FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = ?
+        """, String.class, table);
+    }
+
+    /**
+     * Daily tables of this history table that are no longer attached, waiting to be archived
+     */
+    private List<String> detachedPartitions(String table) {
+        return jdbcTemplate.queryForList("""
+            SELECT c.relname FROM pg_class c
+            WHERE c.relkind = 'r' AND NOT c.relispartition AND c.relname LIKE ?
+        """, String.class, table + "\\_p%");
+    }
+
+    /**
+     * Write a detached partition to a gzipped CSV file, then drop it.
+     * The file is written under a temporary name and moved into place once complete.
+     */
+    private void archivePartition(String table, String partition) {
+        if (partitionDay(table, partition) == null) {
+            return;
+        }
+        Path dir = Paths.get(archiveDir, table);
+        Path target = dir.resolve(partition + ".csv.gz");
+        Path temp = dir.resolve(partition + ".csv.gz.tmp");
+        try {
+            Files.createDirectories(dir);
+            long rows = exportRows(partition, temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            logger.info("Archived {} rows of {} to {}", rows, partition, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive " + partition, e);
+        }
+    }
+
+    /**
+     * Stream every row of a table into a gzipped CSV file with a header line
+     */
+    long exportRows(String partition, Path file) {
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            // PostgreSQL only honours the fetch size, rather than reading the whole table, inside a transaction
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + partition);
+                 Writer out = new BufferedWriter(new OutputStreamWriter(
+                     new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8))) {
+                statement.setFetchSize(archiveFetchSize);
+                long count = 0;
+                try (ResultSet rs = statement.executeQuery()) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    int columns = meta.getColumnCount();
+                    for (int i = 1; i <= columns; i++) {
+                        out.write(i > 1 ? "," : "");
+                        out.write(meta.getColumnName(i));
+                    }
+                    out.write('\n');
+                    while (rs.next()) {
+                        for (int i = 1; i <= columns; i++) {
+                            out.write(i > 1 ? "," : "");
+                            out.write(csv(rs.getString(i)));
+                        }
+                        out.write('\n');
+                        count++;
+                    }
+                }
+                connection.commit();
+                return count;
+            } catch (IOException e) {
+                connection.rollback();
+                throw new UncheckedIOException(e);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+        return rows != null ? rows : 0;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    static String partitionName(String table, LocalDate day) {
+        return table + "_p" + day.format(SUFFIX);
+    }
+
+    /**
+     * The UTC day a daily partition covers, or null for the default partition or any other table
+     */
+    static LocalDate partitionDay(String table, String partition) {
+        String prefix = table + "_p";
+        if (!partition.startsWith(prefix) || partition.length() != prefix.length() + 8) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(prefix.length()), SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.kalshi.mock.service;
 
-import com.kalshi.mock.catalog.service.MarketService;
 import com.kalshi.mock.event.OrderBookEvent;
 import com.kalshi.mock.event.OrderBookEventListener;
 import com.kalshi.mock.event.OrderBookEventPublisher;
@@ -17,7 +16,7 @@ import java.math.BigDecimal;
 public class MarketDataUpdateService implements OrderBookEventListener {
     
     @Autowired
-    private MarketService marketService;
+    private MarketStatisticsService marketStatisticsService;
     
     @Autowired
     private OrderBookEventPublisher eventPublisher;
@@ -37,21 +36,25 @@ public class MarketDataUpdateService implements OrderBookEventListener {
     private void handleTickerUpdate(OrderBookEvent event) {
         OrderBookEvent.TickerData tickerData = (OrderBookEvent.TickerData) event.getData();
         
-        // Update market prices in database
-        BigDecimal lastPrice = BigDecimal.valueOf(tickerData.getLastPrice());
-        BigDecimal bestBid = BigDecimal.valueOf(tickerData.getBestBid());
-        BigDecimal bestAsk = BigDecimal.valueOf(tickerData.getBestAsk());
+        // Book-only updates carry no last price; an empty side has no best bid/ask
+        BigDecimal lastPrice = toPrice(tickerData.getLastPrice());
+        BigDecimal bestBid = toPrice(tickerData.getBestBid());
+        BigDecimal bestAsk = toPrice(tickerData.getBestAsk());
+        long volume = tickerData.getVolume() != null ? tickerData.getVolume() : 0L;
         
-        marketService.updateMarketPrices(
+        // Coalesced in memory and written to the database in batches
+        marketStatisticsService.record(
             tickerData.getMarketTicker(),
             bestBid,  // yes bid
             bestAsk,  // yes ask
             bestBid,  // no bid (simplified)
             bestAsk,  // no ask (simplified)
-            lastPrice
+            lastPrice,
+            volume
         );
-        
-        // Update volume
-        marketService.updateMarketVolume(tickerData.getMarketTicker(), tickerData.getVolume());
     }
-}
\ No newline at end of file
+    
+    private static BigDecimal toPrice(Integer cents) {
+        return cents != null ? BigDecimal.valueOf(cents) : null;
+    }
+}
@@ -0,0 +1,244 @@
+package com.kalshi.mock.service;
+
+import com.kalshi.mock.catalog.model.Market;
+import com.kalshi.mock.catalog.model.Market.MarketStatus;
+import com.kalshi.mock.catalog.service.MarketService;
+import com.kalshi.mock.event.OrderBookEvent;
+import com.kalshi.mock.event.OrderBookEventPublisher;
+import com.kalshi.mock.model.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires market open/close transitions from a hierarchical timing wheel.
+ *
+ * Key features:
+ * - Loaded once from the market catalog, then kept current through MarketService schedule listeners
+ * - Only unopened and open markets are on the wheel, so memory follows the live market set
+ * - Closing cancels resting orders in one statement, frees the order book and trade tape,
+ *   and publishes a market_lifecycle event
+ * - No polling queries against the markets table
+ */
+@Component
+@Order(2) // After MockMarketsInitializer has created the order books
+public class MarketLifecycleService implements ApplicationRunner, MarketService.MarketScheduleListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketLifecycleService.class);
+
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4;
+
+    @Autowired
+    private MarketService marketService;
+
+    @Autowired
+    private OrderBookService orderBookService;
+
+    @Autowired
+    private OrderBookEventPublisher eventPublisher;
+
+    @Value("${markets.lifecycle.tick-ms:100}")
+    private long tickMillis;
+
+    // Seed markets often have close times in the past; leave them open unless asked to close them
+    @Value("${markets.lifecycle.close-overdue-on-startup:false}")
+    private boolean closeOverdueOnStartup;
+
+    private TimingWheel<Transition> wheel;
+    private ScheduledExecutorService tickExecutor;
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel<>(tickMillis, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+        marketService.addScheduleListener(this);
+
+        tickExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "market-lifecycle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tickExecutor.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tickExecutor.shutdownNow();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int loaded = 0;
+        try {
+            for (MarketStatus status : List.of(MarketStatus.UNOPENED, MarketStatus.OPEN)) {
+                for (String ticker : marketService.getAllTickers(status)) {
+                    Market market = marketService.getMarketByTicker(ticker);
+                    if (market != null) {
+                        schedule(market, true);
+                        loaded++;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Markets created or updated later are still scheduled through the listener
+            logger.error("Failed to load market schedules, only later market changes will be scheduled", e);
+        }
+        logger.info("Market lifecycle scheduler loaded {} markets, {} transitions pending", loaded, getPendingCount());
+    }
+
+    @Override
+    public void onMarketScheduleChanged(Market market) {
+        schedule(market, false);
+    }
+
+    /**
+     * Number of open/close transitions waiting on the wheel
+     */
+    public int getPendingCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Replace any pending transitions for a market with ones matching its current status and times
+     */
+    private void schedule(Market market, boolean startup) {
+        String ticker = market.getTicker();
+        synchronized (wheel) {
+            wheel.cancel(openKey(ticker));
+            wheel.cancel(closeKey(ticker));
+        }
+
+        MarketStatus status = market.getStatus();
+        if (status != MarketStatus.UNOPENED && status != MarketStatus.OPEN) {
+            // Closed through the API: still release the book and notify subscribers
+            if (orderBookService.hasOrderBook(ticker)) {
+                close(ticker, market);
+            }
+            return;
+        }
+
+        boolean openNow = false;
+        boolean closeNow = false;
+        synchronized (wheel) {
+            if (status == MarketStatus.UNOPENED && market.getOpenTime() != null) {
+                openNow = !wheel.schedule(openKey(ticker), toMillis(market.getOpenTime()),
+                    new Transition(ticker, true));
+            }
+            if (market.getCloseTime() != null) {
+                closeNow = !wheel.schedule(closeKey(ticker), toMillis(market.getCloseTime()),
+                    new Transition(ticker, false));
+            }
+        }
+
+        if (closeNow && startup && !closeOverdueOnStartup) {
+            logger.debug("Market {} is past its close time, leaving it {}", ticker, status);
+            return;
+        }
+        if (closeNow) {
+            close(ticker, market);
+        } else if (openNow) {
+            open(ticker);
+        }
+    }
+
+    /**
+     * Advance the wheel to now and run every transition that came due
+     */
+    private void advance() {
+        List<Transition> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advanceTo(System.currentTimeMillis(), (transition, deadline) -> due.add(transition));
+        }
+
+        for (Transition transition : due) {
+            try {
+                if (transition.open) {
+                    open(transition.ticker);
+                } else {
+                    close(transition.ticker, marketService.getMarketByTicker(transition.ticker));
+                }
+            } catch (Exception e) {
+                logger.error("Failed to {} market {}", transition.open ? "open" : "close", transition.ticker, e);
+            }
+        }
+    }
+
+    private void open(String ticker) {
+        if (!marketService.openMarket(ticker)) {
+            return;
+        }
+        if (!orderBookService.hasOrderBook(ticker)) {
+            orderBookService.createOrderBook(ticker);
+        }
+
+        Market market = marketService.getMarketByTicker(ticker);
+        publishLifecycle(ticker, "opened", market);
+        logger.info("Market {} opened", ticker);
+    }
+
+    private void close(String ticker, Market market) {
+        synchronized (wheel) {
+            wheel.cancel(openKey(ticker));
+            wheel.cancel(closeKey(ticker));
+        }
+
+        marketService.closeMarket(ticker);
+        int canceled = orderBookService.closeOrderBook(ticker);
+
+        publishLifecycle(ticker, "closed", market);
+        logger.info("Market {} closed, {} resting orders canceled", ticker, canceled);
+    }
+
+    private void publishLifecycle(String ticker, String eventType, Market market) {
+        Long openTs = market != null && market.getOpenTime() != null ? toMillis(market.getOpenTime()) : null;
+        Long closeTs = market != null && market.getCloseTime() != null ? toMillis(market.getCloseTime()) : null;
+        eventPublisher.publishEvent(new OrderBookEvent(
+            OrderBookEvent.EventType.MARKET_LIFECYCLE,
+            ticker,
+            new OrderBookEvent.LifecycleData(eventType, openTs, closeTs)
+        ));
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        // Same zone MarketService uses when reading the BIGINT columns
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String openKey(String ticker) {
+        return "open:" + ticker;
+    }
+
+    private static String closeKey(String ticker) {
+        return "close:" + ticker;
+    }
+
+    /**
+     * A pending open or close of one market
+     */
+    private static class Transition {
+        private final String ticker;
+        private final boolean open;
+
+        private Transition(String ticker, boolean open) {
+            this.ticker = ticker;
+            this.open = open;
+        }
+    }
+}
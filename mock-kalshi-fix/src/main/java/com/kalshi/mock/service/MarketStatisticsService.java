@@ -0,0 +1,183 @@
+package com.kalshi.mock.service;
+
+import com.kalshi.mock.catalog.service.MarketService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces per-market price and volume statistics and writes them to the markets table in batches.
+ *
+ * Key features:
+ * - Each ticker update is applied to the in-memory market catalog immediately, so reads stay current
+ * - Database changes accumulate per market: latest bid/ask/last price win, volume is summed
+ * - One batched UPDATE per flush interval instead of two statements per trade burst
+ * - Pending statistics are flushed on shutdown and re-queued if a flush fails
+ */
+@Service
+public class MarketStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketStatisticsService.class);
+
+    private static final String UPDATE_WITH_PRICE_SQL = """
+        UPDATE markets SET
+            previous_yes_bid = yes_bid,
+            previous_yes_ask = yes_ask,
+            previous_price = last_price,
+            yes_bid = ?,
+            yes_ask = ?,
+            no_bid = ?,
+            no_ask = ?,
+            last_price = ?,
+            volume = volume + ?,
+            volume_24h = volume_24h + ?,
+            updated_at = ?
+        WHERE ticker = ?
+    """;
+
+    private static final String UPDATE_WITHOUT_PRICE_SQL = """
+        UPDATE markets SET
+            previous_yes_bid = yes_bid,
+            previous_yes_ask = yes_ask,
+            yes_bid = ?,
+            yes_ask = ?,
+            no_bid = ?,
+            no_ask = ?,
+            volume = volume + ?,
+            volume_24h = volume_24h + ?,
+            updated_at = ?
+        WHERE ticker = ?
+    """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MarketService marketService;
+
+    // Statistics not yet written, keyed by market ticker
+    private final Map<String, PendingStatistics> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Record a ticker update for a market.
+     *
+     * @param lastPrice      last trade price, or null if this update carries no trade
+     * @param volumeIncrease contracts traded since the previous update
+     */
+    public void record(String ticker, BigDecimal yesBid, BigDecimal yesAsk,
+                       BigDecimal noBid, BigDecimal noAsk, BigDecimal lastPrice, long volumeIncrease) {
+        marketService.applyMarketStatistics(ticker, yesBid, yesAsk, noBid, noAsk, lastPrice, volumeIncrease);
+
+        PendingStatistics update = new PendingStatistics(yesBid, yesAsk, noBid, noAsk, lastPrice, volumeIncrease);
+        // Merging inside the map keeps writers and the flusher from racing on the same entry
+        pending.merge(ticker, update, PendingStatistics::then);
+    }
+
+    /**
+     * Write all pending statistics in one JDBC batch per statement shape
+     */
+    @Scheduled(fixedDelayString = "${markets.stats.flush-interval-ms:250}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<String, PendingStatistics> drained = new HashMap<>();
+        List<Object[]> withPrice = new ArrayList<>();
+        List<Object[]> withoutPrice = new ArrayList<>();
+
+        for (String ticker : pending.keySet()) {
+            PendingStatistics stats = pending.remove(ticker);
+            if (stats == null) {
+                continue;
+            }
+            drained.put(ticker, stats);
+            if (stats.lastPrice != null) {
+                withPrice.add(new Object[] {
+                    stats.yesBid, stats.yesAsk, stats.noBid, stats.noAsk, stats.lastPrice,
+                    stats.volumeIncrease, stats.volumeIncrease, now, ticker
+                });
+            } else {
+                withoutPrice.add(new Object[] {
+                    stats.yesBid, stats.yesAsk, stats.noBid, stats.noAsk,
+                    stats.volumeIncrease, stats.volumeIncrease, now, ticker
+                });
+            }
+        }
+
+        try {
+            if (!withPrice.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_WITH_PRICE_SQL, withPrice);
+            }
+            if (!withoutPrice.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_WITHOUT_PRICE_SQL, withoutPrice);
+            }
+            logger.debug("Flushed statistics for {} markets", drained.size());
+        } catch (Exception e) {
+            logger.error("Failed to flush market statistics for {} markets, will retry", drained.size(), e);
+            // Put the drained values back underneath anything recorded since
+            for (Map.Entry<String, PendingStatistics> entry : drained.entrySet()) {
+                pending.merge(entry.getKey(), entry.getValue(), (newer, older) -> older.then(newer));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Number of markets with statistics waiting to be written
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Accumulated, not yet persisted statistics for one market
+     */
+    static class PendingStatistics {
+        private final BigDecimal yesBid;
+        private final BigDecimal yesAsk;
+        private final BigDecimal noBid;
+        private final BigDecimal noAsk;
+        private final BigDecimal lastPrice;
+        private final long volumeIncrease;
+
+        PendingStatistics(BigDecimal yesBid, BigDecimal yesAsk, BigDecimal noBid, BigDecimal noAsk,
+                          BigDecimal lastPrice, long volumeIncrease) {
+            this.yesBid = yesBid;
+            this.yesAsk = yesAsk;
+            this.noBid = noBid;
+            this.noAsk = noAsk;
+            this.lastPrice = lastPrice;
+            this.volumeIncrease = volumeIncrease;
+        }
+
+        /**
+         * Combine with a later update: its quotes win, a missing last price keeps ours, volume adds up
+         */
+        PendingStatistics then(PendingStatistics later) {
+            return new PendingStatistics(
+                later.yesBid, later.yesAsk, later.noBid, later.noAsk,
+                later.lastPrice != null ? later.lastPrice : lastPrice,
+                volumeIncrease + later.volumeIncrease
+            );
+        }
+    }
+}
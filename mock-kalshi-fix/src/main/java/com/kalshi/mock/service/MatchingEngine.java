@@ -10,6 +10,7 @@ import lombok.extern.slf4j.Slf4j;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Matching engine that executes trades when orders cross in the order book.
@@ -20,12 +21,47 @@ public class MatchingEngine {
     
     private final AtomicLong tradeIdGenerator = new AtomicLong(System.currentTimeMillis() + 100000L);
     private final AtomicLong fillIdGenerator = new AtomicLong(System.currentTimeMillis() + 100000L);
+    private final ReentrantLock matchLock = new ReentrantLock();
     
     /**
      * Attempt to match a new order against the order book
      * @return List of executions that occurred
      */
-    public synchronized List<Execution> matchOrder(OrderBookEntry incomingOrder, ConcurrentOrderBook orderBook) {
+    public List<Execution> matchOrder(OrderBookEntry incomingOrder, ConcurrentOrderBook orderBook) {
+        return matchOrder(incomingOrder, orderBook, false);
+    }
+    
+    /**
+     * Attempt to match a new order; a fill-or-kill order that cannot be filled in full at its
+     * limit or better does not trade at all and keeps its whole quantity
+     * @return List of executions that occurred
+     */
+    public List<Execution> matchOrder(OrderBookEntry incomingOrder, ConcurrentOrderBook orderBook, boolean fillOrKill) {
+        List<Execution> executions;
+        matchLock.lock();
+        try {
+            // Snapshot readers see the whole match or none of it
+            executions = orderBook.modify(() -> {
+                if (fillOrKill && orderBook.quantityAvailable(incomingOrder.isNormalizedBuy(),
+                        incomingOrder.getNormalizedPrice(), incomingOrder.getQuantity()) < incomingOrder.getQuantity()) {
+                    log.debug("Killing fill-or-kill order without enough liquidity: {}", incomingOrder);
+                    return new CopyOnWriteArrayList<>();
+                }
+                return match(incomingOrder, orderBook);
+            });
+        } finally {
+            matchLock.unlock();
+        }
+        
+        // Listeners update stored orders in the database, so they run once both locks are
+        // released: readers of this book and matches in other markets do not wait on them
+        for (Execution execution : executions) {
+            orderBook.notifyOrderExecuted(execution.getPassive(), execution.getQuantity());
+        }
+        return executions;
+    }
+    
+    private List<Execution> match(OrderBookEntry incomingOrder, ConcurrentOrderBook orderBook) {
 
         // I'm making everything thread safe when likely not strictly necessary - just a mock - avoids thread safety issues
         List<Execution> executions = new CopyOnWriteArrayList<>();
@@ -48,7 +84,7 @@ public class MatchingEngine {
                 
                 // Check if we can match (buy price >= ask price)
                 if (bestLevel == null || incomingOrder.getNormalizedPrice() < bestLevel.getKey()) {
-                    log.info("No BUY match possible, bestLevel="+bestLevel+", incomingOrder="+incomingOrder);
+                    log.debug("No BUY match possible, bestLevel="+bestLevel+", incomingOrder="+incomingOrder);
                     break; // No match possible
                 }
             } else {
@@ -57,7 +93,7 @@ public class MatchingEngine {
                 
                 // Check if we can match (sell price <= bid price)
                 if (bestLevel == null || incomingOrder.getNormalizedPrice() > bestLevel.getKey()) {
-                    log.info("No SELL match possible, bestLevel="+bestLevel+", incomingOrder="+incomingOrder);
+                    log.debug("No SELL match possible, bestLevel="+bestLevel+", incomingOrder="+incomingOrder);
                     break; // No match possible
                 }
             }
@@ -65,7 +101,7 @@ public class MatchingEngine {
             // Match against orders at the best level
             Queue<OrderBookEntry> ordersAtLevel = bestLevel.getValue();
 
-            log.info("Matching against level " + bestLevel.getKey() + ", orders=" + ordersAtLevel);
+            log.debug("Matching against level " + bestLevel.getKey() + ", orders=" + ordersAtLevel);
 
             Iterator<OrderBookEntry> iterator = ordersAtLevel.iterator();
             
@@ -92,7 +128,7 @@ public class MatchingEngine {
                     System.currentTimeMillis()
                 );
 
-                log.info("Order incoming is MATCHED and EXECUTION being generated, orderID and quantity: "+incomingOrder+", Execution is: "+execution);
+                log.debug("Order incoming is MATCHED and EXECUTION being generated, orderID and quantity: "+incomingOrder+", Execution is: "+execution);
 
                 executions.add(execution);
                 
@@ -100,8 +136,8 @@ public class MatchingEngine {
                 incomingOrder.reduceQuantity(executionQty);
                 restingOrder.reduceQuantity(executionQty);
                 
-                // Notify order book of execution
-                orderBook.notifyOrderExecuted(restingOrder, executionQty);
+                // Listeners are notified after the match, outside the book's write lock
+                orderBook.recordOrderExecuted();
                 
                 // Remove resting order if fully filled
                 if (restingOrder.getQuantity() == 0) {
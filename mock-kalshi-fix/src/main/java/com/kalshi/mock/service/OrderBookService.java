@@ -3,7 +3,9 @@ package com.kalshi.mock.service;
 import com.fbg.api.rest.*;
 import com.fbg.api.market.KalshiSide;
 import com.fbg.api.market.KalshiAction;
+import com.kalshi.mock.audit.AuditLog;
 import com.kalshi.mock.dto.OrderbookResponse;
+import com.kalshi.mock.model.CompactOrderBook;
 import com.kalshi.mock.model.ConcurrentOrderBook;
 import com.kalshi.mock.model.OrderBookEntry;
 import com.kalshi.mock.service.MatchingEngine;
@@ -13,25 +15,43 @@ import com.kalshi.mock.event.OrderBookEventPublisher;
 import com.kalshi.mock.event.OrderUpdateEvent;
 import com.kalshi.mock.converter.YesNoConverter;
 import com.kalshi.mock.converter.YesNoConverter.ConvertedOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderBookService.class);
 
-    // one order book per market
-    private final Map<String, ConcurrentOrderBook> orderBooks = new ConcurrentHashMap<>();
+    // one order book per market, either live (hot) or serialized while idle (cold)
+    private final Map<String, BookSlot> orderBooks = new ConcurrentHashMap<>();
+    
+    private final AtomicLong promotions = new AtomicLong();
+    private final AtomicLong demotions = new AtomicLong();
+    
+    // Notified of every match, e.g. so the FIX gateway can report fills on resting orders
+    private final List<ExecutionListener> executionListeners = new CopyOnWriteArrayList<>();
 
     // system.current time millis makes sure the next ID is unique.
     private final AtomicLong orderIdGenerator = new AtomicLong(System.currentTimeMillis());
 
     private final MatchingEngine matchingEngine = new MatchingEngine();
     
+    // Held across JDBC reads, so a lock rather than a monitor that would pin a virtual thread
+    private final ReentrantLock loadLock = new ReentrantLock();
+    
     @Autowired
     private PersistenceService persistenceService;
     
@@ -44,37 +64,104 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
     @Autowired
     private OrderTrackingService orderTrackingService;
     
+    @Autowired
+    private TradeTapeService tradeTapeService;
+    
+    @Autowired
+    private AuditLog auditLog;
+    
+    @Autowired
+    private PortfolioIndexService portfolioIndexService;
+    
+    // Books with no orders, cancels or subscriptions for this long are demoted; 0 disables tiering
+    @Value("${orderbook.tiering.idle-threshold-ms:600000}")
+    private long idleThresholdMillis;
+    
     
     public void createOrderBook(String marketTicker) {
         ConcurrentOrderBook orderBook = new ConcurrentOrderBook(marketTicker);
         orderBook.addListener(this);
-        orderBooks.put(marketTicker, orderBook);
+        orderBooks.put(marketTicker, new BookSlot(orderBook));
         
         // Clean up old orders first (only on first market creation)
         if (orderBooks.size() == 1) {
-            System.out.println("First market being created, cleaning up old orders...");
+            logger.debug("First market being created, cleaning up old orders");
             persistenceService.cleanupOldOrders();
         }
         
-        // Load existing open orders from database
-        loadOpenOrdersForMarket(marketTicker);
+        // Load existing open orders from database, one market at a time
+        loadLock.lock();
+        try {
+            loadOpenOrdersForMarket(marketTicker);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+    
+    public boolean hasOrderBook(String marketTicker) {
+        return orderBooks.containsKey(marketTicker);
     }
     
-    private synchronized void loadOpenOrdersForMarket(String marketTicker) {
+    /**
+     * Close a market's book: new orders are rejected from here on, orders already in the book
+     * are waited for, every resting order is canceled in one statement and its owner notified,
+     * and the book's memory is released.
+     *
+     * @return number of orders canceled
+     */
+    public int closeOrderBook(String marketTicker) {
+        BookSlot slot = orderBooks.get(marketTicker);
+        if (slot != null) {
+            slot.lock.lock();
+            try {
+                // No new pins; an order still placing would otherwise rest after the cancel below.
+                // Pinned orders do JDBC, so this waits on a condition rather than a monitor,
+                // which would pin a virtual thread's carrier for as long
+                slot.closing = true;
+                while (slot.pins > 0) {
+                    slot.unpinned.awaitUninterruptibly();
+                }
+                if (slot.hot != null) {
+                    slot.hot.removeListener(this);
+                }
+                slot.hot = null;
+                slot.cold = null;
+            } finally {
+                slot.lock.unlock();
+            }
+        }
+        
+        List<PersistenceService.CanceledOrder> canceled = persistenceService.cancelOpenOrdersForMarket(marketTicker);
+        for (PersistenceService.CanceledOrder canceledOrder : canceled) {
+            Order order = canceledOrder.getOrder();
+            auditLog.cancel(order.getId(), marketTicker, order.getQuantity() - order.getFilled_quantity());
+            orderTrackingService.updateOrder(
+                canceledOrder.getOrder(), canceledOrder.getAction(), OrderUpdateEvent.OrderUpdateType.CANCEL);
+            portfolioIndexService.onOrder(order);
+        }
+        
+        if (slot != null) {
+            orderBooks.remove(marketTicker, slot);
+        }
+        tradeTapeService.releaseMarket(marketTicker);
+        return canceled.size();
+    }
+    
+    private void loadOpenOrdersForMarket(String marketTicker) {
         // Load existing open orders from the database
-        ConcurrentOrderBook orderBook = orderBooks.get(marketTicker);
+        ConcurrentOrderBook orderBook = hotBook(marketTicker);
         if (orderBook == null) {
-            System.out.println("No order book found for market " + marketTicker + ", creating new order book");
+            logger.debug("No order book found for market {}, creating new order book", marketTicker);
             orderBook = new ConcurrentOrderBook(marketTicker);
         }
         
         // Clean up old orders before loading (this excludes canceled orders and old orders automatically)
         long twoDaysAgo = System.currentTimeMillis() - (2 * 24 * 60 * 60 * 1000L);
-        System.out.println("Loading orders for " + marketTicker + " from the last 2 days (since " + new java.util.Date(twoDaysAgo) + ")");
+        logger.debug("Loading orders for {} from the last 2 days (since {})", marketTicker, new java.util.Date(twoDaysAgo));
         
         // Fetch all open orders for this market (PersistenceService now filters by date and excludes canceled)
         List<Map<String, Object>> openOrders = persistenceService.getOpenOrdersForMarket(marketTicker);
-        System.out.println("Found " + openOrders.size() + " recent open orders for market " + marketTicker);
+        logger.debug("Found {} recent open orders for market {}", openOrders.size(), marketTicker);
         
         // Add each order to the order book
         for (Map<String, Object> orderData : openOrders) {
@@ -95,11 +182,11 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
                 
                 // Add to order book without matching (since these are existing orders)
                 orderBook.addOrder(bookEntry);
-                System.out.println("Loaded order " + orderId + " created " + 
-                                  ((System.currentTimeMillis() - createdTime) / (60 * 1000)) + " minutes ago");
+                logger.debug("Loaded order {} created {} minutes ago", orderId,
+                    (System.currentTimeMillis() - createdTime) / (60 * 1000));
             } else {
-                System.out.println("Skipping old order " + orderId + " created " + 
-                                  (createdTime != null ? new java.util.Date(createdTime) : "unknown time"));
+                logger.debug("Skipping old order {} created {}", orderId,
+                    createdTime != null ? new java.util.Date(createdTime) : "unknown time");
             }
         }
         
@@ -111,16 +198,41 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
     
     
     public Order createOrder(String marketTicker, OrderRequest request, String action, String userId) {
-        ConcurrentOrderBook orderBook = orderBooks.get(marketTicker);
-        if (orderBook == null) {
+        return placeOrder(nextOrderId(), marketTicker, request, action, userId).getOrder();
+    }
+    
+    /**
+     * Allocate an order ID ahead of placing the order, so callers can register it first
+     */
+    public String nextOrderId() {
+        return "ORD-" + orderIdGenerator.incrementAndGet();
+    }
+    
+    /**
+     * Create an order under a pre-allocated ID and also return the executions it produced,
+     * for callers that report each fill individually (e.g. FIX execution reports)
+     */
+    public OrderResult placeOrder(String orderId, String marketTicker, OrderRequest request, String action, String userId) {
+        BookSlot slot = acquire(marketTicker);
+        if (slot == null) {
             throw new IllegalArgumentException("Market not found: " + marketTicker);
         }
-        
+        try {
+            return placeOrder(slot.hot, orderId, marketTicker, request, action, userId);
+        } finally {
+            release(slot);
+        }
+    }
+    
+    public void addExecutionListener(ExecutionListener listener) {
+        executionListeners.add(listener);
+    }
+    
+    private OrderResult placeOrder(ConcurrentOrderBook orderBook, String orderId, String marketTicker,
+                                   OrderRequest request, String action, String userId) {
         // Validate order request
         validateOrderRequest(request);
         
-        // Generate order ID
-        String orderId = "ORD-" + orderIdGenerator.incrementAndGet();
         long timestamp = System.currentTimeMillis();
         
         // Convert to buy-only format using YesNoConverter
@@ -131,8 +243,8 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
         );
         
         // Log conversion if it occurred
-        if (converted.isWasConverted()) {
-            System.out.println("Order converted: " + converted.toDebugString(
+        if (converted.isWasConverted() && logger.isDebugEnabled()) {
+            logger.debug("Order converted: {}", converted.toDebugString(
                 request.getSide(), 
                 KalshiAction.valueOf(action), 
                 request.getPrice()
@@ -149,12 +261,24 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
             request.getQuantity(),
             timestamp
         );
-        
-        // First, attempt to match the order
-        List<Execution> executions = matchingEngine.matchOrder(bookEntry, orderBook);
+        auditLog.orderAccepted(orderId, userId, marketTicker, request.getSide().name(), action,
+            request.getPrice() != null ? request.getPrice() : 0, request.getQuantity());
+        
+        // First, attempt to match the order; fill-or-kill trades in full or not at all
+        boolean fillOrKill = "FOK".equals(request.getTime_in_force());
+        List<Execution> executions = matchingEngine.matchOrder(bookEntry, orderBook, fillOrKill);
+        boolean killed = fillOrKill && bookEntry.getQuantity() > 0;
+        if (killed) {
+            auditLog.cancel(orderId, marketTicker, bookEntry.getQuantity());
+        }
         
         // Process executions
         if (!executions.isEmpty()) {
+            for (Execution exec : executions) {
+                auditLog.fill(exec.getTradeId(), marketTicker, exec.getAggressor().getOrderId(),
+                    exec.getPassive().getOrderId(), exec.getExecutionPrice(), exec.getQuantity());
+            }
+            
             // Convert to trades and fills
             List<Trade> trades = matchingEngine.executionsToTrades(executions, marketTicker);
             List<Fill> fills = matchingEngine.executionsToFills(executions, marketTicker);
@@ -169,10 +293,22 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
                     exec.getAggressor().getOrderId(),
                     exec.getPassive().getOrderId(),
                     trade.getCount(), // Use getCount() instead of getQuantity()
-                    trade.getPrice()
+                    trade.getPrice(),
+                    trade.getCreated_time()
                 );
             }
             
+            // Add to the in-memory trade tape, which also feeds the WebSocket trade channel
+            tradeTapeService.recordTrades(marketTicker, trades);
+            
+            for (ExecutionListener listener : executionListeners) {
+                try {
+                    listener.onExecutions(marketTicker, executions);
+                } catch (Exception e) {
+                    logger.error("Execution listener failed for market {}", marketTicker, e);
+                }
+            }
+            
             // Store fills and update positions
             for (Fill fill : fills) {
                 OrderBookEntry orderEntry = orderBook.getOrder(fill.getOrder_id());
@@ -180,12 +316,14 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
                     persistenceService.saveFill(fill, orderEntry.getUserId());
                     // Pass whether this was a buy or sell order
                     boolean isBuy = orderEntry.getAction().equals("buy");
-                    positionsService.updatePositionFromFill(fill, orderEntry.getUserId(), isBuy);
+                    Position position = positionsService.updatePositionFromFill(fill, orderEntry.getUserId(), isBuy);
+                    portfolioIndexService.onFill(fill, orderEntry.getUserId(), position);
                 } else if (fill.getOrder_id().equals(orderId)) {
                     // This is the incoming order
                     persistenceService.saveFill(fill, userId);
                     boolean isBuy = action.equals("buy");
-                    positionsService.updatePositionFromFill(fill, userId, isBuy);
+                    Position position = positionsService.updatePositionFromFill(fill, userId, isBuy);
+                    portfolioIndexService.onFill(fill, userId, position);
                 }
             }
             
@@ -238,7 +376,7 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
         orderBook.removeZeroQuantityOrders();
         
         // If order has remaining quantity, add to order book
-        if (bookEntry.getQuantity() > 0) {
+        if (bookEntry.getQuantity() > 0 && !killed) {
             boolean added = orderBook.addOrder(bookEntry);
             if (!added) {
                 throw new IllegalStateException("Failed to add order to book");
@@ -247,7 +385,8 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
         
         // Calculate filled quantity and status
         int filledQuantity = request.getQuantity() - bookEntry.getQuantity();
-        String status = filledQuantity == 0 ? "open" : 
+        String status = killed ? "canceled" :
+                       filledQuantity == 0 ? "open" : 
                        (bookEntry.getQuantity() == 0 ? "filled" : "partially_filled");
         
         // Calculate average fill price
@@ -272,7 +411,7 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
             request.getOrder_type(),
             request.getQuantity(),
             filledQuantity,
-            bookEntry.getQuantity(), // remaining_quantity
+            killed ? 0 : bookEntry.getQuantity(), // remaining_quantity
             request.getPrice(),
             avgFillPrice,
             status,
@@ -287,13 +426,14 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
         
         // Track new order in memory and publish WebSocket update
         orderTrackingService.trackNewOrder(order, action);
+        portfolioIndexService.onOrder(order);
         
         // If order was partially or fully filled, publish FILL event as well
         if (filledQuantity > 0) {
             orderTrackingService.updateOrder(order, action, OrderUpdateEvent.OrderUpdateType.FILL);
         }
         
-        return order;
+        return new OrderResult(order, executions);
     }
     
     public Order cancelOrder(String orderId) {
@@ -302,15 +442,21 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
             throw new IllegalArgumentException("Order not found: " + orderId);
         }
         
-        ConcurrentOrderBook orderBook = orderBooks.get(order.getSymbol());
-        if (orderBook == null) {
+        BookSlot slot = acquire(order.getSymbol());
+        if (slot == null) {
             throw new IllegalArgumentException("Market not found for order");
         }
         
-        boolean canceled = orderBook.cancelOrder(orderId);
+        boolean canceled;
+        try {
+            canceled = slot.hot.cancelOrder(orderId);
+        } finally {
+            release(slot);
+        }
         if (!canceled) {
             throw new IllegalStateException("Failed to cancel order");
         }
+        auditLog.cancel(orderId, order.getSymbol(), order.getRemaining_quantity());
         
         // Update order status in database
         persistenceService.updateOrderStatus(
@@ -323,6 +469,7 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
         
         // Get updated order and publish cancel event
         Order updatedOrder = persistenceService.getOrder(orderId);
+        portfolioIndexService.onOrder(updatedOrder);
         
         // Get the action from the database (we need to look it up)
         String action = persistenceService.getOrderAction(orderId);
@@ -334,7 +481,7 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
     }
     
     public Orderbook getOrderbook(String marketTicker) {
-        ConcurrentOrderBook orderBook = orderBooks.get(marketTicker);
+        ConcurrentOrderBook orderBook = readBook(marketTicker);
         if (orderBook == null) {
             return new Orderbook(new ArrayList<>(), new ArrayList<>());
         }
@@ -344,7 +491,7 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
     }
     
     public OrderbookResponse.OrderbookData getOrderbookKalshiFormat(String marketTicker, int depth) {
-        ConcurrentOrderBook orderBook = orderBooks.get(marketTicker);
+        ConcurrentOrderBook orderBook = readBook(marketTicker);
         if (orderBook == null) {
             return new OrderbookResponse.OrderbookData(new ArrayList<>(), new ArrayList<>());
         }
@@ -353,6 +500,31 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
         return orderBook.getOrderbookSnapshotKalshiFormat(depth);
     }
     
+    /**
+     * Kalshi format snapshot stamped with the book's version, or null if the market has no book
+     */
+    public ConcurrentOrderBook.VersionedOrderbook getVersionedOrderbook(String marketTicker, int depth) {
+        ConcurrentOrderBook orderBook = readBook(marketTicker);
+        return orderBook != null ? orderBook.getVersionedSnapshotKalshiFormat(depth) : null;
+    }
+    
+    /**
+     * Best YES bid and ask of a market, or null if it has no book
+     */
+    public ConcurrentOrderBook.TopOfBook getTopOfBook(String marketTicker) {
+        ConcurrentOrderBook orderBook = readBook(marketTicker);
+        return orderBook != null ? orderBook.getTopOfBook() : null;
+    }
+    
+    /**
+     * Tickers of every market with a book, in sorted order
+     */
+    public List<String> getOrderBookTickers() {
+        List<String> tickers = new ArrayList<>(orderBooks.keySet());
+        Collections.sort(tickers);
+        return tickers;
+    }
+    
     public List<Order> getUserOrders(String userId) {
         return persistenceService.getUserOrders(userId);
     }
@@ -366,8 +538,7 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
     }
     
     public List<Trade> getMarketTrades(String marketTicker) {
-        // TODO: Implement trade retrieval from database
-        return new ArrayList<>();
+        return tradeTapeService.getRecentTrades(marketTicker);
     }
     
     public List<Fill> getUserFills(String userId) {
@@ -378,7 +549,7 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
     @Override
     public void onOrderAdded(String marketTicker, OrderBookEntry order) {
         // Log or process order addition
-        System.out.println("Order added: " + order.getOrderId() + " to market " + marketTicker);
+        logger.debug("Order added: {} to market {}", order.getOrderId(), marketTicker);
         
         // Publish order book delta event
         publishOrderBookDelta(marketTicker);
@@ -387,7 +558,7 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
     @Override
     public void onOrderCanceled(String marketTicker, OrderBookEntry order) {
         // Log or process order cancellation
-        System.out.println("Order canceled: " + order.getOrderId() + " from market " + marketTicker);
+        logger.debug("Order canceled: {} from market {}", order.getOrderId(), marketTicker);
         
         // Publish order book delta event
         publishOrderBookDelta(marketTicker);
@@ -396,7 +567,7 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
     @Override
     public void onOrderExecuted(String marketTicker, OrderBookEntry order, int executedQuantity) {
         // Process execution - update order status, create fills and trades
-        System.out.println("Order executed: " + order.getOrderId() + " quantity: " + executedQuantity);
+        logger.debug("Order executed: {} quantity: {}", order.getOrderId(), executedQuantity);
         
         // Update order in database
         Order storedOrder = persistenceService.getOrder(order.getOrderId());
@@ -412,10 +583,28 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
                 newRemainingQuantity,
                 storedOrder.getAvg_fill_price() // Will be recalculated if needed
             );
+            portfolioIndexService.onOrder(new Order(
+                storedOrder.getId(),
+                storedOrder.getClient_order_id(),
+                storedOrder.getUser_id(),
+                storedOrder.getSide(),
+                storedOrder.getSymbol(),
+                storedOrder.getOrder_type(),
+                storedOrder.getQuantity(),
+                newFilledQuantity,
+                newRemainingQuantity,
+                storedOrder.getPrice(),
+                storedOrder.getAvg_fill_price(),
+                newStatus,
+                storedOrder.getTime_in_force(),
+                storedOrder.getCreated_time(),
+                System.currentTimeMillis(),
+                storedOrder.getExpiration_time()
+            ));
         }
         
         // Clean up any zero-quantity orders from the order book
-        ConcurrentOrderBook orderBook = orderBooks.get(marketTicker);
+        ConcurrentOrderBook orderBook = hotBook(marketTicker);
         if (orderBook != null) {
             orderBook.removeZeroQuantityOrders();
         }
@@ -427,7 +616,7 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
     @Override
     public void onCrossDetected(String marketTicker, OrderBookEntry order) {
         // Log cross detection - in real implementation would trigger matching
-        System.out.println("Cross detected in market " + marketTicker + " for order " + order.getOrderId());
+        logger.debug("Cross detected in market {} for order {}", marketTicker, order.getOrderId());
     }
     
     // Helper methods
@@ -448,28 +637,27 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
     }
     
     private void publishOrderBookDelta(String marketTicker) {
-        ConcurrentOrderBook orderBook = orderBooks.get(marketTicker);
+        ConcurrentOrderBook orderBook = hotBook(marketTicker);
         if (orderBook == null) {
-            System.out.println("publishOrderBookDelta: No order book found for market " + marketTicker);
+            logger.debug("publishOrderBookDelta: No order book found for market {}", marketTicker);
             return;
         }
         
-        System.out.println("publishOrderBookDelta: Calculating deltas for market " + marketTicker);
-        
         // Calculate deltas from the order book
         List<ConcurrentOrderBook.PriceLevelDelta> deltas = orderBook.calculateDeltas();
         
-        System.out.println("publishOrderBookDelta: Market " + marketTicker + " calculated " + deltas.size() + " deltas");
+        logger.debug("publishOrderBookDelta: Market {} calculated {} deltas", marketTicker, deltas.size());
         
         // Publish delta events for each change
         for (ConcurrentOrderBook.PriceLevelDelta delta : deltas) {
-            System.out.println("publishOrderBookDelta: Publishing delta for " + marketTicker + 
-                              " - price: " + delta.getPrice() + ", delta: " + delta.getDelta() + ", side: " + delta.getSide());
+            logger.debug("publishOrderBookDelta: Publishing delta for {} - price: {}, delta: {}, side: {}",
+                         marketTicker, delta.getPrice(), delta.getDelta(), delta.getSide());
             
             OrderBookEvent.DeltaData deltaData = new OrderBookEvent.DeltaData(
                 delta.getPrice(),
                 delta.getDelta(),
-                delta.getSide()
+                delta.getSide(),
+                delta.getSequence()
             );
             OrderBookEvent event = new OrderBookEvent(
                 OrderBookEvent.EventType.DELTA,
@@ -484,20 +672,14 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
     }
     
     private void publishOrderBookSnapshot(String marketTicker) {
-        ConcurrentOrderBook orderBook = orderBooks.get(marketTicker);
+        ConcurrentOrderBook orderBook = hotBook(marketTicker);
         if (orderBook == null) {
             return;
         }
         
-        // Get current order book state in Kalshi format
-        OrderbookResponse.OrderbookData orderbookData = orderBook.getOrderbookSnapshotKalshiFormat(10);
-        
-        // Convert to list format for WebSocket - now with proper YES/NO separation
-        List<List<Integer>> yesLevels = orderbookData.getYes() != null ? orderbookData.getYes() : new ArrayList<>();
-        List<List<Integer>> noLevels = orderbookData.getNo() != null ? orderbookData.getNo() : new ArrayList<>();
-        
-        // Publish snapshot event with both YES and NO sides
-        OrderBookEvent.SnapshotData snapshotData = new OrderBookEvent.SnapshotData(yesLevels, noLevels);
+        // The levels the published deltas add up to, with the delta number they are as of,
+        // so the publisher can place the snapshot exactly in the market's delta stream
+        OrderBookEvent.SnapshotData snapshotData = toSnapshotData(orderBook.getDeltaStreamSnapshot());
         OrderBookEvent event = new OrderBookEvent(OrderBookEvent.EventType.SNAPSHOT, marketTicker, snapshotData);
         eventPublisher.publishEvent(event);
         
@@ -541,16 +723,225 @@ public class OrderBookService implements ConcurrentOrderBook.OrderBookListener {
     }
     
     public void publishInitialSnapshot(String marketTicker, String sessionId) {
-        publishOrderBookSnapshot(marketTicker);
+        // A subscription brings an idle book back so its deltas can be published
+        BookSlot slot = acquire(marketTicker);
+        if (slot == null) {
+            return;
+        }
+        try {
+            slot.hot.touch();
+            publishOrderBookSnapshot(marketTicker);
+        } finally {
+            release(slot);
+        }
     }
     
     /**
-     * Reset delta tracking for a specific market's order book
+     * Current snapshot of a market's delta stream, or null if the market has no live book
      */
-    public void resetOrderBookDeltaTracking(String marketTicker) {
-        ConcurrentOrderBook orderBook = orderBooks.get(marketTicker);
-        if (orderBook != null) {
-            orderBook.resetDeltaTracking();
+    public OrderBookEvent.SnapshotData getDeltaStreamSnapshot(String marketTicker) {
+        ConcurrentOrderBook orderBook = hotBook(marketTicker);
+        return orderBook != null ? toSnapshotData(orderBook.getDeltaStreamSnapshot()) : null;
+    }
+    
+    private OrderBookEvent.SnapshotData toSnapshotData(ConcurrentOrderBook.DeltaStreamSnapshot snapshot) {
+        OrderbookResponse.OrderbookData orderbookData = snapshot.getOrderbook();
+        return new OrderBookEvent.SnapshotData(orderbookData.getYes(), orderbookData.getNo(), snapshot.getSequence());
+    }
+    
+    /**
+     * Demote books idle past the threshold to their compact form. Books in use by an
+     * order or subscription at that moment are skipped until the next sweep.
+     */
+    @Scheduled(fixedDelayString = "${orderbook.tiering.sweep-interval-ms:60000}")
+    public void demoteIdleBooks() {
+        if (idleThresholdMillis <= 0) {
+            return;
+        }
+        
+        long cutoff = System.currentTimeMillis() - idleThresholdMillis;
+        int demoted = 0;
+        for (BookSlot slot : orderBooks.values()) {
+            slot.lock.lock();
+            try {
+                ConcurrentOrderBook orderBook = slot.hot;
+                if (orderBook == null || slot.pins > 0 || orderBook.getLastActivityTime() > cutoff) {
+                    continue;
+                }
+                orderBook.removeListener(this);
+                slot.cold = CompactOrderBook.encode(orderBook);
+                slot.coldVersion = orderBook.getVersion();
+                slot.coldDeltaSequence = orderBook.getDeltaSequence();
+                slot.hot = null;
+            } finally {
+                slot.lock.unlock();
+            }
+            demoted++;
+        }
+        
+        if (demoted > 0) {
+            demotions.addAndGet(demoted);
+            logger.info("Demoted {} idle order books to compact form", demoted);
+        }
+    }
+    
+    /**
+     * Book counts and sizes per tier, plus promotion/demotion totals since startup
+     */
+    public Map<String, Long> getTierStatistics() {
+        long hot = 0;
+        long cold = 0;
+        long coldBytes = 0;
+        for (BookSlot slot : orderBooks.values()) {
+            slot.lock.lock();
+            try {
+                if (slot.hot != null) {
+                    hot++;
+                } else if (slot.cold != null) {
+                    cold++;
+                    coldBytes += slot.cold.length;
+                }
+            } finally {
+                slot.lock.unlock();
+            }
+        }
+        
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hot_books", hot);
+        stats.put("cold_books", cold);
+        stats.put("cold_bytes", coldBytes);
+        stats.put("promotions", promotions.get());
+        stats.put("demotions", demotions.get());
+        return stats;
+    }
+    
+    /**
+     * Pin a market's book for an order or subscription, rehydrating it first if it is cold
+     *
+     * @return the slot with a live book, or null if the market has no book
+     */
+    private BookSlot acquire(String marketTicker) {
+        BookSlot slot = orderBooks.get(marketTicker);
+        if (slot == null) {
+            return null;
+        }
+        slot.lock.lock();
+        try {
+            if (slot.closing) {
+                return null;
+            }
+            if (slot.hot == null) {
+                if (slot.cold == null) {
+                    return null; // closed while we were looking it up
+                }
+                ConcurrentOrderBook orderBook = CompactOrderBook.decode(marketTicker, slot.cold);
+                orderBook.restoreVersion(slot.coldVersion);
+                orderBook.restoreDeltaSequence(slot.coldDeltaSequence);
+                orderBook.addListener(this);
+                slot.hot = orderBook;
+                slot.cold = null;
+                promotions.incrementAndGet();
+            }
+            slot.pins++;
+            return slot;
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+    
+    private void release(BookSlot slot) {
+        slot.lock.lock();
+        try {
+            slot.pins--;
+            if (slot.pins == 0 && slot.closing) {
+                slot.unpinned.signalAll();
+            }
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+    
+    /**
+     * The live book for a market, or null if it is missing or cold
+     */
+    private ConcurrentOrderBook hotBook(String marketTicker) {
+        BookSlot slot = orderBooks.get(marketTicker);
+        return slot != null ? slot.hot : null;
+    }
+    
+    /**
+     * A book to read snapshots from; cold books are decoded into a throwaway copy
+     * so that reads do not promote them
+     */
+    private ConcurrentOrderBook readBook(String marketTicker) {
+        BookSlot slot = orderBooks.get(marketTicker);
+        if (slot == null) {
+            return null;
+        }
+        ConcurrentOrderBook hot;
+        byte[] cold;
+        long coldVersion;
+        slot.lock.lock();
+        try {
+            hot = slot.hot;
+            cold = slot.cold;
+            coldVersion = slot.coldVersion;
+        } finally {
+            slot.lock.unlock();
+        }
+        if (hot != null) {
+            return hot;
+        }
+        if (cold == null) {
+            return null;
+        }
+        ConcurrentOrderBook copy = CompactOrderBook.decode(marketTicker, cold);
+        copy.restoreVersion(coldVersion);
+        return copy;
+    }
+    
+    /**
+     * Receives the executions of each matched order, after trades are persisted
+     */
+    public interface ExecutionListener {
+        void onExecutions(String marketTicker, List<Execution> executions);
+    }
+    
+    /**
+     * An accepted order together with the executions it produced as the aggressor
+     */
+    public static class OrderResult {
+        private final Order order;
+        private final List<Execution> executions;
+        
+        public OrderResult(Order order, List<Execution> executions) {
+            this.order = order;
+            this.executions = executions;
+        }
+        
+        public Order getOrder() { return order; }
+        public List<Execution> getExecutions() { return executions; }
+    }
+    
+    /**
+     * One market's book in whichever tier it currently lives. Tier changes and pins
+     * are guarded by the slot's lock; closing waits on its condition for the pins to drain.
+     */
+    private static class BookSlot {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition unpinned = lock.newCondition();
+        private volatile ConcurrentOrderBook hot;
+        private byte[] cold;
+        // Version of the book when it was demoted, restored when it is decoded
+        private long coldVersion;
+        // Last delta number published before demotion, so the market's delta stream continues
+        private long coldDeltaSequence;
+        private int pins;
+        // Set once the market starts closing; no further pins are handed out
+        private boolean closing;
+        
+        private BookSlot(ConcurrentOrderBook hot) {
+            this.hot = hot;
         }
     }
     
@@ -0,0 +1,142 @@
+package com.kalshi.mock.service;
+
+import com.kalshi.mock.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Prioritized intake in front of the matching engine.
+ *
+ * Key features:
+ * - Requests run on the caller's thread; each market admits one request at a time
+ * - Waiting cancels and reduce-only orders go ahead of waiting new orders, FIFO within a lane
+ * - Markets never wait on each other, so a slow market only holds up its own callers
+ * - New orders waiting per market are bounded; past that they are refused with a retry hint, priority work never is
+ * - Queue depths and executed/rejected counts are published as order.intake.* metrics
+ */
+@Service
+public class OrderIntakeService implements MeterBinder {
+
+    public enum Lane { PRIORITY, NORMAL }
+
+    // New orders allowed to wait on one market before further new orders are refused
+    @Value("${order-intake.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${order-intake.retry-after-ms:1000}")
+    private long retryAfterMillis;
+
+    private final Map<String, MarketLane> lanes = new ConcurrentHashMap<>();
+
+    private final AtomicLong queuedPriority = new AtomicLong();
+    private final AtomicLong queuedNormal = new AtomicLong();
+    private final AtomicLong executedPriority = new AtomicLong();
+    private final AtomicLong executedNormal = new AtomicLong();
+    private final AtomicLong rejectedQueueFull = new AtomicLong();
+
+    /**
+     * Run a request for a market once it is the market's turn, on the calling thread.
+     * Runtime exceptions thrown by the request are rethrown to the caller unchanged.
+     */
+    public <T> T submit(String marketTicker, Lane lane, Supplier<T> request) {
+        MarketLane market = lanes.computeIfAbsent(marketTicker, ticker -> new MarketLane());
+        market.enter(marketTicker, lane);
+        try {
+            return request.get();
+        } finally {
+            market.exit();
+        }
+    }
+
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("queued_priority", queuedPriority.get());
+        stats.put("queued_normal", queuedNormal.get());
+        stats.put("executed_priority", executedPriority.get());
+        stats.put("executed_normal", executedNormal.get());
+        stats.put("rejected_queue_full", rejectedQueueFull.get());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("order.intake.queued", queuedPriority, AtomicLong::get)
+            .tag("lane", "priority").description("Requests waiting for their market").register(registry);
+        Gauge.builder("order.intake.queued", queuedNormal, AtomicLong::get)
+            .tag("lane", "normal").description("Requests waiting for their market").register(registry);
+        FunctionCounter.builder("order.intake.executed", executedPriority, AtomicLong::get)
+            .tag("lane", "priority").register(registry);
+        FunctionCounter.builder("order.intake.executed", executedNormal, AtomicLong::get)
+            .tag("lane", "normal").register(registry);
+        FunctionCounter.builder("order.intake.rejected", rejectedQueueFull, AtomicLong::get)
+            .tag("reason", "queue_full").register(registry);
+    }
+
+    /**
+     * Turn-taking for one market. Each lane hands out tickets and serves them in order;
+     * a new order only gets its turn when no cancel is waiting.
+     */
+    private final class MarketLane {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition turn = lock.newCondition();
+        private boolean busy;
+        private long nextPriority;
+        private long servingPriority;
+        private long nextNormal;
+        private long servingNormal;
+
+        void enter(String marketTicker, Lane lane) {
+            lock.lock();
+            try {
+                if (lane == Lane.PRIORITY) {
+                    long ticket = nextPriority++;
+                    queuedPriority.incrementAndGet();
+                    while (busy || ticket != servingPriority) {
+                        turn.awaitUninterruptibly();
+                    }
+                    servingPriority++;
+                    queuedPriority.decrementAndGet();
+                    executedPriority.incrementAndGet();
+                } else {
+                    if (nextNormal - servingNormal >= queueCapacity) {
+                        rejectedQueueFull.incrementAndGet();
+                        throw new RateLimitExceededException("Order intake queue full for market " + marketTicker, retryAfterMillis);
+                    }
+                    long ticket = nextNormal++;
+                    queuedNormal.incrementAndGet();
+                    while (busy || ticket != servingNormal || servingPriority != nextPriority) {
+                        turn.awaitUninterruptibly();
+                    }
+                    servingNormal++;
+                    queuedNormal.decrementAndGet();
+                    executedNormal.incrementAndGet();
+                }
+                busy = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void exit() {
+            lock.lock();
+            try {
+                busy = false;
+                turn.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -7,16 +7,25 @@ import com.kalshi.mock.websocket.dto.OrderUpdateMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
- * Service for tracking all orders in memory and broadcasting order updates via WebSocket
+ * Service for tracking orders in memory and broadcasting order updates via WebSocket.
+ *
+ * Key features:
+ * - Holds every open and partially filled order, indexed by market, user and status
+ * - Filled and canceled orders stay cached for a bounded LRU window, then are evicted
+ * - Only active orders are loaded at startup; lookups of evicted orders fall through to the database
+ * - Hit, miss, eviction and size counters for the working set
  */
 @Service
 public class OrderTrackingService {
@@ -45,26 +54,43 @@ public class OrderTrackingService {
     // Map<Status, Set<OrderId>>
     private final Map<String, Set<String>> ordersByStatus = new ConcurrentHashMap<>();
     
+    private static final Set<String> ACTIVE_STATUSES = Set.of("open", "partially_filled");
+    
+    // Terminal orders still held in memory, least recently used first
+    // Map<OrderId, last access time>; guarded by its own monitor
+    private final LinkedHashMap<String, Long> terminalOrders = new LinkedHashMap<>(16, 0.75f, true);
+    
+    // Maximum number of filled/canceled orders kept in memory
+    @Value("${order-tracking.terminal-capacity:10000}")
+    private int terminalCapacity;
+    
+    // Filled/canceled orders not looked at for this long are evicted
+    @Value("${order-tracking.terminal-ttl-ms:3600000}")
+    private long terminalTtlMillis;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    
     @PostConstruct
     public void initialize() {
-        logger.info("Initializing OrderTrackingService - loading all orders from database");
-        loadAllOrdersFromDatabase();
+        logger.info("Initializing OrderTrackingService - loading active orders from database");
+        loadActiveOrdersFromDatabase();
         logger.info("OrderTrackingService initialized with {} orders", ordersById.size());
     }
     
     /**
-     * Load all orders from database into memory on startup
+     * Load open and partially filled orders into memory on startup; history is read on demand
      */
-    private void loadAllOrdersFromDatabase() {
+    private void loadActiveOrdersFromDatabase() {
         try {
-            // Get all orders from database
-            List<Order> allOrders = persistenceService.getAllOrders();
+            List<Order> activeOrders = persistenceService.getActiveOrders();
             
-            for (Order order : allOrders) {
+            for (Order order : activeOrders) {
                 addOrderToMemory(order);
             }
             
-            logger.info("Loaded {} orders from database into memory", allOrders.size());
+            logger.info("Loaded {} active orders from database into memory", activeOrders.size());
             logOrderStatistics();
             
         } catch (Exception e) {
@@ -77,6 +103,7 @@ public class OrderTrackingService {
      */
     public void trackNewOrder(Order order, String action) {
         addOrderToMemory(order);
+        retainIfTerminal(order);
         
         // Publish order update event
         OrderUpdateMessage updateMessage = createOrderUpdateMessage(order, action, OrderUpdateEvent.OrderUpdateType.NEW);
@@ -108,6 +135,7 @@ public class OrderTrackingService {
         
         // Ensure it's in all indexes
         addOrderToIndexes(updatedOrder);
+        retainIfTerminal(updatedOrder);
         
         // Publish order update event
         OrderUpdateMessage updateMessage = createOrderUpdateMessage(updatedOrder, action, updateType);
@@ -121,6 +149,9 @@ public class OrderTrackingService {
      * Remove an order from tracking (for canceled orders)
      */
     public void removeOrder(String orderId) {
+        synchronized (terminalOrders) {
+            terminalOrders.remove(orderId);
+        }
         Order order = ordersById.remove(orderId);
         if (order != null) {
             removeOrderFromIndexes(order);
@@ -129,29 +160,33 @@ public class OrderTrackingService {
     }
     
     /**
-     * Get all orders for a specific market
+     * Get up to limit orders for a market with the given status (null for all). Active statuses
+     * are served from memory; anything that may include evicted orders is read from the database,
+     * newest first, with the limit applied in the query.
      */
-    public List<Order> getOrdersForMarket(String marketTicker) {
-        Set<String> orderIds = ordersByMarket.getOrDefault(marketTicker, Collections.emptySet());
-        return orderIds.stream()
-                .map(ordersById::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+    public List<Order> getOrdersForMarket(String marketTicker, String status, int limit) {
+        if (status != null && ACTIVE_STATUSES.contains(status)) {
+            hits.incrementAndGet();
+            return filterByStatus(ordersByMarket.getOrDefault(marketTicker, Collections.emptySet()), status, limit);
+        }
+        misses.incrementAndGet();
+        return persistenceService.getMarketOrders(marketTicker, status, limit);
     }
     
     /**
-     * Get all orders for a specific user
+     * Get up to limit orders for a user with the given status (null for all); see getOrdersForMarket
      */
-    public List<Order> getOrdersForUser(String userId) {
-        Set<String> orderIds = ordersByUser.getOrDefault(userId, Collections.emptySet());
-        return orderIds.stream()
-                .map(ordersById::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+    public List<Order> getOrdersForUser(String userId, String status, int limit) {
+        if (status != null && ACTIVE_STATUSES.contains(status)) {
+            hits.incrementAndGet();
+            return filterByStatus(ordersByUser.getOrDefault(userId, Collections.emptySet()), status, limit);
+        }
+        misses.incrementAndGet();
+        return persistenceService.getUserOrdersBefore(userId, null, status, null, null, limit);
     }
     
     /**
-     * Get orders by status
+     * Get in-memory orders by status; for filled/canceled only the retained window is returned
      */
     public List<Order> getOrdersByStatus(String status) {
         Set<String> orderIds = ordersByStatus.getOrDefault(status, Collections.emptySet());
@@ -162,14 +197,31 @@ public class OrderTrackingService {
     }
     
     /**
-     * Get order by ID
+     * Get order by ID, loading it from the database if it is not in memory
      */
     public Order getOrder(String orderId) {
-        return ordersById.get(orderId);
+        Order order = ordersById.get(orderId);
+        if (order != null) {
+            hits.incrementAndGet();
+            if (!ACTIVE_STATUSES.contains(order.getStatus())) {
+                synchronized (terminalOrders) {
+                    terminalOrders.computeIfPresent(orderId, (id, lastAccess) -> System.currentTimeMillis());
+                }
+            }
+            return order;
+        }
+        
+        misses.incrementAndGet();
+        order = persistenceService.getOrder(orderId);
+        if (order != null) {
+            addOrderToMemory(order);
+            retainIfTerminal(order);
+        }
+        return order;
     }
     
     /**
-     * Get all orders
+     * Get all orders currently held in memory
      */
     public Collection<Order> getAllOrders() {
         return new ArrayList<>(ordersById.values());
@@ -188,6 +240,86 @@ public class OrderTrackingService {
         return stats;
     }
     
+    /**
+     * Get working set size and hit/miss counters
+     */
+    public Map<String, Long> getCacheStatistics() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        int terminal;
+        synchronized (terminalOrders) {
+            terminal = terminalOrders.size();
+        }
+        stats.put("size", (long) ordersById.size());
+        stats.put("terminal_size", (long) terminal);
+        stats.put("terminal_capacity", (long) terminalCapacity);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+    
+    /**
+     * Evict filled and canceled orders that have not been touched within the retention window
+     */
+    @Scheduled(fixedDelayString = "${order-tracking.terminal-sweep-interval-ms:60000}")
+    public void evictExpiredOrders() {
+        long cutoff = System.currentTimeMillis() - terminalTtlMillis;
+        List<String> expired = new ArrayList<>();
+        synchronized (terminalOrders) {
+            Iterator<Map.Entry<String, Long>> it = terminalOrders.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                if (entry.getValue() > cutoff) {
+                    break;
+                }
+                expired.add(entry.getKey());
+                it.remove();
+            }
+        }
+        expired.forEach(this::evict);
+        if (!expired.isEmpty()) {
+            logger.debug("Evicted {} expired terminal orders", expired.size());
+        }
+    }
+    
+    /**
+     * Record a filled/canceled order in the LRU window, evicting the oldest beyond capacity
+     */
+    private void retainIfTerminal(Order order) {
+        if (ACTIVE_STATUSES.contains(order.getStatus())) {
+            return;
+        }
+        List<String> overflow = new ArrayList<>();
+        synchronized (terminalOrders) {
+            terminalOrders.put(order.getId(), System.currentTimeMillis());
+            Iterator<String> it = terminalOrders.keySet().iterator();
+            while (terminalOrders.size() > terminalCapacity && it.hasNext()) {
+                overflow.add(it.next());
+                it.remove();
+            }
+        }
+        overflow.forEach(this::evict);
+    }
+    
+    private void evict(String orderId) {
+        Order order = ordersById.get(orderId);
+        // An order can only leave memory once it is terminal
+        if (order != null && !ACTIVE_STATUSES.contains(order.getStatus()) && ordersById.remove(orderId, order)) {
+            removeOrderFromIndexes(order);
+            evictions.incrementAndGet();
+        }
+    }
+    
+    private List<Order> filterByStatus(Set<String> orderIds, String status, int limit) {
+        return orderIds.stream()
+                .map(ordersById::get)
+                .filter(Objects::nonNull)
+                .filter(o -> status.equals(o.getStatus()))
+                .sorted(Comparator.comparingLong(Order::getCreated_time).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+    
     private void addOrderToMemory(Order order) {
         ordersById.put(order.getId(), order);
         addOrderToIndexes(order);
@@ -4,6 +4,7 @@ import com.fbg.api.market.KalshiSide;
 import com.fbg.api.rest.Fill;
 import com.fbg.api.rest.Order;
 import com.fbg.api.rest.Position;
+import com.fbg.api.rest.Trade;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -12,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -22,6 +24,10 @@ public class PersistenceService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
     
+    // Knows how far back partitioned history reaches before it has been archived
+    @Autowired
+    private HistoryPartitionService historyPartitionService;
+    
     // Order RowMapper
     private final RowMapper<Order> orderRowMapper = new RowMapper<Order>() {
         @Override
@@ -66,6 +72,25 @@ public class PersistenceService {
         }
     };
     
+    // Trade RowMapper (trades are reported from the taker's side)
+    private final RowMapper<Trade> tradeRowMapper = new RowMapper<Trade>() {
+        @Override
+        public Trade mapRow(ResultSet rs, int rowNum) throws SQLException {
+            String takerSide = rs.getString("taker_side");
+            return new Trade(
+                rs.getString("trade_id"),
+                rs.getString("market_ticker"),
+                rs.getString("market_ticker"),
+                rs.getInt("price"),
+                rs.getInt("quantity"),
+                takerSide != null ? KalshiSide.valueOf(takerSide) : KalshiSide.yes,
+                rs.getLong("created_time"),
+                null,
+                null
+            );
+        }
+    };
+    
     // Position RowMapper
     private final RowMapper<Position> positionRowMapper = new RowMapper<Position>() {
         @Override
@@ -175,10 +200,62 @@ public class PersistenceService {
         return jdbcTemplate.query(sql, orderRowMapper, userId, status);
     }
     
+    /**
+     * A user's orders strictly older than (beforeTime, beforeOrderId), newest first
+     */
+    public List<Order> getUserOrdersBefore(String userId, String marketTicker, String status,
+                                           Long beforeTime, String beforeOrderId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM orders WHERE user_id = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        
+        if (marketTicker != null) {
+            sql.append(" AND market_ticker = ?");
+            params.add(marketTicker);
+        }
+        
+        if (status != null) {
+            sql.append(" AND status = ?");
+            params.add(status);
+        }
+        
+        if (beforeTime != null) {
+            sql.append(" AND (created_time < ? OR (created_time = ? AND order_id < ?))");
+            params.add(beforeTime);
+            params.add(beforeTime);
+            params.add(beforeOrderId != null ? beforeOrderId : "");
+        }
+        
+        sql.append(" ORDER BY created_time DESC, order_id DESC LIMIT ?");
+        params.add(limit);
+        
+        return jdbcTemplate.query(sql.toString(), orderRowMapper, params.toArray());
+    }
+    
     public List<Order> getAllOrders() {
         String sql = "SELECT * FROM orders ORDER BY created_time DESC";
         return jdbcTemplate.query(sql, orderRowMapper);
     }
+
+    /**
+     * Orders that can still trade (open or partially filled)
+     */
+    public List<Order> getActiveOrders() {
+        String sql = "SELECT * FROM orders WHERE status IN ('open', 'partially_filled') ORDER BY created_time DESC";
+        return jdbcTemplate.query(sql, orderRowMapper);
+    }
+
+    /**
+     * A market's newest orders with the given status (null for all), at most limit of them
+     */
+    public List<Order> getMarketOrders(String marketTicker, String status, int limit) {
+        if (status == null) {
+            String sql = "SELECT * FROM orders WHERE market_ticker = ? ORDER BY created_time DESC, order_id DESC LIMIT ?";
+            return jdbcTemplate.query(sql, orderRowMapper, marketTicker, limit);
+        }
+        String sql = "SELECT * FROM orders WHERE market_ticker = ? AND status = ? ORDER BY created_time DESC, order_id DESC LIMIT ?";
+        return jdbcTemplate.query(sql, orderRowMapper, marketTicker, status, limit);
+    }
     
     public List<Map<String, Object>> getOpenOrdersForMarket(String marketTicker) {
         // Only load orders from the last two days and exclude canceled orders
@@ -233,7 +310,51 @@ public class PersistenceService {
         }
     }
     
+    /**
+     * Cancel every resting order in a market with a single statement.
+     * Returns the canceled orders with their actions so owners can be notified.
+     */
+    @Transactional
+    public List<CanceledOrder> cancelOpenOrdersForMarket(String marketTicker) {
+        String sql = """
+            UPDATE orders SET 
+                status = 'canceled', 
+                remaining_quantity = 0,
+                updated_time = ?
+            WHERE market_ticker = ? AND status IN ('open', 'partially_filled')
+            RETURNING *
+        """;
+        
+        List<CanceledOrder> canceled = new ArrayList<>();
+        jdbcTemplate.query(sql, rs -> {
+            canceled.add(new CanceledOrder(orderRowMapper.mapRow(rs, rs.getRow()), rs.getString("action")));
+        }, System.currentTimeMillis(), marketTicker);
+        return canceled;
+    }
+    
+    /**
+     * An order canceled in bulk, with the action needed for its order update message
+     */
+    public static class CanceledOrder {
+        private final Order order;
+        private final String action;
+        
+        public CanceledOrder(Order order, String action) {
+            this.order = order;
+            this.action = action;
+        }
+        
+        public Order getOrder() { return order; }
+        public String getAction() { return action; }
+    }
+    
     // Fill operations
+    
+    /**
+     * Insert a fill. On PostgreSQL the primary key is (fill_id, filled_time), as a partitioned
+     * table's key must include its partition column; fill_ids come from the matching engine's
+     * generator, so they are not checked against every partition here.
+     */
     @Transactional
     public void saveFill(Fill fill, String userId) {
         String sql = """
@@ -258,28 +379,82 @@ public class PersistenceService {
         );
     }
     
+    /**
+     * A user's fills not yet archived, newest first
+     */
     public List<Fill> getUserFills(String userId) {
-        String sql = "SELECT * FROM fills WHERE user_id = ? ORDER BY filled_time DESC";
-        return jdbcTemplate.query(sql, fillRowMapper, userId);
+        String sql = "SELECT * FROM fills WHERE user_id = ? AND filled_time >= ? ORDER BY filled_time DESC";
+        return jdbcTemplate.query(sql, fillRowMapper, userId, historyStart());
+    }
+    
+    /**
+     * A user's fills strictly older than (beforeTime, beforeFillId) and not yet archived,
+     * newest first
+     */
+    public List<Fill> getUserFillsBefore(String userId, String marketTicker, String orderId,
+                                         Long beforeTime, String beforeFillId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM fills WHERE user_id = ? AND filled_time >= ?");
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        params.add(historyStart());
+        
+        if (marketTicker != null) {
+            sql.append(" AND market_ticker = ?");
+            params.add(marketTicker);
+        }
+        
+        if (orderId != null) {
+            sql.append(" AND order_id = ?");
+            params.add(orderId);
+        }
+        
+        if (beforeTime != null) {
+            sql.append(" AND (filled_time < ? OR (filled_time = ? AND fill_id < ?))");
+            params.add(beforeTime);
+            params.add(beforeTime);
+            params.add(beforeFillId != null ? beforeFillId : "");
+        }
+        
+        sql.append(" ORDER BY filled_time DESC, fill_id DESC LIMIT ?");
+        params.add(limit);
+        
+        return jdbcTemplate.query(sql.toString(), fillRowMapper, params.toArray());
     }
     
     public List<Fill> getUserFillsByMarket(String userId, String marketTicker) {
-        String sql = "SELECT * FROM fills WHERE user_id = ? AND market_ticker = ? ORDER BY filled_time DESC";
-        return jdbcTemplate.query(sql, fillRowMapper, userId, marketTicker);
+        String sql = "SELECT * FROM fills WHERE user_id = ? AND market_ticker = ? AND filled_time >= ? ORDER BY filled_time DESC";
+        return jdbcTemplate.query(sql, fillRowMapper, userId, marketTicker, historyStart());
+    }
+    
+    /**
+     * An order's fills, newest first. An order cannot fill before it was created, so its
+     * created time bounds the search to the partitions that can hold them.
+     */
+    public List<Fill> getFillsByOrderId(String orderId, long orderCreatedTime) {
+        String sql = "SELECT * FROM fills WHERE order_id = ? AND filled_time >= ? ORDER BY filled_time DESC";
+        return jdbcTemplate.query(sql, fillRowMapper, orderId, orderCreatedTime);
     }
     
-    public List<Fill> getFillsByOrderId(String orderId) {
-        String sql = "SELECT * FROM fills WHERE order_id = ? ORDER BY filled_time DESC";
-        return jdbcTemplate.query(sql, fillRowMapper, orderId);
+    /**
+     * Lower bound for fill reads: the archive cut-off on partitioned tables, so only retained
+     * partitions are scanned, and 0 where nothing is ever archived
+     */
+    private long historyStart() {
+        return historyPartitionService.retainedSince("fills");
     }
     
     // Position operations
+    /**
+     * Apply a signed quantity change to a position, creating it if needed
+     *
+     * @return the position as written
+     */
     @Transactional
-    public void updatePosition(String userId, String marketId, String marketTicker, 
+    public Position updatePosition(String userId, String marketId, String marketTicker, 
                               KalshiSide side, int quantityChange, int price) {
         // First try to get existing position
         String selectSql = """
-            SELECT quantity, avg_price, total_cost 
+            SELECT market_id, quantity, avg_price, total_cost, realized_pnl 
             FROM positions 
             WHERE user_id = ? AND market_ticker = ? AND side = ?
         """;
@@ -300,6 +475,7 @@ public class PersistenceService {
                 userId, marketId, marketTicker, quantityChange, price,
                 side.name(), 0, totalCost, System.currentTimeMillis()
             );
+            return new Position(marketId, marketTicker, quantityChange, price, side, 0, totalCost);
         } else {
             // Update existing position
             Map<String, Object> currentPosition = results.get(0);
@@ -346,6 +522,8 @@ public class PersistenceService {
                 newQuantity, newAvgPrice, newTotalCost, System.currentTimeMillis(),
                 userId, marketTicker, side.name()
             );
+            return new Position((String) currentPosition.get("market_id"), marketTicker, newQuantity,
+                newAvgPrice, side, (int) currentPosition.get("realized_pnl"), newTotalCost);
         }
     }
     
@@ -371,6 +549,17 @@ public class PersistenceService {
     @Transactional
     public void saveTrade(String tradeId, String marketTicker, String aggressiveOrderId, 
                          String passiveOrderId, int quantity, int price) {
+        saveTrade(tradeId, marketTicker, aggressiveOrderId, passiveOrderId, quantity, price, System.currentTimeMillis());
+    }
+    
+    /**
+     * Save a trade stamped with its execution time, so the row sorts the same
+     * way as the in-memory trade tape entry for it. Like fill_ids, trade_ids come from the
+     * matching engine and are not checked against the partitioned table's (trade_id, created_time) key.
+     */
+    @Transactional
+    public void saveTrade(String tradeId, String marketTicker, String aggressiveOrderId, 
+                         String passiveOrderId, int quantity, int price, long createdTime) {
         String sql = """
             INSERT INTO trades (
                 trade_id, market_ticker, taker_order_id, maker_order_id,
@@ -380,7 +569,51 @@ public class PersistenceService {
         
         jdbcTemplate.update(sql,
             tradeId, marketTicker, aggressiveOrderId, passiveOrderId,
-            price, quantity, System.currentTimeMillis()
+            price, quantity, createdTime
         );
     }
+    
+    /**
+     * Trade history newest-first, strictly older than the (beforeTime, beforeTradeId) keyset.
+     * Used for history that has already rolled off the in-memory trade tape.
+     */
+    public List<Trade> getTradesBefore(String marketTicker, Long minTs, Long maxTs,
+                                       Long beforeTime, String beforeTradeId, int limit) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT t.trade_id, t.market_ticker, t.price, t.quantity, t.created_time,
+                   ao.side AS taker_side
+            FROM trades t
+            LEFT JOIN orders ao ON t.taker_order_id = ao.order_id
+            WHERE 1=1
+        """);
+        
+        List<Object> params = new ArrayList<>();
+        
+        if (marketTicker != null) {
+            sql.append(" AND t.market_ticker = ?");
+            params.add(marketTicker);
+        }
+        
+        if (minTs != null) {
+            sql.append(" AND t.created_time >= ?");
+            params.add(minTs);
+        }
+        
+        if (maxTs != null) {
+            sql.append(" AND t.created_time <= ?");
+            params.add(maxTs);
+        }
+        
+        if (beforeTime != null) {
+            sql.append(" AND (t.created_time < ? OR (t.created_time = ? AND t.trade_id < ?))");
+            params.add(beforeTime);
+            params.add(beforeTime);
+            params.add(beforeTradeId != null ? beforeTradeId : "");
+        }
+        
+        sql.append(" ORDER BY t.created_time DESC, t.trade_id DESC LIMIT ?");
+        params.add(limit);
+        
+        return jdbcTemplate.query(sql.toString(), tradeRowMapper, params.toArray());
+    }
 }
\ No newline at end of file
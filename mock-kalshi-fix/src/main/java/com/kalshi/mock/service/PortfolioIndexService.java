@@ -0,0 +1,475 @@
+package com.kalshi.mock.service;
+
+import com.fbg.api.market.KalshiSide;
+import com.fbg.api.rest.Fill;
+import com.fbg.api.rest.Order;
+import com.fbg.api.rest.Position;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory per-user orders, fills and positions behind the portfolio endpoints.
+ *
+ * Key features:
+ * - Orders and fills are held newest first in skip lists keyed by (time, id)
+ * - Every active order is held; filled/canceled orders and fills are kept for a recent window per user
+ * - Keyset cursors; a page that runs past a user's window continues from the database by keyset
+ * - A fill's position is taken as written by the positions update, with no read back
+ * - Users are loaded on first request and then kept current by the matching path
+ * - Users not read for a while are dropped and loaded again on their next request
+ * - Loads and updates for a user are serialized by that user's lock; no database call runs inside
+ *   a map operation, so one user's queries never hold up another's
+ */
+@Service
+public class PortfolioIndexService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PortfolioIndexService.class);
+
+    private static final Set<String> ACTIVE_STATUSES = Set.of("open", "partially_filled");
+
+    private static final String ORDER_CURSOR_PREFIX = "po:";
+    private static final String FILL_CURSOR_PREFIX = "pf:";
+
+    @Autowired
+    private PersistenceService persistenceService;
+
+    // Filled/canceled orders kept in memory per user, newest first
+    @Value("${portfolio.index.recent-orders-per-user:500}")
+    private int recentOrdersPerUser;
+
+    @Value("${portfolio.index.recent-fills-per-user:500}")
+    private int recentFillsPerUser;
+
+    // Users whose portfolio has not been read for this long are dropped from memory
+    @Value("${portfolio.index.idle-ttl-ms:1800000}")
+    private long idleTtlMillis;
+
+    // Users being loaded or loaded; an entry is published before its load runs, with its lock held
+    private final Map<String, UserIndex> users = new ConcurrentHashMap<>();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Record a new or updated order for users whose portfolio is loaded
+     */
+    public void onOrder(Order order) {
+        UserIndex index = users.get(order.getUser_id());
+        if (index == null) {
+            return;
+        }
+        index.lock.lock();
+        try {
+            // A failed load left nothing to update; the next load reads the order from the database
+            if (index.loaded) {
+                index.orders.put(order, recentOrdersPerUser);
+            }
+        } finally {
+            index.lock.unlock();
+        }
+    }
+
+    /**
+     * Record a fill and the position it left, for users whose portfolio is loaded
+     *
+     * @param position the position as written for this fill, or null if there is none
+     */
+    public void onFill(Fill fill, String userId, Position position) {
+        UserIndex index = users.get(userId);
+        if (index == null) {
+            return;
+        }
+        index.lock.lock();
+        try {
+            if (!index.loaded) {
+                return;
+            }
+            index.fills.put(fill, recentFillsPerUser);
+            String positionKey = positionKey(fill.getMarket_ticker(), fill.getSide());
+            if (position == null || position.getQuantity() == 0) {
+                index.positions.remove(positionKey);
+            } else {
+                index.positions.put(positionKey, position);
+            }
+        } finally {
+            index.lock.unlock();
+        }
+    }
+
+    /**
+     * A page of a user's orders, newest first
+     *
+     * @param cursor cursor from a previous page, or null for the first page
+     */
+    public Page<Order> getOrders(String userId, String marketTicker, String status, String cursor, int limit) {
+        validateLimit(limit);
+        Key after = decodeCursor(cursor, ORDER_CURSOR_PREFIX);
+        UserIndex index = index(userId);
+
+        Predicate<Order> filter = o -> (marketTicker == null || marketTicker.equals(o.getSymbol()))
+            && (status == null || status.equals(o.getStatus()));
+        // Every active order is in memory, so an active-status query never needs the database
+        boolean complete = status != null && ACTIVE_STATUSES.contains(status);
+
+        Key floor = complete ? null : index.orders.floor;
+        List<Order> orders = index.orders.page(after, floor, filter, limit);
+        Key continueBefore = continueBefore(after, floor, orders.size(), limit);
+        if (continueBefore != null) {
+            orders.addAll(persistenceService.getUserOrdersBefore(userId, marketTicker, status,
+                continueBefore.time, continueBefore.id, limit - orders.size()));
+        }
+        return new Page<>(orders, orders.size() == limit
+            ? encodeCursor(ORDER_CURSOR_PREFIX, orderKey(orders.get(orders.size() - 1))) : null);
+    }
+
+    /**
+     * A page of a user's fills, newest first
+     *
+     * @param cursor cursor from a previous page, or null for the first page
+     */
+    public Page<Fill> getFills(String userId, String marketTicker, String orderId, String cursor, int limit) {
+        validateLimit(limit);
+        Key after = decodeCursor(cursor, FILL_CURSOR_PREFIX);
+        UserIndex index = index(userId);
+
+        Predicate<Fill> filter = f -> (marketTicker == null || marketTicker.equals(f.getMarket_ticker()))
+            && (orderId == null || orderId.equals(f.getOrder_id()));
+
+        Key floor = index.fills.floor;
+        List<Fill> fills = index.fills.page(after, floor, filter, limit);
+        Key continueBefore = continueBefore(after, floor, fills.size(), limit);
+        if (continueBefore != null) {
+            fills.addAll(persistenceService.getUserFillsBefore(userId, marketTicker, orderId,
+                continueBefore.time, continueBefore.id, limit - fills.size()));
+        }
+        return new Page<>(fills, fills.size() == limit
+            ? encodeCursor(FILL_CURSOR_PREFIX, fillKey(fills.get(fills.size() - 1))) : null);
+    }
+
+    /**
+     * A user's non-zero positions ordered by market ticker and side
+     */
+    public List<Position> getPositions(String userId) {
+        return new ArrayList<>(index(userId).positions.values());
+    }
+
+    /**
+     * Drop users whose portfolio has not been read within the idle window
+     */
+    @Scheduled(fixedDelayString = "${portfolio.index.sweep-interval-ms:60000}")
+    public void evictIdleUsers() {
+        long cutoff = System.currentTimeMillis() - idleTtlMillis;
+        int evicted = 0;
+        for (Map.Entry<String, UserIndex> entry : users.entrySet()) {
+            UserIndex index = entry.getValue();
+            // A user that is loading or being updated is busy, not idle
+            if (index.lastAccess > cutoff || !index.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (index.loaded && index.lastAccess <= cutoff && users.remove(entry.getKey(), index)) {
+                    // Updates already holding this entry find it unloaded and leave it to the next load
+                    index.loaded = false;
+                    evicted++;
+                }
+            } finally {
+                index.lock.unlock();
+            }
+        }
+        if (evicted > 0) {
+            evictions.addAndGet(evicted);
+            logger.debug("Evicted {} idle portfolio users", evicted);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("portfolio.index.users", users, Map::size).register(registry);
+        FunctionCounter.builder("portfolio.index.evictions", evictions, AtomicLong::get).register(registry);
+    }
+
+    /**
+     * The user's loaded index, loading it first if no request has yet. Concurrent requests for a
+     * user that is still loading wait for that load rather than starting their own.
+     */
+    private UserIndex index(String userId) {
+        while (true) {
+            UserIndex index = users.get(userId);
+            if (index == null) {
+                UserIndex created = new UserIndex();
+                created.lock.lock();
+                try {
+                    index = users.putIfAbsent(userId, created);
+                    if (index == null) {
+                        try {
+                            load(userId, created);
+                            created.lastAccess = System.currentTimeMillis();
+                            created.loaded = true;
+                        } finally {
+                            if (!created.loaded) {
+                                users.remove(userId, created);
+                            }
+                        }
+                        return created;
+                    }
+                } finally {
+                    created.lock.unlock();
+                }
+            }
+            if (index.loaded) {
+                index.lastAccess = System.currentTimeMillis();
+                return index;
+            }
+            // Another request is loading this user; its lock is released when the load is done
+            index.lock.lock();
+            index.lock.unlock();
+            if (index.loaded) {
+                index.lastAccess = System.currentTimeMillis();
+                return index;
+            }
+            // That load failed, or the user was evicted, and its entry is gone; try again
+        }
+    }
+
+    private void load(String userId, UserIndex index) {
+        List<Order> recentOrders = persistenceService.getUserOrdersBefore(userId, null, null, null, null, recentOrdersPerUser);
+        index.orders.load(recentOrders, recentOrdersPerUser);
+        for (String status : ACTIVE_STATUSES) {
+            for (Order order : persistenceService.getUserOrdersByStatus(userId, status)) {
+                index.orders.put(order, recentOrdersPerUser);
+            }
+        }
+
+        index.fills.load(persistenceService.getUserFillsBefore(userId, null, null, null, null, recentFillsPerUser),
+            recentFillsPerUser);
+
+        for (Position position : persistenceService.getUserPositions(userId)) {
+            index.positions.put(positionKey(position.getMarket_ticker(), position.getSide()), position);
+        }
+    }
+
+    /**
+     * Keyset to continue from in the database when memory could not fill the page, or null
+     */
+    private static Key continueBefore(Key after, Key floor, int found, int limit) {
+        if (floor == null || found >= limit) {
+            return null;
+        }
+        return after != null && after.compareTo(floor) > 0 ? after : floor;
+    }
+
+    private static void validateLimit(int limit) {
+        if (limit < 1 || limit > 1000) {
+            throw new IllegalArgumentException("limit must be between 1 and 1000");
+        }
+    }
+
+    private static String positionKey(String marketTicker, KalshiSide side) {
+        return marketTicker + ":" + side.name();
+    }
+
+    private static Key orderKey(Order order) {
+        return new Key(order.getCreated_time(), order.getId());
+    }
+
+    private static Key fillKey(Fill fill) {
+        return new Key(fill.getCreated_time(), fill.getId());
+    }
+
+    private static String encodeCursor(String prefix, Key key) {
+        String keyset = prefix + key.time + ":" + key.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keyset.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Key decodeCursor(String cursor, String prefix) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(prefix)) {
+                String[] keyset = decoded.substring(prefix.length()).split(":", 2);
+                if (keyset.length == 2) {
+                    return new Key(Long.parseLong(keyset[0]), keyset[1]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through to the invalid cursor error
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+
+    /**
+     * One page of results and the cursor for the next page (null when there are no more)
+     */
+    public static class Page<T> {
+        private final List<T> items;
+        private final String cursor;
+
+        public Page(List<T> items, String cursor) {
+            this.items = items;
+            this.cursor = cursor;
+        }
+
+        public List<T> getItems() { return items; }
+        public String getCursor() { return cursor; }
+    }
+
+    /**
+     * Keyset position; sorts newest first, then by descending id to match the SQL ordering
+     */
+    private static final class Key implements Comparable<Key> {
+        // Sorts before every real key, so a window with this floor holds nothing complete
+        static final Key NEWEST = new Key(Long.MAX_VALUE, "");
+
+        final long time;
+        final String id;
+
+        Key(long time, String id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byTime = Long.compare(other.time, time);
+            return byTime != 0 ? byTime : other.id.compareTo(id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && compareTo((Key) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(time) * 31 + id.hashCode();
+        }
+    }
+
+    private static final class UserIndex {
+        // Held by the load and by every update
+        final ReentrantLock lock = new ReentrantLock();
+        volatile boolean loaded;
+        // Last read by a request; updates from the matching path do not count
+        volatile long lastAccess;
+        final Window<Order> orders = new Window<>(PortfolioIndexService::orderKey,
+            o -> !ACTIVE_STATUSES.contains(o.getStatus()));
+        final Window<Fill> fills = new Window<>(PortfolioIndexService::fillKey, f -> true);
+        final Map<String, Position> positions = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Newest-first entries of one kind. The window holds every entry newer than or equal to floor
+     * (or the whole history when floor is null); pinned entries, such as open orders, are also
+     * held below the floor but are only served from memory for queries that are complete anyway.
+     */
+    private static final class Window<T> {
+        final ConcurrentSkipListMap<Key, T> entries = new ConcurrentSkipListMap<>();
+        final Function<T, Key> key;
+        final Predicate<T> evictable;
+        volatile Key floor;
+        int evictableCount;
+
+        Window(Function<T, Key> key, Predicate<T> evictable) {
+            this.key = key;
+            this.evictable = evictable;
+        }
+
+        void load(List<T> newestFirst, int capacity) {
+            for (T item : newestFirst) {
+                entries.put(key.apply(item), item);
+                if (evictable.test(item)) {
+                    evictableCount++;
+                }
+            }
+            if (newestFirst.size() >= capacity) {
+                floor = newestFirst.isEmpty() ? Key.NEWEST : key.apply(newestFirst.get(newestFirst.size() - 1));
+            }
+        }
+
+        void put(T item, int capacity) {
+            Key k = key.apply(item);
+            boolean evict = evictable.test(item);
+            Key currentFloor = floor;
+            T previous;
+            if (evict && currentFloor != null && k.compareTo(currentFloor) > 0) {
+                // Older than the window and no longer pinned: the database serves it
+                previous = entries.remove(k);
+            } else {
+                previous = entries.put(k, item);
+                if (evict) {
+                    evictableCount++;
+                }
+            }
+            if (previous != null && evictable.test(previous)) {
+                evictableCount--;
+            }
+            trim(capacity);
+        }
+
+        private void trim(int capacity) {
+            while (evictableCount > capacity) {
+                Map.Entry<Key, T> oldest = null;
+                for (Map.Entry<Key, T> entry : entries.descendingMap().entrySet()) {
+                    if (evictable.test(entry.getValue())) {
+                        oldest = entry;
+                        break;
+                    }
+                }
+                if (oldest == null) {
+                    return;
+                }
+                Key removed = oldest.getKey();
+                entries.remove(removed);
+                evictableCount--;
+                Key currentFloor = floor;
+                if (currentFloor == null || removed.compareTo(currentFloor) <= 0) {
+                    Key newer = entries.lowerKey(removed);
+                    floor = newer != null ? newer : Key.NEWEST;
+                }
+            }
+        }
+
+        /**
+         * Matching entries after the cursor, stopping at the given floor (null to read everything held)
+         */
+        List<T> page(Key after, Key floor, Predicate<T> filter, int limit) {
+            NavigableMap<Key, T> view = after == null ? entries : entries.tailMap(after, false);
+            List<T> items = new ArrayList<>(Math.min(limit, 64));
+            for (Map.Entry<Key, T> entry : view.entrySet()) {
+                if (floor != null && entry.getKey().compareTo(floor) > 0) {
+                    break;
+                }
+                if (filter.test(entry.getValue())) {
+                    items.add(entry.getValue());
+                    if (items.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return items;
+        }
+    }
+}
@@ -25,9 +25,10 @@ public class PositionsService {
      * @param fill the fill to process
      * @param userId the user ID
      * @param isBuy true if this fill is from a buy order, false if from a sell order
+     * @return the position after the fill
      */
     @Transactional
-    public void updatePositionFromFill(Fill fill, String userId, boolean isBuy) {
+    public Position updatePositionFromFill(Fill fill, String userId, boolean isBuy) {
         positionLock.writeLock().lock();
         try {
             // Determine quantity change based on buy/sell action
@@ -35,7 +36,7 @@ public class PositionsService {
             int quantityChange = isBuy ? fill.getCount() : -fill.getCount();
             
             // Update position with signed quantity change
-            persistenceService.updatePosition(
+            return persistenceService.updatePosition(
                 userId,
                 fill.getMarket_id(),
                 fill.getMarket_ticker(),
@@ -53,9 +54,9 @@ public class PositionsService {
      * Update user positions based on a fill (legacy method for compatibility)
      */
     @Transactional
-    public void updatePositionFromFill(Fill fill, String userId) {
+    public Position updatePositionFromFill(Fill fill, String userId) {
         // Default to buy (positive quantity) for backward compatibility
-        updatePositionFromFill(fill, userId, true);
+        return updatePositionFromFill(fill, userId, true);
     }
     
     /**
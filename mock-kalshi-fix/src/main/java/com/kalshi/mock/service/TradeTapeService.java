@@ -0,0 +1,169 @@
+package com.kalshi.mock.service;
+
+import com.fbg.api.rest.Trade;
+import com.kalshi.mock.event.OrderBookEvent;
+import com.kalshi.mock.event.OrderBookEventPublisher;
+import com.kalshi.mock.model.TradeTape;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent-trades tape for every market.
+ *
+ * The matching path records trades here as they execute; REST trade queries and the
+ * WebSocket "trade" channel both read from the tape. Postgres is only queried for
+ * history older than what the tape still holds.
+ */
+@Service
+public class TradeTapeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeTapeService.class);
+
+    private static final String CURSOR_PREFIX = "trade:";
+
+    @Autowired
+    private PersistenceService persistenceService;
+
+    @Autowired
+    private OrderBookEventPublisher eventPublisher;
+
+    @Value("${trades.tape.capacity:1000}")
+    private int tapeCapacity;
+
+    // one tape per market, created on the market's first trade
+    private final Map<String, TradeTape> tapes = new ConcurrentHashMap<>();
+
+    // trades before startup were never seen by the tapes and live only in the database
+    private final long startupTime = System.currentTimeMillis();
+
+    // a tape created after a release cannot vouch for trades recorded before that release
+    private volatile long lastReleaseTime;
+
+    /**
+     * Record trades from one match in execution order and publish them to the trade channel
+     */
+    public void recordTrades(String marketTicker, List<Trade> trades) {
+        TradeTape tape = getOrCreateTape(marketTicker);
+        for (Trade trade : trades) {
+            tape.append(trade);
+
+            OrderBookEvent.TradeData tradeData = new OrderBookEvent.TradeData(
+                trade.getPrice(),
+                trade.getCount(),
+                trade.getSide().name(),
+                trade.getTrade_id(),
+                trade.getCreated_time()
+            );
+            eventPublisher.publishEvent(new OrderBookEvent(OrderBookEvent.EventType.TRADE, marketTicker, tradeData));
+        }
+    }
+
+    /**
+     * All trades still held in the tape for a market, newest first
+     */
+    public List<Trade> getRecentTrades(String marketTicker) {
+        TradeTape tape = tapes.get(marketTicker);
+        return tape != null ? tape.snapshot() : Collections.emptyList();
+    }
+
+    /**
+     * Drop a closed market's tape; its trades are still served from the database
+     */
+    public void releaseMarket(String marketTicker) {
+        if (tapes.remove(marketTicker) != null) {
+            lastReleaseTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Trades for a market newest-first with keyset pagination.
+     * Served from the tape, topped up from the database once the tape runs out.
+     */
+    public List<Trade> getTrades(String marketTicker, Long minTs, Long maxTs, String cursor, int limit) {
+        Long afterTime = null;
+        String afterTradeId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keyset = decodeCursor(cursor);
+            afterTime = Long.parseLong(keyset[0]);
+            afterTradeId = keyset[1];
+        }
+
+        // Trades across all markets, or a market that has not traded since startup,
+        // have no tape to read from
+        TradeTape tape = marketTicker != null ? tapes.get(marketTicker) : null;
+        if (tape == null) {
+            return persistenceService.getTradesBefore(marketTicker, minTs, maxTs, afterTime, afterTradeId, limit);
+        }
+
+        TradeTape.Page page = tape.query(minTs, maxTs, afterTime, afterTradeId, limit);
+        List<Trade> trades = page.getTrades();
+
+        // The tape answered completely, or everything requested is newer than what it may have dropped
+        if (!page.isExhausted() || (minTs != null && minTs > page.getCompleteAfter())) {
+            return trades;
+        }
+
+        // Continue strictly below the oldest trade the tape could have served
+        Long beforeTime = afterTime;
+        String beforeTradeId = afterTradeId;
+        Trade oldest = page.getOldestRetained();
+        if (oldest != null && (beforeTime == null || isOlder(oldest, beforeTime, beforeTradeId))) {
+            beforeTime = oldest.getCreated_time();
+            beforeTradeId = oldest.getTrade_id();
+        }
+
+        logger.debug("Trade tape for {} exhausted after {} trades, reading older history from database",
+            marketTicker, trades.size());
+
+        List<Trade> result = new ArrayList<>(trades);
+        result.addAll(persistenceService.getTradesBefore(
+            marketTicker, minTs, maxTs, beforeTime, beforeTradeId, limit - trades.size()));
+        return result;
+    }
+
+    /**
+     * Cursor pointing just past the given trade, in (created_time, trade_id) keyset order
+     */
+    public static String encodeCursor(Trade trade) {
+        String keyset = CURSOR_PREFIX + trade.getCreated_time() + ":" + trade.getTrade_id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keyset.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(CURSOR_PREFIX)) {
+                String[] keyset = decoded.substring(CURSOR_PREFIX.length()).split(":", 2);
+                if (keyset.length == 2) {
+                    Long.parseLong(keyset[0]);
+                    return keyset;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through to the invalid cursor error
+        }
+        throw new IllegalArgumentException("Invalid trades cursor: " + cursor);
+    }
+
+    private static boolean isOlder(Trade trade, long createdTime, String tradeId) {
+        if (trade.getCreated_time() != createdTime) {
+            return trade.getCreated_time() < createdTime;
+        }
+        return tradeId != null && trade.getTrade_id().compareTo(tradeId) < 0;
+    }
+
+    private TradeTape getOrCreateTape(String marketTicker) {
+        return tapes.computeIfAbsent(marketTicker, k -> new TradeTape(k, tapeCapacity, Math.max(startupTime, lastReleaseTime)));
+    }
+}
@@ -1,21 +1,72 @@
 package com.kalshi.mock.websocket.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class StompWebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // Threads delivering broadcasts to the broker; kept separate from client inbound traffic
+    @Value("${stomp.broker-channel.pool-size:4}")
+    private int brokerChannelPoolSize;
+
+    @Value("${stomp.broker-channel.queue-capacity:10000}")
+    private int brokerChannelQueueCapacity;
+
+    @Value("${stomp.inbound-channel.pool-size:4}")
+    private int inboundChannelPoolSize;
+
+    @Value("${stomp.outbound-channel.pool-size:8}")
+    private int outboundChannelPoolSize;
+
+    @Value("${stomp.outbound-channel.queue-capacity:10000}")
+    private int outboundChannelQueueCapacity;
+
+    // A client that cannot take its messages within these limits is disconnected rather than buffered
+    @Value("${stomp.send-time-limit-ms:5000}")
+    private int sendTimeLimitMillis;
+
+    @Value("${stomp.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable a simple in-memory message broker to carry messages back to clients
         config.enableSimpleBroker("/topic", "/queue");
         // Set application destination prefix for messages bound for @MessageMapping methods
         config.setApplicationDestinationPrefixes("/app");
+        config.configureBrokerChannel().taskExecutor()
+                .corePoolSize(brokerChannelPoolSize)
+                .maxPoolSize(brokerChannelPoolSize)
+                .queueCapacity(brokerChannelQueueCapacity);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundChannelPoolSize)
+                .maxPoolSize(inboundChannelPoolSize);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundChannelPoolSize)
+                .maxPoolSize(outboundChannelPoolSize)
+                .queueCapacity(outboundChannelQueueCapacity);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMillis)
+                .setSendBufferSizeLimit(sendBufferSizeLimit);
     }
 
     @Override
@@ -25,4 +76,4 @@ public class StompWebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package com.kalshi.mock.websocket.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class MarketLifecycleMessage {
+    
+    @JsonProperty("market_ticker")
+    private String marketTicker;
+    
+    @JsonProperty("event_type")
+    private String eventType;  // "opened" or "closed"
+    
+    @JsonProperty("open_ts")
+    private Long openTs;
+    
+    @JsonProperty("close_ts")
+    private Long closeTs;
+    
+    // Constructors
+    public MarketLifecycleMessage() {}
+    
+    public MarketLifecycleMessage(String marketTicker, String eventType, Long openTs, Long closeTs) {
+        this.marketTicker = marketTicker;
+        this.eventType = eventType;
+        this.openTs = openTs;
+        this.closeTs = closeTs;
+    }
+    
+    // Getters and Setters
+    public String getMarketTicker() {
+        return marketTicker;
+    }
+    
+    public void setMarketTicker(String marketTicker) {
+        this.marketTicker = marketTicker;
+    }
+    
+    public String getEventType() {
+        return eventType;
+    }
+    
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+    
+    public Long getOpenTs() {
+        return openTs;
+    }
+    
+    public void setOpenTs(Long openTs) {
+        this.openTs = openTs;
+    }
+    
+    public Long getCloseTs() {
+        return closeTs;
+    }
+    
+    public void setCloseTs(Long closeTs) {
+        this.closeTs = closeTs;
+    }
+}
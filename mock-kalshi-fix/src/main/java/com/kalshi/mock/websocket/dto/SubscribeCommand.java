@@ -14,6 +14,8 @@ public class SubscribeCommand {
         private List<String> channels;
         @JsonProperty("market_tickers")
         private List<String> marketTickers;
+        @JsonProperty("event_tickers")
+        private List<String> eventTickers;  // for the event_orderbook channel
         
         // Getters and Setters
         public List<String> getChannels() {
@@ -31,6 +33,14 @@ public class SubscribeCommand {
         public void setMarketTickers(List<String> marketTickers) {
             this.marketTickers = marketTickers;
         }
+        
+        public List<String> getEventTickers() {
+            return eventTickers;
+        }
+        
+        public void setEventTickers(List<String> eventTickers) {
+            this.eventTickers = eventTickers;
+        }
     }
     
     // Getters and Setters
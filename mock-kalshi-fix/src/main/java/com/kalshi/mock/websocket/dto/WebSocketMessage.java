@@ -9,14 +9,14 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 public class WebSocketMessage {
     
     private String type;
-    private String sid;
+    private Long sid;
     private Long seq;
     private Object msg;
     
     // Constructors
     public WebSocketMessage() {}
     
-    public WebSocketMessage(String type, String sid, Long seq, Object msg) {
+    public WebSocketMessage(String type, Long sid, Long seq, Object msg) {
         this.type = type;
         this.sid = sid;
         this.seq = seq;
@@ -32,11 +32,11 @@ public class WebSocketMessage {
         this.type = type;
     }
     
-    public String getSid() {
+    public Long getSid() {
         return sid;
     }
     
-    public void setSid(String sid) {
+    public void setSid(Long sid) {
         this.sid = sid;
     }
     
@@ -1,6 +1,7 @@
 package com.kalshi.mock.websocket.handler;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalshi.mock.service.EventBookService;
 import com.kalshi.mock.websocket.dto.*;
 import com.kalshi.mock.websocket.service.SubscriptionManager;
 import org.slf4j.Logger;
@@ -15,11 +16,14 @@ import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class KalshiWebSocketHandler extends TextWebSocketHandler {
     
     private static final Logger logger = LoggerFactory.getLogger(KalshiWebSocketHandler.class);
     
+    public static final String EVENT_ORDERBOOK_CHANNEL = "event_orderbook";
+    
     @Autowired
     private SubscriptionManager subscriptionManager;
     
@@ -29,11 +33,18 @@ public class KalshiWebSocketHandler extends TextWebSocketHandler {
     @Autowired
     private com.kalshi.mock.service.OrderBookService orderBookService;
     
+    @Autowired
+    private EventBookService eventBookService;
+    
     private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
     
+    // Sessions do not allow concurrent sends; publisher threads and command replies take this lock
+    private final Map<String, ReentrantLock> sendLocks = new ConcurrentHashMap<>();
+    
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         logger.info("WebSocket connection established: {}", session.getId());
+        sendLocks.put(session.getId(), new ReentrantLock());
         sessions.put(session.getId(), session);
     }
     
@@ -72,10 +83,18 @@ public class KalshiWebSocketHandler extends TextWebSocketHandler {
         
         if (command.getParams() != null && command.getParams().getChannels() != null) {
             for (String channel : command.getParams().getChannels()) {
+                // The event channel is keyed by event ticker rather than market ticker
+                List<String> tickers = EVENT_ORDERBOOK_CHANNEL.equals(channel)
+                    ? command.getParams().getEventTickers()
+                    : command.getParams().getMarketTickers();
+                if (tickers == null) {
+                    sendError(session, id, "No tickers given for channel: " + channel);
+                    return;
+                }
                 SubscriptionResponse.Subscription sub = subscriptionManager.subscribe(
                     session.getId(), 
                     channel, 
-                    command.getParams().getMarketTickers()
+                    tickers
                 );
                 subscriptions.add(sub);
             }
@@ -85,7 +104,7 @@ public class KalshiWebSocketHandler extends TextWebSocketHandler {
         response.setId(id);
         response.setSubscriptions(subscriptions);
         
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+        send(session, objectMapper.writeValueAsString(response));
         
         // Send initial snapshots for orderbook_snapshot subscriptions
         if (command.getParams() != null && command.getParams().getChannels() != null 
@@ -95,6 +114,22 @@ public class KalshiWebSocketHandler extends TextWebSocketHandler {
                 orderBookService.publishInitialSnapshot(marketTicker, session.getId());
             }
         }
+        
+        // Event subscribers start from a snapshot of every market's top of book. The subscription is
+        // registered first, so a delta can arrive before it; deltas with seq up to the snapshot's are in it.
+        if (command.getParams() != null && command.getParams().getChannels() != null
+            && command.getParams().getChannels().contains(EVENT_ORDERBOOK_CHANNEL)) {
+            for (String eventTicker : command.getParams().getEventTickers()) {
+                try {
+                    WebSocketMessage snapshot = new WebSocketMessage();
+                    snapshot.setType("event_orderbook_snapshot");
+                    snapshot.setMsg(eventBookService.getEventOrderbook(eventTicker));
+                    send(session, objectMapper.writeValueAsString(snapshot));
+                } catch (IllegalArgumentException e) {
+                    sendError(session, id, e.getMessage());
+                }
+            }
+        }
     }
     
     private void handleUnsubscribe(WebSocketSession session, Map<String, Object> payload, Integer id) throws IOException {
@@ -114,7 +149,7 @@ public class KalshiWebSocketHandler extends TextWebSocketHandler {
         response.put("id", id);
         response.put("success", success);
         
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+        send(session, objectMapper.writeValueAsString(response));
     }
     
     private void handleUpdateSubscription(WebSocketSession session, Map<String, Object> payload, Integer id) throws IOException {
@@ -132,7 +167,7 @@ public class KalshiWebSocketHandler extends TextWebSocketHandler {
                 response.setId(id);
                 response.setType("subscription_updated");
                 response.setSubscriptions(Collections.singletonList(sub));
-                session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+                send(session, objectMapper.writeValueAsString(response));
             } else {
                 sendError(session, id, "Subscription not found");
             }
@@ -143,6 +178,7 @@ public class KalshiWebSocketHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         logger.info("WebSocket connection closed: {} with status: {}", session.getId(), status);
         sessions.remove(session.getId());
+        sendLocks.remove(session.getId());
         subscriptionManager.removeSession(session.getId());
     }
     
@@ -150,6 +186,7 @@ public class KalshiWebSocketHandler extends TextWebSocketHandler {
     public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
         logger.error("WebSocket transport error for session: " + session.getId(), exception);
         sessions.remove(session.getId());
+        sendLocks.remove(session.getId());
         subscriptionManager.removeSession(session.getId());
     }
     
@@ -161,7 +198,7 @@ public class KalshiWebSocketHandler extends TextWebSocketHandler {
             if (id != null) {
                 error.put("id", id);
             }
-            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(error)));
+            send(session, objectMapper.writeValueAsString(error));
         } catch (IOException e) {
             logger.error("Failed to send error message", e);
         }
@@ -170,7 +207,45 @@ public class KalshiWebSocketHandler extends TextWebSocketHandler {
     public void sendMessage(String sessionId, String message) throws IOException {
         WebSocketSession session = sessions.get(sessionId);
         if (session != null && session.isOpen()) {
+            send(session, message);
+        }
+    }
+    
+    /**
+     * Send an order book message on a subscription, stamped with the subscription's sid and its
+     * next seq. Stamping under the session's send lock keeps each sid's seqs in send order.
+     */
+    public void sendSequenced(String sessionId, SubscriptionManager.SubscriptionInfo subscription,
+                              WebSocketMessage message) throws IOException {
+        WebSocketSession session = sessions.get(sessionId);
+        ReentrantLock lock = sendLocks.get(sessionId);
+        if (session == null || lock == null || !session.isOpen()) {
+            return;
+        }
+        lock.lock();
+        try {
+            WebSocketMessage stamped = new WebSocketMessage(
+                message.getType(), subscription.getSidNumber(), subscription.nextSeq(), message.getMsg());
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(stamped)));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Send under the session's lock. A ReentrantLock rather than a monitor, so a virtual
+     * thread blocked in the socket write does not pin its carrier.
+     */
+    private void send(WebSocketSession session, String message) throws IOException {
+        ReentrantLock lock = sendLocks.get(session.getId());
+        if (lock == null) {
+            return; // closed
+        }
+        lock.lock();
+        try {
             session.sendMessage(new TextMessage(message));
+        } finally {
+            lock.unlock();
         }
     }
 }
\ No newline at end of file
@@ -1,71 +1,171 @@
 package com.kalshi.mock.websocket.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalshi.mock.dto.OrderbookResponse;
 import com.kalshi.mock.event.OrderBookEventListener;
 import com.kalshi.mock.event.OrderBookEvent;
 import com.kalshi.mock.service.OrderBookService;
-import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Broadcasts order book state to STOMP subscribers of /topic/orderbook/{market}.
+ *
+ * Key features:
+ * - Book events only mark a market dirty; the matching thread does no map building or serialization
+ * - Once per tick each dirty market gets one message with its latest book, so intermediate states are conflated
+ * - Ticker updates are conflated the same way (latest wins); trades and lifecycle events are never dropped
+ * - Each payload is serialized once to JSON bytes and handed to the broker as-is
+ * - Ticks run on the service's own thread, so a slow job on Spring's shared scheduler never delays them
+ */
 @Service
-@Slf4j
 public class StompBroadcastService implements OrderBookEventListener {
     private static final Logger logger = LoggerFactory.getLogger(StompBroadcastService.class);
-    
+
+    private static final String ORDERBOOK_DESTINATION = "/topic/orderbook/";
+
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
-    
+
     @Autowired
     private OrderBookService orderBookService;
-    
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Levels per side in each book message
+    @Value("${stomp.broadcast.depth:10}")
+    private int depth;
+
+    @Value("${stomp.broadcast.tick-ms:100}")
+    private long tickMillis;
+
+    private ScheduledExecutorService tickExecutor;
+
+    // Markets whose book changed since the last tick
+    private final Map<String, Boolean> dirtyBooks = new ConcurrentHashMap<>();
+
+    // Latest ticker update per market since the last tick
+    private final Map<String, OrderBookEvent> pendingTickers = new ConcurrentHashMap<>();
+
+    // Trades and lifecycle events, sent in order at the next tick
+    private final Queue<OrderBookEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+
+    @PostConstruct
+    public void init() {
+        tickExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stomp-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tickExecutor.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tickExecutor.shutdownNow();
+    }
+
     @Override
     public void onOrderBookEvent(OrderBookEvent event) {
+        switch (event.getType()) {
+            case SNAPSHOT, DELTA -> dirtyBooks.put(event.getMarketTicker(), Boolean.TRUE);
+            case TICKER_UPDATE -> pendingTickers.put(event.getMarketTicker(), event);
+            default -> pendingEvents.add(event);
+        }
+    }
+
+    private void tick() {
         try {
-            String market = event.getMarketTicker();
-            
-            // Convert the order book event to the format expected by the WebSocket clients
-            Map<String, Object> message = new HashMap<>();
-            message.put("type", event.getType().toString());
+            flush();
+        } catch (Exception e) {
+            // An exception would cancel the schedule; log it and try again next tick
+            logger.error("STOMP broadcast tick failed", e);
+        }
+    }
+
+    /**
+     * Send one message per dirty market, the latest ticker per market, and any queued events
+     */
+    public void flush() {
+        for (Iterator<String> it = dirtyBooks.keySet().iterator(); it.hasNext(); ) {
+            String market = it.next();
+            // Remove before reading the book so a change during the read marks it dirty again
+            it.remove();
+            OrderbookResponse.OrderbookData book = orderBookService.getOrderbookKalshiFormat(market, depth);
+
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("type", OrderBookEvent.EventType.SNAPSHOT.toString());
             message.put("market", market);
-            message.put("timestamp", event.getTimestamp());
-            message.put("data", event.getData());
-            
-            // For snapshot events, the data already contains the orderbook snapshot
-            if (event.getType() == OrderBookEvent.EventType.SNAPSHOT && event.getData() instanceof OrderBookEvent.SnapshotData) {
-                OrderBookEvent.SnapshotData snapshot = (OrderBookEvent.SnapshotData) event.getData();
-                message.put("yes", snapshot.getYesSide());
-                message.put("no", snapshot.getNoSide());
-            }
-            else {
-                log.error("Non snapshot events are not yet handled");
+            message.put("timestamp", System.currentTimeMillis());
+            message.put("yes", book.getYes() != null ? book.getYes() : new ArrayList<>());
+            message.put("no", book.getNo() != null ? book.getNo() : new ArrayList<>());
+            send(ORDERBOOK_DESTINATION + market, message);
+        }
+
+        for (String market : pendingTickers.keySet()) {
+            OrderBookEvent ticker = pendingTickers.remove(market);
+            if (ticker != null) {
+                send(ORDERBOOK_DESTINATION + market, eventMessage(ticker));
             }
-            
-            // Broadcast to all subscribers of this market's orderbook topic
-            String destination = "/topic/orderbook/" + market;
-            messagingTemplate.convertAndSend(destination, message);
-            
-            logger.info("Broadcasted order book event {} for market {} to {}", event.getType(), market, destination);
+        }
 
-        } catch (Exception e) {
-            logger.error("Error broadcasting order book event for market {}", event.getMarketTicker(), e);
+        OrderBookEvent event;
+        while ((event = pendingEvents.poll()) != null) {
+            send(ORDERBOOK_DESTINATION + event.getMarketTicker(), eventMessage(event));
         }
     }
-    
+
     public void broadcastMarketData(String market, Map<String, Object> marketData) {
+        // Broadcast market data updates (trades, last price, etc.)
+        send("/topic/market/" + market, marketData);
+    }
+
+    private Map<String, Object> eventMessage(OrderBookEvent event) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", event.getType().toString());
+        message.put("market", event.getMarketTicker());
+        message.put("timestamp", event.getTimestamp());
+        message.put("data", event.getData());
+        return message;
+    }
+
+    /**
+     * Serialize once and hand the bytes to the broker, which copies them to every subscriber
+     */
+    private void send(String destination, Object payload) {
         try {
-            // Broadcast market data updates (trades, last price, etc.)
-            String destination = "/topic/market/" + market;
-            messagingTemplate.convertAndSend(destination, marketData);
-            
-            logger.debug("Broadcasted market data update for market {} to {}", market, destination);
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            headers.setLeaveMutable(true);
+            Message<byte[]> message = MessageBuilder.createMessage(
+                objectMapper.writeValueAsBytes(payload), headers.getMessageHeaders());
+            messagingTemplate.send(destination, message);
+            logger.debug("Broadcasted to {}", destination);
         } catch (Exception e) {
-            logger.error("Error broadcasting market data for market {}", market, e);
+            logger.error("Error broadcasting to {}", destination, e);
         }
     }
-}
\ No newline at end of file
+}
@@ -7,6 +7,7 @@ import org.springframework.web.socket.WebSocketSession;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class SubscriptionManager {
@@ -20,31 +21,47 @@ public class SubscriptionManager {
     // Subscription ID generator
     private final AtomicInteger subscriptionIdGenerator = new AtomicInteger(1);
     
+    /**
+     * One subscription of a session. Like Kalshi's feed, order book messages carry the
+     * subscription's numeric sid and a seq counted per subscription, across all its markets.
+     */
     public static class SubscriptionInfo {
         private final String sid;
+        private final long sidNumber;
         private final String channel;
         private final List<String> marketTickers;
         private final String sessionId;
+        private final AtomicLong seq;
         
-        public SubscriptionInfo(String sid, String channel, List<String> marketTickers, String sessionId) {
+        public SubscriptionInfo(String sid, long sidNumber, String channel, List<String> marketTickers,
+                                String sessionId, AtomicLong seq) {
             this.sid = sid;
+            this.sidNumber = sidNumber;
             this.channel = channel;
             this.marketTickers = marketTickers;
             this.sessionId = sessionId;
+            this.seq = seq;
         }
         
         // Getters
         public String getSid() { return sid; }
+        public long getSidNumber() { return sidNumber; }
         public String getChannel() { return channel; }
         public List<String> getMarketTickers() { return marketTickers; }
         public String getSessionId() { return sessionId; }
+        
+        /**
+         * Seq for the next message sent on this subscription; callers hold the session's send lock
+         */
+        public long nextSeq() { return seq.incrementAndGet(); }
     }
     
     public SubscriptionResponse.Subscription subscribe(String sessionId, String channel, List<String> marketTickers) {
-        String sid = "sub_" + subscriptionIdGenerator.getAndIncrement();
+        int sidNumber = subscriptionIdGenerator.getAndIncrement();
+        String sid = "sub_" + sidNumber;
         
         // Store subscription info
-        SubscriptionInfo info = new SubscriptionInfo(sid, channel, marketTickers, sessionId);
+        SubscriptionInfo info = new SubscriptionInfo(sid, sidNumber, channel, marketTickers, sessionId, new AtomicLong());
         sessionSubscriptions.computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>())
                            .put(sid, info);
         
@@ -111,8 +128,9 @@ public class SubscriptionManager {
             }
         }
         
-        // Create new subscription info
-        SubscriptionInfo newInfo = new SubscriptionInfo(sid, oldInfo.getChannel(), newMarketTickers, sessionId);
+        // Create new subscription info; the seq carries on, as the subscription is the same
+        SubscriptionInfo newInfo = new SubscriptionInfo(sid, oldInfo.sidNumber, oldInfo.getChannel(),
+                                                        newMarketTickers, sessionId, oldInfo.seq);
         subscriptions.put(sid, newInfo);
         
         // Add new market subscriptions
@@ -151,6 +169,14 @@ public class SubscriptionManager {
         }
     }
     
+    /**
+     * Drop all subscriber sets for a market that will publish no further updates.
+     * Session subscriptions keep their ticker lists so unsubscribe still works.
+     */
+    public void removeMarket(String marketTicker) {
+        marketSubscribers.remove(marketTicker);
+    }
+    
     public Set<String> getSubscribedSessions(String marketTicker, String channel) {
         Map<String, Set<String>> channelSubs = marketSubscribers.get(marketTicker);
         if (channelSubs == null) {
@@ -161,6 +187,22 @@ public class SubscriptionManager {
         return sessions != null ? new HashSet<>(sessions) : Collections.emptySet();
     }
     
+    /**
+     * The session's subscription to a channel covering a market, or null if it has none
+     */
+    public SubscriptionInfo getSubscription(String sessionId, String marketTicker, String channel) {
+        Map<String, SubscriptionInfo> subscriptions = sessionSubscriptions.get(sessionId);
+        if (subscriptions == null) {
+            return null;
+        }
+        for (SubscriptionInfo info : subscriptions.values()) {
+            if (info.getChannel().equals(channel) && info.getMarketTickers().contains(marketTicker)) {
+                return info;
+            }
+        }
+        return null;
+    }
+    
     public List<SubscriptionResponse.Subscription> getSessionSubscriptions(String sessionId) {
         Map<String, SubscriptionInfo> subscriptions = sessionSubscriptions.get(sessionId);
         if (subscriptions == null) {
@@ -9,8 +9,8 @@ import com.kalshi.mock.event.OrderUpdateEventListener;
 import com.kalshi.mock.event.OrderUpdateEventPublisher;
 import com.kalshi.mock.websocket.dto.*;
 import com.kalshi.mock.websocket.handler.KalshiWebSocketHandler;
+import com.kalshi.mock.service.EventBookService;
 import com.kalshi.mock.service.OrderBookService;
-import com.kalshi.mock.dto.OrderbookResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +23,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class WebSocketPublisher implements OrderBookEventListener, OrderUpdateEventListener {
@@ -47,8 +48,18 @@ public class WebSocketPublisher implements OrderBookEventListener, OrderUpdateEv
     @Autowired
     private OrderBookService orderBookService;
     
+    @Autowired
+    private EventBookService eventBookService;
+    
     private final AtomicLong sequenceNumber = new AtomicLong(1);
     
+    // Market ticker -> the market's order book frames, put back into the book's delta order.
+    // Events are dispatched on several threads, so a market's deltas can arrive out of order.
+    private final Map<String, MarketStream> marketStreams = new ConcurrentHashMap<>();
+    
+    // Deltas held back waiting for a missing one before the stream skips past it
+    private static final int MAX_EARLY_DELTAS = 1000;
+    
     // Track update counts per market for snapshot intervals
     private final Map<String, AtomicInteger> marketUpdateCounts = new ConcurrentHashMap<>();
     private static final int SNAPSHOT_INTERVAL = 10; // Send full snapshot every 10th update
@@ -76,79 +87,39 @@ public class WebSocketPublisher implements OrderBookEventListener, OrderUpdateEv
                 case TICKER_UPDATE:
                     handleTickerEvent(event);
                     break;
+                case MARKET_LIFECYCLE:
+                    handleLifecycleEvent(event);
+                    break;
+            }
+            // Book changes and trades can move the market's top of book within its event
+            if (event.getType() != OrderBookEvent.EventType.MARKET_LIFECYCLE) {
+                handleEventBookChange(event.getMarketTicker());
             }
         } catch (Exception e) {
             logger.error("Error handling order book event", e);
         }
     }
     
-    private void handleSnapshotEvent(OrderBookEvent event) throws IOException {
-        // If data is null, fetch current orderbook state
-        OrderBookEvent.SnapshotData data;
-        if (event.getData() == null) {
-            // Get current orderbook state from OrderBookService
-            OrderbookResponse.OrderbookData orderbookData = orderBookService.getOrderbookKalshiFormat(
-                event.getMarketTicker(), 
-                10 // Default depth
-            );
-            data = new OrderBookEvent.SnapshotData(
-                orderbookData.getYes(),
-                orderbookData.getNo()
-            );
-        } else {
-            data = (OrderBookEvent.SnapshotData) event.getData();
-        }
-        
-        // Get subscribers for this market's orderbook_snapshot channel
-        Set<String> subscribers = subscriptionManager.getSubscribedSessions(
-            event.getMarketTicker(), 
-            "orderbook_snapshot"
-        );
-        
-        if (subscribers.isEmpty()) {
-            return;
-        }
-        
-        // Create snapshot message
-        WebSocketMessage message = new WebSocketMessage();
-        message.setType("orderbook_snapshot");
-        message.setSeq(sequenceNumber.getAndIncrement());
-        
-        OrderbookSnapshot snapshot = new OrderbookSnapshot();
-        snapshot.setMarketTicker(event.getMarketTicker());
-        snapshot.setYes(data.getYesSide());
-        snapshot.setNo(data.getNoSide());
-        
-        message.setMsg(snapshot);
-        
-        // Send to all subscribers
-        String jsonMessage = objectMapper.writeValueAsString(message);
-        for (String sessionId : subscribers) {
-            try {
-                webSocketHandler.sendMessage(sessionId, jsonMessage);
-            } catch (IOException e) {
-                logger.error("Failed to send snapshot to session: {}", sessionId, e);
+    private void handleSnapshotEvent(OrderBookEvent event) {
+        OrderBookEvent.SnapshotData data = (OrderBookEvent.SnapshotData) event.getData();
+        if (data == null) {
+            data = orderBookService.getDeltaStreamSnapshot(event.getMarketTicker());
+            if (data == null) {
+                return;
             }
         }
+        offer(event.getMarketTicker(), BookFrame.snapshot(data));
     }
     
-    private void handleDeltaEvent(OrderBookEvent event) throws IOException {
+    private void handleDeltaEvent(OrderBookEvent event) {
         OrderBookEvent.DeltaData data = (OrderBookEvent.DeltaData) event.getData();
         String marketTicker = event.getMarketTicker();
         
-        logger.debug("Handling delta event for market: {}, price: {}, delta: {}, side: {}", 
-            marketTicker, data.getPrice(), data.getDelta(), data.getSide());
+        logger.debug("Handling delta event for market: {}, price: {}, delta: {}, side: {}, book seq: {}",
+            marketTicker, data.getPrice(), data.getDelta(), data.getSide(), data.getSequence());
         
-        // Get subscribers for this market's orderbook_delta channel
-        Set<String> subscribers = subscriptionManager.getSubscribedSessions(
-            marketTicker, 
-            "orderbook_delta"
-        );
-        
-        if (subscribers.isEmpty()) {
-            logger.debug("No subscribers for delta updates on market: {}", marketTicker);
-            return;
-        }
+        // Every delta goes through the market's stream, subscribed or not, so it stays contiguous
+        offer(marketTicker, BookFrame.delta(data));
         
         // Track update count for this market
         AtomicInteger updateCount = marketUpdateCounts.computeIfAbsent(
@@ -156,45 +127,99 @@ public class WebSocketPublisher implements OrderBookEventListener, OrderUpdateEv
             k -> new AtomicInteger(0)
         );
         
-        int currentCount = updateCount.incrementAndGet();
-        
-        // Check if we should send a snapshot instead
-        if (currentCount % SNAPSHOT_INTERVAL == 0) {
-            // Send full snapshot
-            logger.info("Sending snapshot for market {} at update count {}", marketTicker, currentCount);
-            
-            // Create and send snapshot event
-            OrderBookEvent snapshotEvent = new OrderBookEvent(
-                OrderBookEvent.EventType.SNAPSHOT,
-                marketTicker,
-                null // Will be populated in handleSnapshotEvent
-            );
-            handleSnapshotEvent(snapshotEvent);
-            
-            // Reset delta tracking in the order book
-            orderBookService.resetOrderBookDeltaTracking(marketTicker);
-        } else {
-            // Send delta update
-            WebSocketMessage message = new WebSocketMessage();
+        // Snapshot subscribers also get a full snapshot every SNAPSHOT_INTERVAL updates
+        if (updateCount.incrementAndGet() % SNAPSHOT_INTERVAL == 0
+                && !subscriptionManager.getSubscribedSessions(marketTicker, "orderbook_snapshot").isEmpty()) {
+            logger.debug("Sending periodic snapshot for market {}", marketTicker);
+            OrderBookEvent.SnapshotData snapshot = orderBookService.getDeltaStreamSnapshot(marketTicker);
+            if (snapshot != null) {
+                offer(marketTicker, BookFrame.snapshot(snapshot));
+            }
+        }
+    }
+    
+    /**
+     * Queue an order book frame on its market's stream and, unless another thread is already
+     * sending for the market, send everything now in order. Order is decided under the stream's
+     * lock; the sends happen outside it, so a slow session holds up only this market's drainer.
+     */
+    private void offer(String marketTicker, BookFrame frame) {
+        MarketStream stream = marketStreams.computeIfAbsent(marketTicker, k -> new MarketStream());
+        stream.lock.lock();
+        try {
+            if (frame.delta != null) {
+                stream.addDelta(marketTicker, frame);
+            } else {
+                stream.addSnapshot(marketTicker, frame);
+            }
+            if (stream.draining || stream.ready.isEmpty()) {
+                return;
+            }
+            stream.draining = true;
+        } finally {
+            stream.lock.unlock();
+        }
+        drain(marketTicker, stream);
+    }
+    
+    private void drain(String marketTicker, MarketStream stream) {
+        while (true) {
+            BookFrame next;
+            stream.lock.lock();
+            try {
+                next = stream.ready.poll();
+                if (next == null) {
+                    stream.draining = false;
+                    return;
+                }
+            } finally {
+                stream.lock.unlock();
+            }
+            try {
+                send(marketTicker, next);
+            } catch (Exception e) {
+                logger.error("Failed to send order book frame for market: {}", marketTicker, e);
+            }
+        }
+    }
+    
+    private void send(String marketTicker, BookFrame frame) {
+        WebSocketMessage message = new WebSocketMessage();
+        String channel;
+        if (frame.delta != null) {
+            channel = "orderbook_delta";
             message.setType("orderbook_delta");
-            message.setSeq(sequenceNumber.getAndIncrement());
-            
             OrderbookDelta delta = new OrderbookDelta();
             delta.setMarketTicker(marketTicker);
-            delta.setPrice(data.getPrice());
-            delta.setDelta(data.getDelta());
-            delta.setSide(data.getSide());
-            
+            delta.setPrice(frame.delta.getPrice());
+            delta.setDelta(frame.delta.getDelta());
+            delta.setSide(frame.delta.getSide());
             message.setMsg(delta);
-            
-            // Send to all subscribers
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            for (String sessionId : subscribers) {
-                try {
-                    webSocketHandler.sendMessage(sessionId, jsonMessage);
-                } catch (IOException e) {
-                    logger.error("Failed to send delta to session: {}", sessionId, e);
-                }
+        } else {
+            channel = "orderbook_snapshot";
+            message.setType("orderbook_snapshot");
+            OrderbookSnapshot snapshot = new OrderbookSnapshot();
+            snapshot.setMarketTicker(marketTicker);
+            snapshot.setYes(frame.snapshot.getYesSide());
+            snapshot.setNo(frame.snapshot.getNoSide());
+            message.setMsg(snapshot);
+        }
+        
+        for (String sessionId : subscriptionManager.getSubscribedSessions(marketTicker, channel)) {
+            // A snapshot goes out on the session's delta subscription for the market when it has one,
+            // so the snapshot and the deltas after it share one sid and its seqs run on across them
+            SubscriptionManager.SubscriptionInfo subscription =
+                subscriptionManager.getSubscription(sessionId, marketTicker, "orderbook_delta");
+            if (subscription == null) {
+                subscription = subscriptionManager.getSubscription(sessionId, marketTicker, channel);
+            }
+            if (subscription == null) {
+                continue; // unsubscribed meanwhile
+            }
+            try {
+                webSocketHandler.sendSequenced(sessionId, subscription, message);
+            } catch (IOException e) {
+                logger.error("Failed to send {} to session: {}", channel, sessionId, e);
             }
         }
     }
@@ -222,7 +247,7 @@ public class WebSocketPublisher implements OrderBookEventListener, OrderUpdateEv
         trade.setPrice(data.getPrice());
         trade.setCount(data.getCount());
         trade.setSide(data.getSide());
-        trade.setCreatedTime(Instant.now().toString());
+        trade.setCreatedTime(Instant.ofEpochMilli(data.getCreatedTime()).toString());
         trade.setTradeId(data.getTradeId());
         
         message.setMsg(trade);
@@ -268,6 +293,68 @@ public class WebSocketPublisher implements OrderBookEventListener, OrderUpdateEv
         }
     }
     
+    private void handleLifecycleEvent(OrderBookEvent event) throws IOException {
+        OrderBookEvent.LifecycleData data = (OrderBookEvent.LifecycleData) event.getData();
+        String marketTicker = event.getMarketTicker();
+        
+        Set<String> subscribers = subscriptionManager.getSubscribedSessions(marketTicker, "market_lifecycle");
+        if (!subscribers.isEmpty()) {
+            WebSocketMessage message = new WebSocketMessage();
+            message.setType("market_lifecycle");
+            message.setSeq(sequenceNumber.getAndIncrement());
+            message.setMsg(new MarketLifecycleMessage(
+                marketTicker, data.getEventType(), data.getOpenTs(), data.getCloseTs()));
+            
+            String jsonMessage = objectMapper.writeValueAsString(message);
+            for (String sessionId : subscribers) {
+                try {
+                    webSocketHandler.sendMessage(sessionId, jsonMessage);
+                } catch (IOException e) {
+                    logger.error("Failed to send market lifecycle to session: {}", sessionId, e);
+                }
+            }
+        }
+        
+        // A closed market publishes nothing further, release its per-market state
+        // once the lifecycle message has gone out
+        if ("closed".equals(data.getEventType())) {
+            subscriptionManager.removeMarket(marketTicker);
+            marketUpdateCounts.remove(marketTicker);
+            marketStreams.remove(marketTicker);
+        }
+    }
+    
+    private void handleEventBookChange(String marketTicker) {
+        // Runs under the event's lock, so subscribers get one message per change in seq order
+        eventBookService.refresh(marketTicker, delta -> {
+            Set<String> subscribers = subscriptionManager.getSubscribedSessions(
+                delta.getEventTicker(),
+                KalshiWebSocketHandler.EVENT_ORDERBOOK_CHANNEL
+            );
+            if (subscribers.isEmpty()) {
+                return;
+            }
+            
+            WebSocketMessage message = new WebSocketMessage();
+            message.setType("event_orderbook_delta");
+            message.setSeq(sequenceNumber.getAndIncrement());
+            message.setMsg(delta);
+            
+            try {
+                String jsonMessage = objectMapper.writeValueAsString(message);
+                for (String sessionId : subscribers) {
+                    try {
+                        webSocketHandler.sendMessage(sessionId, jsonMessage);
+                    } catch (IOException e) {
+                        logger.error("Failed to send event orderbook delta to session: {}", sessionId, e);
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Failed to serialize event orderbook delta for {}", delta.getEventTicker(), e);
+            }
+        });
+    }
+    
     @Override
     public void onOrderUpdateEvent(OrderUpdateEvent event) {
         try {
@@ -314,4 +401,96 @@ public class WebSocketPublisher implements OrderBookEventListener, OrderUpdateEv
         // This would require tracking user ID to session mapping
         logger.info("Fill message for user {}: {}", userId, fill);
     }
-}
\ No newline at end of file
+    
+    /**
+     * A delta or a snapshot on its way to a market's subscribers
+     */
+    private static final class BookFrame {
+        private final OrderBookEvent.DeltaData delta;
+        private final OrderBookEvent.SnapshotData snapshot;
+        
+        private BookFrame(OrderBookEvent.DeltaData delta, OrderBookEvent.SnapshotData snapshot) {
+            this.delta = delta;
+            this.snapshot = snapshot;
+        }
+        
+        static BookFrame delta(OrderBookEvent.DeltaData delta) {
+            return new BookFrame(delta, null);
+        }
+        
+        static BookFrame snapshot(OrderBookEvent.SnapshotData snapshot) {
+            return new BookFrame(null, snapshot);
+        }
+    }
+    
+    /**
+     * One market's order book frames in book delta order. Deltas are released when contiguous with
+     * the last one released, and a snapshot as of delta n right after delta n, so every session sees
+     * a snapshot followed by exactly the deltas it does not include. Guarded by the lock; whoever
+     * sets draining sends the ready frames.
+     */
+    private final class MarketStream {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final TreeMap<Long, BookFrame> earlyDeltas = new TreeMap<>();
+        private final TreeMap<Long, BookFrame> pendingSnapshots = new TreeMap<>();
+        private final ArrayDeque<BookFrame> ready = new ArrayDeque<>();
+        private long released;
+        private boolean draining;
+        
+        void addDelta(String marketTicker, BookFrame frame) {
+            long sequence = frame.delta.getSequence();
+            if (sequence == 1 && released > 0) {
+                // The book was recreated and numbers its deltas from the start again
+                logger.info("Order book for {} restarted its deltas, resetting its stream", marketTicker);
+                earlyDeltas.clear();
+                pendingSnapshots.clear();
+                released = 0;
+            }
+            if (sequence <= released) {
+                logger.debug("Dropping delta {} for {}, stream is past it", sequence, marketTicker);
+                return;
+            }
+            earlyDeltas.put(sequence, frame);
+            if (earlyDeltas.size() > MAX_EARLY_DELTAS) {
+                logger.warn("Delta {} for {} never arrived, skipping to {}",
+                    released + 1, marketTicker, earlyDeltas.firstKey());
+                released = earlyDeltas.firstKey() - 1;
+            }
+            releaseContiguous();
+        }
+        
+        void addSnapshot(String marketTicker, BookFrame frame) {
+            long sequence = frame.snapshot.getSequence();
+            if (sequence < released) {
+                // Deltas after it have gone out already; a fresh one is at or past them
+                OrderBookEvent.SnapshotData current = orderBookService.getDeltaStreamSnapshot(marketTicker);
+                if (current == null) {
+                    return;
+                }
+                frame = BookFrame.snapshot(current);
+                sequence = current.getSequence();
+            }
+            if (sequence == released) {
+                ready.add(frame);
+            } else {
+                pendingSnapshots.put(sequence, frame);
+            }
+        }
+        
+        private void releaseContiguous() {
+            while (true) {
+                BookFrame next = earlyDeltas.remove(released + 1);
+                if (next == null) {
+                    return;
+                }
+                ready.add(next);
+                released++;
+                pendingSnapshots.headMap(released).clear();
+                BookFrame snapshot = pendingSnapshots.remove(released);
+                if (snapshot != null) {
+                    ready.add(snapshot);
+                }
+            }
+        }
+    }
+}
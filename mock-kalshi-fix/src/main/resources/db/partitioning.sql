@@ -0,0 +1,42 @@
+-- PostgreSQL only: fills and trades partitioned by day on their millisecond timestamps.
+-- Runs before schema.sql, whose CREATE TABLE IF NOT EXISTS then leaves these tables alone
+-- and whose indexes are created on every partition.
+-- Daily partitions (fills_pYYYYMMDD, trades_pYYYYMMDD) are created ahead of time and
+-- detached and archived after the retention period by HistoryPartitionService.
+
+-- Create partitioned Fills table (the partition key must be part of the primary key, so the
+-- key no longer makes fill_id unique on its own; fill_id and trade_id are generated by the
+-- matching engine, which never reuses one)
+CREATE TABLE IF NOT EXISTS fills (
+    fill_id VARCHAR(255) NOT NULL,
+    order_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    market_id VARCHAR(255) NOT NULL,
+    market_ticker VARCHAR(255) NOT NULL,
+    side VARCHAR(10) NOT NULL CHECK (side IN ('yes', 'no')),
+    price INTEGER NOT NULL,
+    quantity INTEGER NOT NULL,
+    is_taker BOOLEAN NOT NULL,
+    filled_time BIGINT NOT NULL,
+    trade_id VARCHAR(255),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (fill_id, filled_time)
+) PARTITION BY RANGE (filled_time);
+
+-- Rows outside every daily partition land here instead of failing the insert
+CREATE TABLE IF NOT EXISTS fills_default PARTITION OF fills DEFAULT;
+
+-- Create partitioned Trades table
+CREATE TABLE IF NOT EXISTS trades (
+    trade_id VARCHAR(255) NOT NULL,
+    market_ticker VARCHAR(255) NOT NULL,
+    taker_order_id VARCHAR(255) NOT NULL,
+    maker_order_id VARCHAR(255) NOT NULL,
+    price INTEGER NOT NULL,
+    quantity INTEGER NOT NULL,
+    created_time BIGINT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (trade_id, created_time)
+) PARTITION BY RANGE (created_time);
+
+CREATE TABLE IF NOT EXISTS trades_default PARTITION OF trades DEFAULT;
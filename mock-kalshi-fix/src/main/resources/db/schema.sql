@@ -214,6 +214,7 @@ CREATE INDEX IF NOT EXISTS idx_orders_market ON orders(market_ticker);
 CREATE INDEX IF NOT EXISTS idx_orders_status ON orders(status);
 CREATE INDEX IF NOT EXISTS idx_orders_created ON orders(created_time);
 CREATE INDEX IF NOT EXISTS idx_orders_user_status ON orders(user_id, status);
+CREATE INDEX IF NOT EXISTS idx_orders_user_created ON orders(user_id, created_time DESC, order_id DESC);
 
 -- Create Fills table
 CREATE TABLE IF NOT EXISTS fills (
@@ -237,6 +238,7 @@ CREATE INDEX IF NOT EXISTS idx_fills_user ON fills(user_id);
 CREATE INDEX IF NOT EXISTS idx_fills_market ON fills(market_ticker);
 CREATE INDEX IF NOT EXISTS idx_fills_time ON fills(filled_time);
 CREATE INDEX IF NOT EXISTS idx_fills_trade ON fills(trade_id);
+CREATE INDEX IF NOT EXISTS idx_fills_user_time ON fills(user_id, filled_time DESC, fill_id DESC);
 
 -- Create Trades table
 CREATE TABLE IF NOT EXISTS trades (
@@ -0,0 +1,235 @@
+package com.kalshi.mock;
+
+import com.fbg.api.market.KalshiSide;
+import com.fbg.api.rest.Order;
+import com.fbg.api.rest.OrderRequest;
+import com.kalshi.mock.event.OrderUpdateEvent;
+import com.kalshi.mock.event.OrderUpdateEventPublisher;
+import com.kalshi.mock.exception.RateLimitExceededException;
+import com.kalshi.mock.service.AdmissionControlService;
+import com.kalshi.mock.model.OrderBookEntry;
+import com.kalshi.mock.service.MatchingEngine.Execution;
+import com.kalshi.mock.service.OrderBookService;
+import com.kalshi.mock.service.OrderIntakeService;
+import com.kalshi.mock.websocket.dto.OrderUpdateMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import quickfix.Message;
+import quickfix.Session;
+import quickfix.SessionID;
+import quickfix.field.*;
+import quickfix.fix50sp2.NewOrderSingle;
+import quickfix.fix50sp2.OrderCancelRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FixOrderEntryServiceTest {
+
+    @Mock
+    private OrderBookService orderBookService;
+
+    @Mock
+    private OrderUpdateEventPublisher orderUpdateEventPublisher;
+
+    @Mock
+    private AdmissionControlService admissionControlService;
+
+    @Spy
+    private OrderIntakeService orderIntakeService = new OrderIntakeService();
+
+    @InjectMocks
+    private FixOrderEntryService fixOrderEntryService;
+
+    private static final SessionID SESSION = new SessionID("FIXT.1.1", "SimulatorRT-MOCK", "FBG-MOCK-KALSHI-RT");
+    private static final String MARKET_TICKER = "TEST-MARKET";
+
+    private MockedStatic<Session> session;
+    private final List<Message> sent = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fixOrderEntryService, "sessionUserPrefix", "FIX-");
+        ReflectionTestUtils.setField(orderIntakeService, "queueCapacity", 100);
+        session = mockStatic(Session.class);
+        session.when(() -> Session.sendToTarget(any(Message.class), eq(SESSION)))
+            .thenAnswer(invocation -> sent.add(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+    }
+
+    private static NewOrderSingle newOrder(String clOrdID, char side, int quantity, int price) {
+        NewOrderSingle message = new NewOrderSingle(new ClOrdID(clOrdID), new Side(side),
+            new TransactTime(), new OrdType(OrdType.LIMIT));
+        message.set(new Symbol(MARKET_TICKER));
+        message.set(new OrderQty(quantity));
+        message.set(new Price(price));
+        return message;
+    }
+
+    private static OrderCancelRequest cancelRequest(String clOrdID, String origClOrdID) {
+        OrderCancelRequest message = new OrderCancelRequest(new ClOrdID(clOrdID), new Side(Side.BUY), new TransactTime());
+        message.set(new OrigClOrdID(origClOrdID));
+        return message;
+    }
+
+    private static Order order(String orderId, int quantity, int filled) {
+        return new Order(orderId, null, "FIX-FBG-MOCK-KALSHI-RT", KalshiSide.yes, MARKET_TICKER, "limit",
+            quantity, filled, quantity - filled, 45, null, filled == 0 ? "open" : "partially_filled",
+            "GTC", 0L, 0L, null);
+    }
+
+    private static OrderBookEntry entry(String orderId, String action) {
+        return new OrderBookEntry(orderId, "user", KalshiSide.yes, action, 45, 10, 0L);
+    }
+
+    private static String field(Message message, int tag) throws Exception {
+        return message.getString(tag);
+    }
+
+    @Test
+    @DisplayName("A new order is acknowledged and each of its fills is reported with LastQty/LastPx")
+    public void testNewOrderReportsFills() throws Exception {
+        when(orderBookService.nextOrderId()).thenReturn("ORD-1");
+        Execution execution = new Execution("T-1", entry("ORD-1", "buy"), entry("ORD-0", "sell"), 4, 45, 0L);
+        when(orderBookService.placeOrder(eq("ORD-1"), eq(MARKET_TICKER), any(OrderRequest.class), eq("buy"), eq("FIX-FBG-MOCK-KALSHI-RT")))
+            .thenReturn(new OrderBookService.OrderResult(order("ORD-1", 10, 4), List.of(execution)));
+
+        fixOrderEntryService.onNewOrderSingle(newOrder("C-1", Side.BUY, 10, 45), SESSION);
+
+        assertEquals(2, sent.size());
+        assertEquals(String.valueOf(ExecType.NEW), field(sent.get(0), ExecType.FIELD));
+        Message fill = sent.get(1);
+        assertEquals(String.valueOf(ExecType.TRADE), field(fill, ExecType.FIELD));
+        assertEquals(String.valueOf(OrdStatus.PARTIALLY_FILLED), field(fill, OrdStatus.FIELD));
+        assertEquals(4.0, fill.getDouble(LastQty.FIELD));
+        assertEquals(45.0, fill.getDouble(LastPx.FIELD));
+        assertEquals(6.0, fill.getDouble(LeavesQty.FIELD));
+        assertEquals("C-1", field(fill, ClOrdID.FIELD));
+    }
+
+    @Test
+    @DisplayName("Fills on a resting FIX order are reported when another order matches it")
+    public void testPassiveFillReported() throws Exception {
+        when(orderBookService.nextOrderId()).thenReturn("ORD-1");
+        when(orderBookService.placeOrder(eq("ORD-1"), anyString(), any(OrderRequest.class), anyString(), anyString()))
+            .thenReturn(new OrderBookService.OrderResult(order("ORD-1", 10, 0), List.of()));
+        fixOrderEntryService.onNewOrderSingle(newOrder("C-1", Side.SELL, 10, 45), SESSION);
+        sent.clear();
+
+        fixOrderEntryService.onExecutions(MARKET_TICKER,
+            List.of(new Execution("T-2", entry("ORD-9", "buy"), entry("ORD-1", "sell"), 10, 45, 0L)));
+
+        assertEquals(1, sent.size());
+        assertEquals(String.valueOf(OrdStatus.FILLED), field(sent.get(0), OrdStatus.FIELD));
+        assertEquals("T-2", field(sent.get(0), TrdMatchID.FIELD));
+    }
+
+    @Test
+    @DisplayName("Cancel by OrigClOrdID cancels the book order; unknown orders get a cancel reject")
+    public void testCancel() throws Exception {
+        when(orderBookService.nextOrderId()).thenReturn("ORD-1");
+        when(orderBookService.placeOrder(eq("ORD-1"), anyString(), any(OrderRequest.class), anyString(), anyString()))
+            .thenReturn(new OrderBookService.OrderResult(order("ORD-1", 10, 0), List.of()));
+        fixOrderEntryService.onNewOrderSingle(newOrder("C-1", Side.BUY, 10, 45), SESSION);
+        sent.clear();
+
+        fixOrderEntryService.onOrderCancelRequest(cancelRequest("C-2", "C-1"), SESSION);
+        fixOrderEntryService.onOrderCancelRequest(cancelRequest("C-3", "C-1"), SESSION);
+
+        verify(orderBookService).cancelOrder("ORD-1");
+        // Cancels skip admission and take the priority lane
+        verify(admissionControlService, times(1)).admit(anyString(), anyInt());
+        verify(orderIntakeService, times(1)).submit(eq(MARKET_TICKER), eq(OrderIntakeService.Lane.PRIORITY), any());
+        assertEquals(String.valueOf(ExecType.CANCELED), field(sent.get(0), ExecType.FIELD));
+        assertEquals(MsgType.ORDER_CANCEL_REJECT, sent.get(1).getHeader().getString(MsgType.FIELD));
+    }
+
+    @Test
+    @DisplayName("A fill-or-kill order the book cannot fill in full is canceled with no ack or fills")
+    public void testFillOrKillKilled() throws Exception {
+        when(orderBookService.nextOrderId()).thenReturn("ORD-1");
+        Order killed = new Order("ORD-1", null, "FIX-FBG-MOCK-KALSHI-RT", KalshiSide.yes, MARKET_TICKER, "limit",
+            10, 0, 0, 45, null, "canceled", "FOK", 0L, 0L, null);
+        when(orderBookService.placeOrder(eq("ORD-1"), anyString(), any(OrderRequest.class), anyString(), anyString()))
+            .thenReturn(new OrderBookService.OrderResult(killed, List.of()));
+        NewOrderSingle message = newOrder("C-1", Side.BUY, 10, 45);
+        message.set(new TimeInForce(TimeInForce.FILL_OR_KILL));
+
+        fixOrderEntryService.onNewOrderSingle(message, SESSION);
+
+        assertEquals(1, sent.size());
+        assertEquals(String.valueOf(ExecType.CANCELED), field(sent.get(0), ExecType.FIELD));
+        assertEquals(0.0, sent.get(0).getDouble(CumQty.FIELD));
+        verify(orderBookService, never()).cancelOrder(any());
+    }
+
+    @Test
+    @DisplayName("Market orders are rejected without reaching the book")
+    public void testMarketOrderRejected() throws Exception {
+        NewOrderSingle message = new NewOrderSingle(new ClOrdID("C-1"), new Side(Side.BUY),
+            new TransactTime(), new OrdType(OrdType.MARKET));
+        message.set(new Symbol(MARKET_TICKER));
+        message.set(new OrderQty(10));
+
+        fixOrderEntryService.onNewOrderSingle(message, SESSION);
+
+        verify(orderBookService, never()).placeOrder(any(), any(), any(), any(), any());
+        assertEquals(String.valueOf(ExecType.REJECTED), field(sent.get(0), ExecType.FIELD));
+    }
+
+    @Test
+    @DisplayName("An order canceled outside FIX is reported to its session and forgotten")
+    public void testExternalCancelForgetsOrder() throws Exception {
+        when(orderBookService.nextOrderId()).thenReturn("ORD-1");
+        when(orderBookService.placeOrder(eq("ORD-1"), anyString(), any(OrderRequest.class), anyString(), anyString()))
+            .thenReturn(new OrderBookService.OrderResult(order("ORD-1", 10, 0), List.of()));
+        fixOrderEntryService.onNewOrderSingle(newOrder("C-1", Side.BUY, 10, 45), SESSION);
+        sent.clear();
+
+        // When the order is canceled over REST
+        OrderUpdateMessage update = new OrderUpdateMessage();
+        update.setOrderId("ORD-1");
+        fixOrderEntryService.onOrderUpdateEvent(new OrderUpdateEvent(update, OrderUpdateEvent.OrderUpdateType.CANCEL));
+
+        // Then the session hears about it once, and a later FIX cancel finds nothing to cancel
+        assertEquals(String.valueOf(ExecType.CANCELED), field(sent.get(0), ExecType.FIELD));
+        assertEquals("C-1", field(sent.get(0), ClOrdID.FIELD));
+        fixOrderEntryService.onOrderUpdateEvent(new OrderUpdateEvent(update, OrderUpdateEvent.OrderUpdateType.CANCEL));
+        fixOrderEntryService.onOrderCancelRequest(cancelRequest("C-2", "C-1"), SESSION);
+        assertEquals(2, sent.size());
+        assertEquals(MsgType.ORDER_CANCEL_REJECT, sent.get(1).getHeader().getString(MsgType.FIELD));
+        verify(orderBookService, never()).cancelOrder(any());
+    }
+
+    @Test
+    @DisplayName("New FIX orders pass admission control; a refused order is rejected without reaching the book")
+    public void testNewOrderAdmissionRefused() throws Exception {
+        doThrow(new RateLimitExceededException("Order rate limit exceeded for user FIX-FBG-MOCK-KALSHI-RT", 20))
+            .when(admissionControlService).admit("FIX-FBG-MOCK-KALSHI-RT", 1);
+
+        fixOrderEntryService.onNewOrderSingle(newOrder("C-1", Side.BUY, 10, 45), SESSION);
+
+        verify(orderBookService, never()).placeOrder(any(), any(), any(), any(), any());
+        verify(orderIntakeService, never()).submit(any(), any(), any());
+        assertEquals(String.valueOf(ExecType.REJECTED), field(sent.get(0), ExecType.FIELD));
+        assertEquals("Order rate limit exceeded for user FIX-FBG-MOCK-KALSHI-RT", field(sent.get(0), Text.FIELD));
+    }
+}
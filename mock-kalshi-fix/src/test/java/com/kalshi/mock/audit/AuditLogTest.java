@@ -0,0 +1,113 @@
+package com.kalshi.mock.audit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuditLogTest {
+
+    @TempDir
+    Path directory;
+
+    private AuditLog auditLog;
+
+    @BeforeEach
+    void setUp() {
+        auditLog = new AuditLog();
+        ReflectionTestUtils.setField(auditLog, "enabled", true);
+        ReflectionTestUtils.setField(auditLog, "directory", directory.toString());
+        ReflectionTestUtils.setField(auditLog, "ringSlots", 64);
+        ReflectionTestUtils.setField(auditLog, "slotBytes", 128);
+        ReflectionTestUtils.setField(auditLog, "maxFileBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(auditLog, "maxFiles", 5);
+    }
+
+    private List<String> decodeAll() throws Exception {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.sorted().collect(Collectors.toList());
+        }
+        List<String> lines = new ArrayList<>();
+        for (Path file : files) {
+            AuditLogDecoder.decode(file, lines::add);
+        }
+        return lines;
+    }
+
+    @Test
+    @DisplayName("Events are written by the writer thread and decoded in order")
+    public void testRoundTrip() throws Exception {
+        auditLog.start();
+        auditLog.orderAccepted("ORD-1", "user1", "TEST-MARKET", "yes", "buy", 45, 10);
+        auditLog.fill("T-1", "TEST-MARKET", "ORD-1", "ORD-0", 45, 4);
+        auditLog.cancel("ORD-1", "TEST-MARKET", 6);
+        auditLog.fixIn("FIXT.1.1:A->B", "8=FIXT.1.1\u000135=D\u0001");
+        auditLog.stop();
+
+        List<String> lines = decodeAll();
+
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).endsWith(
+            "ORDER_ACCEPTED order=ORD-1 user=user1 market=TEST-MARKET side=yes action=buy price=45 qty=10"));
+        assertTrue(lines.get(1).endsWith("FILL trade=T-1 market=TEST-MARKET aggressor=ORD-1 passive=ORD-0 price=45 qty=4"));
+        assertTrue(lines.get(2).endsWith("CANCEL order=ORD-1 market=TEST-MARKET qty=6"));
+        assertTrue(lines.get(3).endsWith("FIX_IN session=FIXT.1.1:A->B 8=FIXT.1.1|35=D|"));
+        assertEquals(4, auditLog.getWrittenCount());
+    }
+
+    @Test
+    @DisplayName("Messages longer than a slot are truncated rather than overrunning the next slot")
+    public void testTruncation() throws Exception {
+        auditLog.start();
+        auditLog.fixOut("S", "X".repeat(1000));
+        auditLog.cancel("ORD-2", "TEST-MARKET", 1);
+        auditLog.stop();
+
+        List<String> lines = decodeAll();
+
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).length() < 200);
+        assertTrue(lines.get(1).endsWith("CANCEL order=ORD-2 market=TEST-MARKET qty=1"));
+    }
+
+    @Test
+    @DisplayName("Fields that no longer fit in a full slot are left out")
+    public void testFieldsPastFullSlotLeftOut() throws Exception {
+        ReflectionTestUtils.setField(auditLog, "slotBytes", AuditLog.MIN_SLOT_BYTES);
+        auditLog.start();
+        auditLog.orderAccepted("ORD-" + "9".repeat(40), "user1", "TEST-MARKET", "yes", "buy", 45, 10);
+        auditLog.cancel("ORD-2", "MKT", 1);
+        auditLog.stop();
+
+        List<String> lines = decodeAll();
+
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("user= market= side= action= price=45 qty=10"));
+        assertTrue(lines.get(1).endsWith("CANCEL order=ORD-2 market=MKT qty=1"));
+    }
+
+    @Test
+    @DisplayName("Nothing is recorded when auditing is disabled")
+    public void testDisabled() throws Exception {
+        ReflectionTestUtils.setField(auditLog, "enabled", false);
+        auditLog.start();
+        auditLog.cancel("ORD-1", "TEST-MARKET", 1);
+        auditLog.stop();
+
+        assertFalse(auditLog.isEnabled());
+        try (Stream<Path> listing = Files.list(directory)) {
+            assertEquals(0, listing.count());
+        }
+    }
+}
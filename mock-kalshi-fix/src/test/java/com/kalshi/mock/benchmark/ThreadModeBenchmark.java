@@ -0,0 +1,128 @@
+package com.kalshi.mock.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load driver for comparing platform and virtual thread modes of a running mock exchange.
+ *
+ * Each client loops create order, list open orders, cancel order against the REST API,
+ * so every request blocks on JDBC. Run it once against each mode and compare:
+ *
+ *   java -jar target/mock-kalshi-fix-*.jar --admission.enabled=false
+ *   java -jar target/mock-kalshi-fix-*.jar --admission.enabled=false --spring.threads.virtual.enabled=true
+ *
+ *   ThreadModeBenchmark [baseUrl] [clients] [seconds] [marketTicker]
+ *
+ * Admission control is turned off so the driver measures threading rather than rate limits.
+ * Virtual mode needs the server on a Java 21 runtime; on 17 both runs use platform threads.
+ */
+public class ThreadModeBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:9090";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        String marketTicker = args.length > 3 ? args[3] : "INXD-23DEC29-B5000";
+
+        HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ConcurrentLinkedQueue<long[]> latencies = new ConcurrentLinkedQueue<>();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            Thread thread = new Thread(() -> {
+                List<Long> mine = new ArrayList<>();
+                try {
+                    while (System.nanoTime() < deadline) {
+                        try {
+                            runCycle(http, baseUrl, marketTicker, client, mine);
+                            completed.addAndGet(3);
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latencies.add(mine.stream().mapToLong(Long::longValue).toArray());
+                    done.countDown();
+                }
+            }, "bench-client-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("clients=%d duration=%ds requests=%d failed_cycles=%d throughput=%.0f req/s%n",
+            clients, seconds, completed.get(), failed.get(), completed.get() / (double) seconds);
+        if (all.length > 0) {
+            System.out.printf("latency ms: p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Create a resting order far from the market, list open orders, then cancel the order
+     */
+    private static void runCycle(HttpClient http, String baseUrl, String marketTicker, int client,
+                                 List<Long> latencies) throws Exception {
+        String body = MAPPER.writeValueAsString(Map.of(
+            "market_ticker", marketTicker,
+            "side", "yes",
+            "action", "buy",
+            "type", "limit",
+            "count", 1,
+            "price", 1 + client % 5,
+            "time_in_force", "GTC"));
+        HttpResponse<String> created = timed(http, HttpRequest.newBuilder(URI.create(baseUrl + "/trade-api/v2/portfolio/orders"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build(), latencies);
+        if (created.statusCode() != 201) {
+            throw new IllegalStateException("create returned " + created.statusCode());
+        }
+        JsonNode order = MAPPER.readTree(created.body()).path("order");
+        String orderId = order.path("id").asText();
+
+        timed(http, HttpRequest.newBuilder(URI.create(baseUrl + "/trade-api/v2/portfolio/orders?status=open&limit=10"))
+            .GET()
+            .build(), latencies);
+
+        timed(http, HttpRequest.newBuilder(URI.create(baseUrl + "/trade-api/v2/portfolio/orders/" + orderId))
+            .DELETE()
+            .build(), latencies);
+    }
+
+    private static HttpResponse<String> timed(HttpClient http, HttpRequest request, List<Long> latencies) throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        latencies.add(System.nanoTime() - start);
+        return response;
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+}
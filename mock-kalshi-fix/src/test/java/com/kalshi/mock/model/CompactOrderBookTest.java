@@ -0,0 +1,86 @@
+package com.kalshi.mock.model;
+
+import com.fbg.api.market.KalshiSide;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for the compact order book form used for idle markets
+ */
+public class CompactOrderBookTest {
+
+    @Test
+    void testRoundTripKeepsLevelsAndTimePriority() {
+        ConcurrentOrderBook orderBook = new ConcurrentOrderBook("TEST-MARKET");
+        orderBook.addOrder(new OrderBookEntry("1", "user1", KalshiSide.yes, "buy", 45, 100, 1000L));
+        orderBook.addOrder(new OrderBookEntry("2", "user2", KalshiSide.yes, "buy", 45, 50, 2000L));
+        orderBook.addOrder(new OrderBookEntry("3", "user3", KalshiSide.no, "buy", 40, 75, 3000L));
+        orderBook.addOrder(new OrderBookEntry("4", "user4", KalshiSide.no, "sell", 60, 20, 4000L));
+
+        ConcurrentOrderBook restored = CompactOrderBook.decode("TEST-MARKET", CompactOrderBook.encode(orderBook));
+
+        assertEquals(orderBook.getOrderbookSnapshotKalshiFormat(10).getYes(),
+                     restored.getOrderbookSnapshotKalshiFormat(10).getYes());
+        assertEquals(orderBook.getOrderbookSnapshotKalshiFormat(10).getNo(),
+                     restored.getOrderbookSnapshotKalshiFormat(10).getNo());
+
+        // FIFO within the 45c level survives the round trip
+        List<OrderBookEntry> resting = restored.getRestingOrders();
+        assertEquals("1", resting.get(0).getOrderId());
+        assertEquals("2", resting.get(1).getOrderId());
+        assertEquals(2000L, restored.getOrder("2").getTimestamp());
+        assertEquals("sell", restored.getOrder("4").getAction());
+    }
+
+    @Test
+    void testPartiallyFilledOrdersKeepRemainingQuantity() {
+        ConcurrentOrderBook orderBook = new ConcurrentOrderBook("TEST-MARKET");
+        OrderBookEntry order = new OrderBookEntry("1", "user1", KalshiSide.yes, "buy", 30, 100, 1000L);
+        orderBook.addOrder(order);
+        order.reduceQuantity(60);
+
+        ConcurrentOrderBook restored = CompactOrderBook.decode("TEST-MARKET", CompactOrderBook.encode(orderBook));
+
+        assertEquals(40, restored.getOrder("1").getQuantity());
+    }
+
+    @Test
+    void testRestoredBookHasNoPendingDeltas() {
+        ConcurrentOrderBook orderBook = new ConcurrentOrderBook("TEST-MARKET");
+        orderBook.addOrder(new OrderBookEntry("1", "user1", KalshiSide.yes, "buy", 45, 100, 1000L));
+
+        ConcurrentOrderBook restored = CompactOrderBook.decode("TEST-MARKET", CompactOrderBook.encode(orderBook));
+
+        assertTrue(restored.calculateDeltas().isEmpty());
+    }
+
+    @Test
+    void testRestoredBookContinuesDeltaNumbers() {
+        ConcurrentOrderBook orderBook = new ConcurrentOrderBook("TEST-MARKET");
+        orderBook.addOrder(new OrderBookEntry("1", "user1", KalshiSide.yes, "buy", 45, 100, 1000L));
+        orderBook.addOrder(new OrderBookEntry("2", "user1", KalshiSide.yes, "buy", 44, 100, 1000L));
+        orderBook.calculateDeltas();
+
+        ConcurrentOrderBook restored = CompactOrderBook.decode("TEST-MARKET", CompactOrderBook.encode(orderBook));
+        restored.restoreDeltaSequence(orderBook.getDeltaSequence());
+        restored.addOrder(new OrderBookEntry("3", "user1", KalshiSide.yes, "buy", 43, 100, 1000L));
+
+        List<ConcurrentOrderBook.PriceLevelDelta> deltas = restored.calculateDeltas();
+        assertEquals(1, deltas.size());
+        assertEquals(3, deltas.get(0).getSequence());
+        assertEquals(3, restored.getDeltaStreamSnapshot().getSequence());
+        assertEquals(List.of(List.of(45, 100), List.of(44, 100), List.of(43, 100)),
+                     restored.getDeltaStreamSnapshot().getOrderbook().getYes());
+    }
+
+    @Test
+    void testEmptyBook() {
+        byte[] data = CompactOrderBook.encode(new ConcurrentOrderBook("TEST-MARKET"));
+
+        assertEquals(0, data.length);
+        assertTrue(CompactOrderBook.decode("TEST-MARKET", data).getRestingOrders().isEmpty());
+    }
+}
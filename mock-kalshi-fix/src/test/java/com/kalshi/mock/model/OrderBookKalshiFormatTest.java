@@ -176,4 +176,43 @@ public class OrderBookKalshiFormatTest {
         assertEquals(50, data.getYes().get(0).get(0));
         assertEquals(450, data.getYes().get(0).get(1)); // 100 + 200 + 150
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testVersionedSnapshotTracksChanges() {
+        ConcurrentOrderBook.VersionedOrderbook empty = orderBook.getVersionedSnapshotKalshiFormat(10);
+        assertEquals(0, empty.getVersion());
+        
+        // Given: an order added and another added then canceled
+        orderBook.addOrder(new OrderBookEntry("1", "user1", KalshiSide.yes, "buy", 50, 100, System.nanoTime()));
+        orderBook.addOrder(new OrderBookEntry("2", "user2", KalshiSide.yes, "buy", 49, 100, System.nanoTime()));
+        orderBook.cancelOrder("2");
+        
+        // Then: each change bumps the version and the snapshot reflects all of them
+        ConcurrentOrderBook.VersionedOrderbook snapshot = orderBook.getVersionedSnapshotKalshiFormat(10);
+        assertEquals(3, snapshot.getVersion());
+        assertEquals(List.of(List.of(50, 100)), snapshot.getOrderbook().getYes());
+        
+        // A failed cancel changes nothing
+        orderBook.cancelOrder("2");
+        assertEquals(3, orderBook.getVersion());
+    }
+    
+    @Test
+    void testTopOfBookInYesTerms() {
+        assertNull(orderBook.getTopOfBook().getBid());
+        assertEquals(0, orderBook.getTopOfBook().getAskQuantity());
+        
+        // Given: YES bids at 44 and 45, NO bids at 40 and 52 (YES asks at 60 and 48)
+        orderBook.addOrder(new OrderBookEntry("1", "user1", KalshiSide.yes, "buy", 45, 100, System.nanoTime()));
+        orderBook.addOrder(new OrderBookEntry("2", "user2", KalshiSide.yes, "buy", 44, 200, System.nanoTime()));
+        orderBook.addOrder(new OrderBookEntry("3", "user3", KalshiSide.no, "buy", 40, 150, System.nanoTime()));
+        orderBook.addOrder(new OrderBookEntry("4", "user4", KalshiSide.no, "buy", 52, 70, System.nanoTime()));
+        
+        // Then: the best bid is the highest YES bid and the best ask comes from the highest NO bid
+        ConcurrentOrderBook.TopOfBook top = orderBook.getTopOfBook();
+        assertEquals(45, top.getBid());
+        assertEquals(100, top.getBidQuantity());
+        assertEquals(48, top.getAsk());
+        assertEquals(70, top.getAskQuantity());
+    }
+}
@@ -0,0 +1,107 @@
+package com.kalshi.mock.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TimingWheel scheduling, cascading and cancellation.
+ */
+@DisplayName("TimingWheel Tests")
+class TimingWheelTest {
+
+    private static final long TICK = 100;
+    private static final long START = 1_000_000;
+
+    // 4 slots x 3 levels covers 6.4 seconds before overflow
+    private TimingWheel<String> wheel;
+    private List<String> fired;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimingWheel<>(TICK, 4, 3, START);
+        fired = new ArrayList<>();
+    }
+
+    private void advanceTo(long millis) {
+        wheel.advanceTo(millis, (value, deadline) -> {
+            assertTrue(millis >= deadline, "fired before deadline " + deadline);
+            fired.add(value);
+        });
+    }
+
+    @Test
+    @DisplayName("Entry fires on the first tick at or after its deadline, never early")
+    void testFiresAtDeadline() {
+        wheel.schedule("a", START + 250, "a");
+
+        advanceTo(START + 200);
+        assertTrue(fired.isEmpty());
+
+        advanceTo(START + 300);
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Deadlines on higher levels cascade down and fire in order")
+    void testCascade() {
+        wheel.schedule("far", START + 3_000, "far");
+        wheel.schedule("mid", START + 900, "mid");
+        wheel.schedule("near", START + 100, "near");
+
+        advanceTo(START + 1_000);
+        assertEquals(List.of("near", "mid"), fired);
+
+        advanceTo(START + 3_000);
+        assertEquals(List.of("near", "mid", "far"), fired);
+    }
+
+    @Test
+    @DisplayName("Deadlines beyond the top level wait in overflow")
+    void testOverflow() {
+        wheel.schedule("overflow", START + 20_000, "overflow");
+
+        advanceTo(START + 19_900);
+        assertTrue(fired.isEmpty());
+        assertTrue(wheel.contains("overflow"));
+
+        advanceTo(START + 20_000);
+        assertEquals(List.of("overflow"), fired);
+    }
+
+    @Test
+    @DisplayName("Cancel and reschedule replace the pending deadline")
+    void testCancelAndReschedule() {
+        wheel.schedule("a", START + 500, "first");
+        wheel.schedule("a", START + 1_500, "second");
+        wheel.schedule("b", START + 500, "b");
+        assertEquals("b", wheel.cancel("b"));
+
+        advanceTo(START + 1_000);
+        assertTrue(fired.isEmpty());
+
+        advanceTo(START + 1_500);
+        assertEquals(List.of("second"), fired);
+    }
+
+    @Test
+    @DisplayName("Deadlines already due are rejected so the caller acts immediately")
+    void testAlreadyDue() {
+        assertFalse(wheel.schedule("past", START - 1_000, "past"));
+        assertFalse(wheel.schedule("now", START, "now"));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Invalid dimensions are rejected")
+    void testInvalidDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(0, 4, 3, START));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(TICK, 1, 3, START));
+    }
+}
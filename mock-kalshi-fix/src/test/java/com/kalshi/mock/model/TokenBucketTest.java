@@ -0,0 +1,51 @@
+package com.kalshi.mock.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TokenBucket burst, refill and retry hints.
+ */
+@DisplayName("TokenBucket Tests")
+class TokenBucketTest {
+
+    private static final long START = 1_000_000;
+
+    @Test
+    @DisplayName("A full bucket allows its burst, then refuses with the wait until refill")
+    void testBurstThenRefuse() {
+        TokenBucket bucket = new TokenBucket(5, 10, START);
+
+        assertEquals(0, bucket.tryAcquire(5, START));
+        // 10 tokens/s is one token every 100ms
+        assertEquals(100, bucket.tryAcquire(1, START));
+        assertEquals(300, bucket.tryAcquire(3, START));
+    }
+
+    @Test
+    @DisplayName("Tokens refill with time up to capacity")
+    void testRefill() {
+        TokenBucket bucket = new TokenBucket(5, 10, START);
+        assertEquals(0, bucket.tryAcquire(5, START));
+
+        assertEquals(0, bucket.tryAcquire(2, START + 200));
+        assertTrue(bucket.tryAcquire(1, START + 200) > 0);
+
+        assertEquals(5.0, bucket.getAvailableTokens(START + 60_000), 1e-9);
+    }
+
+    @Test
+    @DisplayName("A multi-token request takes all tokens or none, and released tokens come back")
+    void testAllOrNothingAndRelease() {
+        TokenBucket bucket = new TokenBucket(5, 10, START);
+        assertEquals(0, bucket.tryAcquire(3, START));
+
+        assertTrue(bucket.tryAcquire(3, START) > 0);
+        assertEquals(2.0, bucket.getAvailableTokens(START), 1e-9);
+
+        bucket.release(3);
+        assertEquals(5.0, bucket.getAvailableTokens(START), 1e-9);
+    }
+}
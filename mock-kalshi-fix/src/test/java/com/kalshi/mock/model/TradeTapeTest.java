@@ -0,0 +1,125 @@
+package com.kalshi.mock.model;
+
+import com.fbg.api.market.KalshiSide;
+import com.fbg.api.rest.Trade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TradeTape covering eviction, ordering and keyset queries.
+ */
+@DisplayName("TradeTape Tests")
+class TradeTapeTest {
+
+    private static final String TEST_MARKET = "TEST-MARKET";
+
+    private TradeTape tape;
+
+    @BeforeEach
+    void setUp() {
+        tape = new TradeTape(TEST_MARKET, 5, 0L);
+    }
+
+    private Trade trade(String tradeId, long createdTime) {
+        return new Trade(tradeId, TEST_MARKET, TEST_MARKET, 50, 1, KalshiSide.yes, createdTime, null, null);
+    }
+
+    private void appendRange(int from, int to) {
+        for (int i = from; i <= to; i++) {
+            tape.append(trade(String.format("TRD-%03d", i), i * 10L));
+        }
+    }
+
+    private String ids(List<Trade> trades) {
+        StringBuilder sb = new StringBuilder();
+        for (Trade trade : trades) {
+            if (sb.length() > 0) sb.append(",");
+            sb.append(trade.getTrade_id());
+        }
+        return sb.toString();
+    }
+
+    @Test
+    @DisplayName("Snapshot returns trades newest first")
+    void testSnapshotNewestFirst() {
+        appendRange(1, 3);
+
+        assertEquals("TRD-003,TRD-002,TRD-001", ids(tape.snapshot()));
+        assertEquals(3, tape.size());
+    }
+
+    @Test
+    @DisplayName("Oldest trades are evicted when full and completeAfter advances")
+    void testEvictionAdvancesCompleteAfter() {
+        appendRange(1, 7);
+
+        assertEquals(5, tape.size());
+        assertEquals("TRD-007,TRD-006,TRD-005,TRD-004,TRD-003", ids(tape.snapshot()));
+        assertEquals(20L, tape.getCompleteAfter());
+    }
+
+    @Test
+    @DisplayName("Out-of-order trades are inserted in (created_time, trade_id) order")
+    void testOutOfOrderAppend() {
+        tape.append(trade("TRD-001", 10));
+        tape.append(trade("TRD-003", 30));
+        tape.append(trade("TRD-002", 20));
+        tape.append(trade("TRD-004", 30));
+
+        assertEquals("TRD-004,TRD-003,TRD-002,TRD-001", ids(tape.snapshot()));
+    }
+
+    @Test
+    @DisplayName("maxTs and minTs bound the query inclusively")
+    void testTimeBounds() {
+        appendRange(1, 5);
+
+        TradeTape.Page page = tape.query(20L, 40L, null, null, 10);
+
+        assertEquals("TRD-004,TRD-003,TRD-002", ids(page.getTrades()));
+        assertFalse(page.isExhausted());
+    }
+
+    @Test
+    @DisplayName("Keyset cursor pages through the tape without overlap")
+    void testCursorPagination() {
+        appendRange(1, 5);
+
+        TradeTape.Page first = tape.query(null, null, null, null, 2);
+        assertEquals("TRD-005,TRD-004", ids(first.getTrades()));
+        assertFalse(first.isExhausted());
+
+        Trade last = first.getTrades().get(1);
+        TradeTape.Page second = tape.query(null, null, last.getCreated_time(), last.getTrade_id(), 2);
+        assertEquals("TRD-003,TRD-002", ids(second.getTrades()));
+
+        last = second.getTrades().get(1);
+        TradeTape.Page third = tape.query(null, null, last.getCreated_time(), last.getTrade_id(), 2);
+        assertEquals("TRD-001", ids(third.getTrades()));
+        assertTrue(third.isExhausted());
+        assertEquals("TRD-001", third.getOldestRetained().getTrade_id());
+    }
+
+    @Test
+    @DisplayName("Cursor splits trades sharing a timestamp by trade id")
+    void testCursorWithinSameTimestamp() {
+        tape.append(trade("TRD-001", 10));
+        tape.append(trade("TRD-002", 10));
+        tape.append(trade("TRD-003", 10));
+
+        TradeTape.Page page = tape.query(null, null, 10L, "TRD-002", 10);
+
+        assertEquals("TRD-001", ids(page.getTrades()));
+    }
+
+    @Test
+    @DisplayName("Capacity must be positive")
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new TradeTape(TEST_MARKET, 0, 0L));
+    }
+}
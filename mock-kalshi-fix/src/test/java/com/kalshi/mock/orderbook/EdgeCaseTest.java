@@ -10,8 +10,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Edge case tests for the order book implementation.
@@ -226,4 +231,58 @@ public class EdgeCaseTest {
         // O3 should have remaining quantity
         assertEquals(250, orderBook.getOrder("O3").getQuantity());
     }
-}
\ No newline at end of file
+    
+    @Test
+    @DisplayName("Fill-or-kill with only partial liquidity at its limit does not trade")
+    public void testFillOrKillPartialLiquidity() {
+        // 30 offered at 45¢ and 20 at 46¢, but the buyer's limit is 45¢
+        orderBook.addOrder(new OrderBookEntry("S1", "U1", KalshiSide.yes, "sell", 45, 30, 1000));
+        orderBook.addOrder(new OrderBookEntry("S2", "U2", KalshiSide.yes, "sell", 46, 20, 2000));
+        
+        OrderBookEntry fok = new OrderBookEntry("B1", "U3", KalshiSide.yes, "buy", 45, 40, 3000);
+        List<Execution> executions = matchingEngine.matchOrder(fok, orderBook, true);
+        
+        assertTrue(executions.isEmpty());
+        assertEquals(40, fok.getQuantity());
+        assertEquals(30, orderBook.getOrder("S1").getQuantity());
+        assertEquals(20, orderBook.getOrder("S2").getQuantity());
+    }
+    
+    @Test
+    @DisplayName("Fill-or-kill fills in full across levels when liquidity suffices")
+    public void testFillOrKillFullLiquidity() {
+        orderBook.addOrder(new OrderBookEntry("S1", "U1", KalshiSide.yes, "sell", 45, 30, 1000));
+        orderBook.addOrder(new OrderBookEntry("S2", "U2", KalshiSide.yes, "sell", 46, 20, 2000));
+        
+        OrderBookEntry fok = new OrderBookEntry("B1", "U3", KalshiSide.yes, "buy", 46, 40, 3000);
+        List<Execution> executions = matchingEngine.matchOrder(fok, orderBook, true);
+        
+        assertEquals(2, executions.size());
+        assertEquals(0, fok.getQuantity());
+        assertNull(orderBook.getOrder("S1"));
+        assertEquals(10, orderBook.getOrder("S2").getQuantity());
+    }
+    
+    @Test
+    @DisplayName("Execution listeners run after the match, with the book readable by other threads")
+    public void testExecutionListenersRunOutsideBookLock() {
+        orderBook.addOrder(new OrderBookEntry("S1", "U1", KalshiSide.yes, "sell", 45, 30, 1000));
+        ConcurrentOrderBook.OrderBookListener listener = mock(ConcurrentOrderBook.OrderBookListener.class);
+        // A listener doing slow work, e.g. a database update, must not hold out book readers
+        AtomicBoolean bookReadable = new AtomicBoolean();
+        doAnswer(invocation -> {
+            CompletableFuture.runAsync(() -> orderBook.getBestAsk()).get(5, TimeUnit.SECONDS);
+            bookReadable.set(true);
+            return null;
+        }).when(listener).onOrderExecuted(anyString(), any(), anyInt());
+        orderBook.addListener(listener);
+        
+        OrderBookEntry buy = new OrderBookEntry("B1", "U2", KalshiSide.yes, "buy", 45, 10, 2000);
+        List<Execution> executions = matchingEngine.matchOrder(buy, orderBook);
+        
+        assertEquals(1, executions.size());
+        verify(listener).onOrderExecuted("TEST-MARKET", orderBook.getOrder("S1"), 10);
+        assertEquals(20, orderBook.getOrder("S1").getQuantity());
+        assertTrue(bookReadable.get());
+    }
+}
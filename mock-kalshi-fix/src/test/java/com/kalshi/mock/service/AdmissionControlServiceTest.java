@@ -0,0 +1,65 @@
+package com.kalshi.mock.service;
+
+import com.kalshi.mock.exception.RateLimitExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControlServiceTest {
+
+    private AdmissionControlService admissionControlService;
+
+    @BeforeEach
+    void setUp() {
+        admissionControlService = new AdmissionControlService();
+        ReflectionTestUtils.setField(admissionControlService, "enabled", true);
+        ReflectionTestUtils.setField(admissionControlService, "globalRatePerSecond", 1.0);
+        ReflectionTestUtils.setField(admissionControlService, "globalBurst", 5.0);
+        ReflectionTestUtils.setField(admissionControlService, "userRatePerSecond", 1.0);
+        ReflectionTestUtils.setField(admissionControlService, "userBurst", 3.0);
+    }
+
+    @Test
+    @DisplayName("A user past their burst is refused with a retry hint")
+    public void testUserLimit() {
+        admissionControlService.admit("USER-1", 3);
+
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+            () -> admissionControlService.admit("USER-1", 1));
+        assertTrue(e.getRetryAfterMillis() > 0);
+        assertEquals(1, e.getRetryAfterSeconds());
+        assertEquals(1L, admissionControlService.getStatistics().get("rejected_user"));
+    }
+
+    @Test
+    @DisplayName("The global budget is shared, and a global refusal does not spend the user's tokens")
+    public void testGlobalLimit() {
+        admissionControlService.admit("USER-1", 3);
+        admissionControlService.admit("USER-2", 2);
+
+        assertThrows(RateLimitExceededException.class, () -> admissionControlService.admit("USER-3", 3));
+        assertEquals(3L, admissionControlService.getStatistics().get("rejected_global"));
+
+        // USER-3 still has a full bucket once global tokens are available again
+        ReflectionTestUtils.setField(admissionControlService, "globalBucket", null);
+        admissionControlService.admit("USER-3", 3);
+        assertEquals(8L, admissionControlService.getStatistics().get("admitted"));
+    }
+
+    @Test
+    @DisplayName("User buckets are dropped once they have refilled; partly spent ones are kept")
+    public void testRefilledUsersEvicted() {
+        admissionControlService.admit("USER-1", 1);
+        admissionControlService.admit("USER-2", 3);
+        // Treat USER-1's two remaining tokens as a full bucket; USER-2 has spent everything
+        ReflectionTestUtils.setField(admissionControlService, "userBurst", 2.0);
+
+        admissionControlService.evictIdleUsers();
+
+        assertEquals(1L, admissionControlService.getStatistics().get("tracked_users"));
+        assertEquals(1L, admissionControlService.getStatistics().get("evicted_users"));
+    }
+}
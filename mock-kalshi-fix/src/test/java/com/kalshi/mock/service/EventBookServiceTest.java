@@ -0,0 +1,120 @@
+package com.kalshi.mock.service;
+
+import com.kalshi.mock.catalog.model.Event;
+import com.kalshi.mock.catalog.model.Market;
+import com.kalshi.mock.catalog.service.EventService;
+import com.kalshi.mock.catalog.service.MarketService;
+import com.kalshi.mock.dto.EventOrderbookResponse;
+import com.kalshi.mock.model.ConcurrentOrderBook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class EventBookServiceTest {
+
+    private static final String EVENT_TICKER = "EVENT-1";
+
+    @Mock
+    private OrderBookService orderBookService;
+
+    @Mock
+    private MarketService marketService;
+
+    @Mock
+    private EventService eventService;
+
+    @InjectMocks
+    private EventBookService eventBookService;
+
+    @BeforeEach
+    void setUp() {
+        Event event = new Event();
+        event.setEventTicker(EVENT_TICKER);
+        event.setMutuallyExclusive(true);
+        when(eventService.getEventByTicker(EVENT_TICKER, false)).thenReturn(event);
+
+        List<Market> markets = List.of(market("EVENT-1-A"), market("EVENT-1-B"), market("EVENT-1-C"));
+        when(marketService.getMarketsByEvent(EVENT_TICKER)).thenReturn(markets);
+        for (Market market : markets) {
+            when(marketService.getMarketByTicker(market.getTicker())).thenReturn(market);
+        }
+
+        when(orderBookService.getTopOfBook("EVENT-1-A")).thenReturn(new ConcurrentOrderBook.TopOfBook(30, 10, 35, 5));
+        when(orderBookService.getTopOfBook("EVENT-1-B")).thenReturn(new ConcurrentOrderBook.TopOfBook(50, 20, 55, 20));
+        // C has no resting orders at all
+        when(orderBookService.getTopOfBook("EVENT-1-C")).thenReturn(new ConcurrentOrderBook.TopOfBook(null, 0, null, 0));
+    }
+
+    private static Market market(String ticker) {
+        Market market = new Market();
+        market.setTicker(ticker);
+        market.setEventTicker(EVENT_TICKER);
+        return market;
+    }
+
+    @Test
+    @DisplayName("The snapshot lists every market with the implied sums, counting empty sides as 0 and 100")
+    public void testSnapshot() {
+        EventOrderbookResponse.EventOrderbook book = eventBookService.getEventOrderbook(EVENT_TICKER);
+
+        assertTrue(book.isMutuallyExclusive());
+        assertEquals(0, book.getSeq());
+        assertEquals(3, book.getMarkets().size());
+        assertEquals("EVENT-1-A", book.getMarkets().get(0).getMarketTicker());
+        assertEquals(80, book.getYesBidSum());
+        assertEquals(190, book.getYesAskSum());
+    }
+
+    @Test
+    @DisplayName("Only a change in some market's top of book bumps the event sequence and is published")
+    public void testRefreshPublishesChanges() {
+        eventBookService.getEventOrderbook(EVENT_TICKER);
+        List<EventOrderbookResponse.EventOrderbookDelta> published = new ArrayList<>();
+
+        // Unchanged top of book: nothing to send
+        eventBookService.refresh("EVENT-1-A", published::add);
+        assertTrue(published.isEmpty());
+
+        when(orderBookService.getTopOfBook("EVENT-1-C")).thenReturn(new ConcurrentOrderBook.TopOfBook(10, 40, null, 0));
+        eventBookService.refresh("EVENT-1-C", published::add);
+
+        assertEquals(1, published.size());
+        EventOrderbookResponse.EventOrderbookDelta delta = published.get(0);
+        assertEquals(1, delta.getSeq());
+        assertEquals("EVENT-1-C", delta.getMarket().getMarketTicker());
+        assertEquals(10, delta.getMarket().getYesBid());
+        assertEquals(90, delta.getYesBidSum());
+        assertEquals(190, delta.getYesAskSum());
+        assertEquals(1, eventBookService.getEventOrderbook(EVENT_TICKER).getSeq());
+    }
+
+    @Test
+    @DisplayName("Markets of events nobody has asked for are not tracked")
+    public void testUnindexedEventIgnored() {
+        List<EventOrderbookResponse.EventOrderbookDelta> published = new ArrayList<>();
+        eventBookService.refresh("EVENT-1-A", published::add);
+
+        assertTrue(published.isEmpty());
+        verify(orderBookService, never()).getTopOfBook(anyString());
+    }
+
+    @Test
+    @DisplayName("An unknown event is rejected")
+    public void testUnknownEvent() {
+        assertThrows(IllegalArgumentException.class, () -> eventBookService.getEventOrderbook("NO-SUCH-EVENT"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.kalshi.mock.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class HistoryPartitionServiceTest {
+
+    private static final long DAY_MILLIS = 86_400_000L;
+    // 2026-10-18 12:00 UTC
+    private static final long NOW = LocalDate.of(2026, 10, 18).toEpochDay() * DAY_MILLIS + DAY_MILLIS / 2;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private HistoryPartitionService historyPartitionService;
+
+    @TempDir
+    Path archiveDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(historyPartitionService, "daysAhead", 1);
+        ReflectionTestUtils.setField(historyPartitionService, "retentionDays", 30);
+        ReflectionTestUtils.setField(historyPartitionService, "archiveDir", archiveDir.toString());
+        ReflectionTestUtils.setField(historyPartitionService, "archiveFetchSize", 100);
+
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Integer.class), eq("fills")))
+            .thenReturn(1);
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Integer.class), eq("trades")))
+            .thenReturn(0);
+    }
+
+    @Test
+    @DisplayName("Upcoming daily partitions are created with millisecond bounds")
+    public void testCreatesUpcomingPartitions() {
+        historyPartitionService.maintain(NOW);
+
+        long today = LocalDate.of(2026, 10, 18).toEpochDay() * DAY_MILLIS;
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS fills_p20261018 PARTITION OF fills"
+            + " FOR VALUES FROM (" + today + ") TO (" + (today + DAY_MILLIS) + ")");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS fills_p20261019 PARTITION OF fills"
+            + " FOR VALUES FROM (" + (today + DAY_MILLIS) + ") TO (" + (today + 2 * DAY_MILLIS) + ")");
+        // trades is not partitioned here, so it is left alone
+        verify(jdbcTemplate, never()).execute(contains("PARTITION OF trades"));
+    }
+
+    @Test
+    @DisplayName("Partitions past retention are detached, archived to a file and dropped")
+    public void testArchivesExpiredPartitions() throws Exception {
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), eq("fills")))
+            .thenReturn(List.of("fills_default", "fills_p20260901", "fills_p20261001"));
+        when(jdbcTemplate.queryForList(contains("relispartition"), eq(String.class), anyString()))
+            .thenReturn(List.of("fills_p20260901"));
+        Path temp = archiveDir.resolve("fills").resolve("fills_p20260901.csv.gz.tmp");
+        doAnswer(invocation -> {
+            Files.writeString(temp, "rows");
+            return 3L;
+        }).when(jdbcTemplate).execute(any(ConnectionCallback.class));
+
+        historyPartitionService.maintain(NOW);
+
+        verify(jdbcTemplate).execute("ALTER TABLE fills DETACH PARTITION fills_p20260901");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE fills DETACH PARTITION fills_p20261001");
+        verify(jdbcTemplate, never()).execute(contains("DETACH PARTITION fills_default"));
+        verify(jdbcTemplate).execute("DROP TABLE fills_p20260901");
+        assertTrue(Files.exists(archiveDir.resolve("fills").resolve("fills_p20260901.csv.gz")));
+        assertFalse(Files.exists(temp));
+    }
+
+    @Test
+    @DisplayName("Databases without partitioned tables are left untouched")
+    public void testSkipsUnpartitionedDatabase() {
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Integer.class), anyString()))
+            .thenThrow(new BadSqlGrammarException("check", "SELECT", new SQLException("no such table")));
+
+        historyPartitionService.maintain(NOW);
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    @DisplayName("Only daily partitions of the table are recognised")
+    public void testPartitionDay() {
+        assertEquals(LocalDate.of(2026, 9, 1), HistoryPartitionService.partitionDay("fills", "fills_p20260901"));
+        assertNull(HistoryPartitionService.partitionDay("fills", "fills_default"));
+        assertNull(HistoryPartitionService.partitionDay("fills", "trades_p20260901"));
+        assertEquals("trades_p20261018", HistoryPartitionService.partitionName("trades", LocalDate.of(2026, 10, 18)));
+    }
+
+    @Test
+    @DisplayName("Reads are bounded by the archive cut-off only on tables that get archived")
+    public void testRetainedSince() {
+        ReflectionTestUtils.setField(historyPartitionService, "enabled", true);
+
+        long today = Math.floorDiv(System.currentTimeMillis(), DAY_MILLIS);
+        assertEquals((today - 30) * DAY_MILLIS, historyPartitionService.retainedSince("fills"));
+        // trades is not partitioned here, so nothing is ever archived from it
+        assertEquals(0L, historyPartitionService.retainedSince("trades"));
+
+        // Checked once per table
+        historyPartitionService.retainedSince("fills");
+        verify(jdbcTemplate, times(1)).queryForObject(contains("pg_partitioned_table"), eq(Integer.class), eq("fills"));
+    }
+
+    @Test
+    @DisplayName("With maintenance disabled nothing is archived, so reads are not bounded")
+    public void testRetainedSinceWhenDisabled() {
+        ReflectionTestUtils.setField(historyPartitionService, "enabled", false);
+
+        assertEquals(0L, historyPartitionService.retainedSince("fills"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.kalshi.mock.service;
+
+import com.kalshi.mock.catalog.model.Market;
+import com.kalshi.mock.catalog.model.Market.MarketStatus;
+import com.kalshi.mock.catalog.model.Market.MarketType;
+import com.kalshi.mock.catalog.service.MarketCatalog;
+import com.kalshi.mock.catalog.service.MarketService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MarketCatalog indexes and keyset listing.
+ */
+@DisplayName("MarketCatalog Tests")
+class MarketCatalogTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private MarketCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new MarketCatalog();
+        catalog.put(market("MKT-A", "EVT-1", MarketStatus.OPEN, 1), "SER-1");
+        catalog.put(market("MKT-B", "EVT-1", MarketStatus.CLOSED, 2), "SER-1");
+        catalog.put(market("MKT-C", "EVT-2", MarketStatus.OPEN, 3), "SER-2");
+        catalog.put(market("MKT-D", "EVT-2", MarketStatus.OPEN, 4), "SER-2");
+    }
+
+    private Market market(String ticker, String eventTicker, MarketStatus status, int closeDay) {
+        return new Market(ticker, eventTicker, MarketType.BINARY, ticker,
+            BASE_TIME, BASE_TIME.plusDays(closeDay), status);
+    }
+
+    private List<String> tickers(List<Market> markets) {
+        return markets.stream().map(Market::getTicker).collect(Collectors.toList());
+    }
+
+    private MarketService.MarketFilter filter() {
+        return new MarketService.MarketFilter();
+    }
+
+    @Test
+    @DisplayName("Listing is ordered by ticker and pages with a keyset cursor")
+    void testKeysetPaging() {
+        MarketService.MarketFilter filter = filter();
+        filter.setLimit(2);
+
+        List<Market> first = catalog.query(filter);
+        assertEquals(List.of("MKT-A", "MKT-B"), tickers(first));
+
+        filter.setCursor(first.get(1).getTicker());
+        assertEquals(List.of("MKT-C", "MKT-D"), tickers(catalog.query(filter)));
+
+        filter.setCursor("MKT-D");
+        assertTrue(catalog.query(filter).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Event, series and status filters combine")
+    void testIndexedFilters() {
+        MarketService.MarketFilter filter = filter();
+        filter.setSeriesTicker("SER-1");
+        assertEquals(List.of("MKT-A", "MKT-B"), tickers(catalog.query(filter)));
+
+        filter.setStatus(MarketStatus.OPEN);
+        assertEquals(List.of("MKT-A"), tickers(catalog.query(filter)));
+
+        filter = filter();
+        filter.setEventTicker("EVT-2");
+        filter.setStatus(MarketStatus.CLOSED);
+        assertTrue(catalog.query(filter).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Close time range is inclusive")
+    void testCloseTimeRange() {
+        MarketService.MarketFilter filter = filter();
+        filter.setMinCloseTime(BASE_TIME.plusDays(2));
+        filter.setMaxCloseTime(BASE_TIME.plusDays(3));
+
+        assertEquals(List.of("MKT-B", "MKT-C"), tickers(catalog.query(filter)));
+    }
+
+    @Test
+    @DisplayName("Updates re-index status and close time")
+    void testUpdateReindexes() {
+        catalog.update("MKT-A", m -> {
+            m.setStatus(MarketStatus.CLOSED);
+            m.setCloseTime(BASE_TIME.plusDays(10));
+        });
+
+        assertEquals(List.of("MKT-C", "MKT-D"), catalog.getTickers(MarketStatus.OPEN));
+        assertEquals(2, catalog.count(MarketStatus.CLOSED));
+
+        MarketService.MarketFilter filter = filter();
+        filter.setMaxCloseTime(BASE_TIME.plusDays(1));
+        assertTrue(catalog.query(filter).isEmpty());
+
+        assertFalse(catalog.update("MKT-Z", m -> m.setStatus(MarketStatus.OPEN)));
+    }
+
+    @Test
+    @DisplayName("Moving an event to another series moves its markets")
+    void testMoveEvent() {
+        catalog.moveEvent("EVT-1", "SER-2");
+
+        MarketService.MarketFilter filter = filter();
+        filter.setSeriesTicker("SER-2");
+        assertEquals(List.of("MKT-A", "MKT-B", "MKT-C", "MKT-D"), tickers(catalog.query(filter)));
+        assertEquals("SER-2", catalog.getSeriesTicker("MKT-A"));
+    }
+
+    @Test
+    @DisplayName("Removed markets disappear from every index")
+    void testRemove() {
+        catalog.remove("MKT-C");
+
+        assertFalse(catalog.contains("MKT-C"));
+        assertEquals(3, catalog.size());
+        assertEquals(List.of("MKT-D"), tickers(catalog.getByEvent("EVT-2")));
+        assertEquals(List.of("MKT-A", "MKT-D"), catalog.getTickers(MarketStatus.OPEN));
+    }
+
+    @Test
+    @DisplayName("Markets handed out are copies: later updates and caller changes do not reach each other")
+    void testReadsAreCopies() {
+        Market before = catalog.get("MKT-A");
+
+        catalog.update("MKT-A", m -> m.setTitle("Renamed"));
+        before.setStatus(MarketStatus.SETTLED);
+
+        assertEquals("MKT-A", before.getTitle());
+        assertEquals("Renamed", catalog.get("MKT-A").getTitle());
+        assertEquals(MarketStatus.OPEN, catalog.get("MKT-A").getStatus());
+        assertEquals(List.of("MKT-A", "MKT-C", "MKT-D"), catalog.getTickers(MarketStatus.OPEN));
+    }
+}
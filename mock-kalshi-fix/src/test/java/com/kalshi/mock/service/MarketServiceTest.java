@@ -0,0 +1,89 @@
+package com.kalshi.mock.service;
+
+import com.kalshi.mock.catalog.model.Market;
+import com.kalshi.mock.catalog.model.Market.MarketStatus;
+import com.kalshi.mock.catalog.model.Market.MarketType;
+import com.kalshi.mock.catalog.service.MarketCatalog;
+import com.kalshi.mock.catalog.service.MarketService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MarketServiceTest {
+
+    private static final String MARKET_TICKER = "TEST-MARKET";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private OrderBookService orderBookService;
+
+    @InjectMocks
+    private MarketService marketService;
+
+    @BeforeEach
+    void setUp() {
+        MarketCatalog catalog = new MarketCatalog();
+        LocalDateTime now = LocalDateTime.now();
+        Market market = new Market(MARKET_TICKER, "TEST-EVENT", MarketType.BINARY, "Old title",
+            now.minusDays(1), now.plusDays(1), MarketStatus.OPEN);
+        market.setVolume(0L);
+        market.setVolume24h(0L);
+        catalog.put(market, "TEST-SERIES");
+        ReflectionTestUtils.setField(marketService, "catalog", catalog);
+    }
+
+    @Test
+    @DisplayName("Updating a market keeps statistics applied in memory but not yet flushed")
+    public void testUpdateKeepsUnflushedStatistics() {
+        // Given a trade recorded in the catalog and still waiting for MarketStatisticsService to flush it
+        marketService.applyMarketStatistics(MARKET_TICKER, BigDecimal.valueOf(40), BigDecimal.valueOf(45),
+            BigDecimal.valueOf(55), BigDecimal.valueOf(60), BigDecimal.valueOf(42), 10);
+
+        // When the title is changed
+        Market updates = new Market();
+        updates.setTitle("New title");
+        Market updated = marketService.updateMarket(MARKET_TICKER, updates);
+
+        // Then the title changes and the unflushed price and volume stay
+        assertEquals("New title", updated.getTitle());
+        assertEquals(10L, updated.getVolume());
+        assertEquals(10L, updated.getVolume24h());
+        assertEquals(BigDecimal.valueOf(42), updated.getLastPrice());
+        assertEquals(BigDecimal.valueOf(40), marketService.getMarketByTicker(MARKET_TICKER).getYesBid());
+    }
+
+    @Test
+    @DisplayName("Catalog changes made inside a transaction wait for its commit")
+    public void testCatalogChangedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When prices are written inside a transaction
+            marketService.updateMarketPrices(MARKET_TICKER, BigDecimal.valueOf(40), BigDecimal.valueOf(45),
+                BigDecimal.valueOf(55), BigDecimal.valueOf(60), BigDecimal.valueOf(42));
+
+            // Then the catalog is untouched until the commit, so a rollback leaves nothing behind
+            assertNull(marketService.getMarketByTicker(MARKET_TICKER).getLastPrice());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(BigDecimal.valueOf(42), marketService.getMarketByTicker(MARKET_TICKER).getLastPrice());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
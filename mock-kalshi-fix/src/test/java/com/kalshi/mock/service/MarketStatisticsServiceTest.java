@@ -0,0 +1,91 @@
+package com.kalshi.mock.service;
+
+import com.kalshi.mock.catalog.service.MarketService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MarketStatisticsServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private MarketService marketService;
+
+    @InjectMocks
+    private MarketStatisticsService marketStatisticsService;
+
+    private static final String MARKET_TICKER = "TEST-MARKET";
+
+    private static BigDecimal price(int cents) {
+        return BigDecimal.valueOf(cents);
+    }
+
+    @Test
+    @DisplayName("Updates are applied to the catalog immediately and coalesced into one row per market")
+    @SuppressWarnings("unchecked")
+    public void testUpdatesCoalesce() {
+        marketStatisticsService.record(MARKET_TICKER, price(40), price(45), price(40), price(45), price(42), 10);
+        marketStatisticsService.record(MARKET_TICKER, price(41), price(44), price(41), price(44), null, 0);
+        marketStatisticsService.record(MARKET_TICKER, price(43), price(46), price(43), price(46), price(44), 5);
+
+        verify(marketService, times(3)).applyMarketStatistics(eq(MARKET_TICKER), any(), any(), any(), any(), any(), anyLong());
+        assertEquals(1, marketStatisticsService.getPendingCount());
+
+        marketStatisticsService.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("last_price = ?"), batch.capture());
+        Object[] row = batch.getValue().get(0);
+        assertEquals(price(43), row[0]);   // latest yes bid
+        assertEquals(price(44), row[4]);   // latest last price
+        assertEquals(15L, row[5]);         // summed volume
+        assertEquals(MARKET_TICKER, row[8]);
+        assertEquals(0, marketStatisticsService.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Book-only updates do not overwrite the last price")
+    public void testBookOnlyUpdateKeepsLastPrice() {
+        marketStatisticsService.record(MARKET_TICKER, price(40), price(45), price(40), price(45), null, 0);
+
+        marketStatisticsService.flush();
+
+        verify(jdbcTemplate).batchUpdate(argThat((String sql) -> !sql.contains("last_price = ?")), anyList());
+    }
+
+    @Test
+    @DisplayName("A failed flush keeps the statistics for the next attempt")
+    public void testFailedFlushRequeues() {
+        marketStatisticsService.record(MARKET_TICKER, price(40), price(45), price(40), price(45), price(42), 10);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenThrow(new DataAccessResourceFailureException("database down"));
+
+        marketStatisticsService.flush();
+
+        assertEquals(1, marketStatisticsService.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Flush with nothing pending does not touch the database")
+    public void testEmptyFlush() {
+        marketStatisticsService.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,190 @@
+package com.kalshi.mock.service;
+
+import com.fbg.api.market.KalshiSide;
+import com.fbg.api.rest.OrderRequest;
+import com.kalshi.mock.audit.AuditLog;
+import com.kalshi.mock.dto.OrderbookResponse;
+import com.kalshi.mock.event.OrderBookEventPublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class OrderBookTieringTest {
+
+    @Mock
+    private PersistenceService persistenceService;
+
+    @Mock
+    private PositionsService positionsService;
+
+    @Mock
+    private OrderBookEventPublisher eventPublisher;
+
+    @Mock
+    private OrderTrackingService orderTrackingService;
+
+    @Mock
+    private TradeTapeService tradeTapeService;
+
+    @Mock
+    private AuditLog auditLog;
+
+    @Mock
+    private PortfolioIndexService portfolioIndexService;
+
+    @InjectMocks
+    private OrderBookService orderBookService;
+
+    private static final String MARKET_TICKER = "TEST-MARKET";
+
+    @BeforeEach
+    void setUp() {
+        when(persistenceService.getOpenOrdersForMarket(anyString())).thenReturn(List.of());
+        orderBookService.createOrderBook(MARKET_TICKER);
+        orderBookService.createOrderBook("OTHER-MARKET");
+    }
+
+    private void placeOrder(int price, int quantity) {
+        OrderRequest request = new OrderRequest(KalshiSide.yes, MARKET_TICKER, "limit", quantity, price, "GTC", null);
+        orderBookService.createOrder(MARKET_TICKER, request, "buy", "user1");
+    }
+
+    @Test
+    @DisplayName("Idle books are demoted and still serve snapshots without being promoted")
+    public void testDemoteAndRead() {
+        placeOrder(45, 10);
+
+        ReflectionTestUtils.setField(orderBookService, "idleThresholdMillis", 1L);
+        sleepPastThreshold();
+        orderBookService.demoteIdleBooks();
+
+        assertEquals(0L, orderBookService.getTierStatistics().get("hot_books"));
+        assertEquals(2L, orderBookService.getTierStatistics().get("cold_books"));
+        assertTrue(orderBookService.hasOrderBook(MARKET_TICKER));
+
+        OrderbookResponse.OrderbookData data = orderBookService.getOrderbookKalshiFormat(MARKET_TICKER, 10);
+        assertEquals(List.of(List.of(45, 10)), data.getYes());
+        assertEquals(0L, orderBookService.getTierStatistics().get("promotions"));
+    }
+
+    @Test
+    @DisplayName("An order on a cold book promotes it with its resting orders intact")
+    public void testOrderPromotes() {
+        placeOrder(45, 10);
+
+        ReflectionTestUtils.setField(orderBookService, "idleThresholdMillis", 1L);
+        sleepPastThreshold();
+        orderBookService.demoteIdleBooks();
+        placeOrder(44, 5);
+
+        assertEquals(1L, orderBookService.getTierStatistics().get("hot_books"));
+        assertEquals(1L, orderBookService.getTierStatistics().get("promotions"));
+        OrderbookResponse.OrderbookData data = orderBookService.getOrderbookKalshiFormat(MARKET_TICKER, 10);
+        assertEquals(List.of(List.of(45, 10), List.of(44, 5)), data.getYes());
+    }
+
+    @Test
+    @DisplayName("Book versions carry across demotion and promotion")
+    public void testVersionSurvivesTiering() {
+        placeOrder(45, 10);
+        placeOrder(44, 5);
+        long version = orderBookService.getVersionedOrderbook(MARKET_TICKER, 10).getVersion();
+        assertTrue(version > 0);
+
+        ReflectionTestUtils.setField(orderBookService, "idleThresholdMillis", 1L);
+        sleepPastThreshold();
+        orderBookService.demoteIdleBooks();
+        assertEquals(version, orderBookService.getVersionedOrderbook(MARKET_TICKER, 10).getVersion());
+
+        placeOrder(43, 1);
+        assertTrue(orderBookService.getVersionedOrderbook(MARKET_TICKER, 10).getVersion() > version);
+        assertNull(orderBookService.getVersionedOrderbook("NO-SUCH-MARKET", 10));
+        assertEquals(List.of("OTHER-MARKET", MARKET_TICKER), orderBookService.getOrderBookTickers());
+    }
+
+    @Test
+    @DisplayName("A subscription promotes a cold book")
+    public void testSubscriptionPromotes() {
+        ReflectionTestUtils.setField(orderBookService, "idleThresholdMillis", 1L);
+        sleepPastThreshold();
+        orderBookService.demoteIdleBooks();
+
+        orderBookService.publishInitialSnapshot(MARKET_TICKER, "session-1");
+
+        assertEquals(1L, orderBookService.getTierStatistics().get("hot_books"));
+    }
+
+    @Test
+    @DisplayName("Tiering disabled or recently active books stay hot")
+    public void testActiveBooksStayHot() {
+        ReflectionTestUtils.setField(orderBookService, "idleThresholdMillis", 0L);
+        orderBookService.demoteIdleBooks();
+        assertEquals(2L, orderBookService.getTierStatistics().get("hot_books"));
+
+        ReflectionTestUtils.setField(orderBookService, "idleThresholdMillis", 60_000L);
+        orderBookService.demoteIdleBooks();
+        assertEquals(2L, orderBookService.getTierStatistics().get("hot_books"));
+    }
+
+    @Test
+    @DisplayName("Closing waits for an order still being placed, then cancels it with the rest")
+    public void testCloseWaitsForPinnedOrder() throws Exception {
+        // Given an order that is inside placeOrder, holding the book
+        CountDownLatch placing = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            placing.countDown();
+            proceed.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(persistenceService).saveOrder(any(), anyString());
+        Thread order = new Thread(() -> placeOrder(45, 10));
+        order.start();
+        assertTrue(placing.await(5, TimeUnit.SECONDS));
+
+        // When the market closes meanwhile
+        Thread close = new Thread(() -> orderBookService.closeOrderBook(MARKET_TICKER));
+        close.start();
+        close.join(200);
+
+        // Then the close waits and new orders are already turned away
+        assertTrue(close.isAlive());
+        verify(persistenceService, never()).cancelOpenOrdersForMarket(MARKET_TICKER);
+        assertThrows(IllegalArgumentException.class, () -> placeOrder(46, 5));
+
+        // And once the order is in, the close cancels after it and removes the book
+        proceed.countDown();
+        order.join(5000);
+        close.join(5000);
+        assertFalse(close.isAlive());
+        InOrder inOrder = inOrder(persistenceService);
+        inOrder.verify(persistenceService).saveOrder(any(), anyString());
+        inOrder.verify(persistenceService).cancelOpenOrdersForMarket(MARKET_TICKER);
+        assertFalse(orderBookService.hasOrderBook(MARKET_TICKER));
+    }
+
+    private static void sleepPastThreshold() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.kalshi.mock.service;
+
+import com.kalshi.mock.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderIntakeServiceTest {
+
+    private static final String MARKET_TICKER = "TEST-MARKET";
+
+    private OrderIntakeService orderIntakeService;
+
+    @BeforeEach
+    void setUp() {
+        orderIntakeService = new OrderIntakeService();
+        ReflectionTestUtils.setField(orderIntakeService, "queueCapacity", 2);
+        ReflectionTestUtils.setField(orderIntakeService, "retryAfterMillis", 1000L);
+    }
+
+    private void awaitQueued(long priority, long normal) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (orderIntakeService.getStatistics().get("queued_priority") != priority
+                || orderIntakeService.getStatistics().get("queued_normal") != normal) {
+            assertTrue(System.currentTimeMillis() < deadline, "requests were not queued");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    @DisplayName("Queued cancels run ahead of queued new orders, each lane in arrival order")
+    public void testPriorityLaneRunsFirst() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> executed = new CopyOnWriteArrayList<>();
+
+        // Given the market is busy, so everything after it waits its turn
+        CompletableFuture<String> blocker = occupy(MARKET_TICKER, release);
+
+        CompletableFuture<String> newOrder1 = submitAsync(OrderIntakeService.Lane.NORMAL, "new-1", executed);
+        awaitQueued(0, 1);
+        CompletableFuture<String> newOrder2 = submitAsync(OrderIntakeService.Lane.NORMAL, "new-2", executed);
+        awaitQueued(0, 2);
+        CompletableFuture<String> cancel1 = submitAsync(OrderIntakeService.Lane.PRIORITY, "cancel-1", executed);
+        awaitQueued(1, 2);
+        CompletableFuture<String> cancel2 = submitAsync(OrderIntakeService.Lane.PRIORITY, "cancel-2", executed);
+        awaitQueued(2, 2);
+
+        // When the market frees up
+        release.countDown();
+        CompletableFuture.allOf(blocker, newOrder1, newOrder2, cancel1, cancel2).get(5, TimeUnit.SECONDS);
+
+        // Then cancels run first, each lane in arrival order
+        assertEquals(List.of("cancel-1", "cancel-2", "new-1", "new-2"), executed);
+        assertEquals("cancel-1", cancel1.get());
+    }
+
+    @Test
+    @DisplayName("Exceptions from a request reach the caller unchanged")
+    public void testExceptionPropagates() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> orderIntakeService.submit(MARKET_TICKER, OrderIntakeService.Lane.NORMAL, () -> {
+                throw new IllegalArgumentException("Order not found");
+            }));
+        assertEquals("Order not found", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("A busy market does not hold up other markets, which run on the caller's thread")
+    public void testMarketsIndependent() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> blocker = occupy(MARKET_TICKER, release);
+
+        // When another market's request comes in while the first is busy
+        Thread caller = Thread.currentThread();
+        Thread ranOn = orderIntakeService.submit("OTHER-MARKET", OrderIntakeService.Lane.NORMAL, Thread::currentThread);
+
+        // Then it runs straight away, on the calling thread
+        assertSame(caller, ranOn);
+        release.countDown();
+        assertEquals("blocker", blocker.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("New orders past a market's queue capacity are refused; cancels still wait")
+    public void testQueueFullRefusesNewOrders() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> executed = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> blocker = occupy(MARKET_TICKER, release);
+
+        // Given the market already has as many new orders waiting as it allows
+        CompletableFuture<String> newOrder1 = submitAsync(OrderIntakeService.Lane.NORMAL, "new-1", executed);
+        CompletableFuture<String> newOrder2 = submitAsync(OrderIntakeService.Lane.NORMAL, "new-2", executed);
+        awaitQueued(0, 2);
+
+        // Then one more new order is refused with a retry hint
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+            () -> orderIntakeService.submit(MARKET_TICKER, OrderIntakeService.Lane.NORMAL, () -> "new-3"));
+        assertEquals(1000L, e.getRetryAfterMillis());
+
+        // But a cancel is still taken
+        CompletableFuture<String> cancel = submitAsync(OrderIntakeService.Lane.PRIORITY, "cancel", executed);
+        awaitQueued(1, 2);
+        release.countDown();
+        CompletableFuture.allOf(blocker, newOrder1, newOrder2, cancel).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("cancel", "new-1", "new-2"), executed);
+
+        // And the counts are published as metrics
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        orderIntakeService.bindTo(registry);
+        assertEquals(1.0, registry.get("order.intake.rejected").tag("reason", "queue_full").functionCounter().count());
+        assertEquals(3.0, registry.get("order.intake.executed").tag("lane", "normal").functionCounter().count());
+        assertEquals(0.0, registry.get("order.intake.queued").tag("lane", "normal").gauge().value());
+    }
+
+    /**
+     * Start a request on the market that holds its turn until released
+     */
+    private CompletableFuture<String> occupy(String marketTicker, CountDownLatch release) throws InterruptedException {
+        long executedBefore = orderIntakeService.getStatistics().get("executed_normal");
+        CompletableFuture<String> blocker = CompletableFuture.supplyAsync(() ->
+            orderIntakeService.submit(marketTicker, OrderIntakeService.Lane.NORMAL, () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "blocker";
+            }));
+        while (orderIntakeService.getStatistics().get("executed_normal") <= executedBefore) {
+            Thread.sleep(5);
+        }
+        return blocker;
+    }
+
+    private CompletableFuture<String> submitAsync(OrderIntakeService.Lane lane, String name, List<String> executed) {
+        return CompletableFuture.supplyAsync(() -> orderIntakeService.submit(MARKET_TICKER, lane, () -> {
+            executed.add(name);
+            return name;
+        }));
+    }
+}
@@ -0,0 +1,123 @@
+package com.kalshi.mock.service;
+
+import com.fbg.api.market.KalshiSide;
+import com.fbg.api.rest.Order;
+import com.kalshi.mock.event.OrderUpdateEvent;
+import com.kalshi.mock.event.OrderUpdateEventPublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class OrderTrackingServiceTest {
+
+    @Mock
+    private PersistenceService persistenceService;
+
+    @Mock
+    private OrderUpdateEventPublisher orderUpdateEventPublisher;
+
+    @InjectMocks
+    private OrderTrackingService orderTrackingService;
+
+    private static final String MARKET_TICKER = "TEST-MARKET";
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orderTrackingService, "terminalCapacity", 2);
+        ReflectionTestUtils.setField(orderTrackingService, "terminalTtlMillis", 60_000L);
+    }
+
+    private static Order order(String orderId, String status) {
+        return new Order(orderId, null, "user1", KalshiSide.yes, MARKET_TICKER, "limit",
+            10, 0, 10, 45, null, status, "GTC", 0L, 0L, null);
+    }
+
+    @Test
+    @DisplayName("Startup loads only active orders")
+    public void testStartupLoadsActiveOrders() {
+        when(persistenceService.getActiveOrders()).thenReturn(List.of(order("ORD-1", "open")));
+
+        orderTrackingService.initialize();
+
+        verify(persistenceService, never()).getAllOrders();
+        assertEquals(1L, orderTrackingService.getCacheStatistics().get("size"));
+        assertEquals(1, orderTrackingService.getOrdersForMarket(MARKET_TICKER, "open", 100).size());
+    }
+
+    @Test
+    @DisplayName("Terminal orders beyond capacity are evicted least recently used first; open orders stay")
+    public void testTerminalCapacity() {
+        orderTrackingService.trackNewOrder(order("ORD-OPEN", "open"), "buy");
+        for (int i = 1; i <= 3; i++) {
+            orderTrackingService.trackNewOrder(order("ORD-" + i, "open"), "buy");
+            orderTrackingService.updateOrder(order("ORD-" + i, "filled"), "buy", OrderUpdateEvent.OrderUpdateType.FILL);
+        }
+
+        assertEquals(3L, orderTrackingService.getCacheStatistics().get("size"));
+        assertEquals(1L, orderTrackingService.getCacheStatistics().get("evictions"));
+        assertEquals(2, orderTrackingService.getOrdersByStatus("filled").size());
+        assertNotNull(orderTrackingService.getOrder("ORD-OPEN"));
+        assertEquals(0L, orderTrackingService.getCacheStatistics().get("misses"));
+    }
+
+    @Test
+    @DisplayName("Evicted orders are read from the database and counted as misses")
+    public void testMissFallsThrough() {
+        when(persistenceService.getOrder("ORD-9")).thenReturn(order("ORD-9", "canceled"));
+
+        assertEquals("ORD-9", orderTrackingService.getOrder("ORD-9").getId());
+        assertEquals("ORD-9", orderTrackingService.getOrder("ORD-9").getId());
+
+        verify(persistenceService, times(1)).getOrder("ORD-9");
+        assertEquals(1L, orderTrackingService.getCacheStatistics().get("misses"));
+        assertEquals(1L, orderTrackingService.getCacheStatistics().get("hits"));
+        assertEquals(1L, orderTrackingService.getCacheStatistics().get("terminal_size"));
+    }
+
+    @Test
+    @DisplayName("Expired terminal orders are swept; history queries go to the database")
+    public void testSweepAndHistory() {
+        orderTrackingService.trackNewOrder(order("ORD-1", "canceled"), "buy");
+        ReflectionTestUtils.setField(orderTrackingService, "terminalTtlMillis", -1L);
+
+        orderTrackingService.evictExpiredOrders();
+
+        assertEquals(0L, orderTrackingService.getCacheStatistics().get("size"));
+        when(persistenceService.getMarketOrders(MARKET_TICKER, null, 100)).thenReturn(List.of(order("ORD-1", "canceled")));
+        assertEquals(1, orderTrackingService.getOrdersForMarket(MARKET_TICKER, null, 100).size());
+    }
+
+    @Test
+    @DisplayName("Order lists are bounded: history by the query's LIMIT, active orders newest first in memory")
+    public void testOrderListsBounded() {
+        // Given three open orders in memory
+        for (int i = 1; i <= 3; i++) {
+            orderTrackingService.trackNewOrder(new Order("ORD-" + i, null, "user1", KalshiSide.yes, MARKET_TICKER,
+                "limit", 10, 0, 10, 45, null, "open", "GTC", 1000L + i, 1000L + i, null), "buy");
+        }
+
+        // Then an active-status query returns the newest up to the limit
+        assertEquals(List.of("ORD-3", "ORD-2"), orderTrackingService.getOrdersForUser("user1", "open", 2)
+            .stream().map(Order::getId).toList());
+
+        // And history queries pass the limit to the database
+        orderTrackingService.getOrdersForUser("user1", "canceled", 5);
+        verify(persistenceService).getUserOrdersBefore("user1", null, "canceled", null, null, 5);
+        orderTrackingService.getOrdersForMarket(MARKET_TICKER, null, 5);
+        verify(persistenceService).getMarketOrders(MARKET_TICKER, null, 5);
+    }
+}
@@ -0,0 +1,83 @@
+package com.kalshi.mock.service;
+
+import com.fbg.api.market.KalshiSide;
+import com.fbg.api.rest.Fill;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class PersistenceServiceFillTest {
+
+    private static final String USER_ID = "TEST-USER-001";
+    private static final String MARKET_TICKER = "TEST-MARKET";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private HistoryPartitionService historyPartitionService;
+
+    @InjectMocks
+    private PersistenceService persistenceService;
+
+    private long retainedSince;
+
+    @BeforeEach
+    void setUp() {
+        retainedSince = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(30);
+        when(historyPartitionService.retainedSince("fills")).thenReturn(retainedSince);
+    }
+
+    private Fill fill(String fillId) {
+        return new Fill(fillId, "ORD-1", MARKET_TICKER, MARKET_TICKER, KalshiSide.yes, 45, 1, true,
+            System.currentTimeMillis(), "T-" + fillId);
+    }
+
+    @Test
+    @DisplayName("A fill is inserted without probing every partition for its fill_id")
+    public void testFillInsertedWithoutUniquenessProbe() {
+        // When
+        persistenceService.saveFill(fill("FILL-2"), USER_ID);
+
+        // Then
+        verify(jdbcTemplate).update(contains("INSERT INTO fills"), any(Object[].class));
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Integer.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Fill reads are bounded by the archive cut-off or the order's created time")
+    @SuppressWarnings("unchecked")
+    public void testFillReadsBoundedByTime() {
+        // When
+        persistenceService.getUserFills(USER_ID);
+        persistenceService.getUserFillsByMarket(USER_ID, MARKET_TICKER);
+        persistenceService.getUserFillsBefore(USER_ID, null, null, null, null, 50);
+        persistenceService.getFillsByOrderId("ORD-1", 1_700_000_000_000L);
+
+        // Then - Every query carries a lower filled_time bound
+        verify(jdbcTemplate).query(contains("filled_time >= ?"), any(RowMapper.class),
+            eq(USER_ID), eq(retainedSince));
+        verify(jdbcTemplate).query(contains("filled_time >= ?"), any(RowMapper.class),
+            eq(USER_ID), eq(MARKET_TICKER), eq(retainedSince));
+        verify(jdbcTemplate).query(contains("filled_time >= ?"), any(RowMapper.class),
+            eq(USER_ID), eq(retainedSince), eq(50));
+        verify(jdbcTemplate).query(contains("filled_time >= ?"), any(RowMapper.class),
+            eq("ORD-1"), eq(1_700_000_000_000L));
+    }
+}
@@ -99,10 +99,11 @@ public class PersistenceServicePositionTest {
         persistenceService.updatePosition(USER_ID, MARKET_ID, MARKET_TICKER, KalshiSide.yes, 100, 65);
         
         // Sell 30 @ 75¢ (reducing position)
-        persistenceService.updatePosition(USER_ID, MARKET_ID, MARKET_TICKER, KalshiSide.yes, -30, 75);
+        Position written = persistenceService.updatePosition(USER_ID, MARKET_ID, MARKET_TICKER, KalshiSide.yes, -30, 75);
         
-        // Verify position was reduced
+        // Verify position was reduced, and the update returned the stored row
         Position position = persistenceService.getUserPosition(USER_ID, MARKET_TICKER, KalshiSide.yes);
+        assertEquals(position, written);
         assertEquals(70, position.getQuantity());
         assertEquals(65, position.getAvg_price()); // Avg price stays same when reducing
         assertEquals(4550, position.getTotal_cost()); // 70 * 65
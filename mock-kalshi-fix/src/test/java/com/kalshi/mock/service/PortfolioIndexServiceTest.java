@@ -0,0 +1,200 @@
+package com.kalshi.mock.service;
+
+import com.fbg.api.market.KalshiSide;
+import com.fbg.api.rest.Fill;
+import com.fbg.api.rest.Order;
+import com.fbg.api.rest.Position;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class PortfolioIndexServiceTest {
+
+    @Mock
+    private PersistenceService persistenceService;
+
+    @InjectMocks
+    private PortfolioIndexService portfolioIndexService;
+
+    private static final String USER_ID = "USER-1";
+    private static final String MARKET_TICKER = "TEST-MARKET";
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(portfolioIndexService, "recentOrdersPerUser", 3);
+        ReflectionTestUtils.setField(portfolioIndexService, "recentFillsPerUser", 3);
+        when(persistenceService.getUserOrdersBefore(eq(USER_ID), any(), any(), any(), any(), anyInt())).thenReturn(List.of());
+        when(persistenceService.getUserOrdersByStatus(eq(USER_ID), anyString())).thenReturn(List.of());
+        when(persistenceService.getUserFillsBefore(eq(USER_ID), any(), any(), any(), any(), anyInt())).thenReturn(List.of());
+        when(persistenceService.getUserPositions(USER_ID)).thenReturn(List.of());
+    }
+
+    private static Order order(String orderId, long createdTime, String status) {
+        return new Order(orderId, null, USER_ID, KalshiSide.yes, MARKET_TICKER, "limit",
+            10, 0, 10, 45, null, status, "GTC", createdTime, createdTime, null);
+    }
+
+    private static Fill fill(String fillId, long createdTime) {
+        return new Fill(fillId, "ORD-1", MARKET_TICKER, MARKET_TICKER, KalshiSide.yes, 45, 1, true, createdTime, "T-" + fillId);
+    }
+
+    @Test
+    @DisplayName("Orders page newest first from memory with keyset cursors")
+    public void testOrdersPagedFromMemory() {
+        portfolioIndexService.getOrders(USER_ID, null, null, null, 10);
+        for (int i = 1; i <= 3; i++) {
+            portfolioIndexService.onOrder(order("ORD-" + i, 1000L + i, "open"));
+        }
+
+        PortfolioIndexService.Page<Order> first = portfolioIndexService.getOrders(USER_ID, null, null, null, 2);
+        assertEquals(List.of("ORD-3", "ORD-2"), first.getItems().stream().map(Order::getId).toList());
+        assertNotNull(first.getCursor());
+
+        PortfolioIndexService.Page<Order> second = portfolioIndexService.getOrders(USER_ID, null, null, first.getCursor(), 2);
+        assertEquals(List.of("ORD-1"), second.getItems().stream().map(Order::getId).toList());
+        assertNull(second.getCursor());
+
+        // Loaded once, never queried again
+        verify(persistenceService, times(1)).getUserOrdersBefore(eq(USER_ID), any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Pages past the window continue from the database; open orders are always in memory")
+    public void testWindowFallsThroughToDatabase() {
+        portfolioIndexService.getOrders(USER_ID, null, null, null, 10);
+        portfolioIndexService.onOrder(order("ORD-0", 1000L, "open"));
+        for (int i = 1; i <= 4; i++) {
+            portfolioIndexService.onOrder(order("ORD-" + i, 1000L + i, "filled"));
+        }
+        when(persistenceService.getUserOrdersBefore(USER_ID, null, null, 1002L, "ORD-2", 7))
+            .thenReturn(List.of(order("ORD-1", 1001L, "filled"), order("ORD-0", 1000L, "open")));
+
+        PortfolioIndexService.Page<Order> page = portfolioIndexService.getOrders(USER_ID, null, null, null, 10);
+
+        assertEquals(List.of("ORD-4", "ORD-3", "ORD-2", "ORD-1", "ORD-0"),
+            page.getItems().stream().map(Order::getId).toList());
+
+        PortfolioIndexService.Page<Order> open = portfolioIndexService.getOrders(USER_ID, null, "open", null, 10);
+        assertEquals(List.of("ORD-0"), open.getItems().stream().map(Order::getId).toList());
+        verify(persistenceService, never()).getUserOrdersBefore(eq(USER_ID), any(), eq("open"), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Fills are indexed and the touched position is taken as written")
+    public void testFillsAndPositions() {
+        portfolioIndexService.getPositions(USER_ID);
+        Position position = new Position(MARKET_TICKER, MARKET_TICKER, 5, 45, KalshiSide.yes, 0, 225);
+
+        portfolioIndexService.onFill(fill("F-1", 1000L), USER_ID, position);
+
+        assertEquals(List.of(position), portfolioIndexService.getPositions(USER_ID));
+        assertEquals(1, portfolioIndexService.getFills(USER_ID, MARKET_TICKER, null, null, 10).getItems().size());
+
+        portfolioIndexService.onFill(fill("F-2", 1001L), USER_ID,
+            new Position(MARKET_TICKER, MARKET_TICKER, 0, 0, KalshiSide.yes, 0, 0));
+        assertTrue(portfolioIndexService.getPositions(USER_ID).isEmpty());
+        // No read back of a position the fill just wrote
+        verify(persistenceService, never()).getUserPosition(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Invalid cursors and limits are rejected")
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+            () -> portfolioIndexService.getOrders(USER_ID, null, null, "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class,
+            () -> portfolioIndexService.getFills(USER_ID, null, null, null, 0));
+    }
+
+    @Test
+    @DisplayName("A fill arriving while its user loads is applied after the load; other users are not held up")
+    public void testFillDuringLoadAppliedAfterIt() throws Exception {
+        // Given the user's load is stuck in the database
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(persistenceService.getUserPositions(USER_ID)).thenAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+        CompletableFuture<PortfolioIndexService.Page<Fill>> reader =
+            CompletableFuture.supplyAsync(() -> portfolioIndexService.getFills(USER_ID, null, null, null, 10));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // When a fill comes in, and another user is read, during the load
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> portfolioIndexService.onFill(fill("F-1", 1000L), USER_ID, null));
+        assertTrue(portfolioIndexService.getPositions("USER-2").isEmpty());
+        assertFalse(writer.isDone());
+        release.countDown();
+        writer.get(5, TimeUnit.SECONDS);
+        reader.get(5, TimeUnit.SECONDS);
+
+        // Then the fill is in the index, which was loaded once
+        assertEquals(List.of("F-1"), portfolioIndexService.getFills(USER_ID, null, null, null, 10)
+            .getItems().stream().map(Fill::getId).toList());
+        verify(persistenceService, times(1)).getUserPositions(USER_ID);
+    }
+
+    @Test
+    @DisplayName("A failed load is not kept; the next request loads again")
+    public void testFailedLoadRetried() {
+        when(persistenceService.getUserPositions(USER_ID))
+            .thenThrow(new IllegalStateException("database unavailable"))
+            .thenReturn(List.of());
+
+        assertThrows(IllegalStateException.class, () -> portfolioIndexService.getPositions(USER_ID));
+        // Nothing is loaded, so updates are left to the next load
+        portfolioIndexService.onOrder(order("ORD-1", 1000L, "open"));
+
+        assertTrue(portfolioIndexService.getPositions(USER_ID).isEmpty());
+        verify(persistenceService, times(2)).getUserPositions(USER_ID);
+    }
+
+    @Test
+    @DisplayName("Users not read within the idle window are dropped and loaded again on their next request")
+    @SuppressWarnings("unchecked")
+    public void testIdleUsersEvicted() {
+        // Given one user read long ago and one read just now
+        ReflectionTestUtils.setField(portfolioIndexService, "idleTtlMillis", 60_000L);
+        portfolioIndexService.getPositions(USER_ID);
+        portfolioIndexService.getPositions("USER-2");
+        Map<String, ?> users = (Map<String, ?>) ReflectionTestUtils.getField(portfolioIndexService, "users");
+        ReflectionTestUtils.setField(users.get(USER_ID), "lastAccess", System.currentTimeMillis() - 120_000L);
+
+        // When the sweep runs
+        portfolioIndexService.evictIdleUsers();
+
+        // Then only the idle user is gone, fills for it are left to the next load, and that load reads again
+        assertEquals(Set.of("USER-2"), users.keySet());
+        portfolioIndexService.onFill(fill("F-1", 1000L), USER_ID, null);
+        assertEquals(Set.of("USER-2"), users.keySet());
+        portfolioIndexService.getPositions(USER_ID);
+        verify(persistenceService, times(2)).getUserPositions(USER_ID);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        portfolioIndexService.bindTo(registry);
+        assertEquals(2.0, registry.get("portfolio.index.users").gauge().value());
+        assertEquals(1.0, registry.get("portfolio.index.evictions").functionCounter().count());
+    }
+}
@@ -0,0 +1,127 @@
+package com.kalshi.mock.websocket.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalshi.mock.dto.OrderbookResponse;
+import com.kalshi.mock.event.OrderBookEvent;
+import com.kalshi.mock.service.OrderBookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StompBroadcastServiceTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private OrderBookService orderBookService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private StompBroadcastService stompBroadcastService;
+
+    private static final String MARKET_TICKER = "TEST-MARKET";
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stompBroadcastService, "depth", 10);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> sentPayloads() throws Exception {
+        ArgumentCaptor<Message<?>> captor = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, atLeast(0)).send(eq("/topic/orderbook/" + MARKET_TICKER), captor.capture());
+        List<Map<String, Object>> payloads = new ArrayList<>();
+        for (Message<?> message : captor.getAllValues()) {
+            payloads.add(objectMapper.readValue((byte[]) message.getPayload(), Map.class));
+        }
+        return payloads;
+    }
+
+    @Test
+    @DisplayName("Book changes within a tick are sent once with the latest book")
+    public void testBookConflated() throws Exception {
+        when(orderBookService.getOrderbookKalshiFormat(MARKET_TICKER, 10))
+            .thenReturn(new OrderbookResponse.OrderbookData(List.of(List.of(45, 30)), List.of()));
+
+        for (int i = 0; i < 3; i++) {
+            stompBroadcastService.onOrderBookEvent(new OrderBookEvent(OrderBookEvent.EventType.DELTA, MARKET_TICKER,
+                new OrderBookEvent.DeltaData(45, 10, "yes")));
+        }
+        stompBroadcastService.flush();
+        stompBroadcastService.flush();
+
+        List<Map<String, Object>> payloads = sentPayloads();
+        assertEquals(1, payloads.size());
+        assertEquals("SNAPSHOT", payloads.get(0).get("type"));
+        assertEquals(List.of(List.of(45, 30)), payloads.get(0).get("yes"));
+    }
+
+    @Test
+    @DisplayName("Only the latest ticker is sent, while every trade is delivered in order")
+    @SuppressWarnings("unchecked")
+    public void testTickersConflatedTradesKept() throws Exception {
+        stompBroadcastService.onOrderBookEvent(new OrderBookEvent(OrderBookEvent.EventType.TICKER_UPDATE, MARKET_TICKER,
+            new OrderBookEvent.TickerData(MARKET_TICKER, 44, 1, 44, 46)));
+        stompBroadcastService.onOrderBookEvent(new OrderBookEvent(OrderBookEvent.EventType.TICKER_UPDATE, MARKET_TICKER,
+            new OrderBookEvent.TickerData(MARKET_TICKER, 45, 2, 45, 46)));
+        stompBroadcastService.onOrderBookEvent(new OrderBookEvent(OrderBookEvent.EventType.TRADE, MARKET_TICKER,
+            new OrderBookEvent.TradeData(44, 1, "yes", "T-1")));
+        stompBroadcastService.onOrderBookEvent(new OrderBookEvent(OrderBookEvent.EventType.TRADE, MARKET_TICKER,
+            new OrderBookEvent.TradeData(45, 1, "yes", "T-2")));
+
+        stompBroadcastService.flush();
+
+        List<Map<String, Object>> payloads = sentPayloads();
+        assertEquals(3, payloads.size());
+        assertEquals(45, ((Map<String, Object>) payloads.get(0).get("data")).get("lastPrice"));
+        assertEquals("T-1", ((Map<String, Object>) payloads.get(1).get("data")).get("tradeId"));
+        assertEquals("T-2", ((Map<String, Object>) payloads.get(2).get("data")).get("tradeId"));
+        verifyNoInteractions(orderBookService);
+    }
+
+    @Test
+    @DisplayName("Ticks run on the broadcaster's own thread and keep going after a failed flush")
+    public void testOwnTickThreadSurvivesFailure() throws Exception {
+        // Given the first book read fails
+        when(orderBookService.getOrderbookKalshiFormat(MARKET_TICKER, 10))
+            .thenThrow(new IllegalStateException("book unavailable"))
+            .thenReturn(new OrderbookResponse.OrderbookData(List.of(List.of(45, 30)), List.of()));
+        ReflectionTestUtils.setField(stompBroadcastService, "tickMillis", 10L);
+        stompBroadcastService.init();
+
+        try {
+            // When the market changes before and after the failure
+            stompBroadcastService.onOrderBookEvent(new OrderBookEvent(OrderBookEvent.EventType.DELTA, MARKET_TICKER,
+                new OrderBookEvent.DeltaData(45, 10, "yes")));
+            verify(orderBookService, timeout(2000)).getOrderbookKalshiFormat(MARKET_TICKER, 10);
+            stompBroadcastService.onOrderBookEvent(new OrderBookEvent(OrderBookEvent.EventType.DELTA, MARKET_TICKER,
+                new OrderBookEvent.DeltaData(45, 10, "yes")));
+
+            // Then a later tick still sends the book
+            verify(messagingTemplate, timeout(2000)).send(eq("/topic/orderbook/" + MARKET_TICKER), any(Message.class));
+        } finally {
+            stompBroadcastService.shutdown();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.kalshi.mock.websocket.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kalshi.mock.event.OrderBookEvent;
+import com.kalshi.mock.service.EventBookService;
+import com.kalshi.mock.service.OrderBookService;
+import com.kalshi.mock.websocket.dto.OrderbookDelta;
+import com.kalshi.mock.websocket.dto.OrderbookSnapshot;
+import com.kalshi.mock.websocket.dto.WebSocketMessage;
+import com.kalshi.mock.websocket.handler.KalshiWebSocketHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WebSocketPublisherTest {
+
+    @Spy
+    private SubscriptionManager subscriptionManager = new SubscriptionManager();
+
+    @Mock
+    private KalshiWebSocketHandler webSocketHandler;
+
+    @Mock
+    private OrderBookService orderBookService;
+
+    @Mock
+    private EventBookService eventBookService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private WebSocketPublisher webSocketPublisher;
+
+    private static final String MARKET_TICKER = "TEST-MARKET";
+    private static final String SESSION_ID = "session-1";
+
+    @BeforeEach
+    void setUp() {
+        subscriptionManager.subscribe(SESSION_ID, "orderbook_delta", List.of(MARKET_TICKER));
+        subscriptionManager.subscribe(SESSION_ID, "orderbook_snapshot", List.of(MARKET_TICKER));
+    }
+
+    private void delta(int price, long sequence) {
+        webSocketPublisher.onOrderBookEvent(new OrderBookEvent(OrderBookEvent.EventType.DELTA, MARKET_TICKER,
+            new OrderBookEvent.DeltaData(price, 10, "yes", sequence)));
+    }
+
+    private void snapshot(int price, long sequence) {
+        webSocketPublisher.onOrderBookEvent(new OrderBookEvent(OrderBookEvent.EventType.SNAPSHOT, MARKET_TICKER,
+            snapshotData(price, sequence)));
+    }
+
+    private OrderBookEvent.SnapshotData snapshotData(int price, long sequence) {
+        return new OrderBookEvent.SnapshotData(List.of(List.of(price, 10)), List.of(), sequence);
+    }
+
+    // "d<price>" for deltas, "s<best yes price>" for snapshots, in send order
+    private List<String> sent() throws Exception {
+        ArgumentCaptor<WebSocketMessage> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(webSocketHandler, atLeast(0)).sendSequenced(eq(SESSION_ID), any(), captor.capture());
+        List<String> frames = new ArrayList<>();
+        for (WebSocketMessage message : captor.getAllValues()) {
+            if (message.getMsg() instanceof OrderbookDelta) {
+                frames.add("d" + ((OrderbookDelta) message.getMsg()).getPrice());
+            } else {
+                frames.add("s" + ((OrderbookSnapshot) message.getMsg()).getYes().get(0).get(0));
+            }
+        }
+        return frames;
+    }
+
+    @Test
+    @DisplayName("Deltas dispatched out of order are sent in book order")
+    public void testDeltasReordered() throws Exception {
+        // Given the event threads deliver a market's deltas out of order
+        delta(42, 2);
+        delta(41, 1);
+        delta(43, 3);
+
+        // Then subscribers get them in the book's delta order
+        assertEquals(List.of("d41", "d42", "d43"), sent());
+    }
+
+    @Test
+    @DisplayName("A snapshot is sent right after the last delta it includes, on the delta sid")
+    public void testSnapshotPlacedAfterItsDelta() throws Exception {
+        // Given a snapshot as of delta 2 that arrives before delta 2 does
+        delta(41, 1);
+        snapshot(50, 2);
+        delta(42, 2);
+        delta(43, 3);
+
+        // Then it goes out between delta 2 and delta 3
+        assertEquals(List.of("d41", "d42", "s50", "d43"), sent());
+
+        // And on the session's delta subscription, so its seq runs on from the deltas
+        ArgumentCaptor<SubscriptionManager.SubscriptionInfo> subscriptions =
+            ArgumentCaptor.forClass(SubscriptionManager.SubscriptionInfo.class);
+        verify(webSocketHandler, times(4)).sendSequenced(eq(SESSION_ID), subscriptions.capture(), any());
+        assertTrue(subscriptions.getAllValues().stream().allMatch(s -> "orderbook_delta".equals(s.getChannel())));
+    }
+
+    @Test
+    @DisplayName("A snapshot older than the deltas already sent is taken again")
+    public void testOutdatedSnapshotRecaptured() throws Exception {
+        // Given deltas 1 and 2 have gone out
+        delta(41, 1);
+        delta(42, 2);
+        when(orderBookService.getDeltaStreamSnapshot(MARKET_TICKER)).thenReturn(snapshotData(60, 2));
+
+        // When a snapshot as of delta 1 arrives
+        snapshot(50, 1);
+
+        // Then the current one is sent instead
+        assertEquals(List.of("d41", "d42", "s60"), sent());
+    }
+}